@@ -22,7 +22,11 @@
 package org.jboss.as.clustering.web.infinispan;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.jboss.as.clustering.web.OutgoingSessionGranularitySessionData;
 import org.jboss.as.clustering.web.SessionAttributeMarshaller;
@@ -30,6 +34,11 @@ import org.jboss.metadata.web.jboss.ReplicationGranularity;
 
 /**
  * Handles session attribute load/store operations for {@link ReplicationGranularity#SESSION} distributed session managers.
+ * <p/>
+ * The entire attribute map is stored as a single entry. When a session replicates only the changes to its attribute map,
+ * each modified attribute is stored as an entry of its own, and the names of the removed attributes in another entry, so
+ * that only these entries are replicated. They are applied on top of the attribute map when it is loaded, and dropped
+ * when the entire attribute map is next stored.
  *
  * @author Paul Ferraro
  */
@@ -51,6 +60,43 @@ public class CoarseSessionAttributeStorage implements SessionAttributeStorage<Ou
         Map<String, Object> attributes = sessionData.getSessionAttributes();
         if (attributes != null) {
             SessionMapEntry.ATTRIBUTES.put(map, this.marshaller.marshal(attributes));
+            // The attribute map supersedes the changes stored since the previous one
+            for (Object key : new ArrayList<Object>(map.keySet())) {
+                if (key instanceof String) {
+                    map.remove(key);
+                }
+            }
+            SessionMapEntry.REMOVED_ATTRIBUTES.remove(map);
+            return;
+        }
+
+        Map<String, Object> modified = sessionData.getModifiedSessionAttributes();
+        Set<String> removed = sessionData.getRemovedSessionAttributes();
+        if ((modified == null) && (removed == null)) {
+            return;
+        }
+
+        Set<String> previouslyRemoved = SessionMapEntry.REMOVED_ATTRIBUTES.get(map);
+        // Copy, rather than modify, the value in the map
+        Set<String> allRemoved = (previouslyRemoved != null) ? new HashSet<String>(previouslyRemoved) : new HashSet<String>();
+        if (modified != null) {
+            for (Map.Entry<String, Object> entry : modified.entrySet()) {
+                map.put(entry.getKey(), this.marshaller.marshal(entry.getValue()));
+                allRemoved.remove(entry.getKey());
+            }
+        }
+        if (removed != null) {
+            for (String attribute : removed) {
+                map.remove(attribute);
+                allRemoved.add(attribute);
+            }
+        }
+        if (!allRemoved.isEmpty()) {
+            if (!allRemoved.equals(previouslyRemoved)) {
+                SessionMapEntry.REMOVED_ATTRIBUTES.put(map, allRemoved);
+            }
+        } else if (previouslyRemoved != null) {
+            SessionMapEntry.REMOVED_ATTRIBUTES.remove(map);
         }
     }
 
@@ -62,6 +108,27 @@ public class CoarseSessionAttributeStorage implements SessionAttributeStorage<Ou
     @SuppressWarnings("unchecked")
     @Override
     public Map<String, Object> load(Map<Object, Object> map) throws IOException, ClassNotFoundException {
-        return (Map<String, Object>) this.marshaller.unmarshal(SessionMapEntry.ATTRIBUTES.get(map));
+        Map<String, Object> attributes = (Map<String, Object>) this.marshaller.unmarshal(SessionMapEntry.ATTRIBUTES.get(map));
+
+        // Apply the changes stored since the attribute map
+        Set<String> removed = SessionMapEntry.REMOVED_ATTRIBUTES.get(map);
+        Map<String, Object> result = (removed != null) ? copy(attributes) : null;
+        for (Map.Entry<Object, Object> entry : map.entrySet()) {
+            Object key = entry.getKey();
+            if (key instanceof String) {
+                if (result == null) {
+                    result = copy(attributes);
+                }
+                result.put((String) key, this.marshaller.unmarshal(entry.getValue()));
+            }
+        }
+        if (removed != null) {
+            result.keySet().removeAll(removed);
+        }
+        return (result != null) ? result : attributes;
+    }
+
+    private static Map<String, Object> copy(Map<String, Object> attributes) {
+        return (attributes != null) ? new HashMap<String, Object>(attributes) : new HashMap<String, Object>();
     }
 }
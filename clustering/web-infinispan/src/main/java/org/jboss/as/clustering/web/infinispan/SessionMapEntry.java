@@ -22,6 +22,7 @@
 package org.jboss.as.clustering.web.infinispan;
 
 import java.util.Map;
+import java.util.Set;
 
 import org.jboss.as.clustering.web.DistributableSessionMetadata;
 
@@ -32,7 +33,7 @@ import org.jboss.as.clustering.web.DistributableSessionMetadata;
  * @author Paul Ferraro
  */
 public enum SessionMapEntry {
-    VERSION(Integer.class), TIMESTAMP(Long.class), METADATA(DistributableSessionMetadata.class), ATTRIBUTES(Object.class);
+    VERSION(Integer.class), TIMESTAMP(Long.class), METADATA(DistributableSessionMetadata.class), ATTRIBUTES(Object.class), REMOVED_ATTRIBUTES(Set.class);
 
     private Class<?> targetClass;
 
@@ -70,6 +71,17 @@ public enum SessionMapEntry {
         return this.<T> cast(map.put(this.key(), value));
     }
 
+    /**
+     * Removes this entry from the specified map.
+     *
+     * @param <T> the value type
+     * @param data an atomic map
+     * @return the old entry value, or null if no previous entry existed
+     */
+    public <T> T remove(Map<Object, Object> map) {
+        return this.<T> cast(map.remove(this.key()));
+    }
+
     @SuppressWarnings("unchecked")
     private <T> T cast(Object value) {
         Class<T> targetClass = (Class<T>) this.targetClass;
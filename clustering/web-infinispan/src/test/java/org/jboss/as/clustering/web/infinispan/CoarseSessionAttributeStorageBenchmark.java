@@ -0,0 +1,171 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.clustering.web.infinispan;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.jboss.as.clustering.web.DistributableSessionMetadata;
+import org.jboss.as.clustering.web.OutgoingSessionGranularitySessionData;
+import org.jboss.as.clustering.web.SessionAttributeMarshaller;
+
+/**
+ * Compares the bytes a {@link CoarseSessionAttributeStorage} writes per request when the entire attribute map of a session
+ * is replicated with those written when only the modified attributes are, with a full replication every so many
+ * requests. Only the entries a request writes to the session's map are counted, as that is what an atomic map
+ * replicates.
+ * <p/>
+ * This is not run as part of the test suite, run it with:
+ * <pre>java -cp ... org.jboss.as.clustering.web.infinispan.CoarseSessionAttributeStorageBenchmark [attributes] [attribute size] [requests]</pre>
+ */
+public class CoarseSessionAttributeStorageBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int attributes = (args.length > 0) ? Integer.parseInt(args[0]) : 200;
+        int size = (args.length > 1) ? Integer.parseInt(args[1]) : 1024;
+        int requests = (args.length > 2) ? Integer.parseInt(args[2]) : 1000;
+
+        // warm up
+        run(attributes, size, requests / 10, 0);
+        run(attributes, size, requests / 10, 10);
+
+        System.out.printf("%d attributes of %d bytes, one modified per request%n", attributes, size);
+        for (int interval : new int[] { 0, 10, 100 }) {
+            long start = System.nanoTime();
+            long bytes = run(attributes, size, requests, interval);
+            long elapsed = System.nanoTime() - start;
+            System.out.printf("full replication interval %3d: %8d bytes/request, %6d us/request%n", interval, bytes / requests, elapsed / requests / 1000);
+        }
+    }
+
+    private static long run(int attributeCount, int size, int requests, int interval) throws IOException {
+        CountingMarshaller marshaller = new CountingMarshaller();
+        CoarseSessionAttributeStorage storage = new CoarseSessionAttributeStorage(marshaller);
+        Map<Object, Object> map = new HashMap<Object, Object>();
+        Map<String, Object> attributes = new HashMap<String, Object>();
+        for (int i = 0; i < attributeCount; i++) {
+            attributes.put("attribute" + i, new Value(size));
+        }
+
+        int deltas = interval;
+        for (int request = 0; request < requests; request++) {
+            String name = "attribute" + (request % attributeCount);
+            Value value = new Value(size);
+            attributes.put(name, value);
+            if (deltas < interval) {
+                deltas += 1;
+                storage.store(map, new Data(null, Collections.<String, Object>singletonMap(name, value)));
+            } else {
+                deltas = 0;
+                storage.store(map, new Data(new HashMap<String, Object>(attributes), null));
+            }
+        }
+        return marshaller.bytes;
+    }
+
+    static class Value implements Serializable {
+        private static final long serialVersionUID = 1L;
+        private final byte[] bytes;
+
+        Value(int size) {
+            this.bytes = new byte[size];
+        }
+    }
+
+    static class CountingMarshaller implements SessionAttributeMarshaller {
+        long bytes;
+
+        @Override
+        public Object marshal(Object object) throws IOException {
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ObjectOutputStream stream = new ObjectOutputStream(output);
+            stream.writeObject(object);
+            stream.close();
+            this.bytes += output.size();
+            return output.toByteArray();
+        }
+
+        @Override
+        public Object unmarshal(Object object) throws IOException, ClassNotFoundException {
+            ObjectInputStream stream = new ObjectInputStream(new ByteArrayInputStream((byte[]) object));
+            try {
+                return stream.readObject();
+            } finally {
+                stream.close();
+            }
+        }
+    }
+
+    static class Data implements OutgoingSessionGranularitySessionData {
+        private final Map<String, Object> attributes;
+        private final Map<String, Object> modifiedAttributes;
+
+        Data(Map<String, Object> attributes, Map<String, Object> modifiedAttributes) {
+            this.attributes = attributes;
+            this.modifiedAttributes = modifiedAttributes;
+        }
+
+        @Override
+        public Map<String, Object> getSessionAttributes() {
+            return this.attributes;
+        }
+
+        @Override
+        public Map<String, Object> getModifiedSessionAttributes() {
+            return this.modifiedAttributes;
+        }
+
+        @Override
+        public Set<String> getRemovedSessionAttributes() {
+            return null;
+        }
+
+        @Override
+        public String getRealId() {
+            return "session";
+        }
+
+        @Override
+        public int getVersion() {
+            return 0;
+        }
+
+        @Override
+        public Long getTimestamp() {
+            return null;
+        }
+
+        @Override
+        public DistributableSessionMetadata getMetadata() {
+            return null;
+        }
+    }
+}
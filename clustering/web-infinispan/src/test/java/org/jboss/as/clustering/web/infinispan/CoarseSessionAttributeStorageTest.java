@@ -25,7 +25,10 @@ import static org.mockito.Mockito.*;
 
 import java.io.IOException;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.jboss.as.clustering.web.OutgoingSessionGranularitySessionData;
 import org.jboss.as.clustering.web.SessionAttributeMarshaller;
@@ -89,4 +92,77 @@ public class CoarseSessionAttributeStorageTest {
 
         Assert.assertSame(attributes, result);
     }
+
+    @Test
+    public void storeModified() throws IOException {
+        Map<Object, Object> map = new HashMap<Object, Object>();
+        OutgoingSessionGranularitySessionData data = mock(OutgoingSessionGranularitySessionData.class);
+        Object value = new Object();
+        Object marshalledValue = new Object();
+
+        when(data.getModifiedSessionAttributes()).thenReturn(Collections.singletonMap("a", value));
+        when(data.getRemovedSessionAttributes()).thenReturn(Collections.singleton("b"));
+        when(this.marshaller.marshal(value)).thenReturn(marshalledValue);
+
+        map.put("b", new Object());
+
+        this.storage.store(map, data);
+
+        Assert.assertSame(marshalledValue, map.get("a"));
+        Assert.assertFalse(map.containsKey("b"));
+        Assert.assertEquals(Collections.singleton("b"), SessionMapEntry.REMOVED_ATTRIBUTES.get(map));
+        Assert.assertNull(SessionMapEntry.ATTRIBUTES.get(map));
+
+        // An attribute that is set again is no longer removed
+        reset(data);
+        when(data.getModifiedSessionAttributes()).thenReturn(Collections.singletonMap("b", value));
+
+        this.storage.store(map, data);
+
+        Assert.assertSame(marshalledValue, map.get("b"));
+        Assert.assertNull(SessionMapEntry.REMOVED_ATTRIBUTES.get(map));
+    }
+
+    @Test
+    public void storeReplacesModified() throws IOException {
+        Map<Object, Object> map = new HashMap<Object, Object>();
+        OutgoingSessionGranularitySessionData data = mock(OutgoingSessionGranularitySessionData.class);
+        Map<String, Object> attributes = Collections.emptyMap();
+        Object marshalledAttributes = new Object();
+        Set<String> removed = new HashSet<String>(Collections.singleton("b"));
+
+        map.put("a", new Object());
+        SessionMapEntry.REMOVED_ATTRIBUTES.put(map, removed);
+
+        when(data.getSessionAttributes()).thenReturn(attributes);
+        when(this.marshaller.marshal(attributes)).thenReturn(marshalledAttributes);
+
+        this.storage.store(map, data);
+
+        Assert.assertEquals(Collections.singletonMap(Byte.valueOf((byte) SessionMapEntry.ATTRIBUTES.ordinal()), marshalledAttributes), map);
+    }
+
+    @Test
+    public void loadModified() throws Exception {
+        Map<Object, Object> map = new HashMap<Object, Object>();
+        Object marshalledAttributes = new Object();
+        Map<String, Object> attributes = new HashMap<String, Object>();
+        Object marshalledValue = new Object();
+        Object value = new Object();
+
+        attributes.put("a", new Object());
+        attributes.put("b", new Object());
+        SessionMapEntry.ATTRIBUTES.put(map, marshalledAttributes);
+        SessionMapEntry.REMOVED_ATTRIBUTES.put(map, new HashSet<String>(Collections.singleton("b")));
+        map.put("a", marshalledValue);
+
+        when(this.marshaller.unmarshal(same(marshalledAttributes))).thenReturn(attributes);
+        when(this.marshaller.unmarshal(same(marshalledValue))).thenReturn(value);
+
+        Map<String, Object> result = this.storage.load(map);
+
+        Assert.assertEquals(Collections.singletonMap("a", value), result);
+        // The stored attribute map is left alone
+        Assert.assertEquals(2, attributes.size());
+    }
 }
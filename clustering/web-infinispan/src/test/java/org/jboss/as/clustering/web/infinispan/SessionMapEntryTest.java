@@ -21,6 +21,7 @@
  */
 package org.jboss.as.clustering.web.infinispan;
 
+import java.util.HashSet;
 import java.util.Map;
 
 import static org.mockito.Mockito.*;
@@ -54,6 +55,10 @@ public class SessionMapEntryTest {
                     this.test(entry, new Object(), null);
                     break;
                 }
+                case REMOVED_ATTRIBUTES: {
+                    this.test(entry, new HashSet<String>(), new Object());
+                    break;
+                }
             }
         }
     }
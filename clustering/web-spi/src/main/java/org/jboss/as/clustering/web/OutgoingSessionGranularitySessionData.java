@@ -23,6 +23,7 @@
 package org.jboss.as.clustering.web;
 
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Expands on {@link OutgoingDistributableSessionData} to expose the session's attribute map.
@@ -36,4 +37,20 @@ public interface OutgoingSessionGranularitySessionData extends OutgoingDistribut
      *         session will be included in the map, not just those that have been modified
      */
     Map<String, Object> getSessionAttributes();
+
+    /**
+     * Gets the attributes modified since the session was last replicated, if only the changes to the attribute map are to
+     * be replicated.
+     * @return the modified attributes, or <code>null</code> if there are none or {@link #getSessionAttributes()} provides the
+     *         entire attribute map
+     */
+    Map<String, Object> getModifiedSessionAttributes();
+
+    /**
+     * Gets the names of the attributes removed since the session was last replicated, if only the changes to the attribute
+     * map are to be replicated.
+     * @return the names of the removed attributes, or <code>null</code> if there are none or {@link #getSessionAttributes()}
+     *         provides the entire attribute map
+     */
+    Set<String> getRemovedSessionAttributes();
 }
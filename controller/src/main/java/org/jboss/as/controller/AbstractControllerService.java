@@ -26,6 +26,7 @@ import java.util.List;
 
 import org.jboss.as.controller.client.OperationMessageHandler;
 import org.jboss.as.controller.descriptions.DescriptionProvider;
+import org.jboss.as.controller.persistence.CoalescingXmlConfigurationPersister;
 import org.jboss.as.controller.persistence.ConfigurationPersistenceException;
 import org.jboss.as.controller.persistence.ConfigurationPersister;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
@@ -180,6 +181,10 @@ public abstract class AbstractControllerService implements Service<ModelControll
 
     public void stop(final StopContext context) {
         controller = null;
+        if (configurationPersister instanceof CoalescingXmlConfigurationPersister) {
+            // let pending changes reach the file and release the persister's thread
+            ((CoalescingXmlConfigurationPersister) configurationPersister).shutdown();
+        }
     }
 
     public ModelController getValue() throws IllegalStateException, IllegalArgumentException {
@@ -48,6 +48,7 @@ import org.jboss.as.controller.client.Operation;
 import org.jboss.as.controller.client.OperationAttachments;
 import org.jboss.as.controller.client.OperationMessageHandler;
 import org.jboss.as.controller.operations.common.ExtensionAddHandler;
+import org.jboss.as.controller.persistence.CoalescingXmlConfigurationPersister;
 import org.jboss.as.controller.persistence.ConfigurationPersistenceException;
 import org.jboss.as.controller.persistence.ConfigurationPersister;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
@@ -101,7 +102,7 @@ class ModelControllerImpl implements ModelController {
         if (restartResourceServices) {
             contextFlags.add(OperationContextImpl.ContextFlag.ALLOW_RESOURCE_SERVICE_RESTART);
         }
-        OperationContextImpl context = new OperationContextImpl(this, controllerType, contextFlags, handler, attachments, model, control, processState, bootingFlag.get());
+        OperationContextImpl context = new OperationContextImpl(this, controllerType, contextFlags, handler, attachments, control, processState, bootingFlag.get());
         ModelNode response = new ModelNode();
         context.addStep(response, operation, prepareStep, OperationContext.Stage.MODEL);
 
@@ -124,7 +125,7 @@ class ModelControllerImpl implements ModelController {
         // Execute all ops prior to the first ExtensionAddHandler as well as all ExtensionAddHandlers; save the rest.
         // This gets extensions registered before proceeding to other ops that count on these registrations
         final OperationContextImpl context = new OperationContextImpl(this, controllerType, EnumSet.noneOf(OperationContextImpl.ContextFlag.class),
-                handler, null, model, control, processState, bootingFlag.get());
+                handler, null, control, processState, bootingFlag.get());
         final ModelNode result = new ModelNode().setEmptyList();
         result.setEmptyList();
         boolean sawExtensionAdd = false;
@@ -168,7 +169,7 @@ class ModelControllerImpl implements ModelController {
 
             // Success. Now any extension handlers are registered. Continue with remaining ops
             final OperationContextImpl postExtContext = new OperationContextImpl(this, controllerType, EnumSet.noneOf(OperationContextImpl.ContextFlag.class),
-                    handler, null, model, control, processState, bootingFlag.get());
+                    handler, null, control, processState, bootingFlag.get());
             final ModelNode postExtResult = new ModelNode().setEmptyList();
             postExtResult.setEmptyList();
 
@@ -198,6 +199,16 @@ class ModelControllerImpl implements ModelController {
         return model;
     }
 
+    /**
+     * Get the latest published snapshot of the model. A snapshot is never modified once it has been published, so
+     * it can be read without holding the controller lock.
+     *
+     * @return the root of the snapshot
+     */
+    Resource getModelSnapshot() {
+        return model.getDelegate();
+    }
+
     ManagementResourceRegistration getRootRegistration() {
         return rootRegistration;
     }
@@ -277,9 +288,15 @@ class ModelControllerImpl implements ModelController {
         };
     }
 
-    ConfigurationPersister.PersistenceResource writeModel(final Resource resource, Set<PathAddress> affectedAddresses) throws ConfigurationPersistenceException {
-        final ModelNode newModel = Resource.Tools.readModel(resource);  // Get the model representation
-        final ConfigurationPersister.PersistenceResource delegate = persister.store(newModel, affectedAddresses);
+    ConfigurationPersister.PersistenceResource writeModel(final Resource resource, Set<PathAddress> affectedAddresses, final ModelNode operation) throws ConfigurationPersistenceException {
+        final ConfigurationPersister.PersistenceResource delegate;
+        if (operation != null && persister instanceof CoalescingXmlConfigurationPersister) {
+            // The resource becomes an immutable snapshot on commit, so the persister can read the model itself, later
+            delegate = ((CoalescingXmlConfigurationPersister) persister).store(resource, affectedAddresses, operation);
+        } else {
+            final ModelNode newModel = Resource.Tools.readModel(resource);  // Get the model representation
+            delegate = persister.store(newModel, affectedAddresses);
+        }
         return new ConfigurationPersister.PersistenceResource() {
 
             @Override
@@ -374,7 +391,8 @@ class ModelControllerImpl implements ModelController {
 
     /**
      * The root resource, maintains a read-only reference to the current model. All write operations have to performed
-     * after acquiring the write lock on a clone of the underlying model.
+     * after acquiring the write lock on a {@link org.jboss.as.controller.registry.ResourceWorkingCopy working copy} of
+     * the underlying model, which is published as the new model once the operation commits.
      */
     private class RootResource implements Resource {
 
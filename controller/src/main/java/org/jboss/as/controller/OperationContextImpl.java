@@ -58,7 +58,9 @@ import org.jboss.as.controller.persistence.ConfigurationPersister;
 import org.jboss.as.controller.registry.DelegatingImmutableManagementResourceRegistration;
 import org.jboss.as.controller.registry.ImmutableManagementResourceRegistration;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.as.controller.registry.ReadOnlyResource;
 import org.jboss.as.controller.registry.Resource;
+import org.jboss.as.controller.registry.ResourceWorkingCopy;
 import org.jboss.dmr.ModelNode;
 import org.jboss.logging.Logger;
 import org.jboss.msc.inject.Injector;
@@ -104,7 +106,11 @@ final class OperationContextImpl implements OperationContext {
     private boolean respectInterruption = true;
     private Stage currentStage = Stage.MODEL;
 
-    private Resource model;
+    /** The operation this context executes, or null if it executes more than one */
+    private ModelNode initialOperation;
+    private int initialSteps;
+    /** Private copy of the model, created when the first step gets write access to the model */
+    private ResourceWorkingCopy workingCopy;
     private ResultAction resultAction;
     /** Tracks whether any steps have gotten write access to the runtime */
     private boolean affectsRuntime;
@@ -124,12 +130,11 @@ final class OperationContextImpl implements OperationContext {
 
     OperationContextImpl(final ModelControllerImpl modelController, final Type contextType, final EnumSet<ContextFlag> contextFlags,
                          final OperationMessageHandler messageHandler, final OperationAttachments attachments,
-                         final Resource model, final ModelController.OperationTransactionControl transactionControl,
+                         final ModelController.OperationTransactionControl transactionControl,
                          final ControlledProcessState processState, final boolean booting) {
         this.contextType = contextType;
         this.transactionControl = transactionControl;
         this.booting = booting;
-        this.model = model;
         this.modelController = modelController;
         this.messageHandler = messageHandler;
         this.attachments = attachments;
@@ -201,6 +206,10 @@ final class OperationContextImpl implements OperationContext {
         if (stage == Stage.DONE) {
             throw new IllegalArgumentException("Invalid step stage specified");
         }
+        if (activeStep == null) {
+            // a step added by the controller; if it is the only one, its operation describes all that this context does
+            initialOperation = initialSteps++ == 0 ? operation : null;
+        }
         if (stage == Stage.IMMEDIATE) {
             steps.get(currentStage).addFirst(new Step(step, response, operation, address));
         } else {
@@ -311,7 +320,9 @@ final class OperationContextImpl implements OperationContext {
         ConfigurationPersister.PersistenceResource persistenceResource = null;
         if (isModelAffected() && resultAction != ResultAction.ROLLBACK) {
             try {
-                persistenceResource = modelController.writeModel(model, affectsModel);
+                // an operation with attachment streams cannot be replayed from its description alone
+                final ModelNode replayable = getAttachmentStreamCount() == 0 ? initialOperation : null;
+                persistenceResource = modelController.writeModel(workingCopy.getRoot(), affectsModel, replayable);
             } catch (ConfigurationPersistenceException e) {
                 response.get(OUTCOME).set(FAILED);
                 log.errorf(e, "Failed to persist configuration change");
@@ -725,7 +736,7 @@ final class OperationContextImpl implements OperationContext {
         if (currentStage == null) {
             throw new IllegalStateException("Operation already complete");
         }
-        Resource model = this.model;
+        Resource model = getReadModel();
         for (final PathElement element : address) {
             model = model.requireChild(element);
         }
@@ -745,10 +756,10 @@ final class OperationContextImpl implements OperationContext {
         }
         if (affectsModel.size() == 0) {
             takeWriteLock();
-            model = model.clone();
+            workingCopy = new ResourceWorkingCopy(modelController.getModelSnapshot());
         }
         affectsModel.add(address);
-        Resource model = this.model;
+        Resource model = workingCopy.getRoot();
         final Iterator<PathElement> i = address.iterator();
         while (i.hasNext()) {
             final PathElement element = i.next();
@@ -764,13 +775,13 @@ final class OperationContextImpl implements OperationContext {
                         throw new IllegalStateException("no child-type " + key);
                     }
                     final Resource newModel = Resource.Factory.create();
-                    model.registerChild(element, newModel);
+                    workingCopy.registerChild(model, element, newModel);
                     model = newModel;
                 } else {
-                    model = model.requireChild(element);
+                    model = workingCopy.requireChild(model, element);
                 }
             } else {
-                model = model.requireChild(element);
+                model = workingCopy.requireChild(model, element);
             }
         }
         if(model == null) {
@@ -786,7 +797,11 @@ final class OperationContextImpl implements OperationContext {
         if (currentStage == null) {
             throw new IllegalStateException("Operation already complete");
         }
-        Resource model = this.model;
+        if (workingCopy == null) {
+            // no step has written to the model, so the published snapshot can be read without copying it
+            return new ReadOnlyResource(modelController.getModelSnapshot().navigate(address));
+        }
+        Resource model = workingCopy.getRoot();
         for (final PathElement element : address) {
             model = model.requireChild(element);
         }
@@ -805,19 +820,20 @@ final class OperationContextImpl implements OperationContext {
         }
         if (affectsModel.size() == 0) {
             takeWriteLock();
-            model = model.clone();
+            workingCopy = new ResourceWorkingCopy(modelController.getModelSnapshot());
         }
         affectsModel.add(address);
-        Resource resource = this.model;
+        Resource resource = workingCopy.getRoot();
         final Iterator<PathElement> i = address.iterator();
         while (i.hasNext()) {
             final PathElement element = i.next();
             if (element.isMultiTarget()) {
                 throw new IllegalArgumentException("Cannot write to *");
             }
-            resource = resource.requireChild(element);
+            resource = workingCopy.requireChild(resource, element);
         }
-        return resource;
+        // the caller may navigate and modify the children directly
+        return workingCopy.makePrivate(resource);
     }
 
     public Resource createResource(PathAddress relativeAddress) {
@@ -841,10 +857,10 @@ final class OperationContextImpl implements OperationContext {
         }
         if (affectsModel.size() == 0) {
             takeWriteLock();
-            model = model.clone();
+            workingCopy = new ResourceWorkingCopy(modelController.getModelSnapshot());
         }
         affectsModel.add(absoluteAddress);
-        Resource model = this.model;
+        Resource model = workingCopy.getRoot();
         final Iterator<PathElement> i = absoluteAddress.iterator();
         while (i.hasNext()) {
             final PathElement element = i.next();
@@ -861,11 +877,11 @@ final class OperationContextImpl implements OperationContext {
                     if(!childrenNames.contains(key)) {
                         throw new IllegalStateException("no child-type " + key);
                     }
-                    model.registerChild(element, toAdd);
+                    workingCopy.registerChild(model, element, toAdd);
                     model = toAdd;
                 }
             } else {
-                model = model.getChild(element);
+                model = workingCopy.getChild(model, element);
                 if (model == null) {
                     PathAddress ancestor = PathAddress.EMPTY_ADDRESS;
                     for (PathElement pe : absoluteAddress) {
@@ -893,10 +909,10 @@ final class OperationContextImpl implements OperationContext {
         }
         if (affectsModel.size() == 0) {
             takeWriteLock();
-            model = model.clone();
+            workingCopy = new ResourceWorkingCopy(modelController.getModelSnapshot());
         }
         affectsModel.add(address);
-        Resource model = this.model;
+        Resource model = workingCopy.getRoot();
         final Iterator<PathElement> i = address.iterator();
         while (i.hasNext()) {
             final PathElement element = i.next();
@@ -906,7 +922,7 @@ final class OperationContextImpl implements OperationContext {
             if (! i.hasNext()) {
                 model = model.removeChild(element);
             } else {
-                model = model.requireChild(element);
+                model = workingCopy.requireChild(model, element);
             }
         }
         return model;
@@ -917,10 +933,21 @@ final class OperationContextImpl implements OperationContext {
     }
 
     public Resource getRootResource() {
-        final Resource readOnlyModel = this.model;
+        if (workingCopy == null) {
+            return new ReadOnlyResource(modelController.getModelSnapshot());
+        }
+        final Resource readOnlyModel = workingCopy.getRoot();
         return readOnlyModel.clone();
     }
 
+    /**
+     * Get the model to read from, which is the working copy once a step has written to the model and the latest
+     * published snapshot otherwise.
+     */
+    private Resource getReadModel() {
+        return workingCopy != null ? workingCopy.getRoot() : modelController.getModelSnapshot();
+    }
+
     public boolean isModelAffected() {
         return affectsModel.size() > 0;
     }
@@ -30,6 +30,8 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.ENA
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.FULL_REPLACE_DEPLOYMENT;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HASH;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HEAD_COMMENT_ALLOWED;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.INDEX_CACHE_HITS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.INDEX_CACHE_MISSES;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.INPUT_STREAM_INDEX;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.MAX_LENGTH;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.MIN;
@@ -149,6 +151,13 @@ public class DeploymentDescription {
                 root.get(ATTRIBUTES, STATUS, TYPE).set(ModelType.STRING);
                 root.get(ATTRIBUTES, STATUS, DESCRIPTION).set(bundle.getString("deployment.status"));
                 root.get(ATTRIBUTES, STATUS, REQUIRED).set(false);
+
+                root.get(ATTRIBUTES, INDEX_CACHE_HITS, TYPE).set(ModelType.INT);
+                root.get(ATTRIBUTES, INDEX_CACHE_HITS, DESCRIPTION).set(bundle.getString("deployment.index-cache-hits"));
+                root.get(ATTRIBUTES, INDEX_CACHE_HITS, REQUIRED).set(false);
+                root.get(ATTRIBUTES, INDEX_CACHE_MISSES, TYPE).set(ModelType.INT);
+                root.get(ATTRIBUTES, INDEX_CACHE_MISSES, DESCRIPTION).set(bundle.getString("deployment.index-cache-misses"));
+                root.get(ATTRIBUTES, INDEX_CACHE_MISSES, REQUIRED).set(false);
             }
         }
 
@@ -49,6 +49,7 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -998,12 +999,15 @@ public class GlobalOperationHandlers {
         @Override
         public void execute(final OperationContext context, final ModelNode ignored) throws OperationFailedException {
             final PathAddress address = PathAddress.pathAddress(operation.require(OP_ADDR));
-            execute(address, PathAddress.EMPTY_ADDRESS, context);
+            execute(address, PathAddress.EMPTY_ADDRESS, context.readResource(PathAddress.EMPTY_ADDRESS), context);
             context.completeStep();
         }
 
-        void execute(final PathAddress address, final PathAddress base, final OperationContext context) {
-            final Resource resource = context.readResource(base);
+        /**
+         * Resolve the remaining elements of the address. The matching children are navigated to from the resource at
+         * the base address, so the cost is proportional to the number of matching resources, not to the size of the model.
+         */
+        void execute(final PathAddress address, final PathAddress base, final Resource resource, final OperationContext context) {
             final PathAddress current = address.subAddress(base.size());
             final Iterator<PathElement> iterator = current.iterator();
             if (iterator.hasNext()) {
@@ -1015,36 +1019,19 @@ public class GlobalOperationHandlers {
                         // At least for proxies it should use the proxy operation handler
                         throw new IllegalStateException();
                     }
-                    final Map<String, Set<String>> resolved = getChildAddresses(registration, resource, childType);
-                    for (Map.Entry<String, Set<String>> entry : resolved.entrySet()) {
-                        final String key = entry.getKey();
-                        final Set<String> children = entry.getValue();
-                        if (children.isEmpty()) {
-                            continue;
-                        }
+                    for (final String key : getChildTypes(registration, childType)) {
                         if (element.isWildcard()) {
-                            for (final String child : children) {
-                                // Double check if the child actually exists
-                                if (resource.hasChild(PathElement.pathElement(key, child))) {
-                                    execute(address, base.append(PathElement.pathElement(key, child)), context);
-                                }
+                            for (final String child : resource.getChildrenNames(key)) {
+                                execute(address, PathElement.pathElement(key, child), base, resource, context);
                             }
                         } else {
                             for (final String segment : element.getSegments()) {
-                                if (children.contains(segment)) {
-                                    // Double check if the child actually exists
-                                    if (resource.hasChild(PathElement.pathElement(key, segment))) {
-                                        execute(address, base.append(PathElement.pathElement(key, segment)), context);
-                                    }
-                                }
+                                execute(address, PathElement.pathElement(key, segment), base, resource, context);
                             }
                         }
                     }
                 } else {
-                    // Double check if the child actually exists
-                    if (resource.hasChild(element)) {
-                        execute(address, base.append(element), context);
-                    }
+                    execute(address, element, base, resource, context);
                 }
             } else {
                 final String operationName = operation.require(OP).asString();
@@ -1057,6 +1044,24 @@ public class GlobalOperationHandlers {
             }
         }
 
+        private void execute(final PathAddress address, final PathElement element, final PathAddress base, final Resource resource, final OperationContext context) {
+            // Double check if the child actually exists
+            final Resource child = resource.getChild(element);
+            if (child != null) {
+                execute(address, base.append(element), child, context);
+            }
+        }
+
+        private static Set<String> getChildTypes(final ImmutableManagementResourceRegistration registration, final String validChildType) {
+            final Set<String> childTypes = new LinkedHashSet<String>();
+            for (final PathElement element : registration.getChildAddresses(PathAddress.EMPTY_ADDRESS)) {
+                if (validChildType == null || validChildType.equals(element.getKey())) {
+                    childTypes.add(element.getKey());
+                }
+            }
+            return childTypes;
+        }
+
     }
 
     static class RegistrationAddressResolver implements OperationStepHandler {
@@ -25,10 +25,12 @@ package org.jboss.as.controller.persistence;
 import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import javax.xml.stream.XMLOutputFactory;
 import javax.xml.stream.XMLStreamWriter;
 
+import org.jboss.as.controller.PathAddress;
 import org.jboss.as.controller.persistence.ConfigurationPersister.SnapshotInfo;
 import org.jboss.dmr.ModelNode;
 import org.jboss.logging.Logger;
@@ -47,6 +49,7 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
     private final XMLElementWriter<ModelMarshallingContext> rootDeparser;
     private final Map<String, XMLElementWriter<SubsystemMarshallingContext>> subsystemWriters = new HashMap<String, XMLElementWriter<SubsystemMarshallingContext>>();
     private final Map<String, XMLElementWriter<SubsystemMarshallingContext>> subsystemDeploymentWriters = new HashMap<String, XMLElementWriter<SubsystemMarshallingContext>>();
+    private final SubsystemFragmentCache fragmentCache = new SubsystemFragmentCache();
 
     /**
      * Construct a new instance.
@@ -62,6 +65,7 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
         synchronized (subsystemWriters) {
             subsystemWriters.put(name, deparser);
         }
+        fragmentCache.clear();
     }
 
     @Override
@@ -74,11 +78,38 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
     /** {@inheritDoc} */
     @Override
     public void marshallAsXml(final ModelNode model, final OutputStream output) throws ConfigurationPersistenceException {
+        marshallAsXml(model, output, -1);
+    }
+
+    /**
+     * Record that the model is about to be stored, so that the XML of the subsystems it changed is not reused.
+     * Must be called for every model passed to {@link #store(ModelNode, Set)}, whether it is marshalled or not.
+     *
+     * @param affectedAddresses the addresses of the changed resources
+     * @return the generation of the model, to pass to {@link #marshallAsXml(ModelNode, OutputStream, long)}
+     */
+    long modelChanged(final Set<PathAddress> affectedAddresses) {
+        return fragmentCache.modelChanged(affectedAddresses);
+    }
+
+    /**
+     * Marshals the given configuration model to XML, reusing the XML of any subsystems that have not changed since
+     * they were last marshalled.
+     *
+     * @param model the model to marshal
+     * @param output the stream
+     * @param generation the generation of the model as returned by {@link #modelChanged(Set)}, or -1 if the model is
+     *                   not a stored one
+     * @throws ConfigurationPersistenceException
+     */
+    void marshallAsXml(final ModelNode model, final OutputStream output, final long generation) throws ConfigurationPersistenceException {
         final XMLMapper mapper = XMLMapper.Factory.create();
+        final SubsystemFragmentCache.Marshalling marshalling = fragmentCache.marshal(model, generation);
+        final ExposedByteArrayOutputStream document = new ExposedByteArrayOutputStream(1024 * 8);
         try {
             XMLStreamWriter streamWriter = null;
             try {
-                streamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(output);
+                streamWriter = XMLOutputFactory.newInstance().createXMLStreamWriter(document);
                 ModelMarshallingContext extensibleModel = new ModelMarshallingContext() {
 
                     @Override
@@ -89,7 +120,7 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
                     @Override
                     public XMLElementWriter<SubsystemMarshallingContext> getSubsystemWriter(String extensionName) {
                         synchronized (subsystemWriters) {
-                            return subsystemWriters.get(extensionName);
+                            return marshalling.wrap(extensionName, subsystemWriters.get(extensionName));
                         }
                     }
 
@@ -105,6 +136,7 @@ public abstract class AbstractConfigurationPersister implements ExtensibleConfig
             } finally {
                 safeClose(streamWriter);
             }
+            marshalling.writeTo(document, output);
         } catch (Exception e) {
             throw new ConfigurationPersistenceException("Failed to write configuration", e);
         }
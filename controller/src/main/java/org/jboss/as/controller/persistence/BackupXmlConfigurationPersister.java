@@ -66,9 +66,14 @@ public class BackupXmlConfigurationPersister extends XmlConfigurationPersister {
         }
     }
 
+    boolean isSuccessfulBoot() {
+        return successfulBoot.get();
+    }
+
     @Override
     public PersistenceResource store(final ModelNode model, Set<PathAddress> affectedAddresses) throws ConfigurationPersistenceException {
         if(!successfulBoot.get()) {
+            modelChanged(affectedAddresses);
             return new PersistenceResource() {
                 public void commit() {
                 }
@@ -77,7 +82,7 @@ public class BackupXmlConfigurationPersister extends XmlConfigurationPersister {
                 }
             };
         }
-        return new ConfigurationFilePersistenceResource(model, configurationFile, this);
+        return new ConfigurationFilePersistenceResource(model, affectedAddresses, configurationFile, this);
     }
 
     @Override
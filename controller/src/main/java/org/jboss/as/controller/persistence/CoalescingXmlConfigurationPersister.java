@@ -0,0 +1,363 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.persistence;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.namespace.QName;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.registry.Resource;
+import org.jboss.as.protocol.StreamUtils;
+import org.jboss.dmr.ModelNode;
+import org.jboss.logging.Logger;
+import org.jboss.staxmapper.XMLElementReader;
+import org.jboss.staxmapper.XMLElementWriter;
+
+/**
+ * A {@link BackupXmlConfigurationPersister} that writes the configuration file in the background.
+ * <p/>
+ * Rather than marshalling the whole model and rewriting the file for every operation, the operation is appended to
+ * an {@link OperationJournal} before it completes, and the file is written at most once per window, with the latest
+ * model. The file is replaced atomically, after which the journal is cut back to the operations the file does not
+ * include yet. If the process dies before the file has been written, the journaled operations are added to the boot
+ * operations the next time the configuration is {@link #load() loaded}.
+ * <p/>
+ * An operation that cannot be replayed from the journal, because it is not known or it came with attachment
+ * streams, waits for the file to be written before it completes, as it would with a {@link
+ * BackupXmlConfigurationPersister}.
+ */
+public class CoalescingXmlConfigurationPersister extends BackupXmlConfigurationPersister {
+
+    private static final Logger log = Logger.getLogger("org.jboss.as.controller");
+
+    private final long window;
+    private final OperationJournal journal;
+
+    /** Guards the journal and the fields below */
+    private final Object lock = new Object();
+    /** The latest model that has not been written; either a {@link Resource} or a {@link ModelNode} */
+    private Object pending;
+    /** The generation of the model in {@link #pending}, as far as the marshalled subsystems are concerned */
+    private long pendingGeneration;
+    /** The version of the model in {@link #pending} */
+    private long version;
+    /** The number of changes made since the file was last written */
+    private int queueDepth;
+    /** When the oldest of those changes was made */
+    private long oldestChange;
+    private long writtenVersion;
+    private long failedVersion;
+    private boolean flushScheduled;
+    /** Writes the file in the background; created by the first change after construction or {@link #shutdown()} */
+    private ScheduledThreadPoolExecutor executor;
+
+    private volatile long lastLatency = -1;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param file the configuration base file
+     * @param rootElement the root element of the configuration file
+     * @param rootParser the root model parser
+     * @param rootDeparser the root model deparser
+     * @param window the time in milliseconds that changes are collected for before the file is written
+     */
+    public CoalescingXmlConfigurationPersister(final ConfigurationFile file, final QName rootElement, final XMLElementReader<List<ModelNode>> rootParser,
+                                               final XMLElementWriter<ModelMarshallingContext> rootDeparser, final long window) {
+        super(file, rootElement, rootParser, rootDeparser);
+        if (window < 0) {
+            throw new IllegalArgumentException("window is negative");
+        }
+        this.window = window;
+        final File mainFile = file.getMainFile();
+        this.journal = new OperationJournal(new File(mainFile.getParentFile(), mainFile.getName() + ".journal"));
+    }
+
+    /**
+     * Load the configuration, followed by the operations from the journal that the configuration file does not
+     * include.
+     *
+     * {@inheritDoc}
+     */
+    @Override
+    public List<ModelNode> load() throws ConfigurationPersistenceException {
+        // on a reload, let any pending changes reach the file first
+        final long current;
+        synchronized (lock) {
+            current = version;
+        }
+        awaitWritten(current);
+
+        final List<ModelNode> operations = super.load();
+        final File bootFile = configurationFile.getBootFile();
+        try {
+            final List<ModelNode> journaled;
+            synchronized (lock) {
+                journaled = journal.recover(readFile(bootFile));
+            }
+            if (!journaled.isEmpty()) {
+                log.infof("Replaying %d operations that were not yet persisted to %s", journaled.size(), bootFile.getName());
+                operations.addAll(journaled);
+            }
+        } catch (IOException e) {
+            throw new ConfigurationPersistenceException("Failed to recover operation journal for " + bootFile, e);
+        }
+        return operations;
+    }
+
+    /**
+     * Store the model resulting from an operation. The model is read and written in the background, so it must not
+     * be modified afterwards.
+     *
+     * @param resource the root resource of the model
+     * @param affectedAddresses the addresses of the resources the operation changed
+     * @param operation the operation, which is journaled so that it can be replayed
+     * @return callback to use to control whether the stored model should be flushed to persistent storage
+     * @throws ConfigurationPersistenceException if the model cannot be persisted
+     */
+    public PersistenceResource store(final Resource resource, final Set<PathAddress> affectedAddresses, final ModelNode operation) throws ConfigurationPersistenceException {
+        if (!isSuccessfulBoot()) {
+            return super.store(Resource.Tools.readModel(resource), affectedAddresses);
+        }
+        final long generation = modelChanged(affectedAddresses);
+        return new PersistenceResource() {
+            public void commit() {
+                final long pendingVersion;
+                final boolean journaled;
+                synchronized (lock) {
+                    journaled = journal(operation);
+                    pendingVersion = enqueue(resource, generation);
+                    schedule(journaled ? window : 0);
+                }
+                if (!journaled) {
+                    awaitWritten(pendingVersion);
+                }
+            }
+
+            public void rollback() {
+            }
+        };
+    }
+
+    @Override
+    public PersistenceResource store(final ModelNode model, final Set<PathAddress> affectedAddresses) throws ConfigurationPersistenceException {
+        if (!isSuccessfulBoot()) {
+            return super.store(model, affectedAddresses);
+        }
+        final long generation = modelChanged(affectedAddresses);
+        return new PersistenceResource() {
+            public void commit() {
+                final long pendingVersion;
+                synchronized (lock) {
+                    pendingVersion = enqueue(model, generation);
+                    schedule(0);
+                }
+                awaitWritten(pendingVersion);
+            }
+
+            public void rollback() {
+            }
+        };
+    }
+
+    /**
+     * @return the number of changes that have not been written to the configuration file yet
+     */
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return queueDepth;
+        }
+    }
+
+    /**
+     * @return the time in milliseconds between the oldest change included in the last write and the end of the
+     *         write, or -1 if the file has not been written yet
+     */
+    public long getLastPersistLatency() {
+        return lastLatency;
+    }
+
+    /**
+     * Write any changes that have not reached the configuration file yet and stop the background thread. Called
+     * when the controller stops, including for a reload; a change made afterwards starts a new thread.
+     */
+    public void shutdown() {
+        final ScheduledThreadPoolExecutor executor;
+        synchronized (lock) {
+            executor = this.executor;
+            this.executor = null;
+        }
+        if (executor != null) {
+            // a scheduled write is cancelled, one that is in progress is waited for
+            executor.shutdown();
+            boolean interrupted = false;
+            try {
+                while (!executor.awaitTermination(1, TimeUnit.SECONDS)) {
+                    log.debugf("Waiting for the configuration to be written to %s", configurationFile.getMainFile().getName());
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // the final flush
+        write();
+    }
+
+    private boolean journal(final ModelNode operation) {
+        try {
+            journal.append(operation);
+            return true;
+        } catch (IOException e) {
+            log.errorf(e, "Failed to journal operation %s, writing the configuration before it completes", operation);
+            return false;
+        }
+    }
+
+    private long enqueue(final Object model, final long generation) {
+        if (queueDepth++ == 0) {
+            oldestChange = System.currentTimeMillis();
+        }
+        pending = model;
+        pendingGeneration = generation;
+        return ++version;
+    }
+
+    private void schedule(final long delay) {
+        if (!flushScheduled || delay == 0) {
+            flushScheduled = true;
+            if (executor == null) {
+                executor = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                    public Thread newThread(final Runnable r) {
+                        final Thread thread = new Thread(r, "Configuration Persister");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+                executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+            }
+            executor.schedule(new Runnable() {
+                public void run() {
+                    write();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void awaitWritten(final long pendingVersion) {
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (writtenVersion < pendingVersion && failedVersion < pendingVersion) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void write() {
+        final Object model;
+        final long generation;
+        final long modelVersion;
+        final long included;
+        final long changed;
+        synchronized (lock) {
+            flushScheduled = false;
+            if (pending == null) {
+                return;
+            }
+            model = pending;
+            generation = pendingGeneration;
+            modelVersion = version;
+            // every journaled operation, including any replayed on boot, is reflected in the model
+            included = journal.getLastSequence();
+            changed = oldestChange;
+            pending = null;
+            queueDepth = 0;
+        }
+        final File mainFile = configurationFile.getMainFile();
+        try {
+            final ModelNode node = model instanceof Resource ? Resource.Tools.readModel((Resource) model) : (ModelNode) model;
+            final ExposedByteArrayOutputStream marshalled = new ExposedByteArrayOutputStream(1024 * 8);
+            final BufferedOutputStream output = new BufferedOutputStream(marshalled);
+            marshallAsXml(node, output, generation);
+            output.close();
+
+            configurationFile.backup();
+            final File temp = FilePersistenceResource.writeTemporary(mainFile, marshalled.getInputStream());
+            synchronized (lock) {
+                journal.prepareRebase(marshalled.toByteArray(), marshalled.size(), included);
+                try {
+                    FilePersistenceResource.replace(temp, mainFile);
+                } catch (IOException e) {
+                    journal.abortRebase();
+                    throw e;
+                }
+                journal.completeRebase();
+                writtenVersion = modelVersion;
+                lock.notifyAll();
+            }
+            configurationFile.fileWritten();
+
+            lastLatency = System.currentTimeMillis() - changed;
+        } catch (Exception e) {
+            log.errorf(e, "Failed to store configuration to %s", mainFile.getName());
+            synchronized (lock) {
+                failedVersion = modelVersion;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private static byte[] readFile(final File file) throws IOException {
+        final FileInputStream fis = new FileInputStream(file);
+        try {
+            final byte[] bytes = new byte[(int) file.length()];
+            int offset = 0;
+            int read;
+            while (offset < bytes.length && (read = fis.read(bytes, offset, bytes.length - offset)) > -1) {
+                offset += read;
+            }
+            fis.close();
+            return bytes;
+        } finally {
+            StreamUtils.safeClose(fis);
+        }
+    }
+}
@@ -303,7 +303,8 @@ public class ConfigurationFile {
             return;
         }
         try {
-            moveFile(mainFile, getVersionedFile(mainFile));
+            // copy rather than move, the main file is replaced in one step once the new version has been written
+            copyFile(mainFile, getVersionedFile(mainFile));
             int seq = sequence.get();
             if (seq > CURRENT_HISTORY_LENGTH) {
                 File delete = getVersionedFile(mainFile, seq - CURRENT_HISTORY_LENGTH);
@@ -329,16 +330,6 @@ public class ConfigurationFile {
     }
 
 
-    private void moveFile(final File file, final File backup) throws IOException {
-
-        if (backup.exists())
-            backup.delete();
-
-        if (!file.renameTo(backup) && file.exists()) {
-            copyFile(file, backup);
-        }
-    }
-
     String snapshot() throws ConfigurationPersistenceException {
         String name = getTimeStamp(new Date()) + mainFileName;
         File snapshot = new File(snapshotsDirectory, name);
@@ -22,6 +22,9 @@
 
 package org.jboss.as.controller.persistence;
 
+import java.util.Set;
+
+import org.jboss.as.controller.PathAddress;
 import org.jboss.dmr.ModelNode;
 
 /**
@@ -34,9 +37,9 @@ public class ConfigurationFilePersistenceResource extends FilePersistenceResourc
 
     private final ConfigurationFile configurationFile;
 
-    ConfigurationFilePersistenceResource(final ModelNode model, final ConfigurationFile configurationFile,
+    ConfigurationFilePersistenceResource(final ModelNode model, final Set<PathAddress> affectedAddresses, final ConfigurationFile configurationFile,
                                          final AbstractConfigurationPersister persister) throws ConfigurationPersistenceException {
-        super(model, configurationFile.getMainFile(), persister);
+        super(model, affectedAddresses, configurationFile.getMainFile(), persister);
         this.configurationFile = configurationFile;
     }
 
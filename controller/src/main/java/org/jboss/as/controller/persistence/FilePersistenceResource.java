@@ -27,8 +27,11 @@ import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Set;
 
+import org.jboss.as.controller.PathAddress;
 import org.jboss.dmr.ModelNode;
 import org.jboss.logging.Logger;
 
@@ -44,15 +47,19 @@ public class FilePersistenceResource implements ConfigurationPersister.Persisten
     private ExposedByteArrayOutputStream marshalled;
     private final File fileName;
     private final AbstractConfigurationPersister persister;
+    private final Set<PathAddress> affectedAddresses;
 
-    FilePersistenceResource(final ModelNode model, final File fileName, final AbstractConfigurationPersister persister) throws ConfigurationPersistenceException {
+    FilePersistenceResource(final ModelNode model, final Set<PathAddress> affectedAddresses, final File fileName,
+                            final AbstractConfigurationPersister persister) throws ConfigurationPersistenceException {
         this.fileName = fileName;
         this.persister = persister;
+        this.affectedAddresses = affectedAddresses;
+        final long generation = persister.modelChanged(affectedAddresses);
         marshalled = new ExposedByteArrayOutputStream(1024 * 8);
         try {
             try {
                 BufferedOutputStream output = new BufferedOutputStream(marshalled);
-                persister.marshallAsXml(model, output);
+                persister.marshallAsXml(model, output, generation);
                 output.close();
                 marshalled.close();
             } finally {
@@ -69,22 +76,7 @@ public class FilePersistenceResource implements ConfigurationPersister.Persisten
             throw new IllegalStateException("rollback() has already been invoked");
         }
         try {
-            final FileOutputStream fos = new FileOutputStream(fileName);
-            final InputStream is = marshalled.getInputStream();
-            try {
-                BufferedOutputStream output = new BufferedOutputStream(fos);
-                byte[] bytes = new byte[1024];
-                int read;
-                while ((read = is.read(bytes)) > -1) {
-                    output.write(bytes, 0, read);
-                }
-                output.close();
-                fos.close();
-                is.close();
-            } finally {
-                safeClose(fos);
-                safeClose(is);
-            }
+            replace(writeTemporary(fileName, marshalled.getInputStream()), fileName);
         } catch (Exception e) {
             log.errorf(e, "Failed to store configuration to %s", fileName.getName());
         }
@@ -93,6 +85,80 @@ public class FilePersistenceResource implements ConfigurationPersister.Persisten
     @Override
     public void rollback() {
         marshalled = null;
+        // the subsystems marshalled from the discarded model must not be reused
+        persister.modelChanged(affectedAddresses);
+    }
+
+    /**
+     * Write the new contents of a file to a temporary file next to it, and force them to disk. The file can then be
+     * {@link #replace(File, File) replaced} in one step, so that it is never found half written.
+     *
+     * @param file the file
+     * @param is   the new contents
+     * @return the temporary file
+     * @throws IOException if the temporary file cannot be written
+     */
+    static File writeTemporary(final File file, final InputStream is) throws IOException {
+        final File temp = getTemporary(file);
+        final FileOutputStream fos = new FileOutputStream(temp);
+        try {
+            BufferedOutputStream output = new BufferedOutputStream(fos);
+            byte[] bytes = new byte[1024];
+            int read;
+            while ((read = is.read(bytes)) > -1) {
+                output.write(bytes, 0, read);
+            }
+            output.flush();
+            fos.getFD().sync();
+            fos.close();
+            is.close();
+        } finally {
+            safeClose(fos);
+            safeClose(is);
+        }
+        return temp;
+    }
+
+    private static File getTemporary(final File file) {
+        return new File(file.getParentFile(), file.getName() + ".tmp");
+    }
+
+    /**
+     * Rename a file over another one.
+     * <p/>
+     * Where renameTo cannot replace an existing file the target is deleted first, which is not atomic: a crash in
+     * between leaves only the source. For a file written with {@link #writeTemporary(File, InputStream)} that is the
+     * complete new contents, which {@link #recover(File)} moves into place. A configuration file can also be restored
+     * from the copy {@link ConfigurationFile#backup()} keeps in the history directory.
+     *
+     * @param source the file to rename
+     * @param target the file to replace
+     * @throws IOException if the file cannot be renamed
+     */
+    static void replace(final File source, final File target) throws IOException {
+        if (!source.renameTo(target)) {
+            // renameTo does not replace an existing file on every platform
+            target.delete();
+            if (!source.renameTo(target)) {
+                throw new IOException("Could not rename " + source + " to " + target);
+            }
+        }
+    }
+
+    /**
+     * Complete a {@link #replace(File, File) replacement} of a file that was interrupted after the file was deleted.
+     * The temporary file is only renamed once it has been written and forced to disk, so if the file is missing but
+     * the temporary file is there, the temporary file holds the complete contents.
+     *
+     * @param file the file to recover
+     * @throws IOException if the temporary file cannot be renamed
+     */
+    static void recover(final File file) throws IOException {
+        final File temp = getTemporary(file);
+        if (!file.exists() && temp.exists()) {
+            log.warnf("Recovering %s from %s, its replacement was interrupted", file.getName(), temp.getName());
+            replace(temp, file);
+        }
     }
 
     private static void safeClose(final Closeable closeable) {
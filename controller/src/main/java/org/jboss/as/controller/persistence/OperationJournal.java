@@ -0,0 +1,288 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.persistence;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import org.jboss.dmr.ModelNode;
+
+/**
+ * A write ahead journal of the management operations that have changed the model since the configuration file was
+ * last written.
+ * <p/>
+ * The journal starts with the length and checksum of the configuration file its operations apply to, so a journal
+ * that is older than the configuration file is recognised and ignored. Every record carries a checksum of its own,
+ * so a record that was only partly written when the process died is dropped along with anything after it.
+ * <p/>
+ * Once the configuration file has been rewritten, the records it includes are dropped by {@link #prepareRebase
+ * rebasing} the journal onto the new file. The rebased journal is written next to the current one and only moved in
+ * place once the new configuration file is, so whichever of the two files is found on recovery, its base matches the
+ * configuration file on disk.
+ * <p/>
+ * This class is not thread safe.
+ */
+final class OperationJournal {
+
+    private static final int MAGIC = 0x4a4f4a31;
+
+    private final File file;
+    private final File rebasedFile;
+    /** The encoded records that are not in the configuration file yet */
+    private final Deque<Record> records = new ArrayDeque<Record>();
+    private FileOutputStream output;
+    private long nextSequence = 1;
+
+    /**
+     * @param file the journal file
+     */
+    OperationJournal(final File file) {
+        this.file = file;
+        this.rebasedFile = new File(file.getParentFile(), file.getName() + ".new");
+    }
+
+    /**
+     * Read the operations that have to be applied to a configuration file to bring it up to date, and open the
+     * journal for appending further operations. A journal that does not apply to the given file is discarded.
+     *
+     * @param base the contents of the configuration file
+     * @return the operations, in the order they were originally executed
+     * @throws IOException if the journal cannot be read or created
+     */
+    List<ModelNode> recover(final byte[] base) throws IOException {
+        close();
+        records.clear();
+        final long checksum = checksum(base, base.length);
+        List<ModelNode> operations = read(rebasedFile, base.length, checksum);
+        if (operations != null) {
+            // we died after replacing the configuration file but before the journal
+            FilePersistenceResource.replace(rebasedFile, file);
+        } else {
+            operations = read(file, base.length, checksum);
+        }
+        rebasedFile.delete();
+        if (operations == null) {
+            records.clear();
+            write(file, base.length, checksum);
+            operations = Collections.emptyList();
+        } else {
+            // rewrite the records that were read intact, dropping any torn record at the end
+            write(file, base.length, checksum);
+        }
+        output = new FileOutputStream(file, true);
+        return operations;
+    }
+
+    /**
+     * Durably append an operation.
+     *
+     * @param operation the operation
+     * @throws IOException if the operation could not be written
+     */
+    void append(final ModelNode operation) throws IOException {
+        if (output == null) {
+            throw new IOException("Journal " + file + " is not open");
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        final DataOutputStream data = new DataOutputStream(bytes);
+        operation.writeExternal(data);
+        data.flush();
+        final Record record = new Record(nextSequence, bytes.toByteArray());
+        output.write(record.encoded);
+        output.getChannel().force(false);
+        records.addLast(record);
+        nextSequence++;
+    }
+
+    /**
+     * Write a journal for a new configuration file, holding the records of the operations that the file does not
+     * include. The current journal stays in use until {@link #completeRebase()}.
+     *
+     * @param base     the contents of the new configuration file
+     * @param length   the number of bytes of <code>base</code> to use
+     * @param included the sequence number of the last operation the new file includes
+     * @throws IOException if the journal cannot be written
+     */
+    void prepareRebase(final byte[] base, final int length, final long included) throws IOException {
+        while (!records.isEmpty() && records.peekFirst().sequence <= included) {
+            records.removeFirst();
+        }
+        write(rebasedFile, length, checksum(base, length));
+    }
+
+    /**
+     * Switch to the journal written by {@link #prepareRebase}. Called once the new configuration file is in place.
+     *
+     * @throws IOException if the journal cannot be switched
+     */
+    void completeRebase() throws IOException {
+        close();
+        FilePersistenceResource.replace(rebasedFile, file);
+        output = new FileOutputStream(file, true);
+    }
+
+    /**
+     * Discard the journal written by {@link #prepareRebase}, if the configuration file could not be replaced.
+     */
+    void abortRebase() {
+        rebasedFile.delete();
+    }
+
+    /**
+     * @return the sequence number of the last operation appended or recovered
+     */
+    long getLastSequence() {
+        return nextSequence - 1;
+    }
+
+    /**
+     * @return the number of operations in the journal
+     */
+    int size() {
+        return records.size();
+    }
+
+    void close() {
+        safeClose(output);
+        output = null;
+    }
+
+    static long checksum(final byte[] bytes, final int length) {
+        final CRC32 crc = new CRC32();
+        crc.update(bytes, 0, length);
+        return crc.getValue();
+    }
+
+    private void write(final File target, final long baseLength, final long baseChecksum) throws IOException {
+        final FileOutputStream fos = new FileOutputStream(target);
+        try {
+            final DataOutputStream data = new DataOutputStream(fos);
+            data.writeInt(MAGIC);
+            data.writeLong(baseLength);
+            data.writeLong(baseChecksum);
+            for (Record record : records) {
+                data.write(record.encoded);
+            }
+            data.flush();
+            fos.getChannel().force(false);
+            fos.close();
+        } finally {
+            safeClose(fos);
+        }
+    }
+
+    /**
+     * Read the operations from a journal file, keeping their records.
+     *
+     * @return the operations, or null if the file does not exist or belongs to another configuration file
+     */
+    private List<ModelNode> read(final File source, final long baseLength, final long baseChecksum) throws IOException {
+        if (!source.exists()) {
+            return null;
+        }
+        final FileInputStream fis = new FileInputStream(source);
+        try {
+            final DataInputStream data = new DataInputStream(new BufferedInputStream(fis));
+            try {
+                if (data.readInt() != MAGIC || data.readLong() != baseLength || data.readLong() != baseChecksum) {
+                    return null;
+                }
+            } catch (EOFException e) {
+                return null;
+            }
+            records.clear();
+            final List<ModelNode> operations = new ArrayList<ModelNode>();
+            for (;;) {
+                final long sequence;
+                final byte[] bytes;
+                try {
+                    sequence = data.readLong();
+                    final int length = data.readInt();
+                    final long checksum = data.readLong();
+                    if (length < 0 || length > source.length()) {
+                        break;
+                    }
+                    bytes = new byte[length];
+                    data.readFully(bytes);
+                    if (checksum(bytes, length) != checksum) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+                final ModelNode operation = new ModelNode();
+                operation.readExternal(new DataInputStream(new ByteArrayInputStream(bytes)));
+                operations.add(operation);
+                records.addLast(new Record(sequence, bytes));
+                nextSequence = sequence + 1;
+            }
+            return operations;
+        } finally {
+            safeClose(fis);
+        }
+    }
+
+    private static void safeClose(final Closeable closeable) {
+        if (closeable != null) try {
+            closeable.close();
+        } catch (IOException ignore) {
+        }
+    }
+
+    private static final class Record {
+        private final long sequence;
+        private final byte[] encoded;
+
+        private Record(final long sequence, final byte[] operation) {
+            this.sequence = sequence;
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream(operation.length + 20);
+            final DataOutputStream data = new DataOutputStream(bytes);
+            try {
+                data.writeLong(sequence);
+                data.writeInt(operation.length);
+                data.writeLong(checksum(operation, operation.length));
+                data.write(operation);
+                data.flush();
+            } catch (IOException e) {
+                // cannot happen, the stream is in memory
+                throw new IllegalStateException(e);
+            }
+            this.encoded = bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,277 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.persistence;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBSYSTEM;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.dmr.ModelNode;
+import org.jboss.staxmapper.XMLElementWriter;
+import org.jboss.staxmapper.XMLExtendedStreamWriter;
+
+/**
+ * Caches the marshalled XML of the subsystems at the root of a model, so that marshalling a model after an operation
+ * only has to run the writers of the subsystems the operation changed.
+ * <p/>
+ * The XML stream API cannot write markup that has already been serialized, so the cache works on the bytes of the
+ * document. A subsystem that has to be marshalled is surrounded by marker comments, and a cached subsystem is
+ * replaced by a placeholder comment. Once the document is complete, the markers are stripped out, keeping what is
+ * between them as the new fragment of the subsystem, and the placeholders are replaced by the cached fragments.
+ * Along with a marker, the formatting whitespace in front of it is stripped, so the output is the same as if the
+ * subsystems had all been marshalled.
+ * <p/>
+ * Whether a cached fragment still matches the model is tracked with a generation number, which is incremented
+ * whenever the {@link ConfigurationPersister#store(ModelNode, Set) stored} model changes, and again if the change is
+ * rolled back. A fragment can be used for a model of another generation only if its subsystem has not changed between
+ * the two.
+ */
+final class SubsystemFragmentCache {
+
+    private static final byte[] COMMENT_START = bytes("<!--");
+    private static final byte[] COMMENT_END = bytes("-->");
+    private static final char BEGIN = '{';
+    private static final char END = '}';
+    private static final char CACHED = '=';
+
+    /** Makes the markers unlike any comment a subsystem writer would produce */
+    private final String token = "subsystem-fragment-" + Long.toHexString(new Random().nextLong()) + ":";
+    private final byte[] marker = bytes(token);
+
+    private final Map<String, Fragment> fragments = new HashMap<String, Fragment>();
+    /** The generation each subsystem was last changed in */
+    private final Map<String, Long> changed = new HashMap<String, Long>();
+    /** The last generation that could have changed any subsystem */
+    private long allChanged;
+    private long generation;
+
+    /**
+     * Record a change to the model.
+     *
+     * @param affectedAddresses the addresses of the changed resources, or null if not known
+     * @return the generation of the changed model
+     */
+    synchronized long modelChanged(final Set<PathAddress> affectedAddresses) {
+        generation++;
+        if (affectedAddresses == null) {
+            allChanged = generation;
+        } else {
+            for (PathAddress address : affectedAddresses) {
+                if (address.size() == 0) {
+                    // write access to the root covers the subsystems too
+                    allChanged = generation;
+                } else if (SUBSYSTEM.equals(address.getElement(0).getKey())) {
+                    changed.put(address.getElement(0).getValue(), generation);
+                }
+            }
+        }
+        return generation;
+    }
+
+    /**
+     * Forget all fragments, as when the writer of a subsystem changes.
+     */
+    synchronized void clear() {
+        fragments.clear();
+    }
+
+    /**
+     * Start marshalling a model.
+     *
+     * @param model the model
+     * @param modelGeneration the generation of the model, or -1 if it is not a stored model, in which case the cache
+     *                        is not used
+     * @return the marshalling
+     */
+    Marshalling marshal(final ModelNode model, final long modelGeneration) {
+        return new Marshalling(model, modelGeneration);
+    }
+
+    private synchronized byte[] getFragment(final String subsystem, final long modelGeneration) {
+        final Fragment fragment = fragments.get(subsystem);
+        if (fragment == null) {
+            return null;
+        }
+        final Long lastChanged = changed.get(subsystem);
+        final long last = Math.max(allChanged, lastChanged == null ? 0 : lastChanged.longValue());
+        return last <= Math.min(fragment.generation, modelGeneration) ? fragment.bytes : null;
+    }
+
+    private synchronized void putFragment(final String subsystem, final byte[] bytes, final long modelGeneration) {
+        final Fragment existing = fragments.get(subsystem);
+        if (existing == null || existing.generation <= modelGeneration) {
+            fragments.put(subsystem, new Fragment(bytes, modelGeneration));
+        }
+    }
+
+    /**
+     * The state of marshalling one model.
+     */
+    final class Marshalling {
+        private final ModelNode model;
+        private final long modelGeneration;
+        /** The fragments that placeholders were written for; fixed now, in case the cache changes meanwhile */
+        private final Map<String, byte[]> used = new HashMap<String, byte[]>();
+        private boolean marked;
+
+        private Marshalling(final ModelNode model, final long modelGeneration) {
+            this.model = model;
+            this.modelGeneration = modelGeneration;
+        }
+
+        /**
+         * Wrap the writer of a subsystem, so that it is only called if the subsystem is not cached.
+         *
+         * @param subsystem the name of the subsystem
+         * @param writer the writer
+         * @return the wrapped writer
+         */
+        XMLElementWriter<SubsystemMarshallingContext> wrap(final String subsystem, final XMLElementWriter<SubsystemMarshallingContext> writer) {
+            if (writer == null || modelGeneration < 0 || !model.hasDefined(SUBSYSTEM) || !model.get(SUBSYSTEM).has(subsystem)) {
+                return writer;
+            }
+            final ModelNode subsystemModel = model.get(SUBSYSTEM, subsystem);
+            return new XMLElementWriter<SubsystemMarshallingContext>() {
+                public void writeContent(final XMLExtendedStreamWriter streamWriter, final SubsystemMarshallingContext context) throws XMLStreamException {
+                    if (context.getModelNode() != subsystemModel) {
+                        // the same subsystem somewhere else in the model, e.g. in a domain profile
+                        writer.writeContent(streamWriter, context);
+                        return;
+                    }
+                    marked = true;
+                    final byte[] fragment = getFragment(subsystem, modelGeneration);
+                    if (fragment != null) {
+                        used.put(subsystem, fragment);
+                        streamWriter.writeComment(token + CACHED + subsystem);
+                    } else {
+                        streamWriter.writeComment(token + BEGIN + subsystem);
+                        writer.writeContent(streamWriter, context);
+                        streamWriter.writeComment(token + END + subsystem);
+                    }
+                }
+            };
+        }
+
+        /**
+         * Write the marshalled document, with the markers resolved.
+         *
+         * @param document the document, as marshalled with the wrapped writers
+         * @param output the stream to write to
+         * @throws IOException if the output cannot be written
+         */
+        void writeTo(final ExposedByteArrayOutputStream document, final OutputStream output) throws IOException {
+            final byte[] bytes = document.toByteArray();
+            if (!marked) {
+                output.write(bytes);
+                return;
+            }
+            int copied = 0;
+            int fragmentStart = -1;
+            int position = indexOfMarker(bytes, 0);
+            while (position >= 0) {
+                final int textStart = position + COMMENT_START.length + marker.length;
+                final int textEnd = indexOf(bytes, COMMENT_END, textStart);
+                final char type = (char) bytes[textStart];
+                final String subsystem = new String(bytes, textStart + 1, textEnd - textStart - 1, "UTF-8");
+                final int commentEnd = textEnd + COMMENT_END.length;
+                int whitespace = position;
+                while (whitespace > copied && isWhitespace(bytes[whitespace - 1])) {
+                    whitespace--;
+                }
+                output.write(bytes, copied, whitespace - copied);
+                if (type == BEGIN) {
+                    fragmentStart = commentEnd;
+                } else if (type == END) {
+                    final byte[] fragment = new byte[whitespace - fragmentStart];
+                    System.arraycopy(bytes, fragmentStart, fragment, 0, fragment.length);
+                    putFragment(subsystem, fragment, modelGeneration);
+                } else {
+                    output.write(used.get(subsystem));
+                }
+                copied = commentEnd;
+                position = indexOfMarker(bytes, commentEnd);
+            }
+            output.write(bytes, copied, bytes.length - copied);
+        }
+
+        private int indexOfMarker(final byte[] bytes, final int from) {
+            int position = indexOf(bytes, COMMENT_START, from);
+            while (position >= 0 && !startsWith(bytes, position + COMMENT_START.length, marker)) {
+                position = indexOf(bytes, COMMENT_START, position + 1);
+            }
+            return position;
+        }
+    }
+
+    private static int indexOf(final byte[] bytes, final byte[] pattern, final int from) {
+        for (int i = from; i <= bytes.length - pattern.length; i++) {
+            if (startsWith(bytes, i, pattern)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean startsWith(final byte[] bytes, final int offset, final byte[] pattern) {
+        if (offset + pattern.length > bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < pattern.length; i++) {
+            if (bytes[offset + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(final byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private static byte[] bytes(final String string) {
+        try {
+            return string.getBytes("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Fragment {
+        private final byte[] bytes;
+        private final long generation;
+
+        private Fragment(final byte[] bytes, final long generation) {
+            this.bytes = bytes;
+            this.generation = generation;
+        }
+    }
+}
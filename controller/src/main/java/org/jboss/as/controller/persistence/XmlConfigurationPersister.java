@@ -81,7 +81,7 @@ public class XmlConfigurationPersister extends AbstractConfigurationPersister {
     /** {@inheritDoc} */
     @Override
     public PersistenceResource store(final ModelNode model, Set<PathAddress> affectedAddresses) throws ConfigurationPersistenceException {
-        return new FilePersistenceResource(model, fileName, this);
+        return new FilePersistenceResource(model, affectedAddresses, fileName, this);
     }
 
     protected void store(final ModelNode model, final File file) throws ConfigurationPersistenceException {
@@ -110,6 +110,7 @@ public class XmlConfigurationPersister extends AbstractConfigurationPersister {
         }
         final List<ModelNode> updates = new ArrayList<ModelNode>();
         try {
+            FilePersistenceResource.recover(fileName);
             final FileInputStream fis = new FileInputStream(fileName);
             try {
                 BufferedInputStream input = new BufferedInputStream(fis);
@@ -189,6 +189,42 @@ class BasicResource implements Resource {
         return clone;
     }
 
+    /**
+     * Create a copy of this resource which shares the child resources with this one. Used to copy only the
+     * resources on the path to a modified resource, see {@link ResourceWorkingCopy}.
+     *
+     * @return the copy, or {@code null} if some of the children are provided by a custom {@link ResourceProvider}
+     */
+    BasicResource copyShared() {
+        final BasicResource copy = new BasicResource();
+        copy.writeModel(model);
+        synchronized (children) {
+            for(final Map.Entry<String, ResourceProvider> entry : children.entrySet()) {
+                final ResourceProvider provider = entry.getValue();
+                if(provider.getClass() != DefaultResourceProvider.class) {
+                    return null;
+                }
+                copy.children.put(entry.getKey(), ((DefaultResourceProvider) provider).copy());
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Replace an existing child, keeping its position amongst the other children.
+     *
+     * @param address the address of the child
+     * @param resource the new child resource
+     * @throws NoSuchElementException if there is no such child
+     */
+    void replaceChild(final PathElement address, final Resource resource) {
+        final ResourceProvider provider = getProvider(address.getKey());
+        if(provider == null || provider.getClass() != DefaultResourceProvider.class) {
+            throw new NoSuchElementException(address.toString());
+        }
+        ((DefaultResourceProvider) provider).replace(address.getValue(), resource);
+    }
+
     protected void registerResourceProvider(final String type, final ResourceProvider provider) {
         synchronized (children) {
             if (children.containsKey(type)) {
@@ -247,7 +283,9 @@ class BasicResource implements Resource {
 
         @Override
         public boolean hasChildren() {
-            return ! children().isEmpty();
+            synchronized (children) {
+                return ! children.isEmpty();
+            }
         }
 
         @Override
@@ -266,6 +304,23 @@ class BasicResource implements Resource {
                 return children.remove(name);
             }
         }
+
+        void replace(String name, Resource resource) {
+            synchronized (children) {
+                if (! children.containsKey(name)) {
+                    throw new NoSuchElementException(name);
+                }
+                children.put(name, resource);
+            }
+        }
+
+        DefaultResourceProvider copy() {
+            final DefaultResourceProvider copy = new DefaultResourceProvider();
+            synchronized (children) {
+                copy.children.putAll(children);
+            }
+            return copy;
+        }
     }
 
     abstract static class DelegateResource implements ResourceEntry {
@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.registry;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.dmr.ModelNode;
+
+/**
+ * {@link Resource} implementation that provides a read-only view of a resource tree which is shared with other
+ * threads, such as a published snapshot of the management model. The tree is not copied, only the
+ * {@link #getModel() model} of a resource that is actually read, as even reading a {@link ModelNode} can add keys to
+ * it. Changes to that copy are not written back; use {@link #clone()} to obtain a private, modifiable tree.
+ */
+public class ReadOnlyResource implements Resource {
+
+    private final Resource delegate;
+
+    /**
+     * Creates a new ReadOnlyResource.
+     *
+     * @param delegate the resource to provide a view of. Cannot be {@code null}
+     */
+    public ReadOnlyResource(final Resource delegate) {
+        if (delegate == null) {
+            throw new IllegalArgumentException("delegate is null");
+        }
+        this.delegate = delegate;
+    }
+
+    @Override
+    public ModelNode getModel() {
+        return delegate.getModel().clone();
+    }
+
+    @Override
+    public void writeModel(ModelNode newModel) {
+        throw new UnsupportedOperationException("Resource is read-only");
+    }
+
+    @Override
+    public boolean isModelDefined() {
+        return delegate.isModelDefined();
+    }
+
+    @Override
+    public boolean hasChild(PathElement element) {
+        return delegate.hasChild(element);
+    }
+
+    @Override
+    public Resource getChild(PathElement element) {
+        final Resource child = delegate.getChild(element);
+        return child == null ? null : new ReadOnlyResource(child);
+    }
+
+    @Override
+    public Resource requireChild(PathElement element) {
+        return new ReadOnlyResource(delegate.requireChild(element));
+    }
+
+    @Override
+    public boolean hasChildren(String childType) {
+        return delegate.hasChildren(childType);
+    }
+
+    @Override
+    public Resource navigate(PathAddress address) {
+        return Resource.Tools.navigate(this, address);
+    }
+
+    @Override
+    public Set<String> getChildTypes() {
+        return delegate.getChildTypes();
+    }
+
+    @Override
+    public Set<String> getChildrenNames(String childType) {
+        return delegate.getChildrenNames(childType);
+    }
+
+    @Override
+    public Set<ResourceEntry> getChildren(String childType) {
+        final Set<ResourceEntry> children = new LinkedHashSet<ResourceEntry>();
+        for (final ResourceEntry entry : delegate.getChildren(childType)) {
+            children.add(new ReadOnlyResourceEntry(entry));
+        }
+        return children;
+    }
+
+    @Override
+    public void registerChild(PathElement address, Resource resource) {
+        throw new UnsupportedOperationException("Resource is read-only");
+    }
+
+    @Override
+    public Resource removeChild(PathElement address) {
+        throw new UnsupportedOperationException("Resource is read-only");
+    }
+
+    @Override
+    public boolean isRuntime() {
+        return delegate.isRuntime();
+    }
+
+    @Override
+    public boolean isProxy() {
+        return delegate.isProxy();
+    }
+
+    @SuppressWarnings({"CloneDoesntCallSuperClone"})
+    @Override
+    public Resource clone() {
+        return delegate.clone();
+    }
+
+    private static class ReadOnlyResourceEntry extends ReadOnlyResource implements ResourceEntry {
+
+        private final ResourceEntry entry;
+
+        private ReadOnlyResourceEntry(final ResourceEntry entry) {
+            super(entry);
+            this.entry = entry;
+        }
+
+        @Override
+        public String getName() {
+            return entry.getName();
+        }
+
+        @Override
+        public PathElement getPathElement() {
+            return entry.getPathElement();
+        }
+    }
+}
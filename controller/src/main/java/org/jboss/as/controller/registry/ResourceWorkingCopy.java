@@ -0,0 +1,158 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.registry;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.jboss.as.controller.PathElement;
+
+/**
+ * A private working copy of a published resource tree, which is never modified itself.
+ * <p>
+ * Only the resources on the path to a modified resource are copied, all other resources are shared with the
+ * published tree. Resources of the working copy must therefore only be reached through {@link #getRoot()} and
+ * {@link #getChild(Resource, PathElement)}, never by navigating a resource directly, unless the resource was
+ * made entirely private by {@link #makePrivate(Resource)}.
+ * <p>Instances of this class are <b>not</b> thread-safe.
+ */
+public final class ResourceWorkingCopy {
+
+    private final Resource root;
+    /** Copies of which the children may still be shared with the published tree */
+    private final Set<Resource> copies = newIdentitySet();
+    /** Resources of which the whole subtree belongs to the working copy */
+    private final Set<Resource> privateTrees = newIdentitySet();
+
+    /**
+     * Create a working copy.
+     *
+     * @param published the root of the published tree
+     */
+    public ResourceWorkingCopy(final Resource published) {
+        this.root = copy(published);
+    }
+
+    /**
+     * Get the root of the working copy.
+     *
+     * @return the root resource
+     */
+    public Resource getRoot() {
+        return root;
+    }
+
+    /**
+     * Get a child of a resource of this working copy, which can be modified.
+     *
+     * @param parent a resource of this working copy
+     * @param element the path element
+     * @return the child, {@code null} if there is no such child
+     */
+    public Resource getChild(final Resource parent, final PathElement element) {
+        final Resource child = parent.getChild(element);
+        if (child == null || isPrivate(child)) {
+            return child;
+        }
+        if (privateTrees.contains(parent)) {
+            privateTrees.add(child);
+            return child;
+        }
+        if (!copies.contains(parent)) {
+            throw new IllegalArgumentException("Resource does not belong to the working copy");
+        }
+        final Resource copy = copy(child);
+        ((BasicResource) parent).replaceChild(element, copy);
+        return copy;
+    }
+
+    /**
+     * Get a child of a resource of this working copy, which can be modified.
+     *
+     * @param parent a resource of this working copy
+     * @param element the path element
+     * @return the child
+     * @throws NoSuchElementException if the child does not exist
+     */
+    public Resource requireChild(final Resource parent, final PathElement element) {
+        final Resource child = getChild(parent, element);
+        if (child == null) {
+            throw new NoSuchElementException(element.toString());
+        }
+        return child;
+    }
+
+    /**
+     * Add a new child to a resource of this working copy. The child and its subtree become part of the working copy.
+     *
+     * @param parent a resource of this working copy
+     * @param element the path element
+     * @param child the new child
+     */
+    public void registerChild(final Resource parent, final PathElement element, final Resource child) {
+        parent.registerChild(element, child);
+        privateTrees.add(child);
+    }
+
+    /**
+     * Copy all resources below a resource of this working copy, so that the whole subtree can be modified
+     * and navigated directly.
+     *
+     * @param resource a resource of this working copy
+     * @return the resource
+     */
+    public Resource makePrivate(final Resource resource) {
+        if (privateTrees.contains(resource)) {
+            return resource;
+        }
+        for (final String childType : resource.getChildTypes()) {
+            for (final String name : resource.getChildrenNames(childType)) {
+                makePrivate(requireChild(resource, PathElement.pathElement(childType, name)));
+            }
+        }
+        privateTrees.add(resource);
+        return resource;
+    }
+
+    private boolean isPrivate(final Resource resource) {
+        return copies.contains(resource) || privateTrees.contains(resource);
+    }
+
+    private Resource copy(final Resource resource) {
+        if (resource instanceof BasicResource) {
+            final BasicResource copy = ((BasicResource) resource).copyShared();
+            if (copy != null) {
+                copies.add(copy);
+                return copy;
+            }
+        }
+        final Resource copy = resource.clone();
+        privateTrees.add(copy);
+        return copy;
+    }
+
+    private static Set<Resource> newIdentitySet() {
+        return Collections.newSetFromMap(new IdentityHashMap<Resource, Boolean>());
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.persistence;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of replacing a file through {@link FilePersistenceResource}.
+ */
+public class FilePersistenceResourceUnitTestCase {
+
+    private static final byte[] CONFIG = "<server/>".getBytes();
+    private static final byte[] NEW_CONFIG = "<server name=\"new\"/>".getBytes();
+
+    private File dir;
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        dir = File.createTempFile("persistence", "");
+        dir.delete();
+        dir.mkdir();
+        file = new File(dir, "standalone.xml");
+    }
+
+    @After
+    public void cleanup() {
+        for (File child : dir.listFiles()) {
+            child.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testReplace() throws IOException {
+        FilePersistenceResource.replace(FilePersistenceResource.writeTemporary(file, new ByteArrayInputStream(CONFIG)), file);
+        FilePersistenceResource.replace(FilePersistenceResource.writeTemporary(file, new ByteArrayInputStream(NEW_CONFIG)), file);
+        assertArrayEquals(NEW_CONFIG, read(file));
+        assertFalse(new File(dir, "standalone.xml.tmp").exists());
+    }
+
+    @Test
+    public void testRecoverInterruptedReplace() throws IOException {
+        FilePersistenceResource.replace(FilePersistenceResource.writeTemporary(file, new ByteArrayInputStream(CONFIG)), file);
+        FilePersistenceResource.writeTemporary(file, new ByteArrayInputStream(NEW_CONFIG));
+        // the replacement deleted the file, then the process died
+        assertTrue(file.delete());
+        FilePersistenceResource.recover(file);
+        assertArrayEquals(NEW_CONFIG, read(file));
+        assertFalse(new File(dir, "standalone.xml.tmp").exists());
+    }
+
+    @Test
+    public void testRecoverKeepsExistingFile() throws IOException {
+        FilePersistenceResource.replace(FilePersistenceResource.writeTemporary(file, new ByteArrayInputStream(CONFIG)), file);
+        // the temporary file may be incomplete as long as the file has not been deleted
+        FilePersistenceResource.writeTemporary(file, new ByteArrayInputStream(NEW_CONFIG));
+        FilePersistenceResource.recover(file);
+        assertArrayEquals(CONFIG, read(file));
+    }
+
+    private static byte[] read(final File file) throws IOException {
+        final byte[] bytes = new byte[(int) file.length()];
+        final FileInputStream fis = new FileInputStream(file);
+        try {
+            int offset = 0;
+            int read;
+            while (offset < bytes.length && (read = fis.read(bytes, offset, bytes.length - offset)) > -1) {
+                offset += read;
+            }
+        } finally {
+            fis.close();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.persistence;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import org.jboss.dmr.ModelNode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link OperationJournal}.
+ */
+public class OperationJournalUnitTestCase {
+
+    private static final byte[] CONFIG = "<server/>".getBytes();
+    private static final byte[] NEW_CONFIG = "<server name=\"new\"/>".getBytes();
+
+    private File dir;
+    private File file;
+
+    @Before
+    public void setup() throws IOException {
+        dir = File.createTempFile("journal", "");
+        dir.delete();
+        dir.mkdir();
+        file = new File(dir, "standalone.xml.journal");
+    }
+
+    @After
+    public void cleanup() {
+        for (File child : dir.listFiles()) {
+            child.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void testRecoverAppendedOperations() throws IOException {
+        OperationJournal journal = new OperationJournal(file);
+        assertTrue(journal.recover(CONFIG).isEmpty());
+        journal.append(operation("one"));
+        journal.append(operation("two"));
+        journal.close();
+
+        journal = new OperationJournal(file);
+        final List<ModelNode> recovered = journal.recover(CONFIG);
+        assertEquals(2, recovered.size());
+        assertEquals("one", recovered.get(0).get("name").asString());
+        assertEquals("two", recovered.get(1).get("name").asString());
+
+        // operations appended after recovery follow the recovered ones
+        journal.append(operation("three"));
+        journal.close();
+        assertEquals(3, new OperationJournal(file).recover(CONFIG).size());
+    }
+
+    @Test
+    public void testTornRecordIsDropped() throws IOException {
+        final OperationJournal journal = new OperationJournal(file);
+        journal.recover(CONFIG);
+        journal.append(operation("one"));
+        journal.append(operation("two"));
+        journal.close();
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 3);
+        raf.close();
+
+        final List<ModelNode> recovered = new OperationJournal(file).recover(CONFIG);
+        assertEquals(1, recovered.size());
+        assertEquals("one", recovered.get(0).get("name").asString());
+    }
+
+    @Test
+    public void testJournalOfOtherConfigurationIsIgnored() throws IOException {
+        final OperationJournal journal = new OperationJournal(file);
+        journal.recover(CONFIG);
+        journal.append(operation("one"));
+        journal.close();
+
+        assertTrue(new OperationJournal(file).recover(NEW_CONFIG).isEmpty());
+        // and it has been discarded
+        assertTrue(new OperationJournal(file).recover(CONFIG).isEmpty());
+    }
+
+    @Test
+    public void testRebaseKeepsOperationsNotIncluded() throws IOException {
+        final OperationJournal journal = new OperationJournal(file);
+        journal.recover(CONFIG);
+        journal.append(operation("one"));
+        journal.append(operation("two"));
+        final long included = journal.getLastSequence();
+        journal.append(operation("three"));
+
+        journal.prepareRebase(NEW_CONFIG, NEW_CONFIG.length, included);
+        journal.completeRebase();
+        assertEquals(1, journal.size());
+        journal.close();
+
+        final List<ModelNode> recovered = new OperationJournal(file).recover(NEW_CONFIG);
+        assertEquals(1, recovered.size());
+        assertEquals("three", recovered.get(0).get("name").asString());
+    }
+
+    @Test
+    public void testRecoverInterruptedRebase() throws IOException {
+        OperationJournal journal = new OperationJournal(file);
+        journal.recover(CONFIG);
+        journal.append(operation("one"));
+        journal.prepareRebase(NEW_CONFIG, NEW_CONFIG.length, journal.getLastSequence());
+        journal.close();
+
+        // the configuration file was not replaced
+        journal = new OperationJournal(file);
+        assertEquals(1, journal.recover(CONFIG).size());
+        journal.prepareRebase(NEW_CONFIG, NEW_CONFIG.length, journal.getLastSequence());
+        journal.close();
+
+        // the configuration file was replaced, but the journal was not
+        journal = new OperationJournal(file);
+        assertTrue(journal.recover(NEW_CONFIG).isEmpty());
+        journal.close();
+        assertFalse(new File(dir, file.getName() + ".new").exists());
+    }
+
+    private static ModelNode operation(final String name) {
+        final ModelNode operation = new ModelNode();
+        operation.get("operation").set("write-attribute");
+        operation.get("name").set(name);
+        return operation;
+    }
+}
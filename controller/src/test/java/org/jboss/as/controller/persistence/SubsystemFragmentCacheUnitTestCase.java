@@ -0,0 +1,177 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.controller.persistence;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUBSYSTEM;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.dmr.ModelNode;
+import org.jboss.staxmapper.XMLElementWriter;
+import org.jboss.staxmapper.XMLExtendedStreamWriter;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link SubsystemFragmentCache}.
+ */
+public class SubsystemFragmentCacheUnitTestCase {
+
+    private static final String[] SUBSYSTEMS = {"logging", "naming", "threads"};
+
+    private final SubsystemFragmentCache cache = new SubsystemFragmentCache();
+    private final Map<String, Integer> writes = new HashMap<String, Integer>();
+    private ModelNode model;
+
+    @Before
+    public void setup() {
+        model = new ModelNode();
+        for (String subsystem : SUBSYSTEMS) {
+            model.get(SUBSYSTEM, subsystem, "value").set(subsystem);
+        }
+    }
+
+    @Test
+    public void testUnchangedSubsystemsAreNotMarshalled() throws Exception {
+        final String full = marshal(cache.modelChanged(null));
+        assertEquals(expected(), full);
+        assertWrites(1, 1, 1);
+
+        model.get(SUBSYSTEM, "naming", "value").set("changed");
+        final String incremental = marshal(cache.modelChanged(Collections.singleton(address("naming"))));
+        assertEquals(expected(), incremental);
+        assertWrites(1, 2, 1);
+    }
+
+    @Test
+    public void testRootChangeInvalidatesAll() throws Exception {
+        marshal(cache.modelChanged(null));
+        marshal(cache.modelChanged(Collections.singleton(PathAddress.EMPTY_ADDRESS)));
+        assertWrites(2, 2, 2);
+    }
+
+    @Test
+    public void testFragmentOfOlderModelIsNotUsed() throws Exception {
+        final long older = cache.modelChanged(null);
+        final long newer = cache.modelChanged(Collections.singleton(address("logging")));
+        // the newer model is marshalled first
+        model.get(SUBSYSTEM, "logging", "value").set("newer");
+        marshal(newer);
+        model.get(SUBSYSTEM, "logging", "value").set("logging");
+        assertEquals(expected(), marshal(older));
+        assertWrites(2, 1, 1);
+    }
+
+    @Test
+    public void testUnstoredModelDoesNotUseCache() throws Exception {
+        marshal(cache.modelChanged(null));
+        model.get(SUBSYSTEM, "threads", "value").set("not stored");
+        assertEquals(expected(), marshal(-1));
+        assertWrites(2, 2, 2);
+    }
+
+    private String marshal(final long generation) throws XMLStreamException, IOException {
+        final SubsystemFragmentCache.Marshalling marshalling = cache.marshal(model, generation);
+        final StringBuilder document = new StringBuilder("<server>");
+        final XMLExtendedStreamWriter writer = writer(document);
+        for (String subsystem : SUBSYSTEMS) {
+            final XMLElementWriter<SubsystemMarshallingContext> subsystemWriter = marshalling.wrap(subsystem, new SubsystemWriter(subsystem));
+            subsystemWriter.writeContent(writer, new SubsystemMarshallingContext(model.get(SUBSYSTEM, subsystem), writer));
+        }
+        document.append("\n</server>");
+
+        final ExposedByteArrayOutputStream bytes = new ExposedByteArrayOutputStream(1024);
+        bytes.write(document.toString().getBytes("UTF-8"));
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        marshalling.writeTo(bytes, output);
+        return new String(output.toByteArray(), "UTF-8");
+    }
+
+    private String expected() {
+        final StringBuilder document = new StringBuilder("<server>");
+        for (String subsystem : SUBSYSTEMS) {
+            document.append(element(subsystem, model.get(SUBSYSTEM, subsystem, "value").asString()));
+        }
+        return document.append("\n</server>").toString();
+    }
+
+    private void assertWrites(final int... expected) {
+        for (int i = 0; i < SUBSYSTEMS.length; i++) {
+            assertEquals(SUBSYSTEMS[i], Integer.valueOf(expected[i]), writes.get(SUBSYSTEMS[i]));
+        }
+    }
+
+    private static PathAddress address(final String subsystem) {
+        return PathAddress.pathAddress(PathElement.pathElement(SUBSYSTEM, subsystem));
+    }
+
+    private static String element(final String subsystem, final String value) {
+        return "\n    <subsystem name=\"" + subsystem + "\" value=\"" + value + "\"/>";
+    }
+
+    /**
+     * A stream writer that appends comments and characters as they are, with the indentation a formatting writer
+     * would add in front of a comment.
+     */
+    private static XMLExtendedStreamWriter writer(final StringBuilder document) {
+        return (XMLExtendedStreamWriter) Proxy.newProxyInstance(XMLExtendedStreamWriter.class.getClassLoader(),
+                new Class<?>[] {XMLExtendedStreamWriter.class}, new InvocationHandler() {
+            public Object invoke(final Object proxy, final Method method, final Object[] args) {
+                if (method.getName().equals("writeComment")) {
+                    document.append("\n    <!--").append(args[0]).append("-->");
+                } else if (method.getName().equals("writeCharacters")) {
+                    document.append(args[0]);
+                } else {
+                    throw new UnsupportedOperationException(method.getName());
+                }
+                return null;
+            }
+        });
+    }
+
+    private class SubsystemWriter implements XMLElementWriter<SubsystemMarshallingContext> {
+        private final String subsystem;
+
+        SubsystemWriter(final String subsystem) {
+            this.subsystem = subsystem;
+        }
+
+        public void writeContent(final XMLExtendedStreamWriter streamWriter, final SubsystemMarshallingContext context) throws XMLStreamException {
+            final Integer count = writes.get(subsystem);
+            writes.put(subsystem, count == null ? 1 : count + 1);
+            streamWriter.writeCharacters(element(subsystem, context.getModelNode().get("value").asString()));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.registry;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.as.controller.PathElement;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link ResourceWorkingCopy}.
+ */
+public class ResourceWorkingCopyUnitTestCase {
+
+    private static final PathElement SUBSYSTEM_A = PathElement.pathElement("subsystem", "a");
+    private static final PathElement SUBSYSTEM_B = PathElement.pathElement("subsystem", "b");
+    private static final PathElement SUBSYSTEM_C = PathElement.pathElement("subsystem", "c");
+    private static final PathElement CHILD = PathElement.pathElement("child", "one");
+
+    private Resource published;
+
+    @Before
+    public void setup() {
+        published = Resource.Factory.create();
+        published.getModel().get("name").set("root");
+        for (PathElement element : new PathElement[] {SUBSYSTEM_A, SUBSYSTEM_B, SUBSYSTEM_C}) {
+            final Resource subsystem = Resource.Factory.create();
+            subsystem.getModel().get("name").set(element.getValue());
+            final Resource child = Resource.Factory.create();
+            child.getModel().get("value").set(1);
+            subsystem.registerChild(CHILD, child);
+            published.registerChild(element, subsystem);
+        }
+    }
+
+    @Test
+    public void testUnmodifiedResourcesAreShared() {
+        final ResourceWorkingCopy workingCopy = new ResourceWorkingCopy(published);
+        final Resource root = workingCopy.getRoot();
+        assertNotSame(published, root);
+        for (PathElement element : new PathElement[] {SUBSYSTEM_A, SUBSYSTEM_B, SUBSYSTEM_C}) {
+            assertSame(published.getChild(element), root.getChild(element));
+        }
+    }
+
+    @Test
+    public void testOnlyPathIsCopied() {
+        final ResourceWorkingCopy workingCopy = new ResourceWorkingCopy(published);
+        final Resource root = workingCopy.getRoot();
+        final Resource subsystem = workingCopy.requireChild(root, SUBSYSTEM_B);
+        final Resource child = workingCopy.requireChild(subsystem, CHILD);
+        child.getModel().get("value").set(2);
+
+        assertNotSame(published.getChild(SUBSYSTEM_B), subsystem);
+        assertSame(subsystem, root.getChild(SUBSYSTEM_B));
+        assertSame(child, subsystem.getChild(CHILD));
+        assertSame(published.getChild(SUBSYSTEM_A), root.getChild(SUBSYSTEM_A));
+        assertSame(published.getChild(SUBSYSTEM_C), root.getChild(SUBSYSTEM_C));
+
+        assertEquals(1, published.getChild(SUBSYSTEM_B).getChild(CHILD).getModel().get("value").asInt());
+        assertEquals(2, root.getChild(SUBSYSTEM_B).getChild(CHILD).getModel().get("value").asInt());
+
+        // a resource is only copied once
+        assertSame(subsystem, workingCopy.requireChild(root, SUBSYSTEM_B));
+        assertSame(child, workingCopy.requireChild(subsystem, CHILD));
+    }
+
+    @Test
+    public void testChildOrderIsRetained() {
+        final ResourceWorkingCopy workingCopy = new ResourceWorkingCopy(published);
+        final Resource root = workingCopy.getRoot();
+        workingCopy.requireChild(root, SUBSYSTEM_A);
+        final List<String> names = new ArrayList<String>(root.getChildrenNames("subsystem"));
+        assertEquals(new ArrayList<String>(published.getChildrenNames("subsystem")), names);
+    }
+
+    @Test
+    public void testRegisterAndRemove() {
+        final ResourceWorkingCopy workingCopy = new ResourceWorkingCopy(published);
+        final Resource root = workingCopy.getRoot();
+        final Resource subsystem = workingCopy.requireChild(root, SUBSYSTEM_A);
+        final Resource added = Resource.Factory.create();
+        workingCopy.registerChild(subsystem, PathElement.pathElement("child", "two"), added);
+        root.removeChild(SUBSYSTEM_C);
+
+        assertSame(added, workingCopy.requireChild(subsystem, PathElement.pathElement("child", "two")));
+        assertFalse(published.getChild(SUBSYSTEM_A).hasChild(PathElement.pathElement("child", "two")));
+        assertTrue(published.hasChild(SUBSYSTEM_C));
+        assertFalse(root.hasChild(SUBSYSTEM_C));
+    }
+
+    @Test
+    public void testMakePrivate() {
+        final ResourceWorkingCopy workingCopy = new ResourceWorkingCopy(published);
+        final Resource root = workingCopy.getRoot();
+        final Resource subsystem = workingCopy.makePrivate(workingCopy.requireChild(root, SUBSYSTEM_A));
+        // the subtree can now be navigated and modified directly
+        subsystem.getChild(CHILD).getModel().get("value").set(3);
+        assertEquals(1, published.getChild(SUBSYSTEM_A).getChild(CHILD).getModel().get("value").asInt());
+        assertSame(subsystem.getChild(CHILD), workingCopy.requireChild(subsystem, CHILD));
+        assertSame(published.getChild(SUBSYSTEM_B), root.getChild(SUBSYSTEM_B));
+    }
+
+    @Test
+    public void testReadingReadOnlyModelDoesNotModifyPublished() {
+        final Resource readOnly = new ReadOnlyResource(published);
+        // reading an undefined attribute adds it to the node it is read from
+        assertFalse(readOnly.getModel().get("undefined").isDefined());
+        assertFalse(published.getModel().has("undefined"));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testReadOnlyResource() {
+        final Resource readOnly = new ReadOnlyResource(published);
+        assertEquals("root", readOnly.getModel().get("name").asString());
+        readOnly.requireChild(SUBSYSTEM_A).registerChild(CHILD, Resource.Factory.create());
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.controller.test;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CHILD_TYPE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OUTCOME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_ATTRIBUTE_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_CHILDREN_NAMES_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.READ_RESOURCE_OPERATION;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUCCESS;
+
+import java.util.Locale;
+
+import org.jboss.as.controller.ModelController;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.OperationStepHandler;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.controller.descriptions.DescriptionProvider;
+import org.jboss.as.controller.operations.global.GlobalOperationHandlers;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Measures the time of operations addressed to a few resources of a large model, by wildcard and by child type. The
+ * model consists of data sources spread over ten profiles. This is not run as part of the test suite, run it with:
+ * <pre>
+ * java -cp ... org.jboss.as.controller.test.WildcardBenchmark [iterations]
+ * </pre>
+ */
+public class WildcardBenchmark extends AbstractControllerTestBase {
+
+    private static final int PROFILES = 10;
+
+    private static final DescriptionProvider NULL = new DescriptionProvider() {
+        public ModelNode getModelDescription(Locale locale) {
+            return new ModelNode();
+        }
+    };
+
+    private final int resources;
+
+    private WildcardBenchmark(final int resources) {
+        this.resources = resources;
+    }
+
+    public static void main(String[] args) throws Exception {
+        final int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        for (int resources : new int[] {10000, 100000}) {
+            final WildcardBenchmark benchmark = new WildcardBenchmark(resources);
+            benchmark.setupController();
+            try {
+                benchmark.run(iterations);
+            } finally {
+                benchmark.shutdownServiceContainer();
+            }
+        }
+    }
+
+    private void run(final int iterations) {
+        final ModelNode readAttribute = new ModelNode();
+        readAttribute.get(OP).set(READ_ATTRIBUTE_OPERATION);
+        readAttribute.get(OP_ADDR).set(address("*", "ds7"));
+        readAttribute.get(NAME).set("jndi-name");
+
+        final ModelNode readResources = new ModelNode();
+        readResources.get(OP).set(READ_RESOURCE_OPERATION);
+        readResources.get(OP_ADDR).set(address("*", "[ds1,ds2]"));
+
+        final ModelNode readChildrenNames = new ModelNode();
+        readChildrenNames.get(OP).set(READ_CHILDREN_NAMES_OPERATION);
+        final ModelNode subsystem = readChildrenNames.get(OP_ADDR);
+        subsystem.add("profile", "profile0");
+        subsystem.add("subsystem", "datasources");
+        readChildrenNames.get(CHILD_TYPE).set("data-source");
+
+        System.out.printf("%,d resources%n", resources);
+        measure("  read-attribute profile=*/.../data-source=ds7", readAttribute, iterations);
+        measure("  read-resource profile=*/.../data-source=[ds1,ds2]", readResources, iterations);
+        measure("  read-children-names profile=profile0/subsystem=datasources", readChildrenNames, Math.max(1, iterations / 10));
+    }
+
+    private static ModelNode address(final String profile, final String dataSource) {
+        final ModelNode address = new ModelNode();
+        address.add("profile", profile);
+        address.add("subsystem", "datasources");
+        address.add("data-source", dataSource);
+        return address;
+    }
+
+    private void measure(final String description, final ModelNode operation, final int iterations) {
+        final ModelController controller = getController();
+        // warm up
+        for (int i = 0; i < iterations; i++) {
+            execute(controller, operation);
+        }
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            execute(controller, operation);
+        }
+        final long nanos = System.nanoTime() - start;
+        System.out.printf("%-60s %10.1f us/op%n", description, nanos / 1000.0 / iterations);
+    }
+
+    private static void execute(final ModelController controller, final ModelNode operation) {
+        final ModelNode response = controller.execute(operation, null, null, null);
+        if (!SUCCESS.equals(response.get(OUTCOME).asString())) {
+            throw new IllegalStateException(response.toString());
+        }
+    }
+
+    @Override
+    DescriptionProvider getRootDescriptionProvider() {
+        return NULL;
+    }
+
+    @Override
+    void initModel(ManagementResourceRegistration root) {
+        root.registerOperationHandler(READ_RESOURCE_OPERATION, GlobalOperationHandlers.READ_RESOURCE, NULL, true);
+        root.registerOperationHandler(READ_ATTRIBUTE_OPERATION, GlobalOperationHandlers.READ_ATTRIBUTE, NULL, true);
+        root.registerOperationHandler(READ_CHILDREN_NAMES_OPERATION, GlobalOperationHandlers.READ_CHILDREN_NAMES, NULL, true);
+
+        root.registerOperationHandler("setup", new OperationStepHandler() {
+            @Override
+            public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+                final ModelNode model = new ModelNode();
+                for (int i = 0; i < resources; i++) {
+                    final String profile = "profile" + (i % PROFILES);
+                    final String dataSource = "ds" + (i / PROFILES);
+                    model.get("profile", profile, "subsystem", "datasources", "data-source", dataSource, "jndi-name").set("java:/" + dataSource);
+                }
+                createModel(context, model);
+                context.completeStep();
+            }
+        }, NULL);
+
+        final ManagementResourceRegistration profiles = root.registerSubModel(PathElement.pathElement("profile"), NULL);
+        final ManagementResourceRegistration subsystems = profiles.registerSubModel(PathElement.pathElement("subsystem"), NULL);
+        subsystems.registerSubModel(PathElement.pathElement("data-source"), NULL);
+    }
+}
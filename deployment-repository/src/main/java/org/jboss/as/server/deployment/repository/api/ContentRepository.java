@@ -52,12 +52,21 @@ public interface ContentRepository {
     byte[] addContent(InputStream stream) throws IOException;
 
     /**
-     * Get the content as a virtual file.
+     * Get the content as a virtual file. Each call should be paired with a call to {@link #releaseContent(byte[])}
+     * once the file is no longer used.
      *
      * @param hash the hash. Cannot be {@code null}
      */
     VirtualFile getContent(byte[] hash);
 
+    /**
+     * Signals that a file obtained from {@link #getContent(byte[])} is no longer used, so that any copy made to
+     * provide it can be cleaned up.
+     *
+     * @param hash the hash. Cannot be {@code null}
+     */
+    void releaseContent(byte[] hash);
+
     /**
      * Gets whether content with the given hash is stored in the repository.
      *
@@ -0,0 +1,327 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.server.deployment.repository.impl;
+
+import org.jboss.logging.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Stores content as a sequence of chunks, each of which is kept once however many pieces of content contain it.
+ * <p/>
+ * Chunk boundaries are chosen by a rolling hash over the last 64 bytes of content, so they move along with the
+ * content when bytes are inserted or removed, and the chunks of two versions of an archive that differ in a few
+ * entries are mostly the same. Chunks are named after their SHA-1 hash and are reference counted by the manifests
+ * that list them; a chunk is deleted once no manifest refers to it any more.
+ */
+final class ChunkStore {
+
+    private static final Logger log = Logger.getLogger("org.jboss.as.server.deployment");
+
+    static final String CHUNKS = "chunks";
+
+    private static final int MANIFEST_VERSION = 1;
+    private static final int MIN_CHUNK_SIZE = 16 * 1024;
+    private static final int MAX_CHUNK_SIZE = 256 * 1024;
+    /**
+     * A boundary is placed where the top 16 bits of the rolling hash are zero, which happens every 64k on average.
+     */
+    private static final long BOUNDARY_MASK = 0xFFFFL << 48;
+    private static final long[] GEAR = new long[256];
+
+    static {
+        // the table must never change, or chunks stored before would no longer be found
+        final Random random = new Random(0x6a09e667f3bcc908L);
+        for (int i = 0; i < GEAR.length; i++) {
+            GEAR[i] = random.nextLong();
+        }
+    }
+
+    /**
+     * A chunk of content.
+     */
+    static final class Chunk {
+        private final byte[] hash;
+        private final int length;
+
+        Chunk(final byte[] hash, final int length) {
+            this.hash = hash;
+            this.length = length;
+        }
+
+        byte[] getHash() {
+            return hash;
+        }
+
+        int getLength() {
+            return length;
+        }
+    }
+
+    /**
+     * The result of storing content.
+     */
+    static final class StoredContent {
+        private final byte[] hash;
+        private final List<Chunk> chunks;
+
+        StoredContent(final byte[] hash, final List<Chunk> chunks) {
+            this.hash = hash;
+            this.chunks = chunks;
+        }
+
+        /**
+         * @return the SHA-1 hash of the whole content
+         */
+        byte[] getHash() {
+            return hash;
+        }
+
+        List<Chunk> getChunks() {
+            return chunks;
+        }
+    }
+
+    private final File chunkRoot;
+    /**
+     * The number of manifests, or stores in progress, that refer to each chunk
+     */
+    private final Map<String, Integer> references = new HashMap<String, Integer>();
+
+    ChunkStore(final File chunkRoot) {
+        this.chunkRoot = chunkRoot;
+    }
+
+    /**
+     * Counts the references held by existing manifests. Must be called before anything is stored.
+     *
+     * @param manifests the manifests
+     */
+    synchronized void addReferences(final List<File> manifests) {
+        for (File manifest : manifests) {
+            try {
+                for (Chunk chunk : readManifest(manifest)) {
+                    reference(HashUtil.bytesToHexString(chunk.getHash()));
+                }
+            } catch (IOException e) {
+                log.errorf(e, "Cannot read content manifest %s", manifest.getAbsolutePath());
+            }
+        }
+    }
+
+    /**
+     * Splits the content into chunks, storing those that are not yet present. Each of the chunks is referenced
+     * until it is {@link #release(List) released}, or the content's manifest is counted.
+     *
+     * @param stream the content
+     * @return the hash of the content, and its chunks
+     * @throws IOException if the content cannot be read or a chunk cannot be stored
+     */
+    StoredContent store(final InputStream stream) throws IOException {
+        final MessageDigest contentDigest = createDigest();
+        final MessageDigest chunkDigest = createDigest();
+        final List<Chunk> chunks = new ArrayList<Chunk>();
+        boolean stored = false;
+        try {
+            final byte[] buffer = new byte[64 * 1024];
+            final byte[] chunk = new byte[MAX_CHUNK_SIZE];
+            int length = 0;
+            long hash = 0;
+            int read;
+            while ((read = stream.read(buffer)) > -1) {
+                contentDigest.update(buffer, 0, read);
+                for (int i = 0; i < read; i++) {
+                    final byte b = buffer[i];
+                    chunk[length++] = b;
+                    hash = (hash << 1) + GEAR[b & 0xFF];
+                    if (length >= MIN_CHUNK_SIZE && ((hash & BOUNDARY_MASK) == 0 || length == MAX_CHUNK_SIZE)) {
+                        chunks.add(storeChunk(chunkDigest, chunk, length));
+                        length = 0;
+                        hash = 0;
+                    }
+                }
+            }
+            if (length > 0) {
+                chunks.add(storeChunk(chunkDigest, chunk, length));
+            }
+            stored = true;
+        } finally {
+            if (!stored) {
+                release(chunks);
+            }
+        }
+        return new StoredContent(contentDigest.digest(), Collections.unmodifiableList(chunks));
+    }
+
+    /**
+     * Drops a reference to each of the chunks, deleting those that are no longer referenced.
+     *
+     * @param chunks the chunks
+     */
+    synchronized void release(final List<Chunk> chunks) {
+        for (Chunk chunk : chunks) {
+            final String name = HashUtil.bytesToHexString(chunk.getHash());
+            final Integer count = references.get(name);
+            if (count == null || count <= 1) {
+                references.remove(name);
+                final File file = getChunkFile(name);
+                if (!file.delete() && file.exists()) {
+                    file.deleteOnExit();
+                }
+            } else {
+                references.put(name, count - 1);
+            }
+        }
+    }
+
+    /**
+     * Writes the content described by a list of chunks to a file.
+     *
+     * @param chunks the chunks
+     * @param target the file
+     * @throws IOException if a chunk cannot be read or the file cannot be written
+     */
+    void assemble(final List<Chunk> chunks, final File target) throws IOException {
+        final FileOutputStream out = new FileOutputStream(target);
+        try {
+            final byte[] buffer = new byte[MAX_CHUNK_SIZE];
+            for (Chunk chunk : chunks) {
+                final FileInputStream in = new FileInputStream(getChunkFile(HashUtil.bytesToHexString(chunk.getHash())));
+                try {
+                    new DataInputStream(in).readFully(buffer, 0, chunk.getLength());
+                } finally {
+                    ContentRepositoryImpl.safeClose(in);
+                }
+                out.write(buffer, 0, chunk.getLength());
+            }
+        } finally {
+            ContentRepositoryImpl.safeClose(out);
+        }
+    }
+
+    static void writeManifest(final List<Chunk> chunks, final File manifest) throws IOException {
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(manifest)));
+        try {
+            out.writeInt(MANIFEST_VERSION);
+            out.writeInt(chunks.size());
+            for (Chunk chunk : chunks) {
+                out.write(chunk.getHash());
+                out.writeInt(chunk.getLength());
+            }
+        } finally {
+            ContentRepositoryImpl.safeClose(out);
+        }
+    }
+
+    static List<Chunk> readManifest(final File manifest) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(manifest)));
+        try {
+            final int version = in.readInt();
+            if (version != MANIFEST_VERSION) {
+                throw new IOException("Unknown manifest version " + version);
+            }
+            final int count = in.readInt();
+            final List<Chunk> chunks = new ArrayList<Chunk>(count);
+            for (int i = 0; i < count; i++) {
+                final byte[] hash = new byte[20];
+                in.readFully(hash);
+                chunks.add(new Chunk(hash, in.readInt()));
+            }
+            return chunks;
+        } finally {
+            ContentRepositoryImpl.safeClose(in);
+        }
+    }
+
+    private Chunk storeChunk(final MessageDigest digest, final byte[] data, final int length) throws IOException {
+        digest.reset();
+        digest.update(data, 0, length);
+        final byte[] hash = digest.digest();
+        final String name = HashUtil.bytesToHexString(hash);
+        final File file = getChunkFile(name);
+        // reference the chunk first, so it cannot be deleted between checking for it and using it
+        synchronized (this) {
+            reference(name);
+        }
+        try {
+            if (!file.exists()) {
+                final File dir = file.getParentFile();
+                if (!dir.mkdirs() && !dir.isDirectory()) {
+                    throw new IOException("Cannot create directory " + dir.getAbsolutePath());
+                }
+                final File tmp = File.createTempFile(ContentRepositoryImpl.CONTENT, "tmp", dir);
+                final FileOutputStream out = new FileOutputStream(tmp);
+                try {
+                    out.write(data, 0, length);
+                } finally {
+                    ContentRepositoryImpl.safeClose(out);
+                }
+                // a concurrent store of the same chunk wrote the same bytes, so it does not matter who wins
+                if (!tmp.renameTo(file)) {
+                    if (!tmp.delete()) {
+                        tmp.deleteOnExit();
+                    }
+                    if (!file.exists()) {
+                        throw new IOException("Cannot store chunk " + file.getAbsolutePath());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            release(Collections.singletonList(new Chunk(hash, length)));
+            throw e;
+        }
+        return new Chunk(hash, length);
+    }
+
+    private void reference(final String name) {
+        final Integer count = references.get(name);
+        references.put(name, count == null ? 1 : count + 1);
+    }
+
+    private File getChunkFile(final String name) {
+        return new File(new File(chunkRoot, name.substring(0, 2)), name.substring(2));
+    }
+
+    private static MessageDigest createDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot obtain SHA-1 " + MessageDigest.class.getSimpleName(), e);
+        }
+    }
+}
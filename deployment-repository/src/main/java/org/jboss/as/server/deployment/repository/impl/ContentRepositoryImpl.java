@@ -32,17 +32,19 @@ import org.jboss.msc.service.StopContext;
 import org.jboss.vfs.VFS;
 import org.jboss.vfs.VirtualFile;
 
-import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.security.DigestOutputStream;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Default implementation of {@link org.jboss.as.server.deployment.repository.api.ContentRepository}.
@@ -51,9 +53,23 @@ import java.security.NoSuchAlgorithmException;
 public class ContentRepositoryImpl implements ContentRepository, Service<ContentRepository> {
     private static final Logger log = Logger.getLogger("org.jboss.as.server.deployment");
 
+    /**
+     * System property that switches the repository to storing content as deduplicated chunks.
+     */
+    public static final String CHUNKED_STORAGE = "jboss.deployment.repository.chunked";
+
     protected static final String CONTENT = "content";
+    protected static final String MANIFEST = "manifest";
+    private static final int BUFFER_SIZE = 64 * 1024;
     private final File repoRoot;
-    protected final MessageDigest messageDigest;
+    /**
+     * The store of content chunks, or null if content is stored as whole files
+     */
+    private final ChunkStore chunkStore;
+    /**
+     * The number of users of each piece of chunked content that has been assembled, by hash. Guarded by itself.
+     */
+    private final Map<String, Integer> assembledReferences = new HashMap<String, Integer>();
 
     // TODO: return void
     public static ContentRepositoryImpl addService(final ServiceTarget serviceTarget, final File repoRoot) {
@@ -63,6 +79,15 @@ public class ContentRepositoryImpl implements ContentRepository, Service<Content
     }
 
     protected ContentRepositoryImpl(final File repoRoot) {
+        this(repoRoot, Boolean.parseBoolean(SecurityActions.getSystemProperty(CHUNKED_STORAGE)));
+    }
+
+    /**
+     * @param repoRoot the root directory of the repository
+     * @param chunked  true if new content should be split into chunks, each of which is stored only once however
+     *                 many pieces of content contain it. Content stored as whole files can be read either way
+     */
+    protected ContentRepositoryImpl(final File repoRoot, final boolean chunked) {
         if (repoRoot == null)
             throw new IllegalArgumentException("repoRoot is null");
         if (repoRoot.exists()) {
@@ -77,35 +102,82 @@ public class ContentRepositoryImpl implements ContentRepository, Service<Content
             throw new IllegalStateException("Failed to create a directory at " + repoRoot.getAbsolutePath());
         }
         this.repoRoot = repoRoot;
+        // fail early if the digest is not available
+        createDigest();
+        if (chunked) {
+            chunkStore = new ChunkStore(new File(repoRoot, ChunkStore.CHUNKS));
+            final List<File> manifests = findManifests();
+            chunkStore.addReferences(manifests);
+            // nothing uses the content yet, so any copy assembled before a restart is stale
+            for (File manifest : manifests) {
+                final File assembled = new File(manifest.getParentFile(), CONTENT);
+                if (assembled.exists() && !assembled.delete()) {
+                    assembled.deleteOnExit();
+                }
+            }
+        } else {
+            chunkStore = null;
+        }
+    }
+
+    /**
+     * @return the manifests of all chunked content in the repository
+     */
+    private List<File> findManifests() {
+        final List<File> manifests = new ArrayList<File>();
+        // content lives in hash directories split after the first two characters
+        final File[] bases = repoRoot.listFiles();
+        for (File base : bases == null ? new File[0] : bases) {
+            if (!base.isDirectory() || base.getName().length() != 2) {
+                continue;
+            }
+            final File[] hashDirs = base.listFiles();
+            for (File hashDir : hashDirs == null ? new File[0] : hashDirs) {
+                final File manifest = new File(hashDir, MANIFEST);
+                if (manifest.isFile()) {
+                    manifests.add(manifest);
+                }
+            }
+        }
+        return manifests;
+    }
 
+    private static MessageDigest createDigest() {
         try {
-            this.messageDigest = MessageDigest.getInstance("SHA-1");
+            return MessageDigest.getInstance("SHA-1");
         } catch (NoSuchAlgorithmException e) {
             throw new IllegalStateException("Cannot obtain SHA-1 " + MessageDigest.class.getSimpleName(), e);
         }
     }
 
+    /**
+     * Hashes the content and writes it to a temporary file in a single pass over the stream, then moves the file
+     * into place. Each call uses its own digest, so concurrent uploads do not wait for each other.
+     */
     @Override
     public byte[] addContent(InputStream stream) throws IOException {
-        byte[] sha1Bytes = null;
+        if (chunkStore != null) {
+            return addChunkedContent(stream);
+        }
+        final MessageDigest messageDigest = createDigest();
         File tmp = File.createTempFile(CONTENT, "tmp", repoRoot);
         FileOutputStream fos = new FileOutputStream(tmp);
-        synchronized (messageDigest) {
-            messageDigest.reset();
-            try {
-                DigestOutputStream dos = new DigestOutputStream(fos, messageDigest);
-                BufferedInputStream bis = new BufferedInputStream(stream);
-                byte[] bytes = new byte[8192];
-                int read;
-                while ((read = bis.read(bytes)) > -1) {
-                    dos.write(bytes, 0, read);
-                }
+        boolean stored = false;
+        try {
+            byte[] bytes = new byte[BUFFER_SIZE];
+            int read;
+            while ((read = stream.read(bytes)) > -1) {
+                messageDigest.update(bytes, 0, read);
+                fos.write(bytes, 0, read);
             }
-            finally {
-                safeClose(fos);
+            stored = true;
+        } finally {
+            safeClose(fos);
+            if (!stored && !tmp.delete()) {
+                tmp.deleteOnExit();
             }
-            sha1Bytes = messageDigest.digest();
         }
+        final byte[] sha1Bytes = messageDigest.digest();
         final File realFile = getDeploymentContentFile(sha1Bytes, true);
         if(hasContent(sha1Bytes)) {
             // we've already got this content
@@ -121,16 +193,152 @@ public class ContentRepositoryImpl implements ContentRepository, Service<Content
         return sha1Bytes;
     }
 
+    private byte[] addChunkedContent(InputStream stream) throws IOException {
+        final ChunkStore.StoredContent content = chunkStore.store(stream);
+        final byte[] sha1Bytes = content.getHash();
+        final File manifest = new File(getDeploymentHashDir(sha1Bytes, true), MANIFEST);
+        // the chunks referenced by the store are handed over to the manifest, unless the content is already there
+        synchronized (chunkStore) {
+            if (hasContent(sha1Bytes)) {
+                chunkStore.release(content.getChunks());
+                log.debugf("Content was already present in repository at location %s", manifest.getParentFile().getAbsolutePath());
+                return sha1Bytes;
+            }
+            try {
+                ChunkStore.writeManifest(content.getChunks(), manifest);
+            } catch (IOException e) {
+                if (!manifest.delete()) {
+                    manifest.deleteOnExit();
+                }
+                chunkStore.release(content.getChunks());
+                throw e;
+            }
+        }
+        log.infof("Content added at location %s in %d chunks", manifest.getParentFile().getAbsolutePath(), content.getChunks().size());
+        return sha1Bytes;
+    }
+
+    /**
+     * Content that was stored in chunks is reassembled into a file while it is in use, as the virtual file system
+     * needs a real file to mount. The assembled copy is deleted again once every user has
+     * {@link #releaseContent(byte[]) released} it, so only the chunks stay on disk.
+     */
     @Override
     public VirtualFile getContent(byte[] hash) {
         if (hash == null)
             throw new IllegalArgumentException("hash is null");
-        return VFS.getChild(getDeploymentContentFile(hash, true).toURI());
+        final File file = getDeploymentContentFile(hash, true);
+        if (chunkStore != null) {
+            final File manifest = new File(file.getParentFile(), MANIFEST);
+            if (manifest.exists()) {
+                final String key = HashUtil.bytesToHexString(hash);
+                // count the user before assembling, so a concurrent release cannot delete the file underneath it
+                synchronized (assembledReferences) {
+                    final Integer references = assembledReferences.get(key);
+                    assembledReferences.put(key, references == null ? 1 : references + 1);
+                }
+                if (!file.exists()) {
+                    try {
+                        assemble(manifest, file);
+                    } catch (RuntimeException e) {
+                        releaseContent(hash);
+                        throw e;
+                    }
+                }
+            }
+        }
+        return VFS.getChild(file.toURI());
+    }
+
+    @Override
+    public void releaseContent(byte[] hash) {
+        if (hash == null)
+            throw new IllegalArgumentException("hash is null");
+        if (chunkStore == null) {
+            return;
+        }
+        final String key = HashUtil.bytesToHexString(hash);
+        synchronized (assembledReferences) {
+            final Integer references = assembledReferences.get(key);
+            if (references == null) {
+                // not assembled, or stored as a whole file
+                return;
+            }
+            if (references > 1) {
+                assembledReferences.put(key, references - 1);
+                return;
+            }
+            assembledReferences.remove(key);
+            final File file = getDeploymentContentFile(hash);
+            if (file.exists() && !file.delete()) {
+                file.deleteOnExit();
+            }
+        }
+    }
+
+    private void assemble(final File manifest, final File file) {
+        try {
+            // assemble next to the file and rename, so a partially assembled file is never visible
+            final File tmp = File.createTempFile(CONTENT, "tmp", file.getParentFile());
+            try {
+                chunkStore.assemble(ChunkStore.readManifest(manifest), tmp);
+            } catch (IOException e) {
+                if (!tmp.delete()) {
+                    tmp.deleteOnExit();
+                }
+                throw e;
+            }
+            // if the rename fails, another caller assembled the same content first
+            if (!tmp.renameTo(file) && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot assemble content at " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Turns chunked content left in a hash directory into a whole file, for readers that copy the directory as it
+     * is, like the domain file transfer, rather than going through a repository. The manifest is removed once the
+     * content is assembled, so the directory looks as if the content had been stored as a whole file. Directories
+     * without a manifest are left alone.
+     *
+     * @param repoRoot the root directory of the repository
+     * @param hashDir  the directory of the content
+     * @throws IOException if the content cannot be assembled
+     */
+    public static void assembleChunkedContent(final File repoRoot, final File hashDir) throws IOException {
+        final File manifest = new File(hashDir, MANIFEST);
+        if (!manifest.isFile()) {
+            return;
+        }
+        final File file = new File(hashDir, CONTENT);
+        if (!file.exists()) {
+            final File tmp = File.createTempFile(CONTENT, "tmp", hashDir);
+            try {
+                new ChunkStore(new File(repoRoot, ChunkStore.CHUNKS)).assemble(ChunkStore.readManifest(manifest), tmp);
+            } catch (IOException e) {
+                if (!tmp.delete()) {
+                    tmp.deleteOnExit();
+                }
+                throw e;
+            }
+            // if the rename fails, another reader assembled the same content first
+            if (!tmp.renameTo(file) && !tmp.delete()) {
+                tmp.deleteOnExit();
+            }
+        }
+        if (!manifest.delete() && manifest.exists()) {
+            manifest.deleteOnExit();
+        }
     }
 
     @Override
     public boolean hasContent(byte[] hash) {
-        return getDeploymentContentFile(hash).exists();
+        if (getDeploymentContentFile(hash).exists()) {
+            return true;
+        }
+        return chunkStore != null && new File(getDeploymentHashDir(hash, false), MANIFEST).exists();
     }
 
     protected File getRepoRoot() {
@@ -155,7 +363,8 @@ public class ContentRepositoryImpl implements ContentRepository, Service<Content
             validateDir(base);
         }
         final File hashDir = new File(base, partB);
-        if (validate && !hashDir.exists() && !hashDir.mkdirs()) {
+        // another upload of the same content may create the directory concurrently
+        if (validate && !hashDir.mkdirs() && !hashDir.isDirectory()) {
             throw new IllegalStateException("Cannot create directory " + hashDir.getAbsolutePath());
         }
         return hashDir;
@@ -163,7 +372,7 @@ public class ContentRepositoryImpl implements ContentRepository, Service<Content
 
     protected void validateDir(File dir) {
         if (!dir.exists()) {
-            if (!dir.mkdirs()) {
+            if (!dir.mkdirs() && !dir.isDirectory()) {
                 throw new IllegalStateException("Cannot create directory " + dir.getAbsolutePath());
             }
         } else if (!dir.isDirectory()) {
@@ -173,36 +382,73 @@ public class ContentRepositoryImpl implements ContentRepository, Service<Content
         }
     }
 
+    /**
+     * Moves the temporary file into place. The temporary file is created in the repository root, so this is
+     * normally an atomic rename. Otherwise the content is copied next to the permanent file, without passing
+     * through user space, and renamed from there, so a partially copied file is never visible under its
+     * permanent name.
+     */
     private void moveTempToPermanent(File tmpFile, File permanentFile) throws IOException {
 
         if (!tmpFile.renameTo(permanentFile)) {
-            FileOutputStream fos = null;
-            BufferedOutputStream bos = null;
+            final File copy = File.createTempFile(CONTENT, "tmp", permanentFile.getParentFile());
             FileInputStream fis = null;
+            FileOutputStream fos = null;
             try {
-                fos = new FileOutputStream(permanentFile);
-                bos = new BufferedOutputStream(fos);
                 fis = new FileInputStream(tmpFile);
-                BufferedInputStream bis = new BufferedInputStream(fis);
-                byte[] bytes = new byte[8192];
-                int read;
-                while ((read = bis.read(bytes)) > -1) {
-                    bos.write(bytes, 0, read);
+                fos = new FileOutputStream(copy);
+                final FileChannel in = fis.getChannel();
+                final FileChannel out = fos.getChannel();
+                final long size = in.size();
+                long position = 0;
+                while (position < size) {
+                    position += in.transferTo(position, size - position, out);
                 }
             } finally {
-                safeClose(bos);
                 safeClose(fos);
                 safeClose(fis);
                 if (!tmpFile.delete()) {
                     tmpFile.deleteOnExit();
                 }
             }
+            if (!copy.renameTo(permanentFile)) {
+                if (!copy.delete()) {
+                    copy.deleteOnExit();
+                }
+                // on some platforms a rename cannot replace a file, which is only there if the same content was
+                // added concurrently
+                if (!permanentFile.exists()) {
+                    throw new IOException("Cannot move content to " + permanentFile.getAbsolutePath());
+                }
+            }
         }
     }
 
     @Override
     public void removeContent(byte[] hash) {
         File file = getDeploymentContentFile(hash, true);
+        if (chunkStore != null) {
+            final File manifest = new File(file.getParentFile(), MANIFEST);
+            List<ChunkStore.Chunk> chunks = null;
+            synchronized (chunkStore) {
+                if (manifest.exists()) {
+                    try {
+                        chunks = ChunkStore.readManifest(manifest);
+                    } catch (IOException e) {
+                        log.errorf(e, "Cannot read content manifest %s, its chunks will not be removed", manifest.getAbsolutePath());
+                    }
+                    if (!manifest.delete()) {
+                        manifest.deleteOnExit();
+                    }
+                }
+            }
+            if (chunks != null) {
+                chunkStore.release(chunks);
+            }
+            if (!file.exists()) {
+                return;
+            }
+        }
         if(!file.delete())
             file.deleteOnExit();
     }
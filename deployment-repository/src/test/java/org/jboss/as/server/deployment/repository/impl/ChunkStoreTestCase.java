@@ -0,0 +1,170 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.server.deployment.repository.impl;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Tests for {@link ChunkStore}.
+ */
+public class ChunkStoreTestCase {
+
+    private File root;
+    private ChunkStore store;
+
+    @Before
+    public void setUp() throws IOException {
+        root = File.createTempFile("chunk-store", "");
+        Assert.assertTrue(root.delete());
+        Assert.assertTrue(root.mkdir());
+        store = new ChunkStore(new File(root, ChunkStore.CHUNKS));
+    }
+
+    @After
+    public void tearDown() {
+        delete(root);
+    }
+
+    @Test
+    public void testContentIsReassembled() throws Exception {
+        final byte[] content = randomBytes(1024 * 1024 + 17, 1);
+        final ChunkStore.StoredContent stored = store.store(new ByteArrayInputStream(content));
+        Assert.assertTrue(Arrays.equals(MessageDigest.getInstance("SHA-1").digest(content), stored.getHash()));
+        Assert.assertTrue("Content was not split", stored.getChunks().size() > 1);
+
+        final File manifest = new File(root, "manifest");
+        ChunkStore.writeManifest(stored.getChunks(), manifest);
+        final File assembled = new File(root, "assembled");
+        store.assemble(ChunkStore.readManifest(manifest), assembled);
+        Assert.assertTrue(Arrays.equals(content, readFile(assembled)));
+    }
+
+    @Test
+    public void testInsertionOnlyChangesNearbyChunks() throws Exception {
+        final byte[] original = randomBytes(4 * 1024 * 1024, 2);
+        // insert a few bytes in the middle, which shifts everything after them
+        final byte[] modified = new byte[original.length + 100];
+        System.arraycopy(original, 0, modified, 0, original.length / 2);
+        System.arraycopy(randomBytes(100, 3), 0, modified, original.length / 2, 100);
+        System.arraycopy(original, original.length / 2, modified, original.length / 2 + 100, original.length / 2);
+
+        final Set<String> originalChunks = names(store.store(new ByteArrayInputStream(original)).getChunks());
+        final List<ChunkStore.Chunk> modifiedChunks = store.store(new ByteArrayInputStream(modified)).getChunks();
+        int changed = 0;
+        for (String name : names(modifiedChunks)) {
+            if (!originalChunks.contains(name)) {
+                changed++;
+            }
+        }
+        Assert.assertTrue(changed + " of " + modifiedChunks.size() + " chunks changed", changed <= 2);
+    }
+
+    @Test
+    public void testChunksAreDeletedWhenNoLongerReferenced() throws Exception {
+        final byte[] content = randomBytes(512 * 1024, 4);
+        final ChunkStore.StoredContent first = store.store(new ByteArrayInputStream(content));
+        final ChunkStore.StoredContent second = store.store(new ByteArrayInputStream(content));
+        Assert.assertEquals(names(first.getChunks()), names(second.getChunks()));
+        final int files = countFiles(root);
+        Assert.assertEquals(first.getChunks().size(), files);
+
+        store.release(first.getChunks());
+        Assert.assertEquals(files, countFiles(root));
+        store.release(second.getChunks());
+        Assert.assertEquals(0, countFiles(root));
+    }
+
+    @Test
+    public void testExistingManifestsAreCounted() throws Exception {
+        final ChunkStore.StoredContent stored = store.store(new ByteArrayInputStream(randomBytes(256 * 1024, 5)));
+        final File manifest = new File(root, "manifest");
+        ChunkStore.writeManifest(stored.getChunks(), manifest);
+
+        // as if the server had been restarted
+        final ChunkStore restarted = new ChunkStore(new File(root, ChunkStore.CHUNKS));
+        restarted.addReferences(Arrays.asList(manifest));
+        final ChunkStore.StoredContent again = restarted.store(new ByteArrayInputStream(randomBytes(256 * 1024, 5)));
+        restarted.release(again.getChunks());
+        Assert.assertEquals(stored.getChunks().size() + 1, countFiles(root));
+    }
+
+    private static Set<String> names(final List<ChunkStore.Chunk> chunks) {
+        final Set<String> names = new HashSet<String>();
+        for (ChunkStore.Chunk chunk : chunks) {
+            names.add(HashUtil.bytesToHexString(chunk.getHash()));
+        }
+        return names;
+    }
+
+    private static byte[] randomBytes(final int length, final long seed) {
+        final byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static byte[] readFile(final File file) throws IOException {
+        final byte[] bytes = new byte[(int) file.length()];
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < bytes.length) {
+                offset += in.read(bytes, offset, bytes.length - offset);
+            }
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    private static int countFiles(final File dir) {
+        int count = 0;
+        final File[] files = dir.listFiles();
+        for (File file : files == null ? new File[0] : files) {
+            count += file.isDirectory() ? countFiles(file) : 1;
+        }
+        return count;
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
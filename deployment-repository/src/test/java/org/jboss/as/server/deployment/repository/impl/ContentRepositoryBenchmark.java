@@ -0,0 +1,146 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.server.deployment.repository.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures the throughput of {@link ContentRepositoryImpl#addContent(InputStream)} for 1 to 16 concurrent uploads.
+ * Every upload is distinct, generated content, so no upload finds its content already present. This is not run as
+ * part of the test suite, run it with:
+ * <pre>
+ * java -cp ... org.jboss.as.server.deployment.repository.impl.ContentRepositoryBenchmark [upload-size-mb] [max-uploads]
+ * </pre>
+ */
+public class ContentRepositoryBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final long size = (args.length > 0 ? Long.parseLong(args[0]) : 200) * 1024 * 1024;
+        final int maxUploads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        final File root = File.createTempFile("content-repository", "");
+        if (!root.delete()) {
+            throw new IllegalStateException("Cannot delete " + root);
+        }
+        try {
+            final ContentRepositoryImpl repository = new ContentRepositoryImpl(root);
+            int round = 0;
+            for (int uploads = 1; uploads <= maxUploads; uploads *= 2) {
+                final long nanos = run(repository, uploads, size, round++);
+                final double megabytes = (double) uploads * size / (1024 * 1024);
+                System.out.printf("%2d concurrent uploads of %d MB: %6d ms, %8.1f MB/s%n", uploads, size / (1024 * 1024),
+                        nanos / 1000000, megabytes / (nanos / 1e9));
+            }
+        } finally {
+            delete(root);
+        }
+    }
+
+    private static long run(final ContentRepositoryImpl repository, final int uploads, final long size, final int round) throws Exception {
+        final CountDownLatch ready = new CountDownLatch(uploads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(uploads);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final byte[][] hashes = new byte[uploads][];
+        for (int i = 0; i < uploads; i++) {
+            final int upload = i;
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        final InputStream in = new GeneratedInputStream(size, round * 1000L + upload);
+                        ready.countDown();
+                        start.await();
+                        hashes[upload] = repository.addContent(in);
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        ready.await();
+        final long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        final long nanos = System.nanoTime() - begin;
+        if (failure.get() != null) {
+            throw new IllegalStateException("Upload failed", failure.get());
+        }
+        for (byte[] hash : hashes) {
+            repository.removeContent(hash);
+        }
+        return nanos;
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    /**
+     * Pseudo random content, generated as it is read so that the source of an upload does not compete for the disk.
+     */
+    private static final class GeneratedInputStream extends InputStream {
+        private long remaining;
+        private long seed;
+
+        GeneratedInputStream(final long size, final long seed) {
+            this.remaining = size;
+            this.seed = seed * 0x9E3779B97F4A7C15L + 1;
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xFF;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (remaining == 0) {
+                return -1;
+            }
+            final int count = (int) Math.min(len, remaining);
+            for (int i = 0; i < count; i++) {
+                // xorshift
+                seed ^= seed << 13;
+                seed ^= seed >>> 7;
+                seed ^= seed << 17;
+                b[off + i] = (byte) seed;
+            }
+            remaining -= count;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.repository.impl;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Tests for {@link ContentRepositoryImpl}.
+ */
+public class ContentRepositoryImplTestCase {
+
+    private static final int CONTENT_SIZE = 4 * 1024 * 1024;
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = File.createTempFile("content-repository", "");
+        Assert.assertTrue(root.delete());
+        Assert.assertTrue(root.mkdir());
+    }
+
+    @After
+    public void tearDown() {
+        delete(root);
+    }
+
+    @Test
+    public void testAssembledContentIsRemovedOnceReleased() throws Exception {
+        final ContentRepositoryImpl repository = new ContentRepositoryImpl(root, true);
+        final byte[] hash = repository.addContent(new ByteArrayInputStream(randomBytes(CONTENT_SIZE)));
+        final long stored = diskUsage(root);
+
+        repository.getContent(hash);
+        Assert.assertEquals(stored + CONTENT_SIZE, diskUsage(root));
+        repository.releaseContent(hash);
+        Assert.assertEquals(stored, diskUsage(root));
+    }
+
+    @Test
+    public void testAssembledContentIsKeptWhileInUse() throws Exception {
+        final ContentRepositoryImpl repository = new ContentRepositoryImpl(root, true);
+        final byte[] hash = repository.addContent(new ByteArrayInputStream(randomBytes(CONTENT_SIZE)));
+        final File assembled = repository.getDeploymentContentFile(hash);
+
+        repository.getContent(hash);
+        repository.getContent(hash);
+        repository.releaseContent(hash);
+        Assert.assertTrue(assembled.exists());
+        repository.releaseContent(hash);
+        Assert.assertFalse(assembled.exists());
+    }
+
+    @Test
+    public void testStaleAssembledContentIsRemovedOnStartup() throws Exception {
+        final ContentRepositoryImpl repository = new ContentRepositoryImpl(root, true);
+        final byte[] hash = repository.addContent(new ByteArrayInputStream(randomBytes(CONTENT_SIZE)));
+        final long stored = diskUsage(root);
+        repository.getContent(hash);
+
+        // a restart without releasing the content, as after a crash
+        new ContentRepositoryImpl(root, true);
+        Assert.assertEquals(stored, diskUsage(root));
+    }
+
+    @Test
+    public void testWholeFileContentIsNotRemovedOnRelease() throws Exception {
+        final ContentRepositoryImpl repository = new ContentRepositoryImpl(root, false);
+        final byte[] hash = repository.addContent(new ByteArrayInputStream(randomBytes(CONTENT_SIZE)));
+
+        repository.getContent(hash);
+        repository.releaseContent(hash);
+        Assert.assertTrue(repository.hasContent(hash));
+        Assert.assertTrue(repository.getDeploymentContentFile(hash).exists());
+    }
+
+    private static byte[] randomBytes(final int length) {
+        final byte[] bytes = new byte[length];
+        new Random(1).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static long diskUsage(final File file) {
+        if (file.isFile()) {
+            return file.length();
+        }
+        long usage = 0;
+        final File[] children = file.listFiles();
+        for (File child : children == null ? new File[0] : children) {
+            usage += diskUsage(child);
+        }
+        return usage;
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
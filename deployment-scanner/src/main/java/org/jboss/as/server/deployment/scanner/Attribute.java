@@ -40,6 +40,8 @@ enum Attribute {
     AUTO_DEPLOY_ZIPPED(CommonAttributes.AUTO_DEPLOY_ZIPPED),
     AUTO_DEPLOY_EXPLODED(CommonAttributes.AUTO_DEPLOY_EXPLODED),
     DEPLOYMENT_TIMEOUT(CommonAttributes.DEPLOYMENT_TIMEOUT),
+    WATCH_EVENTS(CommonAttributes.WATCH_EVENTS),
+    MAX_CONCURRENT_DEPLOYMENTS(CommonAttributes.MAX_CONCURRENT_DEPLOYMENTS),
     ;
 
     private final String name;
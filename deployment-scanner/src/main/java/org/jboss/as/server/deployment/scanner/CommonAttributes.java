@@ -31,11 +31,16 @@ interface CommonAttributes {
     String AUTO_DEPLOY_EXPLODED = "auto-deploy-exploded";
     String DEPLOYMENT_SCANNER = "deployment-scanner";
     String DEPLOYMENT_TIMEOUT = "deployment-timeout";
+    String DEPLOYMENT_TIMES = "deployment-times";
+    String LAST_DETECTION_LATENCY = "last-detection-latency";
+    String LAST_SCAN_DURATION = "last-scan-duration";
+    String MAX_CONCURRENT_DEPLOYMENTS = "max-concurrent-deployments";
     String NAME = "name";
     String PATH = "path";
     String RELATIVE_TO = "relative-to";
     String SCANNER = "scanner";
     String SCAN_ENABLED = "scan-enabled";
     String SCAN_INTERVAL = "scan-interval";
+    String WATCH_EVENTS = "watch-events";
 
 }
@@ -62,6 +62,8 @@ class DeploymentScannerAdd extends AbstractAddStepHandler implements Description
         final Boolean autoDeployZip = operation.hasDefined(CommonAttributes.AUTO_DEPLOY_ZIPPED) ? operation.get(CommonAttributes.AUTO_DEPLOY_ZIPPED).asBoolean() : true;
         final Boolean autoDeployExp = operation.hasDefined(CommonAttributes.AUTO_DEPLOY_EXPLODED) ? operation.get(CommonAttributes.AUTO_DEPLOY_EXPLODED).asBoolean() : false;
         final Long deploymentTimeout = operation.hasDefined(CommonAttributes.DEPLOYMENT_TIMEOUT) ? operation.get(CommonAttributes.DEPLOYMENT_TIMEOUT).asLong() : 60L;
+        final Boolean watchEvents = operation.hasDefined(CommonAttributes.WATCH_EVENTS) ? operation.get(CommonAttributes.WATCH_EVENTS).asBoolean() : false;
+        final Integer maxConcurrentDeployments = operation.hasDefined(CommonAttributes.MAX_CONCURRENT_DEPLOYMENTS) ? operation.get(CommonAttributes.MAX_CONCURRENT_DEPLOYMENTS).asInt() : 0;
 
         model.get(CommonAttributes.NAME).set(name);
         model.get(CommonAttributes.PATH).set(path);
@@ -71,6 +73,8 @@ class DeploymentScannerAdd extends AbstractAddStepHandler implements Description
         if (autoDeployExp != null) model.get(CommonAttributes.AUTO_DEPLOY_EXPLODED).set(autoDeployExp);
         if (relativeTo != null) model.get(CommonAttributes.RELATIVE_TO).set(relativeTo);
         if (deploymentTimeout != null) model.get(CommonAttributes.DEPLOYMENT_TIMEOUT).set(deploymentTimeout);
+        if (watchEvents != null) model.get(CommonAttributes.WATCH_EVENTS).set(watchEvents);
+        if (maxConcurrentDeployments != null) model.get(CommonAttributes.MAX_CONCURRENT_DEPLOYMENTS).set(maxConcurrentDeployments);
 
     }
 
@@ -84,10 +88,12 @@ class DeploymentScannerAdd extends AbstractAddStepHandler implements Description
         final Boolean autoDeployZip = operation.hasDefined(CommonAttributes.AUTO_DEPLOY_ZIPPED) ? operation.get(CommonAttributes.AUTO_DEPLOY_ZIPPED).asBoolean() : true;
         final Boolean autoDeployExp = operation.hasDefined(CommonAttributes.AUTO_DEPLOY_EXPLODED) ? operation.get(CommonAttributes.AUTO_DEPLOY_EXPLODED).asBoolean() : false;
         final Long deploymentTimeout = operation.hasDefined(CommonAttributes.DEPLOYMENT_TIMEOUT) ? operation.get(CommonAttributes.DEPLOYMENT_TIMEOUT).asLong() : 60L;
+        final Boolean watchEvents = operation.hasDefined(CommonAttributes.WATCH_EVENTS) ? operation.get(CommonAttributes.WATCH_EVENTS).asBoolean() : false;
+        final Integer maxConcurrentDeployments = operation.hasDefined(CommonAttributes.MAX_CONCURRENT_DEPLOYMENTS) ? operation.get(CommonAttributes.MAX_CONCURRENT_DEPLOYMENTS).asInt() : 0;
 
         final ServiceTarget serviceTarget = context.getServiceTarget();
         DeploymentScannerService.addService(serviceTarget, name, relativeTo, path, interval, TimeUnit.MILLISECONDS,
-                autoDeployZip, autoDeployExp, enabled, deploymentTimeout, newControllers, verificationHandler);
+                autoDeployZip, autoDeployExp, enabled, deploymentTimeout, watchEvents, maxConcurrentDeployments, newControllers, verificationHandler);
     }
 
     @Override
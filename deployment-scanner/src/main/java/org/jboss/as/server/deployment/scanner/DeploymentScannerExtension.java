@@ -106,6 +106,11 @@ public class DeploymentScannerExtension implements Extension {
         scanners.registerReadWriteAttribute(Attribute.AUTO_DEPLOY_ZIPPED.getLocalName(), null, WriteAutoDeployZipAttributeHandler.INSTANCE, Storage.CONFIGURATION);
         scanners.registerReadWriteAttribute(Attribute.AUTO_DEPLOY_EXPLODED.getLocalName(), null, WriteAutoDeployExplodedAttributeHandler.INSTANCE, Storage.CONFIGURATION);
         scanners.registerReadWriteAttribute(Attribute.DEPLOYMENT_TIMEOUT.getLocalName(), null, WriteDeploymentTimeoutAttributeHandler.INSTANCE, Storage.CONFIGURATION);
+        scanners.registerReadWriteAttribute(Attribute.WATCH_EVENTS.getLocalName(), null, WriteWatchEventsAttributeHandler.INSTANCE, Storage.CONFIGURATION);
+        scanners.registerReadWriteAttribute(Attribute.MAX_CONCURRENT_DEPLOYMENTS.getLocalName(), null, WriteMaxConcurrentDeploymentsAttributeHandler.INSTANCE, Storage.CONFIGURATION);
+        for (final String metric : DeploymentScannerMetrics.METRICS) {
+            scanners.registerMetric(metric, DeploymentScannerMetrics.INSTANCE);
+        }
     }
 
     /** {@inheritDoc} */
@@ -158,6 +163,15 @@ public class DeploymentScannerExtension implements Extension {
                     if (configuration.hasDefined(CommonAttributes.DEPLOYMENT_TIMEOUT)) {
                         writer.writeAttribute(Attribute.DEPLOYMENT_TIMEOUT.getLocalName(), configuration.get(CommonAttributes.DEPLOYMENT_TIMEOUT).asString());
                     }
+                    if (configuration.hasDefined(CommonAttributes.WATCH_EVENTS)) {
+                        if (configuration.get(CommonAttributes.WATCH_EVENTS).asBoolean()) {
+                            writer.writeAttribute(Attribute.WATCH_EVENTS.getLocalName(), Boolean.TRUE.toString());
+                        }
+                    }
+                    if (configuration.hasDefined(CommonAttributes.MAX_CONCURRENT_DEPLOYMENTS)) {
+                        writer.writeAttribute(Attribute.MAX_CONCURRENT_DEPLOYMENTS.getLocalName(),
+                                configuration.get(CommonAttributes.MAX_CONCURRENT_DEPLOYMENTS).asString());
+                    }
                 }
                 writer.writeEndElement();
             }
@@ -208,6 +222,8 @@ public class DeploymentScannerExtension implements Extension {
             Boolean autoDeployZipped = null;
             Boolean autoDeployExploded = null;
             Long deploymentTimeout = null;
+            Boolean watchEvents = null;
+            Integer maxConcurrentDeployments = null;
             final int attrCount = reader.getAttributeCount();
             for (int i = 0; i < attrCount; i++) {
                 requireNoNamespaceAttribute(reader, i);
@@ -246,6 +262,14 @@ public class DeploymentScannerExtension implements Extension {
                         deploymentTimeout = Long.parseLong(value);
                         break;
                     }
+                    case WATCH_EVENTS: {
+                        watchEvents = Boolean.parseBoolean(value);
+                        break;
+                    }
+                    case MAX_CONCURRENT_DEPLOYMENTS: {
+                        maxConcurrentDeployments = Integer.parseInt(value);
+                        break;
+                    }
                     default:
                         throw ParseUtils.unexpectedAttribute(reader, i);
                 }
@@ -268,6 +292,8 @@ public class DeploymentScannerExtension implements Extension {
             if (enabled != null) operation.get(CommonAttributes.SCAN_ENABLED).set(enabled.booleanValue());
             if(relativeTo != null) operation.get(CommonAttributes.RELATIVE_TO).set(relativeTo);
             if(deploymentTimeout != null) operation.get(CommonAttributes.DEPLOYMENT_TIMEOUT).set(deploymentTimeout);
+            if (watchEvents != null) operation.get(CommonAttributes.WATCH_EVENTS).set(watchEvents.booleanValue());
+            if (maxConcurrentDeployments != null) operation.get(CommonAttributes.MAX_CONCURRENT_DEPLOYMENTS).set(maxConcurrentDeployments.intValue());
             list.add(operation);
         }
 
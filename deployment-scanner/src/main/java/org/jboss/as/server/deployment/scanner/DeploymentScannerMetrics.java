@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.scanner;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+
+import java.util.Map;
+
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.OperationStepHandler;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.server.deployment.scanner.api.DeploymentScanner;
+import org.jboss.dmr.ModelNode;
+import org.jboss.msc.service.ServiceController;
+
+/**
+ * Reads the metrics of a {@code DeploymentScanner}.
+ */
+class DeploymentScannerMetrics implements OperationStepHandler {
+
+    static final DeploymentScannerMetrics INSTANCE = new DeploymentScannerMetrics();
+
+    static final String[] METRICS = new String[] {CommonAttributes.LAST_SCAN_DURATION, CommonAttributes.LAST_DETECTION_LATENCY,
+            CommonAttributes.DEPLOYMENT_TIMES};
+
+    private DeploymentScannerMetrics() {
+    }
+
+    @Override
+    public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+        context.addStep(new OperationStepHandler() {
+            @Override
+            public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+                final PathAddress address = PathAddress.pathAddress(operation.require(OP_ADDR));
+                final String name = address.getLastElement().getValue();
+                final String attributeName = operation.require(NAME).asString();
+
+                final ServiceController<?> controller = context.getServiceRegistry(false).getService(DeploymentScannerService.getServiceName(name));
+                if (controller != null && controller.getState() == ServiceController.State.UP) {
+                    final DeploymentScanner scanner = (DeploymentScanner) controller.getValue();
+                    if (CommonAttributes.LAST_SCAN_DURATION.equals(attributeName)) {
+                        context.getResult().set(scanner.getLastScanDuration());
+                    } else if (CommonAttributes.LAST_DETECTION_LATENCY.equals(attributeName)) {
+                        context.getResult().set(scanner.getLastDetectionLatency());
+                    } else if (CommonAttributes.DEPLOYMENT_TIMES.equals(attributeName)) {
+                        final ModelNode result = context.getResult().setEmptyObject();
+                        for (Map.Entry<String, Long> entry : scanner.getDeploymentTimes().entrySet()) {
+                            result.get(entry.getKey()).set(entry.getValue().longValue());
+                        }
+                    }
+                }
+                context.completeStep();
+            }
+        }, OperationContext.Stage.RUNTIME);
+        context.completeStep();
+    }
+}
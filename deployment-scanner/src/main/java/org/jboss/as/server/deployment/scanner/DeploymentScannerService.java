@@ -64,6 +64,8 @@ public class DeploymentScannerService implements Service<DeploymentScanner> {
     private boolean autoDeployZipped;
     private boolean autoDeployExploded;
     private Long deploymentTimeout;
+    private boolean watchEvents;
+    private int maxConcurrentDeployments;
     private final String relativeTo;
 
     /**
@@ -93,14 +95,16 @@ public class DeploymentScannerService implements Service<DeploymentScanner> {
      * @param scanInterval      the scan interval
      * @param scanEnabled       scan enabled
      * @param deploymentTimeout the deployment timeout
+     * @param watchEvents       whether to rely on file system change notifications
+     * @param maxConcurrentDeployments the maximum number of deployments to deploy at the same time, or 0 for no limit
      * @return
      */
     public static ServiceController<?> addService(final ServiceTarget serviceTarget, final String name, final String relativeTo, final String path,
                                   final Integer scanInterval, TimeUnit unit, final Boolean autoDeployZip,
                                   final Boolean autoDeployExploded, final Boolean scanEnabled, final Long deploymentTimeout,
-                                  final List<ServiceController<?>> newControllers,
+                                  final Boolean watchEvents, final Integer maxConcurrentDeployments, final List<ServiceController<?>> newControllers,
                                   final ServiceListener<Object>... listeners) {
-        final DeploymentScannerService service = new DeploymentScannerService(relativeTo, scanInterval, unit, autoDeployZip, autoDeployExploded, scanEnabled, deploymentTimeout);
+        final DeploymentScannerService service = new DeploymentScannerService(relativeTo, scanInterval, unit, autoDeployZip, autoDeployExploded, scanEnabled, deploymentTimeout, watchEvents, maxConcurrentDeployments);
         final ServiceName serviceName = getServiceName(name);
         final ServiceName pathService = serviceName.append("path");
         final ServiceName relativePathService = relativeTo != null ? RelativePathService.pathNameOf(relativeTo) : null;
@@ -132,7 +136,8 @@ public class DeploymentScannerService implements Service<DeploymentScanner> {
     }
 
     DeploymentScannerService(final String relativeTo, final Integer interval, final TimeUnit unit, final Boolean autoDeployZipped,
-                             final Boolean autoDeployExploded, final Boolean enabled, final Long deploymentTimeout) {
+                             final Boolean autoDeployExploded, final Boolean enabled, final Long deploymentTimeout, final Boolean watchEvents,
+                             final Integer maxConcurrentDeployments) {
         this.relativeTo = relativeTo;
         this.interval = interval == null ? DEFAULT_INTERVAL : interval.longValue();
         this.unit = unit;
@@ -140,6 +145,8 @@ public class DeploymentScannerService implements Service<DeploymentScanner> {
         this.autoDeployExploded = autoDeployExploded == null ? false : autoDeployExploded.booleanValue();
         this.enabled = enabled == null ? true : enabled.booleanValue();
         this.deploymentTimeout = deploymentTimeout;
+        this.watchEvents = watchEvents == null ? false : watchEvents.booleanValue();
+        this.maxConcurrentDeployments = maxConcurrentDeployments == null ? 0 : maxConcurrentDeployments.intValue();
     }
 
 
@@ -159,6 +166,8 @@ public class DeploymentScannerService implements Service<DeploymentScanner> {
             if (deploymentTimeout != null) {
                 scanner.setDeploymentTimeout(deploymentTimeout);
             }
+            scanner.setWatchEventsEnabled(watchEvents);
+            scanner.setMaxConcurrentDeployments(maxConcurrentDeployments);
 
             if (enabled) {
                 scanner.startScanner();
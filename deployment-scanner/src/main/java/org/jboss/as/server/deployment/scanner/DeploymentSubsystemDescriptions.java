@@ -28,6 +28,7 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.CHI
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DEFAULT;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.DESCRIPTION;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.HEAD_COMMENT_ALLOWED;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.MIN;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.MIN_LENGTH;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAMESPACE;
@@ -40,11 +41,14 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.REQ
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.REQUIRED;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.TAIL_COMMENT_ALLOWED;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.TYPE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.UNIT;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.VALUE_TYPE;
 
 import static org.jboss.as.server.deployment.scanner.CommonAttributes.*;
 import java.util.Locale;
 import java.util.ResourceBundle;
 
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.dmr.ModelNode;
 import org.jboss.dmr.ModelType;
 
@@ -136,6 +140,25 @@ public class DeploymentSubsystemDescriptions {
         root.get(ATTRIBUTES, DEPLOYMENT_TIMEOUT, DESCRIPTION).set(bundle.getString("scanner.deployment.timeout"));
         root.get(ATTRIBUTES, DEPLOYMENT_TIMEOUT, REQUIRED).set(false);
         root.get(ATTRIBUTES, DEPLOYMENT_TIMEOUT, DEFAULT).set(60L);
+        root.get(ATTRIBUTES, WATCH_EVENTS, TYPE).set(ModelType.BOOLEAN);
+        root.get(ATTRIBUTES, WATCH_EVENTS, DESCRIPTION).set(bundle.getString("scanner.watch.events"));
+        root.get(ATTRIBUTES, WATCH_EVENTS, REQUIRED).set(false);
+        root.get(ATTRIBUTES, WATCH_EVENTS, DEFAULT).set(false);
+        root.get(ATTRIBUTES, MAX_CONCURRENT_DEPLOYMENTS, TYPE).set(ModelType.INT);
+        root.get(ATTRIBUTES, MAX_CONCURRENT_DEPLOYMENTS, DESCRIPTION).set(bundle.getString("scanner.max.concurrent.deployments"));
+        root.get(ATTRIBUTES, MAX_CONCURRENT_DEPLOYMENTS, REQUIRED).set(false);
+        root.get(ATTRIBUTES, MAX_CONCURRENT_DEPLOYMENTS, DEFAULT).set(0);
+        root.get(ATTRIBUTES, MAX_CONCURRENT_DEPLOYMENTS, MIN).set(0);
+        root.get(ATTRIBUTES, LAST_SCAN_DURATION, TYPE).set(ModelType.LONG);
+        root.get(ATTRIBUTES, LAST_SCAN_DURATION, DESCRIPTION).set(bundle.getString("scanner.last.scan.duration"));
+        root.get(ATTRIBUTES, LAST_SCAN_DURATION, UNIT).set(MeasurementUnit.MILLISECONDS.getName());
+        root.get(ATTRIBUTES, LAST_DETECTION_LATENCY, TYPE).set(ModelType.LONG);
+        root.get(ATTRIBUTES, LAST_DETECTION_LATENCY, DESCRIPTION).set(bundle.getString("scanner.last.detection.latency"));
+        root.get(ATTRIBUTES, LAST_DETECTION_LATENCY, UNIT).set(MeasurementUnit.MILLISECONDS.getName());
+        root.get(ATTRIBUTES, DEPLOYMENT_TIMES, TYPE).set(ModelType.OBJECT);
+        root.get(ATTRIBUTES, DEPLOYMENT_TIMES, VALUE_TYPE).set(ModelType.LONG);
+        root.get(ATTRIBUTES, DEPLOYMENT_TIMES, DESCRIPTION).set(bundle.getString("scanner.deployment.times"));
+        root.get(ATTRIBUTES, DEPLOYMENT_TIMES, UNIT).set(MeasurementUnit.MILLISECONDS.getName());
 
         root.get(OPERATIONS);
 
@@ -177,6 +200,15 @@ public class DeploymentSubsystemDescriptions {
         operation.get(REQUEST_PROPERTIES, DEPLOYMENT_TIMEOUT, DESCRIPTION).set(bundle.getString("scanner.deployment.timeout"));
         operation.get(REQUEST_PROPERTIES, DEPLOYMENT_TIMEOUT, REQUIRED).set(false);
         operation.get(REQUEST_PROPERTIES, DEPLOYMENT_TIMEOUT, DEFAULT).set(60L);
+        operation.get(REQUEST_PROPERTIES, WATCH_EVENTS, TYPE).set(ModelType.BOOLEAN);
+        operation.get(REQUEST_PROPERTIES, WATCH_EVENTS, DESCRIPTION).set(bundle.getString("scanner.watch.events"));
+        operation.get(REQUEST_PROPERTIES, WATCH_EVENTS, REQUIRED).set(false);
+        operation.get(REQUEST_PROPERTIES, WATCH_EVENTS, DEFAULT).set(false);
+        operation.get(REQUEST_PROPERTIES, MAX_CONCURRENT_DEPLOYMENTS, TYPE).set(ModelType.INT);
+        operation.get(REQUEST_PROPERTIES, MAX_CONCURRENT_DEPLOYMENTS, DESCRIPTION).set(bundle.getString("scanner.max.concurrent.deployments"));
+        operation.get(REQUEST_PROPERTIES, MAX_CONCURRENT_DEPLOYMENTS, REQUIRED).set(false);
+        operation.get(REQUEST_PROPERTIES, MAX_CONCURRENT_DEPLOYMENTS, DEFAULT).set(0);
+        operation.get(REQUEST_PROPERTIES, MAX_CONCURRENT_DEPLOYMENTS, MIN).set(0);
 
         operation.get(REPLY_PROPERTIES).setEmptyObject();
 
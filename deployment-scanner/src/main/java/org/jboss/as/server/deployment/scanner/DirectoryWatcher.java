@@ -0,0 +1,195 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.scanner;
+
+import java.io.Closeable;
+import java.io.File;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Reports the entries of a directory that have been created, modified or deleted, as notified by the file system.
+ * <p/>
+ * The notifications come from the {@code java.nio.file.WatchService} of the platform. That is not available before
+ * Java 7, so it is used reflectively, and {@link #create(File)} returns {@code null} if it cannot be used. Only the
+ * directory itself is watched, not its subdirectories.
+ */
+final class DirectoryWatcher implements Closeable {
+
+    private static final Logger log = Logger.getLogger("org.jboss.as.deployment");
+
+    private static final WatchServiceMethods METHODS = WatchServiceMethods.lookup();
+
+    private final File directory;
+    private final Object watchService;
+    private boolean valid = true;
+
+    private DirectoryWatcher(final File directory, final Object watchService) {
+        this.directory = directory;
+        this.watchService = watchService;
+    }
+
+    /**
+     * Start watching a directory.
+     *
+     * @param directory the directory
+     * @return the watcher, or {@code null} if the platform cannot watch the directory
+     */
+    static DirectoryWatcher create(final File directory) {
+        if (METHODS == null) {
+            return null;
+        }
+        Object watchService = null;
+        try {
+            watchService = METHODS.newWatchService.invoke(METHODS.fileSystem);
+            METHODS.register.invoke(METHODS.toPath.invoke(directory), watchService, METHODS.kinds);
+            return new DirectoryWatcher(directory, watchService);
+        } catch (Exception e) {
+            log.debugf(e, "Cannot watch %s for changes", directory);
+            if (watchService != null) {
+                METHODS.close(watchService);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Get the names of the entries that have changed since the last call.
+     *
+     * @return the names, or {@code null} if notifications were lost and any entry may have changed
+     */
+    synchronized Set<String> poll() {
+        if (!valid) {
+            return null;
+        }
+        final Set<String> names = new HashSet<String>();
+        boolean lost = false;
+        try {
+            Object key;
+            while ((key = METHODS.poll.invoke(watchService)) != null) {
+                for (Object event : (List<?>) METHODS.pollEvents.invoke(key)) {
+                    final Object context = METHODS.context.invoke(event);
+                    if (context == null || METHODS.kind.invoke(event) == METHODS.overflow) {
+                        lost = true;
+                    } else {
+                        names.add(context.toString());
+                    }
+                }
+                if (!((Boolean) METHODS.reset.invoke(key)).booleanValue()) {
+                    // the directory is gone, or the watch service was closed
+                    log.debugf("Stopped receiving change notifications for %s", directory);
+                    valid = false;
+                    return null;
+                }
+            }
+        } catch (Exception e) {
+            log.debugf(e, "Failed to read change notifications for %s", directory);
+            valid = false;
+            return null;
+        }
+        return lost ? null : names;
+    }
+
+    /**
+     * @return {@code false} once the watcher has stopped receiving notifications
+     */
+    synchronized boolean isValid() {
+        return valid;
+    }
+
+    /**
+     * Stop watching the directory.
+     */
+    public synchronized void close() {
+        valid = false;
+        METHODS.close(watchService);
+    }
+
+    private static final class WatchServiceMethods {
+        private final Object fileSystem;
+        private final Object kinds;
+        private final Object overflow;
+        private final Method toPath;
+        private final Method newWatchService;
+        private final Method register;
+        private final Method poll;
+        private final Method close;
+        private final Method pollEvents;
+        private final Method reset;
+        private final Method kind;
+        private final Method context;
+
+        private WatchServiceMethods() throws Exception {
+            final Class<?> fileSystems = Class.forName("java.nio.file.FileSystems");
+            final Class<?> fileSystemClass = Class.forName("java.nio.file.FileSystem");
+            final Class<?> pathClass = Class.forName("java.nio.file.Path");
+            final Class<?> watchServiceClass = Class.forName("java.nio.file.WatchService");
+            final Class<?> watchKeyClass = Class.forName("java.nio.file.WatchKey");
+            final Class<?> watchEventClass = Class.forName("java.nio.file.WatchEvent");
+            final Class<?> kindClass = Class.forName("java.nio.file.WatchEvent$Kind");
+            final Class<?> standardKinds = Class.forName("java.nio.file.StandardWatchEventKinds");
+
+            fileSystem = fileSystems.getMethod("getDefault").invoke(null);
+            kinds = Array.newInstance(kindClass, 3);
+            Array.set(kinds, 0, standardKinds.getField("ENTRY_CREATE").get(null));
+            Array.set(kinds, 1, standardKinds.getField("ENTRY_DELETE").get(null));
+            Array.set(kinds, 2, standardKinds.getField("ENTRY_MODIFY").get(null));
+            overflow = standardKinds.getField("OVERFLOW").get(null);
+
+            toPath = File.class.getMethod("toPath");
+            newWatchService = fileSystemClass.getMethod("newWatchService");
+            register = pathClass.getMethod("register", watchServiceClass, kinds.getClass());
+            poll = watchServiceClass.getMethod("poll");
+            close = watchServiceClass.getMethod("close");
+            pollEvents = watchKeyClass.getMethod("pollEvents");
+            reset = watchKeyClass.getMethod("reset");
+            kind = watchEventClass.getMethod("kind");
+            context = watchEventClass.getMethod("context");
+        }
+
+        static WatchServiceMethods lookup() {
+            try {
+                return new WatchServiceMethods();
+            } catch (Exception e) {
+                log.debugf("File system change notifications are not available: %s", e);
+                return null;
+            }
+        }
+
+        void close(final Object watchService) {
+            try {
+                close.invoke(watchService);
+            } catch (InvocationTargetException e) {
+                log.debugf(e.getCause(), "Failed to close watch service");
+            } catch (IllegalAccessException e) {
+                log.debugf(e, "Failed to close watch service");
+            }
+        }
+    }
+}
@@ -48,11 +48,13 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
@@ -110,6 +112,13 @@ class FileSystemDeploymentService implements DeploymentScanner {
     /** Default timeout for deployments to execute in seconds*/
     static final long DEFAULT_DEPLOYMENT_TIMEOUT = 60;
 
+    /** Default period between full scans when the directory is watched for changes */
+    static final long DEFAULT_FULL_SCAN_INTERVAL = 300000;
+
+    /** The suffixes of the files an incremental scan looks at for a deployment */
+    private static final String[] SCANNED_SUFFIXES = { "", DEPLOYED, DO_DEPLOY, FAILED_DEPLOY, DEPLOYING, UNDEPLOYING, PENDING };
+    private static final String[] MARKER_SUFFIXES = { DEPLOYED, FAILED_DEPLOY, DO_DEPLOY, DEPLOYING, UNDEPLOYING, UNDEPLOYED, SKIP_DEPLOY, PENDING };
+
     private File deploymentDir;
     private long scanInterval = 0;
     private volatile boolean scanEnabled = false;
@@ -137,6 +146,15 @@ class FileSystemDeploymentService implements DeploymentScanner {
 
     private volatile long deploymentTimeout = DEFAULT_DEPLOYMENT_TIMEOUT;
 
+    private volatile boolean watchEvents;
+    private volatile DirectoryWatcher watcher;
+    private volatile long fullScanInterval = DEFAULT_FULL_SCAN_INTERVAL;
+    private volatile long lastFullScan;
+    private volatile long lastScanDuration = -1;
+    private volatile long lastDetectionLatency = -1;
+    private volatile int maxConcurrentDeployments;
+    private final Map<String, Long> deploymentTimes = new ConcurrentHashMap<String, Long>();
+
     private final String relativeTo;
     private final String relativePath;
 
@@ -144,7 +162,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
         @Override
         public void run() {
             try {
-                scan();
+                scanChanges();
             } catch (Exception e) {
                 log.errorf(e, "Scan of %s threw Exception", deploymentDir.getAbsolutePath());
             }
@@ -248,6 +266,48 @@ class FileSystemDeploymentService implements DeploymentScanner {
         this.deploymentTimeout = deploymentTimeout;
     }
 
+    @Override
+    public boolean isWatchEventsEnabled() {
+        return watchEvents;
+    }
+
+    @Override
+    public synchronized void setWatchEventsEnabled(boolean watchEvents) {
+        this.watchEvents = watchEvents;
+        if (scanEnabled) {
+            if (watchEvents) {
+                startWatching();
+            } else {
+                stopWatching();
+            }
+        }
+    }
+
+    @Override
+    public long getLastScanDuration() {
+        return lastScanDuration;
+    }
+
+    @Override
+    public long getLastDetectionLatency() {
+        return lastDetectionLatency;
+    }
+
+    @Override
+    public int getMaxConcurrentDeployments() {
+        return maxConcurrentDeployments;
+    }
+
+    @Override
+    public void setMaxConcurrentDeployments(int maxConcurrentDeployments) {
+        this.maxConcurrentDeployments = maxConcurrentDeployments;
+    }
+
+    @Override
+    public Map<String, Long> getDeploymentTimes() {
+        return new HashMap<String, Long>(deploymentTimes);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -258,6 +318,9 @@ class FileSystemDeploymentService implements DeploymentScanner {
             return;
         }
         this.scanEnabled = true;
+        if (watchEvents) {
+            startWatching();
+        }
         startScan();
         log.infof("Started %s for directory %s", getClass().getSimpleName(), deploymentDir.getAbsolutePath());
     }
@@ -269,6 +332,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
     public synchronized void stopScanner() {
         this.scanEnabled = false;
         cancelScan();
+        stopWatching();
         safeClose(controllerClient);
     }
 
@@ -277,6 +341,11 @@ class FileSystemDeploymentService implements DeploymentScanner {
         this.maxNoProgress = max;
     }
 
+    /** Hook solely for unit test to control how often a watched directory is scanned in full */
+    void setFullScanInterval(long interval) {
+        this.fullScanInterval = interval;
+    }
+
     private void establishDeployedContentList(File dir) throws OperationFailedException {
         final Set<String> deploymentNames = getDeploymentNames();
         final File[] children = dir.listFiles();
@@ -306,8 +375,46 @@ class FileSystemDeploymentService implements DeploymentScanner {
         }
     }
 
+    /**
+     * Scan the entries of the deployment directory that have changed. If the directory is not watched, that means
+     * scanning all of them.
+     *
+     * This method isn't private solely to allow a unit test in the same package to call it
+     */
+    void scanChanges() {
+        final DirectoryWatcher watcher = this.watcher;
+        if (watcher == null) {
+            scan();
+            return;
+        }
+        final Set<String> changedEntries = watcher.poll();
+        if (changedEntries == null && !watcher.isValid()) {
+            log.warnf("Stopped receiving change notifications for %s, scanning it every %d ms instead", deploymentDir.getAbsolutePath(), scanInterval);
+            synchronized (this) {
+                if (this.watcher == watcher) {
+                    stopWatching();
+                }
+            }
+        }
+        if (changedEntries == null || !changedEntries.isEmpty() || System.currentTimeMillis() - lastFullScan >= fullScanInterval) {
+            scan(changedEntries);
+        }
+    }
+
     /** This method isn't private solely to allow a unit test in the same package to call it */
     void scan() {
+        scan(null);
+    }
+
+    /**
+     * Scan the deployment directory.
+     *
+     * This method isn't private solely to allow a unit test in the same package to call it
+     *
+     * @param changedEntries the names of the entries of the deployment directory that have changed, or {@code null}
+     *                       to scan all content
+     */
+    void scan(final Set<String> changedEntries) {
 
         try {
             scanLock.lockInterruptibly();
@@ -319,14 +426,26 @@ class FileSystemDeploymentService implements DeploymentScanner {
         boolean scheduleRescan = false;
         try {
             if (scanEnabled) { // confirm the scan is still wanted
-                log.tracef("Scanning directory %s for deployment content changes", deploymentDir.getAbsolutePath());
+                final Set<String> changedDeployments = getChangedDeployments(changedEntries);
+                if (changedDeployments == null) {
+                    log.tracef("Scanning directory %s for deployment content changes", deploymentDir.getAbsolutePath());
+                } else {
+                    log.tracef("Scanning directory %s for changes to %s", deploymentDir.getAbsolutePath(), changedDeployments);
+                }
 
-                ScanContext scanContext = new ScanContext();
+                ScanContext scanContext = new ScanContext(changedDeployments);
                 scanDirectory(deploymentDir, relativePath, scanContext);
+                if (changedDeployments == null) {
+                    lastFullScan = scanContext.scanStartTime;
+                }
+                lastScanDuration = System.currentTimeMillis() - scanContext.scanStartTime;
+                if (scanContext.oldestChange < scanContext.scanStartTime) {
+                    lastDetectionLatency = scanContext.scanStartTime - scanContext.oldestChange;
+                }
 
                 // WARN about markers with no associated content. Do this first in case any auto-deploy issue
                 // is due to a file that wasn't meant to be auto-deployed, but has a misspelled marker
-                ignoredMissingDeployments.retainAll(scanContext.ignoredMissingDeployments);
+                scanContext.retainScanned(ignoredMissingDeployments, scanContext.ignoredMissingDeployments);
                 for (String deploymentName : scanContext.ignoredMissingDeployments) {
                     if(ignoredMissingDeployments.add(deploymentName)) {
                         log.warnf("Deployment of '%s' requested, but the deployment is not present", deploymentName);
@@ -334,7 +453,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                 }
 
                 // Log INFO about non-auto-deploy files that have no marker files
-                noticeLogged.retainAll(scanContext.nonDeployable);
+                scanContext.retainScanned(noticeLogged, scanContext.nonDeployable);
                 for (String fileName : scanContext.nonDeployable) {
                     if (noticeLogged.add(fileName)) {
                         log.infof("Found %s in deployment directory. To trigger deployment create a file called %s%s", fileName, fileName, DO_DEPLOY);
@@ -342,7 +461,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                 }
 
                 // Log ERROR about META-INF and WEB-INF dirs outside a deployment
-                illegalDirLogged.retainAll(scanContext.illegalDir);
+                scanContext.retainScanned(illegalDirLogged, scanContext.illegalDir);
                 for (String fileName : scanContext.illegalDir) {
                     if (illegalDirLogged.add(fileName)) {
                         log.errorf("The deployment scanner found a directory named %s that was not inside a directory whose " +
@@ -355,7 +474,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                 }
 
                 // Log about deleting exploded deployments without first triggering undeploy by deleting .deployed
-                prematureExplodedContentDeletionLogged.retainAll(scanContext.prematureExplodedDeletions);
+                scanContext.retainScanned(prematureExplodedContentDeletionLogged, scanContext.prematureExplodedDeletions);
                 for (String fileName : scanContext.prematureExplodedDeletions) {
                     if (prematureExplodedContentDeletionLogged.add(fileName)) {
                         log.warnf("The deployment scanner found that the content for exploded deployment %s has been " +
@@ -402,55 +521,32 @@ class FileSystemDeploymentService implements DeploymentScanner {
                         updates.add(update);
                     }
 
-                    while (!updates.isEmpty()) {
-                        ModelNode composite = getCompositeUpdate(updates);
-
-                        final DeploymentTask deploymentTask = new DeploymentTask(new OperationBuilder(composite).build());
-                        final Future<ModelNode> futureResults = scheduledExecutor.submit(deploymentTask);
-                        final ModelNode results;
-                        try {
-                            results = futureResults.get(deploymentTimeout, TimeUnit.SECONDS);
-                        } catch (TimeoutException e) {
-                            futureResults.cancel(true);
-                            final ModelNode failure = new ModelNode();
-                            failure.get(OUTCOME).set(FAILED);
-                            failure.get(FAILURE_DESCRIPTION).set("Did not receive a response to the deployment operation within " +
-                                    "the allowed timeout period [" + deploymentTimeout + " seconds]. Check the server configuration" +
-                                    "file and the server logs to find more about the status of the deployment.");
-                            for (ScannerTask task : scannerTasks) {
+                    // The deployments of one operation are deployed concurrently; a limit splits them into batches
+                    final int batchSize = maxConcurrentDeployments > 0 ? maxConcurrentDeployments : scannerTasks.size();
+                    final boolean batched = batchSize < scannerTasks.size();
+                    final Map<ScannerTask, ModelNode> failures = new LinkedHashMap<ScannerTask, ModelNode>();
+                    ModelNode failure = null;
+                    for (int start = 0; start < scannerTasks.size() && failure == null; start += batchSize) {
+                        final int end = Math.min(start + batchSize, scannerTasks.size());
+                        failure = executeTasks(scannerTasks.subList(start, end), updates.subList(start, end), batched ? failures : null);
+                        if (failure != null) {
+                            for (ScannerTask task : scannerTasks.subList(end, scannerTasks.size())) {
                                 task.handleFailureResult(failure);
                             }
-                            break;
-                        } catch (Exception e) {
-                            log.error("File system deployment service failed", e);
-                            futureResults.cancel(true);
-                            final ModelNode failure = new ModelNode();
-                            failure.get(OUTCOME).set(FAILED);
-                            failure.get(FAILURE_DESCRIPTION).set(e.getMessage());
-                            for (ScannerTask task : scannerTasks) {
-                                task.handleFailureResult(failure);
-                            }
-                            break;
                         }
-
-                        final List<Property> resultList = results.get(RESULT).asPropertyList();
-                        final List<ModelNode> toRetry = new ArrayList<ModelNode>();
-                        final List<ScannerTask> retryTasks = new ArrayList<ScannerTask>();
-                        for (int i = 0; i < resultList.size(); i++) {
-                            final ModelNode result = resultList.get(i).getValue();
-                            final ScannerTask task = scannerTasks.get(i);
-                            final ModelNode outcome = result.get(OUTCOME);
-                            if (outcome.isDefined() && SUCCESS.equals(outcome.asString())) {
-                                task.handleSuccessResult();
-                            } else if (outcome.isDefined() && CANCELLED.equals(outcome.asString())) {
-                                toRetry.add(updates.get(i));
-                                retryTasks.add(task);
-                            } else {
-                                task.handleFailureResult(result);
-                            }
+                    }
+                    if (failure == null && failures.size() > 0 && failures.size() < scannerTasks.size()) {
+                        // A deployment may have failed for want of one from a later batch, so try the failed ones again together
+                        final List<ScannerTask> retryTasks = new ArrayList<ScannerTask>(failures.keySet());
+                        final List<ModelNode> retryUpdates = new ArrayList<ModelNode>(retryTasks.size());
+                        for (ScannerTask task : retryTasks) {
+                            retryUpdates.add(task.getUpdate());
                         }
-                        updates = toRetry;
-                        scannerTasks = retryTasks;
+                        failures.clear();
+                        executeTasks(retryTasks, retryUpdates, null);
+                    }
+                    for (Map.Entry<ScannerTask, ModelNode> entry : failures.entrySet()) {
+                        entry.getKey().handleFailureResult(entry.getValue());
                     }
                 }
                 log.tracef("Scan complete");
@@ -469,6 +565,110 @@ class FileSystemDeploymentService implements DeploymentScanner {
         }
     }
 
+    /**
+     * Execute the updates of some tasks as one composite operation, retrying those that are cancelled because
+     * another one failed.
+     *
+     * @param scannerTasks the tasks
+     * @param updates the updates of the tasks
+     * @param failures where to put the tasks that fail, with their results, or {@code null} to handle the failures
+     * @return the failure of the operation as a whole, in which case the tasks that were not complete have been
+     *         handled as failed, or {@code null} if the operation completed
+     */
+    private ModelNode executeTasks(List<ScannerTask> scannerTasks, List<ModelNode> updates, final Map<ScannerTask, ModelNode> failures) {
+        final long start = System.currentTimeMillis();
+        while (!updates.isEmpty()) {
+            ModelNode composite = getCompositeUpdate(updates);
+
+            final DeploymentTask deploymentTask = new DeploymentTask(new OperationBuilder(composite).build());
+            final Future<ModelNode> futureResults = scheduledExecutor.submit(deploymentTask);
+            final ModelNode results;
+            try {
+                results = futureResults.get(deploymentTimeout, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                futureResults.cancel(true);
+                final ModelNode failure = new ModelNode();
+                failure.get(OUTCOME).set(FAILED);
+                failure.get(FAILURE_DESCRIPTION).set("Did not receive a response to the deployment operation within " +
+                        "the allowed timeout period [" + deploymentTimeout + " seconds]. Check the server configuration" +
+                        "file and the server logs to find more about the status of the deployment.");
+                for (ScannerTask task : scannerTasks) {
+                    task.handleFailureResult(failure);
+                }
+                return failure;
+            } catch (Exception e) {
+                log.error("File system deployment service failed", e);
+                futureResults.cancel(true);
+                final ModelNode failure = new ModelNode();
+                failure.get(OUTCOME).set(FAILED);
+                failure.get(FAILURE_DESCRIPTION).set(e.getMessage());
+                for (ScannerTask task : scannerTasks) {
+                    task.handleFailureResult(failure);
+                }
+                return failure;
+            }
+
+            final List<Property> resultList = results.get(RESULT).asPropertyList();
+            final List<ModelNode> toRetry = new ArrayList<ModelNode>();
+            final List<ScannerTask> retryTasks = new ArrayList<ScannerTask>();
+            for (int i = 0; i < resultList.size(); i++) {
+                final ModelNode result = resultList.get(i).getValue();
+                final ScannerTask task = scannerTasks.get(i);
+                final ModelNode outcome = result.get(OUTCOME);
+                if (outcome.isDefined() && SUCCESS.equals(outcome.asString())) {
+                    task.handleSuccessResult();
+                    if (deployed.containsKey(task.deploymentName)) {
+                        deploymentTimes.put(task.deploymentName, System.currentTimeMillis() - start);
+                    } else {
+                        deploymentTimes.remove(task.deploymentName);
+                    }
+                } else if (outcome.isDefined() && CANCELLED.equals(outcome.asString())) {
+                    toRetry.add(updates.get(i));
+                    retryTasks.add(task);
+                } else if (failures != null) {
+                    failures.put(task, result);
+                } else {
+                    task.handleFailureResult(result);
+                }
+            }
+            updates = toRetry;
+            scannerTasks = retryTasks;
+        }
+        return null;
+    }
+
+    /**
+     * Determine the deployments that an incremental scan has to look at.
+     *
+     * @param changedEntries the names of the changed entries of the deployment directory, or {@code null}
+     * @return the names of the deployments, or {@code null} if the whole directory has to be scanned
+     */
+    private Set<String> getChangedDeployments(final Set<String> changedEntries) {
+        if (changedEntries == null || System.currentTimeMillis() - lastFullScan >= fullScanInterval) {
+            return null;
+        }
+        if (!incompleteDeployments.isEmpty() || !nonscannableLogged.isEmpty()) {
+            // the handling of problematic content relies on seeing all of it
+            return null;
+        }
+        final Set<String> deploymentNames = new HashSet<String>();
+        for (String entry : changedEntries) {
+            String deploymentName = entry;
+            for (String suffix : MARKER_SUFFIXES) {
+                if (entry.endsWith(suffix)) {
+                    deploymentName = entry.substring(0, entry.length() - suffix.length());
+                    break;
+                }
+            }
+            if (deploymentName.equals(entry) && !isEEArchive(entry) && new File(deploymentDir, entry).isDirectory()) {
+                // a nested directory, whose content is not watched
+                return null;
+            }
+            deploymentNames.add(deploymentName);
+        }
+        return deploymentNames;
+    }
+
     /**
      * Scan the given directory for content changes.
      *
@@ -476,7 +676,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
      * @param scanContext context of the scan
      */
     private void scanDirectory(final File directory, final String relativePath, final ScanContext scanContext) {
-        final File[] children = directory.listFiles(filter);
+        final File[] children = scanContext.changedDeployments == null ? directory.listFiles(filter) : listScannedFiles(directory, scanContext.changedDeployments);
         if (children == null) {
             return;
         }
@@ -495,6 +695,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                     if (deploymentFile.exists()) {
                         scanContext.toRemove.remove(deploymentName);
                         if (deployed.get(deploymentName).lastModified != child.lastModified()) {
+                            scanContext.changeDetected(child.lastModified());
                             scanContext.scannerTasks.add(new RedeployTask(deploymentName, child.lastModified(), directory, !child.isDirectory()));
                         }
                     } else {
@@ -518,6 +719,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                     continue;
                 }
                 long timestamp = getDeploymentTimestamp(deploymentFile);
+                scanContext.changeDetected(child.lastModified());
                 final String path = relativeTo == null ? deploymentFile.getAbsolutePath() : relativePath + deploymentName; // TODO: sub-directories in the deploymentDir
                 final boolean archive = deploymentFile.isFile();
                 addContentAddingTask(path, archive, deploymentName, deploymentFile, timestamp, scanContext);
@@ -547,6 +749,7 @@ class FileSystemDeploymentService implements DeploymentScanner {
                         if (marker == null || marker.lastModified != timestamp) {
                             try {
                                 if (isZipComplete(child)) {
+                                    scanContext.changeDetected(timestamp);
                                     final String path =  relativeTo == null ? child.getAbsolutePath() : relativePath + fileName;
                                     final boolean archive = child.isFile();
                                     addContentAddingTask(path, archive, fileName, child, timestamp, scanContext);
@@ -592,6 +795,19 @@ class FileSystemDeploymentService implements DeploymentScanner {
         }
     }
 
+    private File[] listScannedFiles(final File directory, final Set<String> deploymentNames) {
+        final List<File> files = new ArrayList<File>();
+        for (String deploymentName : deploymentNames) {
+            for (String suffix : SCANNED_SUFFIXES) {
+                final File file = new File(directory, deploymentName + suffix);
+                if (file.exists() && filter.accept(file)) {
+                    files.add(file);
+                }
+            }
+        }
+        return files.toArray(new File[files.size()]);
+    }
+
     private long addContentAddingTask(final String path, final boolean archive, final String deploymentName, final File deploymentFile, final long timestamp,
             final ScanContext scanContext) {
         if (scanContext.registeredDeployments.contains(deploymentName)) {
@@ -799,6 +1015,31 @@ class FileSystemDeploymentService implements DeploymentScanner {
         }
     }
 
+    /**
+     * Invoke with the object monitor held
+     */
+    private void startWatching() {
+        if (watcher == null) {
+            watcher = DirectoryWatcher.create(deploymentDir);
+            if (watcher == null) {
+                log.warnf("Change notifications are not available for %s, scanning it every %d ms instead", deploymentDir.getAbsolutePath(), scanInterval);
+            } else {
+                // changes made before the watch started are only found by a full scan
+                lastFullScan = 0;
+            }
+        }
+    }
+
+    /**
+     * Invoke with the object monitor held
+     */
+    private void stopWatching() {
+        if (watcher != null) {
+            watcher.close();
+            watcher = null;
+        }
+    }
+
     private Set<String> getDeploymentNames() throws CancellationException {
         final ModelNode op = Util.getEmptyOperation(READ_CHILDREN_NAMES_OPERATION, new ModelNode());
         op.get(CHILD_TYPE).set(DEPLOYMENT);
@@ -1131,6 +1372,8 @@ class FileSystemDeploymentService implements DeploymentScanner {
     }
 
     private class ScanContext {
+        /** The deployments an incremental scan looks at, or null for a full scan */
+        private final Set<String> changedDeployments;
         /** Existing deployments */
         private final Set<String> registeredDeployments = getDeploymentNames();
         /** Tasks generated by the scan */
@@ -1151,6 +1394,32 @@ class FileSystemDeploymentService implements DeploymentScanner {
         private final Map<File, NonScannableStatus> nonscannable = new HashMap<File, NonScannableStatus>();
         /** Timestamp when the scan started */
         private final long scanStartTime = System.currentTimeMillis();
+        /** Timestamp of the oldest change the scan found */
+        private long oldestChange = Long.MAX_VALUE;
+
+        private ScanContext(final Set<String> changedDeployments) {
+            this.changedDeployments = changedDeployments;
+            if (changedDeployments != null) {
+                toRemove.retainAll(changedDeployments);
+            }
+        }
+
+        private void changeDetected(final long timestamp) {
+            oldestChange = Math.min(oldestChange, timestamp);
+        }
+
+        /** Forget what was logged about deployments this scan looked at but did not find a reason to log again */
+        private void retainScanned(final Set<String> logged, final Set<String> found) {
+            if (changedDeployments == null) {
+                logged.retainAll(found);
+            } else {
+                for (String deploymentName : changedDeployments) {
+                    if (!found.contains(deploymentName)) {
+                        logged.remove(deploymentName);
+                    }
+                }
+            }
+        }
     }
 
     private static class IncompleteDeploymentStatus {
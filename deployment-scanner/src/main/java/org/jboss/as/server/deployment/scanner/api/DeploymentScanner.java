@@ -22,6 +22,8 @@
 
 package org.jboss.as.server.deployment.scanner.api;
 
+import java.util.Map;
+
 import org.jboss.msc.service.ServiceName;
 
 /**
@@ -106,4 +108,59 @@ public interface DeploymentScanner {
      * @param timeout The deployment timeout
      */
     void setDeploymentTimeout(long timeout);
+
+    /**
+     * Gets whether the scanner relies on change notifications from the file system to find out what
+     * changed, rather than looking at all content at every scan interval.
+     *
+     * @return true if change notifications are used
+     */
+    boolean isWatchEventsEnabled();
+
+    /**
+     * Sets whether the scanner relies on change notifications from the file system to find out what
+     * changed, rather than looking at all content at every scan interval. All content is still looked
+     * at periodically, at a much longer interval.
+     *
+     * @param watchEvents true if change notifications should be used
+     */
+    void setWatchEventsEnabled(boolean watchEvents);
+
+    /**
+     * Get the time the last scan took to look for changes, not counting the time taken by the
+     * resulting deployment operations.
+     *
+     * @return the duration in ms, or -1 if there has been no scan
+     */
+    long getLastScanDuration();
+
+    /**
+     * Get the time between the last change found by a scan and the start of that scan.
+     *
+     * @return the latency in ms, or -1 if no change has been found
+     */
+    long getLastDetectionLatency();
+
+    /**
+     * Gets the maximum number of deployments a scan deploys at the same time.
+     *
+     * @return the maximum, or 0 if all deployments found by a scan are deployed at the same time
+     */
+    int getMaxConcurrentDeployments();
+
+    /**
+     * Sets the maximum number of deployments a scan deploys at the same time. The deployments found by
+     * a scan are split into batches of this size, and a failed deployment only rolls back its own batch.
+     *
+     * @param maxConcurrentDeployments the maximum, or 0 for no limit
+     */
+    void setMaxConcurrentDeployments(int maxConcurrentDeployments);
+
+    /**
+     * Get the time it took to deploy each of the deployments that the scanner deployed, measured from
+     * the start of the operation that deployed it.
+     *
+     * @return the times in ms, keyed by deployment name
+     */
+    Map<String, Long> getDeploymentTimes();
 }
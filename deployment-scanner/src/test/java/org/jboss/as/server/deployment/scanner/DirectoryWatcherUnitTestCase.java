@@ -0,0 +1,97 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.scanner;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.Assert;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+/**
+ * Unit tests for {@link DirectoryWatcher}
+ */
+public class DirectoryWatcherUnitTestCase {
+
+    private static AutoDeployTestSupport testSupport;
+
+    @BeforeClass
+    public static void setupClass() {
+        testSupport = new AutoDeployTestSupport(DirectoryWatcherUnitTestCase.class.getSimpleName());
+    }
+
+    @AfterClass
+    public static void teardownClass() {
+        if (testSupport != null) {
+            testSupport.cleanupFiles();
+        }
+    }
+
+    @Test
+    public void testChangesAreReported() throws Exception {
+        final File dir = new File(testSupport.getTempDir(), "watched");
+        Assert.assertTrue(dir.mkdirs());
+        final DirectoryWatcher watcher = DirectoryWatcher.create(dir);
+        if (watcher == null) {
+            // no change notifications on this platform
+            return;
+        }
+        try {
+            Assert.assertEquals(0, watcher.poll().size());
+
+            final File file = new File(dir, "foo.war.dodeploy");
+            final FileOutputStream fos = new FileOutputStream(file);
+            fos.write(1);
+            fos.close();
+            Assert.assertTrue(awaitChange(watcher, file.getName()));
+
+            Assert.assertTrue(file.delete());
+            Assert.assertTrue(awaitChange(watcher, file.getName()));
+        } finally {
+            watcher.close();
+        }
+        Assert.assertNull(watcher.poll());
+        Assert.assertFalse(watcher.isValid());
+    }
+
+    private static boolean awaitChange(final DirectoryWatcher watcher, final String name) throws InterruptedException {
+        final Set<String> changed = new HashSet<String>();
+        // some platforms only poll for changes every few seconds
+        final long end = System.currentTimeMillis() + 30000;
+        while (System.currentTimeMillis() < end) {
+            final Set<String> names = watcher.poll();
+            Assert.assertNotNull(names);
+            changed.addAll(names);
+            if (changed.contains(name)) {
+                return true;
+            }
+            Thread.sleep(50);
+        }
+        return false;
+    }
+}
@@ -33,6 +33,7 @@ import java.io.InputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -255,6 +256,93 @@ public class FileSystemDeploymentServiceUnitTestCase {
         assertTrue(failed2.exists());
     }
 
+    @Test
+    public void testBatchedDeploy() throws Exception {
+        File war1 = createFile("foo.war");
+        File dodeploy1 = createFile("foo.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File deployed1 = new File(tmpDir, "foo.war" + FileSystemDeploymentService.DEPLOYED);
+        File war2 = createFile("bar.war");
+        File dodeploy2 = createFile("bar.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File deployed2 = new File(tmpDir, "bar.war" + FileSystemDeploymentService.DEPLOYED);
+        TesteeSet ts = createTestee();
+        ts.testee.setMaxConcurrentDeployments(1);
+        // One operation per deployment
+        ts.controller.addCompositeSuccessResponse(1);
+        ts.controller.addCompositeSuccessResponse(1);
+        ts.testee.scan();
+        assertTrue(war1.exists());
+        assertFalse(dodeploy1.exists());
+        assertTrue(deployed1.exists());
+        assertTrue(war2.exists());
+        assertFalse(dodeploy2.exists());
+        assertTrue(deployed2.exists());
+        assertTrue(ts.controller.responses.isEmpty());
+
+        Map<String, Long> times = ts.testee.getDeploymentTimes();
+        assertEquals(2, times.size());
+        assertTrue(times.containsKey("foo.war"));
+        assertTrue(times.containsKey("bar.war"));
+
+        dodeploy1.delete();
+        deployed1.delete();
+        ts.controller.addCompositeSuccessResponse(1);
+        ts.testee.scan();
+        assertFalse(ts.testee.getDeploymentTimes().containsKey("foo.war"));
+    }
+
+    @Test
+    public void testBatchedFailureIsRetried() throws Exception {
+        File war1 = createFile("foo.war");
+        File dodeploy1 = createFile("foo.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File deployed1 = new File(tmpDir, "foo.war" + FileSystemDeploymentService.DEPLOYED);
+        File failed1 = new File(tmpDir, "foo.war" + FileSystemDeploymentService.FAILED_DEPLOY);
+        File war2 = createFile("bar.war");
+        File dodeploy2 = createFile("bar.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File deployed2 = new File(tmpDir, "bar.war" + FileSystemDeploymentService.DEPLOYED);
+        File failed2 = new File(tmpDir, "bar.war" + FileSystemDeploymentService.FAILED_DEPLOY);
+        TesteeSet ts = createTestee();
+        ts.testee.setMaxConcurrentDeployments(1);
+        // The first batch fails, the second succeeds and the first is then retried
+        ts.controller.addCompositeFailureResponse(1, 1);
+        ts.controller.addCompositeSuccessResponse(1);
+        ts.controller.addCompositeSuccessResponse(1);
+        ts.testee.scan();
+        assertTrue(war1.exists());
+        assertFalse(dodeploy1.exists());
+        assertTrue(deployed1.exists());
+        assertFalse(failed1.exists());
+        assertTrue(war2.exists());
+        assertFalse(dodeploy2.exists());
+        assertTrue(deployed2.exists());
+        assertFalse(failed2.exists());
+        assertTrue(ts.controller.responses.isEmpty());
+    }
+
+    @Test
+    public void testBatchedFailure() throws Exception {
+        File war1 = createFile("foo.war");
+        File dodeploy1 = createFile("foo.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File failed1 = new File(tmpDir, "foo.war" + FileSystemDeploymentService.FAILED_DEPLOY);
+        File war2 = createFile("bar.war");
+        File dodeploy2 = createFile("bar.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File deployed2 = new File(tmpDir, "bar.war" + FileSystemDeploymentService.DEPLOYED);
+        File failed2 = new File(tmpDir, "bar.war" + FileSystemDeploymentService.FAILED_DEPLOY);
+        TesteeSet ts = createTestee();
+        ts.testee.setMaxConcurrentDeployments(1);
+        // The failure of one batch does not roll back the other; the retry fails as well
+        ts.controller.addCompositeFailureResponse(1, 1);
+        ts.controller.addCompositeSuccessResponse(1);
+        ts.controller.addCompositeFailureResponse(1, 1);
+        ts.testee.scan();
+        assertTrue(war1.exists() && war2.exists());
+        assertFalse(dodeploy1.exists() || dodeploy2.exists());
+        // which deployment is in the first batch depends on the order of the directory listing
+        assertTrue(failed1.exists() != failed2.exists());
+        assertTrue(deployed2.exists() != failed2.exists());
+        assertTrue(ts.controller.responses.isEmpty());
+        assertEquals(1, ts.testee.getDeploymentTimes().size());
+    }
+
     @Test
     public void testSuccessfulRetry() throws Exception {
         File war1 = createFile("bar.war");
@@ -1329,6 +1417,78 @@ public class FileSystemDeploymentServiceUnitTestCase {
 
     }
 
+    @Test
+    public void testIncrementalScanIgnoresUnchangedContent() throws Exception {
+        TesteeSet ts = createTestee();
+        ts.testee.scan();
+
+        File war1 = createFile("foo.war");
+        File dodeploy1 = createFile("foo.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File deployed1 = new File(tmpDir, "foo.war" + FileSystemDeploymentService.DEPLOYED);
+        File war2 = createFile("bar.war");
+        File dodeploy2 = createFile("bar.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File deployed2 = new File(tmpDir, "bar.war" + FileSystemDeploymentService.DEPLOYED);
+        ts.controller.addCompositeSuccessResponse(1);
+        ts.testee.scan(Collections.singleton("foo.war" + FileSystemDeploymentService.DO_DEPLOY));
+        assertTrue(war1.exists());
+        assertFalse(dodeploy1.exists());
+        assertTrue(deployed1.exists());
+        assertTrue(dodeploy2.exists());
+        assertFalse(deployed2.exists());
+        assertEquals(1, ts.controller.added.size());
+
+        // a full scan finds the rest
+        ts.controller.addCompositeSuccessResponse(1);
+        ts.testee.scan();
+        assertTrue(war2.exists());
+        assertFalse(dodeploy2.exists());
+        assertTrue(deployed2.exists());
+        assertEquals(2, ts.controller.added.size());
+    }
+
+    @Test
+    public void testIncrementalScanUndeploysByMarkerDeletion() throws Exception {
+        createFile("foo.war");
+        createFile("foo.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File deployed1 = new File(tmpDir, "foo.war" + FileSystemDeploymentService.DEPLOYED);
+        createFile("bar.war");
+        createFile("bar.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File deployed2 = new File(tmpDir, "bar.war" + FileSystemDeploymentService.DEPLOYED);
+        TesteeSet ts = createTestee();
+        ts.controller.addCompositeSuccessResponse(2);
+        ts.testee.scan();
+        assertTrue(deployed1.exists());
+        assertTrue(deployed2.exists());
+        assertEquals(2, ts.controller.deployed.size());
+
+        assertTrue(deployed1.delete());
+        ts.controller.addCompositeSuccessResponse(1);
+        ts.testee.scan(Collections.singleton("foo.war" + FileSystemDeploymentService.DEPLOYED));
+        assertTrue(new File(tmpDir, "foo.war" + FileSystemDeploymentService.UNDEPLOYED).exists());
+        assertTrue(deployed2.exists());
+        assertEquals(1, ts.controller.added.size());
+        assertEquals(1, ts.controller.deployed.size());
+    }
+
+    @Test
+    public void testIncrementalScanFallsBackToFullScan() throws Exception {
+        TesteeSet ts = createTestee();
+        ts.testee.scan();
+
+        createFile("foo.war");
+        createFile("foo.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File deployed1 = new File(tmpDir, "foo.war" + FileSystemDeploymentService.DEPLOYED);
+        createFile("bar.war");
+        createFile("bar.war" + FileSystemDeploymentService.DO_DEPLOY);
+        File deployed2 = new File(tmpDir, "bar.war" + FileSystemDeploymentService.DEPLOYED);
+        ts.testee.setFullScanInterval(0);
+        ts.controller.addCompositeSuccessResponse(2);
+        ts.testee.scan(Collections.singleton("foo.war" + FileSystemDeploymentService.DO_DEPLOY));
+        assertTrue(deployed1.exists());
+        assertTrue(deployed2.exists());
+        assertEquals(2, ts.controller.added.size());
+    }
+
     private TesteeSet createTestee(String... existingContent) throws OperationFailedException {
         return createTestee(new MockServerController(new MockDeploymentRepository(), existingContent));
     }
@@ -1415,6 +1575,10 @@ public class FileSystemDeploymentServiceUnitTestCase {
             throw new RuntimeException("NYI: org.jboss.as.server.deployment.scanner.FileSystemDeploymentServiceUnitTestCase.MockDeploymentRepository.getContent");
         }
 
+        @Override
+        public void releaseContent(byte[] hash) {
+        }
+
         @Override
         public boolean hasContent(byte[] hash) {
             return content.contains(hash);
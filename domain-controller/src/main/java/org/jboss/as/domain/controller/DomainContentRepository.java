@@ -37,10 +37,11 @@ public class DomainContentRepository extends ContentRepositoryImpl {
     private static final Logger log = Logger.getLogger("org.jboss.as.domain.controller");
 
     /**
-     * Creates a new DomainContentRepository.
+     * Creates a new DomainContentRepository. Content is always stored as whole files, whatever
+     * {@link #CHUNKED_STORAGE} says, as the domain file transfer copies the content directories as they are.
      */
     public DomainContentRepository(File deployDir) {
-        super(deployDir);
+        super(deployDir, false);
     }
 
 
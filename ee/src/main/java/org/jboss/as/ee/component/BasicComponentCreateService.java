@@ -24,7 +24,6 @@ package org.jboss.as.ee.component;
 
 import org.jboss.as.server.deployment.DeploymentUnit;
 import org.jboss.invocation.InterceptorFactory;
-import org.jboss.invocation.Interceptors;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
@@ -59,11 +58,11 @@ public class BasicComponentCreateService implements Service<Component> {
      */
     public BasicComponentCreateService(final ComponentConfiguration componentConfiguration) {
         componentName = componentConfiguration.getComponentName();
-        postConstruct = Interceptors.getChainedInterceptorFactory(componentConfiguration.getPostConstructInterceptors());
-        preDestroy = Interceptors.getChainedInterceptorFactory(componentConfiguration.getPreDestroyInterceptors());
+        postConstruct = InterceptorChainOptimizer.getChainedInterceptorFactory(componentConfiguration.getPostConstructInterceptors(), "post-construct of " + componentName);
+        preDestroy = InterceptorChainOptimizer.getChainedInterceptorFactory(componentConfiguration.getPreDestroyInterceptors(), "pre-destroy of " + componentName);
         final IdentityHashMap<Method, InterceptorFactory> componentInterceptors = new IdentityHashMap<Method, InterceptorFactory>();
         for (Method method : componentConfiguration.getDefinedComponentMethods()) {
-            componentInterceptors.put(method, Interceptors.getChainedInterceptorFactory(componentConfiguration.getComponentInterceptors(method)));
+            componentInterceptors.put(method, InterceptorChainOptimizer.getChainedInterceptorFactory(componentConfiguration.getComponentInterceptors(method), method + " of " + componentName));
         }
         componentClass = componentConfiguration.getComponentClass();
         this.componentInterceptors = componentInterceptors;
@@ -0,0 +1,145 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ee.component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.jboss.as.naming.context.NamespaceContextSelector;
+import org.jboss.invocation.ImmediateInterceptorFactory;
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+import org.jboss.invocation.InterceptorFactory;
+import org.jboss.invocation.InterceptorFactoryContext;
+import org.jboss.invocation.Interceptors;
+import org.jboss.logging.Logger;
+
+/**
+ * Builds interceptor chains that are optimized once their interceptors have been created, rather than walked as
+ * configured on every invocation. The interceptors of a chain are created by their factories as usual, after which:
+ * <ul>
+ * <li>interceptors that have nothing to do, which a factory signals by returning {@link #PASS_THROUGH}, are left
+ * out</li>
+ * <li>a {@link TCCLInterceptor} directly followed by a {@link NamespaceContextInterceptor} is replaced by a single
+ * interceptor that does the work of both</li>
+ * </ul>
+ * The depth of each chain is logged at debug level.
+ */
+public final class InterceptorChainOptimizer {
+
+    private static final Logger logger = Logger.getLogger(InterceptorChainOptimizer.class);
+
+    /**
+     * An interceptor that only proceeds. A factory returns it when the interceptor it would create has nothing to do
+     * for the chain, so that it can be left out.
+     */
+    public static final Interceptor PASS_THROUGH = new Interceptor() {
+        public Object processInvocation(final InterceptorContext context) throws Exception {
+            return context.proceed();
+        }
+    };
+
+    /**
+     * A factory for {@link #PASS_THROUGH}.
+     */
+    public static final InterceptorFactory PASS_THROUGH_FACTORY = new ImmediateInterceptorFactory(PASS_THROUGH);
+
+    private InterceptorChainOptimizer() {
+    }
+
+    /**
+     * Get a factory for an optimized chain of interceptors.
+     *
+     * @param factories the factories of the interceptors, in order
+     * @param description a description of the chain to log its depth with, e.g. the method it is for
+     * @return the factory of the chain
+     */
+    public static InterceptorFactory getChainedInterceptorFactory(final List<InterceptorFactory> factories, final Object description) {
+        final InterceptorFactory[] array = factories.toArray(new InterceptorFactory[factories.size()]);
+        return new InterceptorFactory() {
+            public Interceptor create(final InterceptorFactoryContext context) {
+                final List<Interceptor> interceptors = new ArrayList<Interceptor>(array.length);
+                for (InterceptorFactory factory : array) {
+                    interceptors.add(factory.create(context));
+                }
+                final List<Interceptor> optimized = optimize(interceptors);
+                if (logger.isDebugEnabled()) {
+                    logger.debugf("Interceptor chain of %s has %d interceptors, %d as configured", description, optimized.size(), array.length);
+                }
+                return Interceptors.getChainedInterceptor(optimized);
+            }
+        };
+    }
+
+    /**
+     * Optimize a chain of interceptors.
+     *
+     * @param interceptors the interceptors, in order
+     * @return the interceptors to run instead
+     */
+    static List<Interceptor> optimize(final List<Interceptor> interceptors) {
+        final List<Interceptor> optimized = new ArrayList<Interceptor>(interceptors.size());
+        for (Interceptor interceptor : interceptors) {
+            if (interceptor == PASS_THROUGH) {
+                continue;
+            }
+            final int last = optimized.size() - 1;
+            if (interceptor instanceof NamespaceContextInterceptor && last >= 0 && optimized.get(last) instanceof TCCLInterceptor) {
+                final TCCLInterceptor tcclInterceptor = (TCCLInterceptor) optimized.get(last);
+                optimized.set(last, new TCCLNamespaceContextInterceptor(tcclInterceptor.classLoader, ((NamespaceContextInterceptor) interceptor).selector));
+            } else {
+                optimized.add(interceptor);
+            }
+        }
+        return optimized;
+    }
+
+    /**
+     * Sets the TCCL and imposes a namespace context selector, as a {@link TCCLInterceptor} followed by a
+     * {@link NamespaceContextInterceptor} would.
+     */
+    static final class TCCLNamespaceContextInterceptor implements Interceptor {
+        private final ClassLoader classLoader;
+        private final NamespaceContextSelector selector;
+
+        TCCLNamespaceContextInterceptor(final ClassLoader classLoader, final NamespaceContextSelector selector) {
+            this.classLoader = classLoader;
+            this.selector = selector;
+        }
+
+        public Object processInvocation(final InterceptorContext context) throws Exception {
+            final ClassLoader oldTccl = SecurityActions.getContextClassLoader();
+            try {
+                SecurityActions.setContextClassLoader(classLoader);
+                NamespaceContextSelector.pushCurrentSelector(selector);
+                try {
+                    return context.proceed();
+                } finally {
+                    NamespaceContextSelector.popCurrentSelector();
+                }
+            } finally {
+                SecurityActions.setContextClassLoader(oldTccl);
+            }
+        }
+    }
+}
@@ -32,7 +32,7 @@ import org.jboss.invocation.InterceptorContext;
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 public final class NamespaceContextInterceptor implements Interceptor {
-    private final NamespaceContextSelector selector;
+    final NamespaceContextSelector selector;
 
     public NamespaceContextInterceptor(final NamespaceContextSelector selector) {
         this.selector = selector;
@@ -24,7 +24,6 @@ package org.jboss.as.ee.component;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.Map;
 
 import org.jboss.invocation.Interceptor;
@@ -32,6 +31,9 @@ import org.jboss.invocation.InterceptorContext;
 
 /**
  * An invocation handler for a component proxy.
+ * <p/>
+ * An invocation handler is bound to one view instance, so the private data of its invocations is fixed when it is
+ * constructed. The context data of an invocation is only allocated if an interceptor puts something into it.
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
@@ -68,7 +70,7 @@ public final class ProxyInvocationHandler implements InvocationHandler {
         context.setParameters(args);
         context.setMethod(method);
         // setup the public context data
-        context.setContextData(new HashMap());
+        context.setContextData(new LazyContextData());
         return interceptor.processInvocation(context);
     }
 }
@@ -78,7 +78,7 @@ public final class ViewService implements Service<ComponentView> {
             if (method.getName().equals("finalize") && method.getParameterTypes().length == 0) {
                 viewInterceptorFactories.put(method, Interceptors.getTerminalInterceptorFactory());
             } else {
-                viewInterceptorFactories.put(method, Interceptors.getChainedInterceptorFactory(viewConfiguration.getViewInterceptors(method)));
+                viewInterceptorFactories.put(method, InterceptorChainOptimizer.getChainedInterceptorFactory(viewConfiguration.getViewInterceptors(method), method + " of view " + viewClass.getName()));
                 clientInterceptorFactories.put(method, Interceptors.getChainedInterceptorFactory(viewConfiguration.getClientInterceptors(method)));
             }
         }
@@ -263,7 +263,7 @@ public final class ViewService implements Service<ComponentView> {
                 InterceptorContext context = new InterceptorContext();
                 context.putPrivateData(ComponentView.class, componentView);
                 context.putPrivateData(Component.class, component);
-                context.setContextData(new HashMap<String, Object>());
+                context.setContextData(new LazyContextData());
                 clientPostConstructInterceptor.processInvocation(context);
             } catch (Exception e) {
                 // TODO: What is the best exception type to throw here?
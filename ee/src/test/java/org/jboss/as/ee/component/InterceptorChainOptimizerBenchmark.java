@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ee.component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.naming.Context;
+
+import org.jboss.as.naming.context.NamespaceContextSelector;
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+import org.jboss.invocation.Interceptors;
+
+/**
+ * Compares the latency of an invocation through a component interceptor chain as configured with the chain
+ * {@link InterceptorChainOptimizer} makes of it. The chain holds a TCCL and a namespace context interceptor, a number of
+ * interceptors that have nothing to do, and an empty terminal interceptor.
+ * <p/>
+ * This is not run as part of the test suite, run it with:
+ * <pre>
+ * java -cp ... org.jboss.as.ee.component.InterceptorChainOptimizerBenchmark [pass-through-interceptors] [invocations]
+ * </pre>
+ */
+public class InterceptorChainOptimizerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        final int passThrough = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        final int invocations = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+
+        final List<Interceptor> interceptors = new ArrayList<Interceptor>();
+        interceptors.add(new TCCLInterceptor(InterceptorChainOptimizerBenchmark.class.getClassLoader()));
+        interceptors.add(new NamespaceContextInterceptor(new NamespaceContextSelector() {
+            public Context getContext(final String identifier) {
+                return null;
+            }
+        }));
+        for (int i = 0; i < passThrough; i++) {
+            interceptors.add(InterceptorChainOptimizer.PASS_THROUGH);
+        }
+        interceptors.add(new Interceptor() {
+            public Object processInvocation(final InterceptorContext context) throws Exception {
+                return null;
+            }
+        });
+        final Interceptor configured = Interceptors.getChainedInterceptor(interceptors);
+        final Interceptor optimized = Interceptors.getChainedInterceptor(InterceptorChainOptimizer.optimize(interceptors));
+
+        // warm up both before measuring anything
+        run(configured, invocations / 10);
+        run(optimized, invocations / 10);
+
+        System.out.printf("%-12s %8s %8s%n", "chain", "depth", "ns/op");
+        for (int i = 0; i < 3; i++) {
+            System.out.printf("%-12s %8d %8d%n", "configured", interceptors.size(), run(configured, invocations) / invocations);
+            System.out.printf("%-12s %8d %8d%n", "optimized", InterceptorChainOptimizer.optimize(interceptors).size(), run(optimized, invocations) / invocations);
+        }
+    }
+
+    private static long run(final Interceptor chain, final int invocations) throws Exception {
+        final long start = System.nanoTime();
+        for (int i = 0; i < invocations; i++) {
+            chain.processInvocation(new InterceptorContext());
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ee.component;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.naming.Context;
+
+import org.jboss.as.naming.context.NamespaceContextSelector;
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+import org.jboss.invocation.Interceptors;
+import org.junit.Test;
+
+/**
+ * Tests the optimizations of {@link InterceptorChainOptimizer}.
+ */
+public class InterceptorChainOptimizerTestCase {
+
+    private static final ClassLoader CLASS_LOADER = new ClassLoader() {
+    };
+
+    private static final NamespaceContextSelector SELECTOR = new NamespaceContextSelector() {
+        public Context getContext(final String identifier) {
+            return null;
+        }
+    };
+
+    /**
+     * Records the TCCL and namespace context selector it is invoked with.
+     */
+    private static final class RecordingInterceptor implements Interceptor {
+        ClassLoader classLoader;
+        NamespaceContextSelector selector;
+
+        public Object processInvocation(final InterceptorContext context) throws Exception {
+            classLoader = Thread.currentThread().getContextClassLoader();
+            selector = NamespaceContextSelector.getCurrentSelector();
+            return "result";
+        }
+    }
+
+    @Test
+    public void testPassThroughRemoved() {
+        final Interceptor interceptor = new RecordingInterceptor();
+        final List<Interceptor> optimized = InterceptorChainOptimizer.optimize(Arrays.asList(InterceptorChainOptimizer.PASS_THROUGH, interceptor, InterceptorChainOptimizer.PASS_THROUGH));
+        assertEquals(1, optimized.size());
+        assertSame(interceptor, optimized.get(0));
+    }
+
+    @Test
+    public void testTCCLAndNamespaceFused() throws Exception {
+        final RecordingInterceptor terminal = new RecordingInterceptor();
+        final List<Interceptor> optimized = InterceptorChainOptimizer.optimize(Arrays.<Interceptor>asList(new TCCLInterceptor(CLASS_LOADER), new NamespaceContextInterceptor(SELECTOR), terminal));
+        assertEquals(2, optimized.size());
+        assertTrue(optimized.get(0) instanceof InterceptorChainOptimizer.TCCLNamespaceContextInterceptor);
+
+        final ClassLoader tccl = Thread.currentThread().getContextClassLoader();
+        final InterceptorContext context = new InterceptorContext();
+        assertEquals("result", Interceptors.getChainedInterceptor(optimized).processInvocation(context));
+        assertSame(CLASS_LOADER, terminal.classLoader);
+        assertSame(SELECTOR, terminal.selector);
+        assertSame(tccl, Thread.currentThread().getContextClassLoader());
+        assertSame(null, NamespaceContextSelector.getCurrentSelector());
+    }
+
+    @Test
+    public void testSeparatedInterceptorsNotFused() {
+        final Interceptor between = new RecordingInterceptor();
+        final List<Interceptor> optimized = InterceptorChainOptimizer.optimize(Arrays.<Interceptor>asList(new TCCLInterceptor(CLASS_LOADER), between, new NamespaceContextInterceptor(SELECTOR)));
+        assertEquals(3, optimized.size());
+        assertTrue(optimized.get(0) instanceof TCCLInterceptor);
+        assertTrue(optimized.get(2) instanceof NamespaceContextInterceptor);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ee.component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jboss.invocation.Interceptor;
+import org.jboss.invocation.InterceptorContext;
+import org.jboss.invocation.Interceptors;
+
+/**
+ * Measures the bytes allocated and the time taken per invocation of an empty bean method through a component proxy,
+ * with a chain of interceptors that only read the context data, as most of them do. The invocation is compared with
+ * one set up the way it was before the context data was allocated lazily.
+ * <p/>
+ * The allocated bytes are read from the HotSpot thread MX bean. This is not run as part of the test suite, run it
+ * with:
+ * <pre>
+ * java -cp ... org.jboss.as.ee.component.ProxyInvocationHandlerBenchmark [interceptors] [invocations]
+ * </pre>
+ */
+public class ProxyInvocationHandlerBenchmark {
+
+    public interface Bean {
+        void invoke();
+    }
+
+    private static final Bean BEAN = new Bean() {
+        public void invoke() {
+        }
+    };
+
+    private static final String CONTEXT_KEY = "benchmark";
+
+    public static void main(String[] args) throws Exception {
+        final int interceptorCount = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        final int invocations = args.length > 1 ? Integer.parseInt(args[1]) : 10000000;
+
+        final Method method = Bean.class.getMethod("invoke");
+        final List<Interceptor> interceptors = new ArrayList<Interceptor>();
+        for (int i = 0; i < interceptorCount; i++) {
+            interceptors.add(new Interceptor() {
+                public Object processInvocation(final InterceptorContext context) throws Exception {
+                    if (context.getContextData().get(CONTEXT_KEY) != null) {
+                        throw new IllegalStateException();
+                    }
+                    return context.proceed();
+                }
+            });
+        }
+        interceptors.add(new Interceptor() {
+            public Object processInvocation(final InterceptorContext context) throws Exception {
+                return context.getMethod().invoke(BEAN, context.getParameters());
+            }
+        });
+        final Interceptor chain = Interceptors.getChainedInterceptor(interceptors);
+        // a JDK proxy does not pass the same method instance each time, so they are not looked up by identity
+        final Map<Method, Interceptor> entryPoints = new HashMap<Method, Interceptor>();
+        entryPoints.put(method, chain);
+
+        // the interceptors do not use the component or the view
+        final Bean proxy = (Bean) Proxy.newProxyInstance(Bean.class.getClassLoader(), new Class<?>[] { Bean.class },
+                new ProxyInvocationHandler(entryPoints, null, null));
+        final Runnable lazy = new Runnable() {
+            public void run() {
+                proxy.invoke();
+            }
+        };
+        final Runnable eager = new Runnable() {
+            public void run() {
+                final InterceptorContext context = new InterceptorContext();
+                context.putPrivateData(Object.class, proxy);
+                context.putPrivateData(Component.class, null);
+                context.putPrivateData(ComponentView.class, null);
+                context.setParameters(null);
+                context.setMethod(method);
+                context.setContextData(new HashMap<String, Object>());
+                try {
+                    chain.processInvocation(context);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+
+        // warm up both before measuring anything
+        run(eager, invocations / 10);
+        run(lazy, invocations / 10);
+
+        System.out.printf("%d interceptors%n", interceptorCount);
+        System.out.printf("%-20s %12s %12s%n", "context data", "bytes/op", "ns/op");
+        for (int i = 0; i < 3; i++) {
+            report("hash map", eager, invocations);
+            report("lazy", lazy, invocations);
+        }
+    }
+
+    private static void report(final String name, final Runnable invocation, final int invocations) {
+        final long start = System.nanoTime();
+        final long allocated = run(invocation, invocations);
+        final long elapsed = System.nanoTime() - start;
+        System.out.printf("%-20s %12d %12d%n", name, allocated / invocations, elapsed / invocations);
+    }
+
+    private static long run(final Runnable invocation, final int invocations) {
+        final long before = allocatedBytes();
+        for (int i = 0; i < invocations; i++) {
+            invocation.run();
+        }
+        return allocatedBytes() - before;
+    }
+
+    private static long allocatedBytes() {
+        final com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -21,175 +21,230 @@
  */
 package org.jboss.as.ejb3.cache;
 
+import org.jboss.as.ejb3.util.TimingWheel;
 import org.jboss.ejb.client.SessionID;
 import org.jboss.logging.Logger;
 
 import javax.ejb.NoSuchEJBException;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Cache that handles EJB expiration. This cache can be wrapped around an existing cache to
  * provide expiration functionality.
+ * <p/>
+ * Expiration is driven by a {@link TimingWheel} shared by all expiring caches. Each entry has at most one
+ * pending timeout; when it fires the entry is either expired or, if it has been used in the meantime,
+ * rescheduled for its new expiry time. Expiring is therefore proportional to the number of entries that
+ * are due rather than the size of the cache, and {@link #get(SessionID)} and {@link #release(Identifiable)}
+ * only ever touch the entry itself.
+ * <p/>
+ * Expired instances are destroyed on a separate, equally shared, executor, so that slow {@link javax.annotation.PreDestroy}
+ * methods do not hold up the wheel and with it the expiration of every other bean.
  *
  * @author Stuart Douglas
  */
 public class ExpiringCache<T extends Identifiable> implements Cache<T> {
 
-    private static final long SLEEP_TIME = 500;
+    /**
+     * The resolution of the shared expiration wheel
+     */
+    private static final long TICK_MILLIS = 100;
+
+    private static final Object schedulerLock = new Object();
+    private static TimingWheel scheduler;
+    private static ExecutorService destroyExecutor;
+    private static int schedulerUsers;
+
+    /**
+     * Entry state marking an instance that is in use. Any non-negative value is the time at which
+     * an inactive instance was last released.
+     */
+    private static final long IN_USE = -1;
+    /**
+     * Entry state marking an instance that has been expired or removed.
+     */
+    private static final long REMOVED = -2;
 
     private final long millisecondTimeout;
     private final String beanName;
-    private final Map<SessionID, Entry> cache;
+    private final ConcurrentMap<SessionID, Entry> cache;
 
     private volatile StatefulObjectFactory<T> factory;
-    private volatile ExpirationTask expiryThread;
+    private volatile TimingWheel expirationScheduler;
+    private volatile ExecutorService expirationExecutor;
 
     private static final Logger logger = Logger.getLogger(ExpiringCache.class);
 
-    private class ExpirationTask extends Thread {
-
-        private volatile boolean running = true;
-
-        @Override
-        public void run() {
-            while (running) {
-
-                final List<Entry> queue = new ArrayList<Entry>();
-                final long time = System.currentTimeMillis();
-                synchronized (cache) {
-                    Iterator<Map.Entry<SessionID, Entry>> iterator = cache.entrySet().iterator();
-                    while (iterator.hasNext()) {
-                        final Map.Entry<SessionID, Entry> entry = iterator.next();
-                        if (entry.getValue().isExpired(time)) {
-                            queue.add(entry.getValue());
-                            iterator.remove();
-                        }
-                    }
-                }
-                for (Entry value : queue) {
-                    try {
-                        logger.debugf("Removing stateful bean %s - %s as it has been inactive for %d milliseconds", beanName, value.getKey(), millisecondTimeout);
-                        factory.destroyInstance(value.getValue());
-                    } catch (Exception e) {
-                        logger.error("Exception removing stateful bean " + value.getKey(), e);
-                    }
-                }
+    private final class Entry implements Runnable {
+        private final AtomicLong state = new AtomicLong(IN_USE);
+        private final T value;
+        private volatile TimingWheel.Timeout timeout;
 
-                try {
-                    sleep(SLEEP_TIME);
-                } catch (InterruptedException e) {
-                    running = false;
-                    return;
-                }
-            }
+        public Entry(final T value) {
+            this.value = value;
         }
 
-        public void stopTask() {
-            running = false;
+        public SessionID getKey() {
+            return value.getId();
         }
-    }
 
-    private enum State {
-        IN_USE, INACTIVE
-    }
-
-    private final class Entry {
-        private long lastUsed;
-        private State state = State.IN_USE;
-        private final T value;
-
-        public Entry(final T value) {
-            this.value = value;
-            this.lastUsed = System.currentTimeMillis();
+        public T getValue() {
+            return value;
         }
 
-        public void setLastUsed(final long lastUsed) {
-            this.lastUsed = lastUsed;
+        /**
+         * Marks the entry as in use.
+         *
+         * @return false if the entry has already been expired
+         */
+        boolean use() {
+            for (; ; ) {
+                final long current = state.get();
+                if (current == REMOVED) {
+                    return false;
+                }
+                if (state.compareAndSet(current, IN_USE)) {
+                    return true;
+                }
+            }
         }
 
-        public SessionID getKey() {
-            return value.getId();
+        void release() {
+            final long current = state.get();
+            if (current != REMOVED) {
+                state.compareAndSet(current, System.currentTimeMillis());
+            }
         }
 
-        public long getLastUsed() {
-            return lastUsed;
+        /**
+         * Marks the entry as removed and cancels its pending expiration.
+         */
+        void removed() {
+            state.set(REMOVED);
+            final TimingWheel.Timeout timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
         }
 
-        public boolean isExpired(long currentTimeInMillis) {
-            return state == State.INACTIVE && currentTimeInMillis > lastUsed + millisecondTimeout;
+        void scheduleExpiration(final long delay) {
+            final TimingWheel scheduler = expirationScheduler;
+            if (scheduler != null && state.get() != REMOVED) {
+                timeout = scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+            }
         }
 
-        public T getValue() {
-            return value;
+        /**
+         * Invoked by the expiration scheduler once the entry may have expired.
+         */
+        @Override
+        public void run() {
+            final long current = state.get();
+            if (current == REMOVED) {
+                return;
+            }
+            if (current == IN_USE) {
+                // check again once it could have expired at the earliest
+                scheduleExpiration(millisecondTimeout);
+                return;
+            }
+            final long remaining = current + millisecondTimeout - System.currentTimeMillis();
+            if (remaining >= 0) {
+                // used since this expiration was scheduled
+                scheduleExpiration(remaining + 1);
+                return;
+            }
+            // the CAS fails if the bean has been used concurrently, in which case the next run will pick it up
+            if (!state.compareAndSet(current, REMOVED)) {
+                scheduleExpiration(millisecondTimeout);
+                return;
+            }
+            if (cache.remove(getKey(), this)) {
+                logger.debugf("Removing stateful bean %s - %s as it has been inactive for %d milliseconds", beanName, getKey(), millisecondTimeout);
+                final Runnable destroy = new Runnable() {
+                    public void run() {
+                        try {
+                            factory.destroyInstance(value);
+                        } catch (Exception e) {
+                            logger.error("Exception removing stateful bean " + getKey(), e);
+                        }
+                    }
+                };
+                final ExecutorService executor = expirationExecutor;
+                try {
+                    if (executor == null) {
+                        destroy.run();
+                    } else {
+                        executor.execute(destroy);
+                    }
+                } catch (RejectedExecutionException e) {
+                    // the cache is being stopped
+                    destroy.run();
+                }
+            }
         }
     }
 
     public ExpiringCache(long value, TimeUnit timeUnit, final String beanName) {
         this.beanName = beanName;
         millisecondTimeout = TimeUnit.MILLISECONDS.convert(value, timeUnit);
-        cache = new HashMap<SessionID, Entry>();
+        cache = new ConcurrentHashMap<SessionID, Entry>();
     }
 
     @Override
     public T create() {
         T obj = factory.createInstance();
         Entry entry = new Entry(obj);
-        synchronized (cache) {
-            cache.put(obj.getId(), entry);
-        }
+        cache.put(obj.getId(), entry);
+        entry.scheduleExpiration(millisecondTimeout);
         return obj;
     }
 
     @Override
     public void discard(final SessionID key) {
-        synchronized (cache) {
-            cache.remove(key);
+        final Entry entry = cache.remove(key);
+        if (entry != null) {
+            entry.removed();
         }
     }
 
     @Override
     public T get(final SessionID key) throws NoSuchEJBException {
-        synchronized (cache) {
-            Entry val = cache.get(key);
-            if (val == null) {
-                throw new NoSuchEJBException("Could not find EJB with id " + key);
-            }
-            val.lastUsed = System.currentTimeMillis();
-            val.state = State.IN_USE;
-            return val.getValue();
+        final Entry val = cache.get(key);
+        if (val == null || !val.use()) {
+            throw new NoSuchEJBException("Could not find EJB with id " + key);
         }
+        return val.getValue();
     }
 
     @Override
     public void release(final T obj) {
-        synchronized (cache) {
-            Entry entry = cache.get(obj.getId());
+        final Entry entry = cache.get(obj.getId());
 
-            if (entry == null) {
-                logger.warn("Could not find stateful bean to release " + obj.getId());
-                return;
-            }
-            //this must stay within the synchronized block so the changes are visible to other threads
-            entry.lastUsed = System.currentTimeMillis();
-            entry.state = State.INACTIVE;
+        if (entry == null) {
+            logger.warn("Could not find stateful bean to release " + obj.getId());
+            return;
         }
+        entry.release();
     }
 
     @Override
     public void remove(final SessionID key) {
-        Entry object;
-        synchronized (cache) {
-            object = cache.remove(key);
-        }
+        final Entry object = cache.remove(key);
         // EJBTHREE-1218: throw NoSuchEJBException if the bean can not be found
         if (object == null)
             throw new NoSuchEJBException(String.valueOf(key));
 
+        object.removed();
         factory.destroyInstance(object.value);
     }
 
@@ -200,21 +255,64 @@ public class ExpiringCache<T extends Identifiable> implements Cache<T> {
 
     @Override
     public synchronized void start() {
-        if (millisecondTimeout >= 0) {
-            expiryThread = new ExpirationTask();
-            expiryThread.setDaemon(true);
-            expiryThread.start();
-            expiryThread.setName("Expiry Thread for SFSB " + beanName);
+        if (millisecondTimeout >= 0 && expirationScheduler == null) {
+            synchronized (schedulerLock) {
+                expirationScheduler = acquireScheduler();
+                expirationExecutor = destroyExecutor;
+            }
         }
     }
 
     @Override
     public synchronized void stop() {
-        if(expiryThread != null) {
-            expiryThread.stopTask();
+        final TimingWheel scheduler = expirationScheduler;
+        expirationScheduler = null;
+        expirationExecutor = null;
+        for (Entry entry : cache.values()) {
+            entry.removed();
         }
-        synchronized (cache) {
-            cache.clear();
+        cache.clear();
+        if (scheduler != null) {
+            releaseScheduler();
+        }
+    }
+
+    private static TimingWheel acquireScheduler() {
+        synchronized (schedulerLock) {
+            if (schedulerUsers++ == 0) {
+                // 64 buckets of 100ms per level, 4 levels cover timeouts of up to ~19 days without re-parking
+                scheduler = new TimingWheel("SFSB Expiration Scheduler", TICK_MILLIS, TimeUnit.MILLISECONDS, 64, 4);
+                scheduler.start();
+                destroyExecutor = createDestroyExecutor();
+            }
+            return scheduler;
         }
     }
+
+    private static void releaseScheduler() {
+        synchronized (schedulerLock) {
+            if (--schedulerUsers == 0) {
+                scheduler.stop();
+                scheduler = null;
+                // instances that are already expired are still destroyed
+                destroyExecutor.shutdown();
+                destroyExecutor = null;
+            }
+        }
+    }
+
+    private static ExecutorService createDestroyExecutor() {
+        final int threads = Runtime.getRuntime().availableProcessors();
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            private final AtomicInteger count = new AtomicInteger();
+
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r, "SFSB Expiration Thread " + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
 }
@@ -51,4 +51,21 @@ public interface StatefulObjectFactory<T> {
      * @param instance the instance to destroy
      */
     void destroyInstance(T instance);
+
+    /**
+     * Detach the state of an idle instance so that it can be written out of memory. Until the state is handed back
+     * through {@link #activateInstance(Object, Object)} the instance must not be invoked.
+     *
+     * @param instance the instance to passivate
+     * @return the detached state, or null if the instance cannot be passivated
+     */
+    Object passivateInstance(T instance);
+
+    /**
+     * Reattach state previously detached by {@link #passivateInstance(Object)}.
+     *
+     * @param instance the passivated instance
+     * @param state    the state, as read back in
+     */
+    void activateInstance(T instance, Object state);
 }
@@ -0,0 +1,475 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.passivating;
+
+import org.jboss.as.ejb3.cache.Cache;
+import org.jboss.as.ejb3.cache.Identifiable;
+import org.jboss.as.ejb3.cache.StatefulObjectFactory;
+import org.jboss.ejb.client.SessionID;
+import org.jboss.logging.Logger;
+import org.jboss.marshalling.InputStreamByteInput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.OutputStreamByteOutput;
+import org.jboss.marshalling.SimpleClassResolver;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.marshalling.river.RiverMarshallerFactory;
+
+import javax.ejb.NoSuchEJBException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache that bounds the number of instances held in memory. This cache is wrapped around an existing cache, which
+ * stays responsible for creating, expiring and removing instances.
+ * <p/>
+ * Once more than <code>maxEntries</code> instances are in memory the least recently used idle instances are
+ * passivated: their state is marshalled into a memory mapped {@link SpillFile} of <code>maxBytes</code> and is
+ * only read back in when the instance is next retrieved with {@link #get(SessionID)}. Instances that cannot be
+ * marshalled, or that do not fit into the spill file, simply stay in memory.
+ * <p/>
+ * Neither bound limits the heap: <code>maxBytes</code> only sizes the spill file, and once that is full every
+ * further instance stays in memory regardless of <code>maxEntries</code>, until passivated instances are removed
+ * or activated again.
+ */
+public class PassivatingCache<T extends Identifiable> implements Cache<T> {
+
+    private static final Logger logger = Logger.getLogger(PassivatingCache.class);
+
+    private static final int BLOCK_SIZE = 4096;
+
+    private final Cache<T> delegate;
+    private final String beanName;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final File spillDirectory;
+    private final MarshallerFactory marshallerFactory;
+    private final MarshallingConfiguration configuration;
+    private final ConcurrentMap<SessionID, Entry> entries = new ConcurrentHashMap<SessionID, Entry>();
+
+    /**
+     * Idle instances that are in memory, least recently used first. Guarded by itself.
+     */
+    private final Entry lru = new Entry(null);
+    private final AtomicInteger resident = new AtomicInteger();
+    private final AtomicInteger passivated = new AtomicInteger();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong passivations = new AtomicLong();
+
+    private volatile StatefulObjectFactory<T> factory;
+    private volatile SpillFile spillFile;
+
+    private final class Entry {
+        private final T value;
+        // the following fields are guarded by the entry
+        private int inUse;
+        private boolean removed;
+        private boolean pinned;
+        private SpillFile.Record record;
+        // the following fields are guarded by the lru list
+        private Entry prev = this;
+        private Entry next = this;
+        private boolean linked;
+
+        Entry(final T value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * @param delegate       the cache that manages the life cycle of the instances
+     * @param beanName       the name of the bean, used for logging and to name the spill file
+     * @param maxEntries     the maximum number of idle instances to keep in memory
+     * @param maxBytes       the size of the spill file
+     * @param spillDirectory the directory to create the spill file in
+     * @param classLoader    the class loader to resolve passivated classes with
+     */
+    public PassivatingCache(final Cache<T> delegate, final String beanName, final int maxEntries, final long maxBytes, final File spillDirectory, final ClassLoader classLoader) {
+        if (maxEntries < 0) {
+            throw new IllegalArgumentException("Max entries cannot be negative, was " + maxEntries);
+        }
+        this.delegate = delegate;
+        this.beanName = beanName;
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.spillDirectory = spillDirectory;
+        this.marshallerFactory = new RiverMarshallerFactory();
+        this.configuration = new MarshallingConfiguration();
+        this.configuration.setClassResolver(new SimpleClassResolver(classLoader));
+    }
+
+    @Override
+    public T create() {
+        final T obj = delegate.create();
+        final Entry entry = new Entry(obj);
+        entries.put(obj.getId(), entry);
+        resident.incrementAndGet();
+        // a new session is not in use until it is first retrieved
+        link(entry);
+        evict();
+        return obj;
+    }
+
+    @Override
+    public void discard(final SessionID key) {
+        delegate.discard(key);
+        removed(key);
+    }
+
+    @Override
+    public T get(final SessionID key) throws NoSuchEJBException {
+        final T obj = delegate.get(key);
+        final Entry entry = entries.get(key);
+        if (entry == null) {
+            // removed concurrently
+            throw new NoSuchEJBException("Could not find EJB with id " + key);
+        }
+        synchronized (entry) {
+            if (entry.removed) {
+                throw new NoSuchEJBException("Could not find EJB with id " + key);
+            }
+            if (entry.inUse++ == 0) {
+                unlink(entry);
+            }
+            if (entry.record == null) {
+                hits.incrementAndGet();
+                return obj;
+            }
+            misses.incrementAndGet();
+            if (activate(entry)) {
+                return obj;
+            }
+        }
+        // the state is lost, so drop the session rather than leave it in use for good
+        discard(key);
+        throw new NoSuchEJBException("Could not activate EJB with id " + key);
+    }
+
+    @Override
+    public void release(final T obj) {
+        delegate.release(obj);
+        final Entry entry = entries.get(obj.getId());
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            if (entry.removed || entry.inUse == 0) {
+                return;
+            }
+            if (--entry.inUse == 0) {
+                link(entry);
+            }
+        }
+        evict();
+    }
+
+    @Override
+    public void remove(final SessionID key) {
+        // the delegate destroys the instance through our factory, which activates it first
+        delegate.remove(key);
+    }
+
+    @Override
+    public void setStatefulObjectFactory(final StatefulObjectFactory<T> factory) {
+        this.factory = factory;
+        delegate.setStatefulObjectFactory(new StatefulObjectFactory<T>() {
+            @Override
+            public T createInstance() {
+                return PassivatingCache.this.factory.createInstance();
+            }
+
+            @Override
+            public void destroyInstance(final T instance) {
+                // make sure the pre-destroy callbacks see the state of the instance, if it can still be read
+                final Entry entry = entries.get(instance.getId());
+                if (entry != null) {
+                    synchronized (entry) {
+                        if (entry.record != null) {
+                            activate(entry);
+                        }
+                    }
+                }
+                removed(instance.getId());
+                PassivatingCache.this.factory.destroyInstance(instance);
+            }
+
+            @Override
+            public Object passivateInstance(final T instance) {
+                return PassivatingCache.this.factory.passivateInstance(instance);
+            }
+
+            @Override
+            public void activateInstance(final T instance, final Object state) {
+                PassivatingCache.this.factory.activateInstance(instance, state);
+            }
+        });
+    }
+
+    @Override
+    public synchronized void start() {
+        if (spillFile == null) {
+            try {
+                spillDirectory.mkdirs();
+                final File file = File.createTempFile("passivated-" + beanName + "-", ".dat", spillDirectory);
+                spillFile = new SpillFile(file, maxBytes, BLOCK_SIZE);
+            } catch (IOException e) {
+                throw new RuntimeException("Could not create passivation store for " + beanName + " in " + spillDirectory, e);
+            }
+        }
+        delegate.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        delegate.stop();
+        for (Entry entry : entries.values()) {
+            synchronized (entry) {
+                entry.removed = true;
+                entry.record = null;
+            }
+        }
+        entries.clear();
+        synchronized (lru) {
+            lru.next = lru;
+            lru.prev = lru;
+        }
+        resident.set(0);
+        passivated.set(0);
+        final SpillFile spillFile = this.spillFile;
+        this.spillFile = null;
+        if (spillFile != null) {
+            spillFile.close();
+        }
+    }
+
+    /**
+     * @return the number of instances whose state is in memory
+     */
+    public int getCacheSize() {
+        return resident.get();
+    }
+
+    /**
+     * @return the number of instances whose state has been passivated
+     */
+    public int getPassivatedCount() {
+        return passivated.get();
+    }
+
+    /**
+     * @return the number of retrievals that found the instance in memory
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of retrievals that had to activate the instance
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the number of times an instance has been passivated
+     */
+    public long getPassivationCount() {
+        return passivations.get();
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    private void removed(final SessionID key) {
+        final Entry entry = entries.remove(key);
+        if (entry == null) {
+            return;
+        }
+        synchronized (entry) {
+            entry.removed = true;
+            unlink(entry);
+            if (entry.record != null) {
+                release(entry.record);
+                entry.record = null;
+                passivated.decrementAndGet();
+            } else {
+                resident.decrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Passivates the least recently used idle instances until no more than <code>maxEntries</code> are in memory.
+     */
+    private void evict() {
+        final SpillFile spillFile = this.spillFile;
+        if (spillFile != null && spillFile.isFull()) {
+            // do not marshal instances just to find out that they do not fit
+            return;
+        }
+        // every idle instance is tried at most once, so instances that cannot be passivated are passed over
+        int attempts = resident.get();
+        while (attempts-- > 0 && resident.get() > maxEntries) {
+            final Entry entry;
+            synchronized (lru) {
+                entry = lru.next;
+                if (entry == lru) {
+                    // everything that is left is in use
+                    return;
+                }
+                unlink(entry);
+            }
+            synchronized (entry) {
+                if (entry.removed || entry.inUse > 0 || entry.record != null) {
+                    continue;
+                }
+                if (!passivate(entry)) {
+                    // does not fit at the moment, queue it up behind the other idle instances and leave the rest
+                    // in memory too, rather than marshalling them only to fail the write again
+                    link(entry);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Must be called with the entry locked.
+     *
+     * @return false if the spill file is too full at the moment
+     */
+    private boolean passivate(final Entry entry) {
+        final SpillFile spillFile = this.spillFile;
+        if (spillFile == null || entry.pinned) {
+            return true;
+        }
+        final Object state = factory.passivateInstance(entry.value);
+        if (state == null) {
+            entry.pinned = true;
+            return true;
+        }
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(BLOCK_SIZE);
+        try {
+            final Marshaller marshaller = marshallerFactory.createMarshaller(configuration);
+            marshaller.start(new OutputStreamByteOutput(bytes));
+            marshaller.writeObject(state);
+            marshaller.finish();
+        } catch (IOException e) {
+            // most likely not serializable, keep it in memory from now on
+            logger.debugf(e, "Could not passivate stateful bean %s - %s", beanName, entry.value.getId());
+            factory.activateInstance(entry.value, state);
+            entry.pinned = true;
+            return true;
+        }
+        if (bytes.size() > spillFile.getCapacity()) {
+            // would never fit, even into an empty spill file
+            factory.activateInstance(entry.value, state);
+            entry.pinned = true;
+            return true;
+        }
+        final SpillFile.Record record = spillFile.write(bytes.toByteArray(), bytes.size());
+        if (record == null) {
+            factory.activateInstance(entry.value, state);
+            return false;
+        }
+        entry.record = record;
+        resident.decrementAndGet();
+        passivated.incrementAndGet();
+        passivations.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Must be called with the entry locked. If the state cannot be read back in, the instance keeps its record, to
+     * be freed once the instance is removed.
+     *
+     * @return false if the state could not be read back in
+     */
+    private boolean activate(final Entry entry) {
+        final SpillFile.Record record = entry.record;
+        final Object state;
+        try {
+            final Unmarshaller unmarshaller = marshallerFactory.createUnmarshaller(configuration);
+            unmarshaller.start(new InputStreamByteInput(new ByteArrayInputStream(spillFile.read(record))));
+            state = unmarshaller.readObject();
+            unmarshaller.finish();
+        } catch (IOException e) {
+            logger.errorf(e, "Could not activate stateful bean %s - %s", beanName, entry.value.getId());
+            return false;
+        } catch (ClassNotFoundException e) {
+            logger.errorf(e, "Could not activate stateful bean %s - %s", beanName, entry.value.getId());
+            return false;
+        }
+        factory.activateInstance(entry.value, state);
+        entry.record = null;
+        release(record);
+        passivated.decrementAndGet();
+        resident.incrementAndGet();
+        return true;
+    }
+
+    private void release(final SpillFile.Record record) {
+        final SpillFile spillFile = this.spillFile;
+        if (spillFile != null) {
+            spillFile.free(record);
+        }
+    }
+
+    private void link(final Entry entry) {
+        synchronized (lru) {
+            if (entry.linked) {
+                return;
+            }
+            entry.prev = lru.prev;
+            entry.next = lru;
+            lru.prev.next = entry;
+            lru.prev = entry;
+            entry.linked = true;
+        }
+    }
+
+    private void unlink(final Entry entry) {
+        synchronized (lru) {
+            if (!entry.linked) {
+                return;
+            }
+            entry.prev.next = entry.next;
+            entry.next.prev = entry.prev;
+            entry.prev = entry;
+            entry.next = entry;
+            entry.linked = false;
+        }
+    }
+}
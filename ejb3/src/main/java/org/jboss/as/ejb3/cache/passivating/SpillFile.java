@@ -0,0 +1,182 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.passivating;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A fixed size, memory mapped file that passivated state is written to.
+ * <p/>
+ * The file is divided into blocks of equal size. A record occupies as many blocks as it needs, which need not be
+ * contiguous, so the file never has to be compacted. Only the allocation of blocks is synchronized; copying a
+ * record in or out works on a private view of the mapping, so records can be read and written concurrently.
+ */
+final class SpillFile {
+
+    /**
+     * A record in the spill file.
+     */
+    static final class Record {
+        private final int[] blocks;
+        private final int length;
+
+        private Record(final int[] blocks, final int length) {
+            this.blocks = blocks;
+            this.length = length;
+        }
+
+        int getLength() {
+            return length;
+        }
+    }
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private final MappedByteBuffer buffer;
+    private final int blockSize;
+    private final int[] freeBlocks;
+    private int freeCount;
+
+    /**
+     * @param file      the file to map, which is created or truncated
+     * @param capacity  the size of the file, rounded down to a whole number of blocks
+     * @param blockSize the size of a block
+     * @throws IOException if the file cannot be mapped
+     */
+    SpillFile(final File file, final long capacity, final int blockSize) throws IOException {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive, was " + blockSize);
+        }
+        // a single mapping cannot be larger than 2GB
+        final int blocks = (int) (Math.min(capacity, Integer.MAX_VALUE) / blockSize);
+        if (blocks < 1) {
+            throw new IllegalArgumentException("Capacity " + capacity + " is smaller than a block of " + blockSize + " bytes");
+        }
+        this.file = file;
+        this.blockSize = blockSize;
+        this.raf = new RandomAccessFile(file, "rw");
+        try {
+            raf.setLength((long) blocks * blockSize);
+            this.buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, (long) blocks * blockSize);
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+        this.freeBlocks = new int[blocks];
+        for (int i = 0; i < blocks; i++) {
+            // hand out the blocks at the start of the file first
+            freeBlocks[i] = blocks - 1 - i;
+        }
+        this.freeCount = blocks;
+    }
+
+    /**
+     * Writes a record.
+     *
+     * @param data   the data
+     * @param length the number of bytes of <code>data</code> to write
+     * @return the record, or null if there is not enough free space left
+     */
+    Record write(final byte[] data, final int length) {
+        final int[] blocks = allocate((length + blockSize - 1) / blockSize);
+        if (blocks == null) {
+            return null;
+        }
+        final ByteBuffer view = buffer.duplicate();
+        int offset = 0;
+        for (int block : blocks) {
+            final int chunk = Math.min(blockSize, length - offset);
+            view.position(block * blockSize);
+            view.put(data, offset, chunk);
+            offset += chunk;
+        }
+        return new Record(blocks, length);
+    }
+
+    /**
+     * Reads a record back in. The record stays allocated until it is {@link #free(Record) freed}.
+     *
+     * @param record the record
+     * @return the data of the record
+     */
+    byte[] read(final Record record) {
+        final byte[] data = new byte[record.length];
+        final ByteBuffer view = buffer.duplicate();
+        int offset = 0;
+        for (int block : record.blocks) {
+            final int chunk = Math.min(blockSize, record.length - offset);
+            view.position(block * blockSize);
+            view.get(data, offset, chunk);
+            offset += chunk;
+        }
+        return data;
+    }
+
+    /**
+     * @return the size of the file, the largest record it can ever hold
+     */
+    long getCapacity() {
+        return (long) freeBlocks.length * blockSize;
+    }
+
+    /**
+     * @return true if not a single block is free
+     */
+    synchronized boolean isFull() {
+        return freeCount == 0;
+    }
+
+    synchronized void free(final Record record) {
+        for (int block : record.blocks) {
+            freeBlocks[freeCount++] = block;
+        }
+    }
+
+    /**
+     * Closes and deletes the file. The mapping itself is only released once it has been garbage collected.
+     */
+    void close() {
+        try {
+            raf.close();
+        } catch (IOException ignore) {
+        }
+        if (!file.delete()) {
+            file.deleteOnExit();
+        }
+    }
+
+    private synchronized int[] allocate(final int count) {
+        if (count > freeCount) {
+            return null;
+        }
+        final int[] blocks = new int[count];
+        for (int i = 0; i < count; i++) {
+            blocks[i] = freeBlocks[--freeCount];
+        }
+        return blocks;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.component.pool;
+
+import org.jboss.as.ejb3.pool.Pool;
+import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+import org.jboss.as.ejb3.pool.striped.StripedPool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Configuration for a {@link StripedPool}.
+ */
+public class StripedPoolConfig extends PoolConfig {
+
+    private volatile int maxPoolSize;
+
+    private volatile TimeUnit timeoutUnit;
+
+    private volatile long timeout;
+
+    public StripedPoolConfig(final String poolName, int maxSize, long timeout, TimeUnit timeUnit) {
+        super(poolName);
+        this.maxPoolSize = maxSize;
+        this.timeout = timeout;
+        this.timeoutUnit = timeUnit;
+    }
+
+    @Override
+    public Pool<?> createPool(final StatelessObjectFactory statelessObjectFactory) {
+        return new StripedPool(statelessObjectFactory, this.maxPoolSize, this.timeout, this.timeoutUnit);
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = maxPoolSize;
+    }
+
+    public TimeUnit getTimeoutUnit() {
+        return timeoutUnit;
+    }
+
+    public void setTimeoutUnit(TimeUnit timeoutUnit) {
+        this.timeoutUnit = timeoutUnit;
+    }
+
+    public long getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
+
+    @Override
+    public String toString() {
+        return "StripedPoolConfig{" +
+                "name=" + this.poolName +
+                ", maxPoolSize=" + maxPoolSize +
+                ", timeoutUnit=" + timeoutUnit +
+                ", timeout=" + timeout +
+                '}';
+    }
+}
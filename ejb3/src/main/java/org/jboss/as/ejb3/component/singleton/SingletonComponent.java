@@ -28,7 +28,9 @@ import org.jboss.as.ejb3.component.DefaultAccessTimeoutService;
 import org.jboss.as.ejb3.component.EJBBusinessMethod;
 import org.jboss.as.ejb3.component.session.SessionBeanComponent;
 import org.jboss.as.ejb3.concurrency.AccessTimeoutDetails;
+import org.jboss.as.ejb3.concurrency.EJBReadWriteLock;
 import org.jboss.as.ejb3.concurrency.LockableComponent;
+import org.jboss.as.ejb3.concurrency.StripedEJBReadWriteLock;
 import org.jboss.as.ejb3.timerservice.SingletonTimedObjectInvokerImpl;
 import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
 import org.jboss.as.naming.ManagedReference;
@@ -48,6 +50,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
 
 /**
  * {@link Component} representing a {@link javax.ejb.Singleton} EJB.
@@ -58,6 +61,14 @@ public class SingletonComponent extends SessionBeanComponent implements Lockable
 
     private static final Logger logger = Logger.getLogger(SingletonComponent.class);
 
+    /**
+     * Set to <code>true</code> to guard singletons with a {@link StripedEJBReadWriteLock}, which scales better than an
+     * {@link EJBReadWriteLock} for beans that are mostly invoked with {@link LockType#READ} by many threads at once.
+     */
+    public static final String READ_OPTIMIZED_LOCK_PROPERTY = "jboss.ejb3.singleton.read-optimized-lock";
+
+    private static final boolean READ_OPTIMIZED_LOCK = Boolean.getBoolean(READ_OPTIMIZED_LOCK_PROPERTY);
+
     private volatile SingletonComponentInstance singletonComponentInstance;
 
     private final boolean initOnStartup;
@@ -183,6 +194,11 @@ public class SingletonComponent extends SessionBeanComponent implements Lockable
         return defaultAccessTimeoutProvider.getDefaultAccessTimeout();
     }
 
+    @Override
+    public ReadWriteLock createReadWriteLock() {
+        return READ_OPTIMIZED_LOCK ? new StripedEJBReadWriteLock() : new EJBReadWriteLock();
+    }
+
     private synchronized void destroySingletonInstance() {
         if (this.singletonComponentInstance != null) {
             singletonComponentInstance.destroy();
@@ -0,0 +1,105 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.component.stateful;
+
+import org.jboss.msc.inject.Injector;
+import org.jboss.msc.service.Service;
+import org.jboss.msc.service.ServiceName;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
+import org.jboss.msc.value.InjectedValue;
+
+import java.io.File;
+
+/**
+ * Service that manages the size bounds of the stateful session bean cache. The settings apply to stateful
+ * beans that are deployed after they have been changed.
+ */
+public class StatefulCacheConfigService implements Service<StatefulCacheConfigService> {
+
+    public static final ServiceName SERVICE_NAME = ServiceName.JBOSS.append("ejb3", "statefulCacheConfig");
+    public static final ServiceName PATH_SERVICE_NAME = SERVICE_NAME.append("passivationStorePath");
+
+    /**
+     * Max entries value meaning that the cache is not bounded.
+     */
+    public static final int UNBOUNDED = -1;
+
+    private final InjectedValue<String> path = new InjectedValue<String>();
+
+    private volatile int maxEntries;
+    private volatile long maxBytes;
+
+    public StatefulCacheConfigService(final int maxEntries, final long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the maximum number of idle instances of a bean kept in memory, or {@link #UNBOUNDED}
+     */
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(final int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return the size of the store that the passivated instances of a bean are written to
+     */
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public void setMaxBytes(final long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * @return the directory that passivated instances are written to
+     */
+    public File getPassivationStoreDirectory() {
+        return new File(path.getValue());
+    }
+
+    public Injector<String> getPathInjector() {
+        return path;
+    }
+
+    @Override
+    public void start(final StartContext context) throws StartException {
+
+    }
+
+    @Override
+    public void stop(final StopContext context) {
+
+    }
+
+    @Override
+    public StatefulCacheConfigService getValue() throws IllegalStateException, IllegalArgumentException {
+        return this;
+    }
+}
@@ -41,12 +41,13 @@ public class StatefulComponentCreateServiceFactory extends EJBComponentCreateSer
             throw new IllegalStateException("EjbJarConfiguration hasn't been set in " + this +
                     " .Cannot create component create service for EJB " + configuration.getComponentName());
         }
-        // setup a injection dependency to inject the DefaultAccessTimeoutService in the stateful bean
+        // setup injection dependencies to inject the DefaultAccessTimeoutService and the cache config in the stateful bean
         // component create service
         configuration.getCreateDependencies().add(new DependencyConfigurator<StatefulSessionComponentCreateService>() {
             @Override
             public void configureDependency(ServiceBuilder<?> serviceBuilder, StatefulSessionComponentCreateService componentCreateService) throws DeploymentUnitProcessingException {
                 serviceBuilder.addDependency(DefaultAccessTimeoutService.STATEFUL_SERVICE_NAME, DefaultAccessTimeoutService.class, componentCreateService.getDefaultAccessTimeoutInjector());
+                serviceBuilder.addDependency(StatefulCacheConfigService.SERVICE_NAME, StatefulCacheConfigService.class, componentCreateService.getCacheConfigInjector());
             }
         });
         return new StatefulSessionComponentCreateService(configuration, this.ejbJarConfiguration);
@@ -21,6 +21,7 @@
  */
 package org.jboss.as.ejb3.component.stateful;
 
+import org.jboss.as.ee.component.InterceptorChainOptimizer;
 import org.jboss.as.ejb3.component.interceptors.AbstractEJBInterceptor;
 import org.jboss.as.ejb3.component.session.SessionBeanHomeInterceptorFactory;
 import org.jboss.invocation.Interceptor;
@@ -49,12 +50,14 @@ public class StatefulInitMethodInterceptorFactory implements InterceptorFactory
     public Interceptor create(final InterceptorFactoryContext context) {
         final Method method = SessionBeanHomeInterceptorFactory.INIT_METHOD.get();
         final Object[] params = SessionBeanHomeInterceptorFactory.INIT_PARAMETERS.get();
+        if (method == null) {
+            // not created through a home interface
+            return InterceptorChainOptimizer.PASS_THROUGH;
+        }
         return new AbstractEJBInterceptor() {
             @Override
             public Object processInvocation(final InterceptorContext context) throws Exception {
-                if (method != null) {
-                    method.invoke(context.getTarget(), params);
-                }
+                method.invoke(context.getTarget(), params);
                 return context.proceed();
             }
         };
@@ -43,6 +43,7 @@ import org.jboss.as.ee.component.ComponentView;
 import org.jboss.as.ejb3.cache.Cache;
 import org.jboss.as.ejb3.cache.ExpiringCache;
 import org.jboss.as.ejb3.cache.StatefulObjectFactory;
+import org.jboss.as.ejb3.cache.passivating.PassivatingCache;
 import org.jboss.as.ejb3.component.DefaultAccessTimeoutService;
 import org.jboss.as.ejb3.component.EJBBusinessMethod;
 import org.jboss.as.ejb3.component.session.SessionBeanComponent;
@@ -103,10 +104,19 @@ public class StatefulSessionComponent extends SessionBeanComponent {
         this.defaultAccessTimeoutProvider = ejbComponentCreateService.getDefaultAccessTimeoutService();
 
         final StatefulTimeoutInfo statefulTimeout = ejbComponentCreateService.getStatefulTimeout();
+        final Cache<StatefulSessionComponentInstance> expiringCache;
         if (statefulTimeout != null) {
-            cache = new ExpiringCache<StatefulSessionComponentInstance>(statefulTimeout.getValue(), statefulTimeout.getTimeUnit(), ejbComponentCreateService.getComponentClass().getName());
+            expiringCache = new ExpiringCache<StatefulSessionComponentInstance>(statefulTimeout.getValue(), statefulTimeout.getTimeUnit(), ejbComponentCreateService.getComponentClass().getName());
         } else {
-            cache = new ExpiringCache<StatefulSessionComponentInstance>(-1, TimeUnit.MILLISECONDS, ejbComponentCreateService.getComponentClass().getName());
+            expiringCache = new ExpiringCache<StatefulSessionComponentInstance>(-1, TimeUnit.MILLISECONDS, ejbComponentCreateService.getComponentClass().getName());
+        }
+        final StatefulCacheConfigService cacheConfig = ejbComponentCreateService.getCacheConfig();
+        if (cacheConfig.getMaxEntries() != StatefulCacheConfigService.UNBOUNDED) {
+            final Class<?> componentClass = ejbComponentCreateService.getComponentClass();
+            cache = new PassivatingCache<StatefulSessionComponentInstance>(expiringCache, getComponentName(), cacheConfig.getMaxEntries(),
+                    cacheConfig.getMaxBytes(), cacheConfig.getPassivationStoreDirectory(), componentClass.getClassLoader());
+        } else {
+            cache = expiringCache;
         }
         cache.setStatefulObjectFactory(new StatefulObjectFactory<StatefulSessionComponentInstance>() {
             @Override
@@ -118,6 +128,16 @@ public class StatefulSessionComponent extends SessionBeanComponent {
             public void destroyInstance(StatefulSessionComponentInstance instance) {
                 instance.destroy();
             }
+
+            @Override
+            public Object passivateInstance(StatefulSessionComponentInstance instance) {
+                return instance.passivate();
+            }
+
+            @Override
+            public void activateInstance(StatefulSessionComponentInstance instance, Object state) {
+                instance.activate(state);
+            }
         });
     }
 
@@ -49,6 +49,7 @@ public class StatefulSessionComponentCreateService extends SessionBeanComponentC
     private final Method beforeCompletionMethod;
     private final StatefulTimeoutInfo statefulTimeout;
     private final InjectedValue<DefaultAccessTimeoutService> defaultAccessTimeoutService = new InjectedValue<DefaultAccessTimeoutService>();
+    private final InjectedValue<StatefulCacheConfigService> cacheConfig = new InjectedValue<StatefulCacheConfigService>();
 
     /**
      * Construct a new instance.
@@ -128,4 +129,12 @@ public class StatefulSessionComponentCreateService extends SessionBeanComponentC
     Injector<DefaultAccessTimeoutService> getDefaultAccessTimeoutInjector() {
         return this.defaultAccessTimeoutService;
     }
+
+    public StatefulCacheConfigService getCacheConfig() {
+        return cacheConfig.getValue();
+    }
+
+    Injector<StatefulCacheConfigService> getCacheConfigInjector() {
+        return this.cacheConfig;
+    }
 }
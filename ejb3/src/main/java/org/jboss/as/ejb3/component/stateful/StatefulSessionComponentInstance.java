@@ -36,9 +36,11 @@ import org.jboss.as.ee.component.ComponentInstance;
 import org.jboss.as.ejb3.cache.Identifiable;
 import org.jboss.as.ejb3.component.session.SessionBeanComponentInstance;
 import org.jboss.as.naming.ManagedReference;
+import org.jboss.as.naming.ValueManagedReference;
 import org.jboss.ejb.client.SessionID;
 import org.jboss.invocation.Interceptor;
 import org.jboss.invocation.InterceptorContext;
+import org.jboss.msc.value.ImmediateValue;
 
 /**
  * @author <a href="mailto:cdewolf@redhat.com">Carlo de Wolf</a>
@@ -47,6 +49,8 @@ public class StatefulSessionComponentInstance extends SessionBeanComponentInstan
 
     private final SessionID id;
 
+    private final AtomicReference<ManagedReference> instanceReference;
+
     private final Interceptor afterBegin;
     private final Interceptor afterCompletion;
     private final Interceptor beforeCompletion;
@@ -60,7 +64,7 @@ public class StatefulSessionComponentInstance extends SessionBeanComponentInstan
      */
     protected StatefulSessionComponentInstance(final StatefulSessionComponent component, final AtomicReference<ManagedReference> instanceReference, final Interceptor preDestroyInterceptor, final Map<Method, Interceptor> methodInterceptors) {
         super(component, instanceReference, preDestroyInterceptor, methodInterceptors, Collections.<Method, Interceptor>emptyMap());
-
+        this.instanceReference = instanceReference;
 
         final UUID uuid = UUID.randomUUID();
         ByteBuffer bb = ByteBuffer.wrap(new byte[16]);
@@ -92,6 +96,31 @@ public class StatefulSessionComponentInstance extends SessionBeanComponentInstan
         }
     }
 
+    /**
+     * Detaches the bean instance so that its state can be passivated. The interceptor instances and the
+     * rest of this component instance stay in memory.
+     *
+     * @return the bean instance, or null if it cannot be passivated
+     */
+    Object passivate() {
+        final ManagedReference reference = instanceReference.get();
+        // other references may need to be released on destruction, so they cannot be rebuilt on activation
+        if (!(reference instanceof ValueManagedReference)) {
+            return null;
+        }
+        instanceReference.set(null);
+        return reference.getInstance();
+    }
+
+    /**
+     * Reattaches a bean instance previously detached by {@link #passivate()}.
+     *
+     * @param instance the bean instance
+     */
+    void activate(final Object instance) {
+        instanceReference.set(new ValueManagedReference(new ImmediateValue<Object>(instance)));
+    }
+
     private Object execute(final Interceptor interceptor, final Method method, final Object ... parameters) {
         if (interceptor == null)
             return null;
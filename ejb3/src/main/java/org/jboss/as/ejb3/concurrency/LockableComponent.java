@@ -24,6 +24,7 @@ package org.jboss.as.ejb3.concurrency;
 
 import javax.ejb.LockType;
 import java.lang.reflect.Method;
+import java.util.concurrent.locks.ReadWriteLock;
 
 /**
  * A {@link LockableComponent} represents the runtime component of a EJB. It is meant to provide access to EJB
@@ -61,4 +62,13 @@ public interface LockableComponent {
      * @return
      */
     AccessTimeoutDetails getDefaultAccessTimeout();
+
+    /**
+     * Returns a new lock to guard the invocations on an instance of the component with, according to the
+     * {@link javax.ejb.LockType} of the invoked methods. The lock must throw a {@link javax.ejb.IllegalLoopbackException}
+     * when a thread holding the read lock tries to obtain the write lock.
+     *
+     * @return the lock
+     */
+    ReadWriteLock createReadWriteLock();
 }
@@ -0,0 +1,343 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.concurrency;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.ejb.IllegalLoopbackException;
+
+/**
+ * A {@link ReadWriteLock} with the semantics of {@link EJBReadWriteLock}, which scales with the number of threads
+ * taking the read lock.
+ * <p/>
+ * Rather than one count of the read locks held, which every reader has to update, the readers are counted in stripes
+ * that each sit on a cache line of their own, and a thread always uses the same stripe. A writer announces itself
+ * before it waits for the readers to leave, and new readers wait for announced writers, so that writers are not
+ * starved by a steady stream of readers. A thread that already holds a read lock or the write lock does not wait for
+ * announced writers when it takes another read lock, as that would deadlock.
+ * <p/>
+ * Taking and releasing a read lock only touches the stripe of the thread as long as no writer is announced.
+ *
+ * @see EJBReadWriteLock
+ */
+public class StripedEJBReadWriteLock implements ReadWriteLock {
+
+    /**
+     * The distance between two stripes in the array of counts, so that they are on different cache lines
+     */
+    private static final int PADDING = 16;
+
+    /**
+     * The number of read locks held, per stripe
+     */
+    private final AtomicLongArray readers;
+    private final int mask;
+
+    /**
+     * Held by the thread that holds the write lock, or is waiting for the readers to leave
+     */
+    private final ReentrantLock writeMutex = new ReentrantLock();
+
+    /**
+     * Set while a thread holds the write lock, or is waiting for the readers to leave
+     */
+    private volatile boolean writerAnnounced;
+
+    /**
+     * Readers wait on this for an announced writer to finish, and writers for the readers to leave
+     */
+    private final Object monitor = new Object();
+
+    /**
+     * The number of read locks held by the thread. The holder is kept once created, to avoid boxing on every
+     * acquisition.
+     */
+    private final ThreadLocal<int[]> readLockCount = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[1];
+        }
+    };
+
+    private final Lock readLock = new ReadLock();
+    private final Lock writeLock = new WriteLock();
+
+    public StripedEJBReadWriteLock() {
+        this(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
+    /**
+     * @param stripes the minimum number of stripes to count the readers in, rounded up to a power of two
+     */
+    public StripedEJBReadWriteLock(final int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("stripes must be at least 1, was " + stripes);
+        }
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        this.mask = size - 1;
+        this.readers = new AtomicLongArray(size * PADDING);
+    }
+
+    @Override
+    public Lock readLock() {
+        return readLock;
+    }
+
+    @Override
+    public Lock writeLock() {
+        return writeLock;
+    }
+
+    private int stripe() {
+        return ((int) Thread.currentThread().getId() & mask) * PADDING;
+    }
+
+    private long activeReaders() {
+        long count = 0;
+        for (int i = 0; i <= mask; i++) {
+            count += readers.get(i * PADDING);
+        }
+        return count;
+    }
+
+    private void wakeWaiters() {
+        synchronized (monitor) {
+            monitor.notifyAll();
+        }
+    }
+
+    /**
+     * Wait on the monitor, which the caller holds.
+     *
+     * @param deadline the time to give up at, as per {@link System#nanoTime()}, if <code>timed</code>
+     * @return false if the deadline has passed
+     */
+    private boolean await(final boolean timed, final long deadline) throws InterruptedException {
+        if (!timed) {
+            monitor.wait();
+            return true;
+        }
+        final long remaining = deadline - System.nanoTime();
+        if (remaining <= 0) {
+            return false;
+        }
+        TimeUnit.NANOSECONDS.timedWait(monitor, remaining);
+        return true;
+    }
+
+    private boolean acquireRead(final boolean wait, final boolean timed, final long deadline) throws InterruptedException {
+        final int[] held = readLockCount.get();
+        final int stripe = stripe();
+        if (held[0] > 0 || writeMutex.isHeldByCurrentThread()) {
+            // an announced writer may be waiting for this thread
+            readers.incrementAndGet(stripe);
+            held[0]++;
+            return true;
+        }
+        for (;;) {
+            if (!writerAnnounced) {
+                readers.incrementAndGet(stripe);
+                // the writer announces itself before it counts the readers, so one of us sees the other
+                if (!writerAnnounced) {
+                    held[0]++;
+                    return true;
+                }
+                readers.decrementAndGet(stripe);
+                wakeWaiters();
+            }
+            if (!wait) {
+                return false;
+            }
+            synchronized (monitor) {
+                while (writerAnnounced) {
+                    if (!await(timed, deadline)) {
+                        return false;
+                    }
+                }
+            }
+        }
+    }
+
+    private void releaseRead() {
+        final int[] held = readLockCount.get();
+        if (held[0] == 0) {
+            throw new IllegalMonitorStateException("Read lock is not held by the current thread");
+        }
+        held[0]--;
+        readers.decrementAndGet(stripe());
+        if (writerAnnounced) {
+            wakeWaiters();
+        }
+    }
+
+    private boolean acquireWrite(final boolean wait, final boolean timed, final long deadline) throws InterruptedException {
+        checkLoopback();
+        if (!wait) {
+            if (!writeMutex.tryLock()) {
+                return false;
+            }
+        } else if (timed) {
+            if (!writeMutex.tryLock(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        } else {
+            writeMutex.lockInterruptibly();
+        }
+        if (writeMutex.getHoldCount() > 1) {
+            return true;
+        }
+        writerAnnounced = true;
+        boolean acquired = false;
+        try {
+            synchronized (monitor) {
+                while (activeReaders() != 0) {
+                    if (!wait || !await(timed, deadline)) {
+                        return false;
+                    }
+                }
+            }
+            acquired = true;
+            return true;
+        } finally {
+            if (!acquired) {
+                releaseWrite();
+            }
+        }
+    }
+
+    private void releaseWrite() {
+        if (!writeMutex.isHeldByCurrentThread()) {
+            throw new IllegalMonitorStateException("Write lock is not held by the current thread");
+        }
+        if (writeMutex.getHoldCount() == 1) {
+            writerAnnounced = false;
+            wakeWaiters();
+        }
+        writeMutex.unlock();
+    }
+
+    /**
+     * Ensures that the current thread doesn't hold any read locks. If
+     * the thread holds any read locks, this method throws a {@link javax.ejb.IllegalLoopbackException}.
+     */
+    private void checkLoopback() {
+        if (readLockCount.get()[0] > 0) {
+            throw new IllegalLoopbackException("EJB 3.1 PFD2 4.8.5.1.1 upgrading from read to write lock is not allowed");
+        }
+    }
+
+    private abstract class AbstractLock implements Lock {
+
+        abstract boolean acquire(boolean wait, boolean timed, long deadline) throws InterruptedException;
+
+        @Override
+        public void lock() {
+            boolean interrupted = false;
+            try {
+                for (;;) {
+                    try {
+                        acquire(true, false, 0);
+                        return;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            acquire(true, false, 0);
+        }
+
+        @Override
+        public boolean tryLock() {
+            try {
+                return acquire(false, false, 0);
+            } catch (InterruptedException e) {
+                // cannot happen, nothing waits
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        @Override
+        public boolean tryLock(final long time, final TimeUnit unit) throws InterruptedException {
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+            return acquire(true, true, System.nanoTime() + unit.toNanos(time));
+        }
+
+        /**
+         * Not implemented
+         *
+         * @throws UnsupportedOperationException
+         */
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    private class ReadLock extends AbstractLock {
+
+        @Override
+        boolean acquire(final boolean wait, final boolean timed, final long deadline) throws InterruptedException {
+            return acquireRead(wait, timed, deadline);
+        }
+
+        @Override
+        public void unlock() {
+            releaseRead();
+        }
+    }
+
+    private class WriteLock extends AbstractLock {
+
+        @Override
+        boolean acquire(final boolean wait, final boolean timed, final long deadline) throws InterruptedException {
+            return acquireWrite(wait, timed, deadline);
+        }
+
+        @Override
+        public void unlock() {
+            releaseWrite();
+        }
+    }
+}
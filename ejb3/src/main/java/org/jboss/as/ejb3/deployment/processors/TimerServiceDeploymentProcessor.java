@@ -21,8 +21,6 @@
  */
 package org.jboss.as.ejb3.deployment.processors;
 
-import java.util.concurrent.ExecutorService;
-
 import javax.transaction.TransactionManager;
 import javax.transaction.TransactionSynchronizationRegistry;
 
@@ -37,8 +35,10 @@ import org.jboss.as.ee.component.interceptors.InterceptorOrder;
 import org.jboss.as.ejb3.component.EJBComponent;
 import org.jboss.as.ejb3.component.EJBComponentDescription;
 import org.jboss.as.ejb3.component.interceptors.CurrentInvocationContextInterceptor;
+import org.jboss.as.ejb3.timerservice.TimeoutSchedulerService;
 import org.jboss.as.ejb3.timerservice.TimerServiceFactoryService;
 import org.jboss.as.ejb3.timerservice.TimerServiceService;
+import org.jboss.as.ejb3.timerservice.spi.TimeoutScheduler;
 import org.jboss.as.ejb3.timerservice.spi.TimerServiceFactory;
 import org.jboss.as.server.deployment.DeploymentPhaseContext;
 import org.jboss.as.server.deployment.DeploymentUnit;
@@ -62,12 +62,6 @@ public class TimerServiceDeploymentProcessor implements DeploymentUnitProcessor
 
     private static final Logger logger = Logger.getLogger(TimerServiceDeploymentProcessor.class);
 
-   private final ServiceName timerServiceThreadPool;
-
-    public TimerServiceDeploymentProcessor(final ServiceName timerServiceThreadPool) {
-        this.timerServiceThreadPool = timerServiceThreadPool;
-    }
-
     @Override
     public void deploy(final DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
 
@@ -138,7 +132,7 @@ public class TimerServiceDeploymentProcessor implements DeploymentUnitProcessor
         factoryBuilder.addDependency(TransactionManagerService.SERVICE_NAME, TransactionManager.class, factoryService.getTransactionManagerInjectedValue());
         factoryBuilder.addDependency(TransactionSynchronizationRegistryService.SERVICE_NAME, TransactionSynchronizationRegistry.class, factoryService.getTransactionSynchronizationRegistryInjectedValue());
         factoryBuilder.addDependency(ServiceBuilder.DependencyType.OPTIONAL, TimerServiceFactoryService.PATH_SERVICE_NAME, String.class, factoryService.getPath());
-        factoryBuilder.addDependency(timerServiceThreadPool, ExecutorService.class, factoryService.getExecutorService());
+        factoryBuilder.addDependency(TimeoutSchedulerService.SERVICE_NAME, TimeoutScheduler.class, factoryService.getTimeoutScheduler());
         factoryBuilder.install();
     }
 
@@ -0,0 +1,261 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool.striped;
+
+import org.jboss.as.ejb3.pool.AbstractPool;
+import org.jboss.as.ejb3.pool.StatelessObjectFactory;
+import org.jboss.logging.Logger;
+
+import javax.ejb.EJBException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A pool with a maximum size, which keeps its idle instances in a number of independent stripes.
+ * <p/>
+ * Unlike {@link org.jboss.as.ejb3.pool.strictmax.StrictMaxPool} there is no single monitor guarding
+ * the idle instances. A thread first looks for an instance in its own stripe and only steals from the
+ * other stripes when its own is empty. The maximum number of active instances is enforced by a
+ * non-fair semaphore, so acquiring a permit is a single CAS unless the pool is exhausted.
+ */
+public class StripedPool<T> extends AbstractPool<T> {
+    private static final Logger log = Logger.getLogger(StripedPool.class);
+
+    /**
+     * A non-fair semaphore which limits the number of active instances to maxSize.
+     */
+    private final Semaphore semaphore;
+    /**
+     * The maximum number of instances allowed in the pool
+     */
+    private final int maxSize;
+    /**
+     * The time to wait for the semaphore.
+     */
+    private final long timeout;
+    private final TimeUnit timeUnit;
+    /**
+     * The idle instances. The length is always a power of two.
+     */
+    private final ConcurrentLinkedQueue<T>[] stripes;
+    private final int stripeMask;
+    /**
+     * The number of instances sitting in each stripe, spaced out so that the counts of different stripes do not
+     * share a cache line
+     */
+    private final AtomicIntegerArray idle;
+    /**
+     * The number of idle instances a stripe may hold, so that all of maxSize instances can be kept idle
+     */
+    private final int stripeCapacity;
+
+    private static final int PADDING = 16;
+
+    public StripedPool(StatelessObjectFactory<T> factory, int maxSize, long timeout, TimeUnit timeUnit) {
+        this(factory, maxSize, timeout, timeUnit, Runtime.getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked")
+    public StripedPool(StatelessObjectFactory<T> factory, int maxSize, long timeout, TimeUnit timeUnit, int stripeCount) {
+        super(factory);
+        if (stripeCount < 1) {
+            throw new IllegalArgumentException("Stripe count must be at least 1, was " + stripeCount);
+        }
+        this.maxSize = maxSize;
+        this.semaphore = new Semaphore(maxSize, false);
+        this.timeout = timeout;
+        this.timeUnit = timeUnit;
+        // there is no point having more stripes than instances, so round down
+        final int limit = Math.max(1, Math.min(stripeCount, maxSize));
+        int size = 1;
+        while (size << 1 <= limit) {
+            size <<= 1;
+        }
+        this.stripes = new ConcurrentLinkedQueue[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ConcurrentLinkedQueue<T>();
+        }
+        this.stripeMask = size - 1;
+        this.idle = new AtomicIntegerArray(size * PADDING);
+        this.stripeCapacity = (maxSize + size - 1) / size;
+    }
+
+    public void discard(T ctx) {
+        if (log.isTraceEnabled()) {
+            String msg = "Discard instance:" + this + "#" + ctx;
+            log.trace(msg);
+        }
+
+        semaphore.release();
+
+        // Let the super do any other remove stuff
+        super.doRemove(ctx);
+    }
+
+    public int getCurrentSize() {
+        return getCreateCount() - getRemoveCount();
+    }
+
+    public int getAvailableCount() {
+        return semaphore.availablePermits();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public void setMaxSize(int maxSize) {
+        throw new RuntimeException("Not implemented");
+    }
+
+    int getStripeCount() {
+        return stripes.length;
+    }
+
+    /**
+     * Get an instance without identity.
+     * Can be used by finders,create-methods, and activation
+     *
+     * @return Context /w instance
+     */
+    public T get() {
+        // barging is fine here, only block if there is no permit immediately available
+        if (!semaphore.tryAcquire()) {
+            try {
+                boolean acquired = semaphore.tryAcquire(timeout, timeUnit);
+                if (!acquired)
+                    throw new EJBException("Failed to acquire a permit within " + timeout + " " + timeUnit);
+            } catch (InterruptedException e) {
+                throw new EJBException("Acquire semaphore was interrupted");
+            }
+        }
+        final T pooled = poll();
+        if (pooled != null) {
+            return pooled;
+        }
+
+        T bean = null;
+        try {
+            // Pool is empty, create an instance
+            bean = create();
+        } finally {
+            if (bean == null) {
+                semaphore.release();
+            }
+        }
+        return bean;
+    }
+
+    /**
+     * Return an instance after invocation.
+     * <p/>
+     * Called in 2 cases:
+     * a) Done with finder method
+     * b) Just removed
+     *
+     * @param obj
+     */
+    public void release(T obj) {
+        if (log.isTraceEnabled()) {
+            String msg = "Free instance:" + this;
+            log.trace(msg);
+        }
+
+        // the instance must be visible before the permit is handed back
+        if (!offer(obj))
+            destroy(obj);
+        semaphore.release();
+    }
+
+    @Override
+    public void remove(T ctx) {
+        if (log.isTraceEnabled()) {
+            String msg = "Removing instance:" + this + "#" + ctx;
+            log.trace(msg);
+        }
+
+        semaphore.release();
+        // let the super do the other remove stuff
+        super.doRemove(ctx);
+    }
+
+    public void start() {
+    }
+
+    public void stop() {
+        for (int i = 0; i <= stripeMask; i++) {
+            T obj;
+            while ((obj = stripes[i].poll()) != null) {
+                idle.decrementAndGet(i * PADDING);
+                destroy(obj);
+            }
+        }
+    }
+
+    /**
+     * Takes an idle instance from the stripe of the current thread, stealing from the other
+     * stripes if it is empty.
+     *
+     * @return an idle instance, or null if there are none
+     */
+    private T poll() {
+        final int home = stripeIndex();
+        for (int i = 0; i <= stripeMask; i++) {
+            final int index = (home + i) & stripeMask;
+            final T obj = stripes[index].poll();
+            if (obj != null) {
+                idle.decrementAndGet(index * PADDING);
+                return obj;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Puts an idle instance in the stripe of the current thread, or the next stripe with room for it.
+     *
+     * @return false if all the stripes are full
+     */
+    private boolean offer(final T obj) {
+        final int home = stripeIndex();
+        for (int i = 0; i <= stripeMask; i++) {
+            final int index = (home + i) & stripeMask;
+            if (idle.incrementAndGet(index * PADDING) <= stripeCapacity) {
+                stripes[index].offer(obj);
+                return true;
+            }
+            idle.decrementAndGet(index * PADDING);
+        }
+        return false;
+    }
+
+    private int stripeIndex() {
+        // thread ids are handed out sequentially, spread them so neighbouring threads do not collide
+        int h = (int) Thread.currentThread().getId();
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h & stripeMask;
+    }
+}
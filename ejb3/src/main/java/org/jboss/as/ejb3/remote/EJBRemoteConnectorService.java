@@ -74,18 +74,41 @@ public class EJBRemoteConnectorService implements Service<EJBRemoteConnectorServ
 
     private final String[] supportedMarshallingStrategies;
 
+    private final int maxInvocationsPerBean;
+
+    private final int maxQueuedInvocationsPerBean;
+
+    private volatile RemoteInvocationExecutor invocationExecutor;
+
     public EJBRemoteConnectorService(final byte serverProtocolVersion, final String[] supportedMarshallingStrategies) {
+        this(serverProtocolVersion, supportedMarshallingStrategies, Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param serverProtocolVersion          the protocol version of the server
+     * @param supportedMarshallingStrategies the marshalling strategies the server supports
+     * @param maxInvocationsPerBean          the maximum number of remote invocations of a bean that run at the same time
+     * @param maxQueuedInvocationsPerBean    the maximum number of remote invocations of a bean that wait to run, beyond
+     *                                       which invocations of the bean are rejected
+     */
+    public EJBRemoteConnectorService(final byte serverProtocolVersion, final String[] supportedMarshallingStrategies,
+                                     final int maxInvocationsPerBean, final int maxQueuedInvocationsPerBean) {
         this.serverProtocolVersion = serverProtocolVersion;
         this.supportedMarshallingStrategies = supportedMarshallingStrategies;
+        this.maxInvocationsPerBean = maxInvocationsPerBean;
+        this.maxQueuedInvocationsPerBean = maxQueuedInvocationsPerBean;
     }
 
     @Override
     public void start(StartContext context) throws StartException {
         final ServiceContainer serviceContainer = context.getController().getServiceContainer();
         final OpenListener channelOpenListener = new ChannelOpenListener(serviceContainer);
+        invocationExecutor = new RemoteInvocationExecutor(executorService.getValue(), maxInvocationsPerBean, maxQueuedInvocationsPerBean);
+        deploymentRepositoryInjectedValue.getValue().addListener(invocationExecutor);
         try {
             registration = endpointValue.getValue().registerService(EJB_CHANNEL_NAME, channelOpenListener, OptionMap.EMPTY);
         } catch (ServiceRegistrationException e) {
+            deploymentRepositoryInjectedValue.getValue().removeListener(invocationExecutor);
             throw new StartException(e);
         }
     }
@@ -93,6 +116,7 @@ public class EJBRemoteConnectorService implements Service<EJBRemoteConnectorServ
     @Override
     public void stop(StopContext context) {
         registration.close();
+        deploymentRepositoryInjectedValue.getValue().removeListener(invocationExecutor);
     }
 
     @Override
@@ -100,6 +124,13 @@ public class EJBRemoteConnectorService implements Service<EJBRemoteConnectorServ
         return this;
     }
 
+    /**
+     * @return the executor of the remote invocations, or null if the service has not started
+     */
+    public RemoteInvocationExecutor getInvocationExecutor() {
+        return invocationExecutor;
+    }
+
     public InjectedValue<Endpoint> getEndpointInjector() {
         return endpointValue;
     }
@@ -198,7 +229,7 @@ public class EJBRemoteConnectorService implements Service<EJBRemoteConnectorServ
                         // enroll VersionOneProtocolChannelReceiver for handling subsequent messages on this channel
                         final DeploymentRepository deploymentRepository = EJBRemoteConnectorService.this.deploymentRepositoryInjectedValue.getValue();
                         final VersionOneProtocolChannelReceiver receiver = new VersionOneProtocolChannelReceiver(channel, deploymentRepository,
-                                EJBRemoteConnectorService.this.ejbRemoteTransactionsRepositoryInjectedValue.getValue(), clientMarshallingStrategy, executorService.getValue());
+                                EJBRemoteConnectorService.this.ejbRemoteTransactionsRepositoryInjectedValue.getValue(), clientMarshallingStrategy, executorService.getValue(), invocationExecutor);
                         receiver.startReceiving();
                         break;
 
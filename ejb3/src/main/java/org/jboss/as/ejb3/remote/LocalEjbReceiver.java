@@ -23,13 +23,13 @@ package org.jboss.as.ejb3.remote;
 
 import java.io.IOException;
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.jboss.as.ee.component.Component;
 import org.jboss.as.ee.component.ComponentView;
+import org.jboss.as.ee.component.LazyContextData;
 import org.jboss.as.ee.utils.DescriptorUtils;
 import org.jboss.as.ejb3.component.interceptors.AsyncInvocationTask;
 import org.jboss.as.ejb3.component.interceptors.CancellationFlag;
@@ -122,7 +122,7 @@ public class LocalEjbReceiver extends EJBReceiver<Void> implements Service<Local
         context.setParameters(parameters);
         context.setMethod(method);
         context.setTarget(invocation.getInvokedProxy());
-        context.setContextData(new HashMap<String, Object>());
+        context.setContextData(new LazyContextData());
         context.putPrivateData(Component.class, ejbComponent);
         context.putPrivateData(ComponentView.class, view);
 
@@ -0,0 +1,222 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.remote;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.jboss.as.ejb3.deployment.DeploymentModuleIdentifier;
+import org.jboss.as.ejb3.deployment.DeploymentRepository;
+import org.jboss.as.ejb3.deployment.DeploymentRepositoryListener;
+import org.jboss.as.ejb3.deployment.ModuleDeployment;
+import org.jboss.logging.Logger;
+
+/**
+ * Runs remote invocations on the thread pool of the remote service, partitioned by bean, so that a slow bean cannot
+ * take up the whole pool and starve the other beans.
+ * <p/>
+ * At most <code>maxRunning</code> invocations of a bean run at the same time, further invocations wait in the
+ * partition of the bean, and once <code>maxQueued</code> of them are waiting, invocations of the bean are rejected
+ * rather than queued, so that the client finds out at once that the server is overloaded.
+ */
+public final class RemoteInvocationExecutor implements DeploymentRepositoryListener {
+
+    private static final Logger log = Logger.getLogger(RemoteInvocationExecutor.class);
+
+    private final Executor executor;
+    private final int maxRunning;
+    private final int maxQueued;
+
+    private final ConcurrentMap<DeploymentModuleIdentifier, ConcurrentMap<String, Partition>> partitions = new ConcurrentHashMap<DeploymentModuleIdentifier, ConcurrentMap<String, Partition>>();
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    /**
+     * @param executor   the thread pool that runs the invocations
+     * @param maxRunning the maximum number of invocations of a bean that run at the same time
+     * @param maxQueued  the maximum number of invocations of a bean that wait for one of those to complete
+     */
+    public RemoteInvocationExecutor(final Executor executor, final int maxRunning, final int maxQueued) {
+        if (maxRunning < 1) {
+            throw new IllegalArgumentException("maxRunning must be at least 1");
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued is negative");
+        }
+        this.executor = executor;
+        this.maxRunning = maxRunning;
+        this.maxQueued = maxQueued;
+    }
+
+    /**
+     * Runs an invocation of a bean, or queues it if the bean already has as many invocations running as it may.
+     *
+     * @param module   the module of the bean
+     * @param beanName the name of the bean
+     * @param task     the invocation
+     * @return false if the invocation was rejected, because the queue of the bean is full
+     */
+    public boolean execute(final DeploymentModuleIdentifier module, final String beanName, final Runnable task) {
+        return getPartition(module, beanName).execute(task);
+    }
+
+    /**
+     * @return the number of invocations that are running
+     */
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    /**
+     * @return the number of invocations that are waiting for other invocations of their bean to complete
+     */
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    /**
+     * @return the number of invocations that have been rejected
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    private Partition getPartition(final DeploymentModuleIdentifier module, final String beanName) {
+        ConcurrentMap<String, Partition> beans = partitions.get(module);
+        if (beans == null) {
+            beans = new ConcurrentHashMap<String, Partition>();
+            final ConcurrentMap<String, Partition> existing = partitions.putIfAbsent(module, beans);
+            if (existing != null) {
+                beans = existing;
+            }
+        }
+        Partition partition = beans.get(beanName);
+        if (partition == null) {
+            partition = new Partition();
+            final Partition existing = beans.putIfAbsent(beanName, partition);
+            if (existing != null) {
+                partition = existing;
+            }
+        }
+        return partition;
+    }
+
+    @Override
+    public void listenerAdded(final DeploymentRepository repository) {
+    }
+
+    @Override
+    public void deploymentAvailable(final DeploymentModuleIdentifier deployment, final ModuleDeployment moduleDeployment) {
+    }
+
+    @Override
+    public void deploymentRemoved(final DeploymentModuleIdentifier deployment) {
+        // invocations that are still queued keep a reference to their partition, and run as usual
+        partitions.remove(deployment);
+    }
+
+    private final class Partition {
+        private final Queue<Runnable> queue = new ArrayDeque<Runnable>();
+        private int running;
+
+        boolean execute(final Runnable task) {
+            synchronized (this) {
+                if (running >= maxRunning) {
+                    if (queue.size() >= maxQueued) {
+                        rejectedCount.incrementAndGet();
+                        return false;
+                    }
+                    queue.add(task);
+                    queuedCount.incrementAndGet();
+                    return true;
+                }
+                running++;
+            }
+            dispatch(task);
+            return true;
+        }
+
+        private void dispatch(final Runnable task) {
+            try {
+                executor.execute(invocation(task));
+            } catch (RejectedExecutionException e) {
+                // the pool is shutting down
+                synchronized (this) {
+                    running--;
+                }
+                throw e;
+            }
+        }
+
+        private void completed() {
+            for (;;) {
+                final Runnable next;
+                synchronized (this) {
+                    next = queue.poll();
+                    if (next == null) {
+                        running--;
+                        return;
+                    }
+                }
+                queuedCount.decrementAndGet();
+                try {
+                    executor.execute(invocation(next));
+                    return;
+                } catch (RejectedExecutionException e) {
+                    // the pool is shutting down, run the invocation on this thread rather than drop it, so that
+                    // the client still gets its response, and go on with the rest of the queue
+                    runTask(next);
+                }
+            }
+        }
+
+        private Runnable invocation(final Runnable task) {
+            return new Runnable() {
+                public void run() {
+                    runTask(task);
+                    completed();
+                }
+            };
+        }
+
+        private void runTask(final Runnable task) {
+            activeCount.incrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                // keep the pool thread, and the partition, going
+                log.error("Remote invocation failed", t);
+            } finally {
+                activeCount.decrementAndGet();
+            }
+        }
+    }
+}
@@ -45,7 +45,7 @@ import java.io.IOException;
  */
 abstract class AbstractMessageHandler implements MessageHandler {
 
-    protected final String marshallingStrategy;
+    protected final MarshallingContext marshallingContext;
 
     protected static final byte HEADER_NO_SUCH_EJB_FAILURE = 0x0A;
     protected static final byte HEADER_NO_SUCH_EJB_METHOD_FAILURE = 0x0B;
@@ -54,8 +54,8 @@ abstract class AbstractMessageHandler implements MessageHandler {
     private static final byte HEADER_INVOCATION_SUCCESS_MESSAGE = 0x11;
 
 
-    AbstractMessageHandler(final String marshallingStrategy) {
-        this.marshallingStrategy = marshallingStrategy;
+    AbstractMessageHandler(final MarshallingContext marshallingContext) {
+        this.marshallingContext = marshallingContext;
     }
 
     protected RemotingAttachments readAttachments(final DataInput input) throws IOException {
@@ -107,10 +107,12 @@ abstract class AbstractMessageHandler implements MessageHandler {
             // write the attachments
             this.writeAttachments(outputStream, attachments);
             // write out the exception
-            final Marshaller marshaller = MarshallerFactory.createMarshaller(this.marshallingStrategy);
+            final Marshaller marshaller = this.marshallingContext.acquireMarshaller();
             marshaller.start(outputStream);
             marshaller.writeObject(t);
             marshaller.finish();
+            // a marshaller that failed is not put back
+            this.marshallingContext.releaseMarshaller(marshaller);
         } finally {
             outputStream.close();
         }
@@ -38,8 +38,8 @@ abstract class EJBIdentifierBasedMessageHandler extends AbstractMessageHandler {
 
     protected final DeploymentRepository deploymentRepository;
 
-    EJBIdentifierBasedMessageHandler(final DeploymentRepository deploymentRepository, final String marshallingStrategy) {
-        super(marshallingStrategy);
+    EJBIdentifierBasedMessageHandler(final DeploymentRepository deploymentRepository, final MarshallingContext marshallingContext) {
+        super(marshallingContext);
         this.deploymentRepository = deploymentRepository;
     }
 
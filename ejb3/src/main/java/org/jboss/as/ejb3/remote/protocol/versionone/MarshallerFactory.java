@@ -26,6 +26,7 @@ import org.jboss.logging.Logger;
 import org.jboss.marshalling.AbstractClassResolver;
 import org.jboss.marshalling.ByteInput;
 import org.jboss.marshalling.ByteOutput;
+import org.jboss.marshalling.ClassTable;
 import org.jboss.marshalling.Marshalling;
 import org.jboss.marshalling.MarshallingConfiguration;
 import org.jboss.marshalling.Unmarshaller;
@@ -39,6 +40,8 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.ObjectStreamClass;
 import java.io.OutputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * TODO: Use the one from the ejb-client API project once the contract is settled
@@ -49,6 +52,13 @@ class MarshallerFactory {
 
     private static final Logger logger = Logger.getLogger(MarshallerFactory.class);
 
+    private static final ClassTable CLASS_TABLE = new ProtocolV1ClassTable();
+
+    /**
+     * The provided factories, since looking one up goes through a service loader
+     */
+    private static final ConcurrentMap<String, org.jboss.marshalling.MarshallerFactory> factories = new ConcurrentHashMap<String, org.jboss.marshalling.MarshallerFactory>();
+
     public static Marshaller createMarshaller(final String marshallerType) throws IOException {
         if ("river".equals(marshallerType)) {
             return new JBossMarshaller(marshallerType);
@@ -69,28 +79,87 @@ class MarshallerFactory {
         throw new IllegalArgumentException("Unknown marshaller type " + marshallerType);
     }
 
+    private static org.jboss.marshalling.MarshallerFactory getMarshallerFactory(final String marshallerType) {
+        org.jboss.marshalling.MarshallerFactory factory = factories.get(marshallerType);
+        if (factory == null) {
+            factory = Marshalling.getProvidedMarshallerFactory(marshallerType);
+            if (factory == null) {
+                throw new IllegalArgumentException("No marshaller factory available for marshaller type " + marshallerType);
+            }
+            factories.putIfAbsent(marshallerType, factory);
+        }
+        return factory;
+    }
+
+    /**
+     * Adapts a {@link DataOutput} to an {@link OutputStream}, passing on whole arrays rather than single bytes. The
+     * stream is not flushed, it is up to the owner of the output to flush it once the message is complete.
+     */
+    private static OutputStream asOutputStream(final DataOutput output) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                output.write(b & 0xff);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                output.write(b, off, len);
+            }
+        };
+    }
+
+    /**
+     * Adapts a {@link DataInput} to an {@link InputStream}. Reads are passed on whole if the input is a stream itself,
+     * which it is for the messages of a channel. The stream is not closed, it belongs to the owner of the input.
+     */
+    private static InputStream asInputStream(final DataInput input) {
+        if (input instanceof InputStream) {
+            final InputStream inputStream = (InputStream) input;
+            return new InputStream() {
+                @Override
+                public int read() throws IOException {
+                    return inputStream.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return inputStream.read(b, off, len);
+                }
+
+                @Override
+                public int available() throws IOException {
+                    return inputStream.available();
+                }
+            };
+        }
+        return new InputStream() {
+            @Override
+            public int read() throws IOException {
+                try {
+                    final int b = input.readByte();
+                    return b & 0xff;
+                } catch (EOFException eof) {
+                    return -1;
+                }
+            }
+        };
+    }
+
     private static class JBossMarshaller implements Marshaller {
 
         private final org.jboss.marshalling.Marshaller delegate;
 
         JBossMarshaller(final String marshallerType) throws IOException {
             final MarshallingConfiguration marshallingConfiguration = new MarshallingConfiguration();
-            marshallingConfiguration.setClassTable(new ProtocolV1ClassTable());
+            marshallingConfiguration.setClassTable(CLASS_TABLE);
             marshallingConfiguration.setVersion(2);
-            org.jboss.marshalling.MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory(marshallerType);
-            this.delegate = factory.createMarshaller(marshallingConfiguration);
+            this.delegate = getMarshallerFactory(marshallerType).createMarshaller(marshallingConfiguration);
         }
 
         @Override
         public void start(final DataOutput output) throws IOException {
-            final OutputStream outputStream = new OutputStream() {
-                @Override
-                public void write(int b) throws IOException {
-                    final int byteToWrite = b & 0xff;
-                    output.write(byteToWrite);
-                }
-            };
-            final ByteOutput byteOutput = Marshalling.createByteOutput(outputStream);
+            final ByteOutput byteOutput = Marshalling.createByteOutput(asOutputStream(output));
             this.delegate.start(byteOutput);
         }
 
@@ -108,41 +177,35 @@ class MarshallerFactory {
 
     private static class JBossUnMarshaller implements UnMarshaller {
 
-        private final String marshallerType;
+        private final Unmarshaller delegate;
+
+        private ClassLoaderProvider classLoaderProvider;
 
-        private Unmarshaller delegate;
+        private boolean started;
 
         JBossUnMarshaller(final String marshallerType) throws IOException {
-            this.marshallerType = marshallerType;
+            final MarshallingConfiguration marshallingConfiguration = new MarshallingConfiguration();
+            marshallingConfiguration.setVersion(2);
+            marshallingConfiguration.setClassTable(CLASS_TABLE);
+            marshallingConfiguration.setClassResolver(new LazyClassLoaderClassResolver());
+            this.delegate = getMarshallerFactory(marshallerType).createUnmarshaller(marshallingConfiguration);
         }
 
         @Override
         public void start(final DataInput input, final ClassLoaderProvider classLoaderProvider) throws IOException {
-            final MarshallingConfiguration marshallingConfiguration = new MarshallingConfiguration();
-            marshallingConfiguration.setVersion(2);
-            marshallingConfiguration.setClassTable(new ProtocolV1ClassTable());
-            marshallingConfiguration.setClassResolver(new LazyClassLoaderClassResolver(classLoaderProvider));
-            org.jboss.marshalling.MarshallerFactory factory = Marshalling.getProvidedMarshallerFactory(marshallerType);
-            this.delegate = factory.createUnmarshaller(marshallingConfiguration);
-            final InputStream is = new InputStream() {
-                @Override
-                public int read() throws IOException {
-                    try {
-
-                        final int b = input.readByte();
-                        return b & 0xff;
-                    } catch (EOFException eof) {
-                        return -1;
-                    }
-                }
-            };
-            final ByteInput byteInput = Marshalling.createByteInput(is);
+            if (this.started) {
+                // the previous stream was abandoned without being finished, so drop what was cached for it
+                this.delegate.clearClassCache();
+            }
+            this.classLoaderProvider = classLoaderProvider;
+            final ByteInput byteInput = Marshalling.createByteInput(asInputStream(input));
             this.delegate.start(byteInput);
+            this.started = true;
         }
 
         @Override
         public Object readObject() throws IOException, ClassNotFoundException {
-            if (this.delegate == null) {
+            if (!this.started) {
                 throw new IllegalStateException("Unmarshalling hasn't yet been marked for start");
             }
             return this.delegate.readObject();
@@ -150,23 +213,22 @@ class MarshallerFactory {
 
         @Override
         public void finish() throws IOException {
-            if (this.delegate == null) {
+            if (!this.started) {
                 throw new IllegalStateException("Unmarshalling hasn't yet been marked for start");
             }
+            this.started = false;
+            this.classLoaderProvider = null;
             this.delegate.finish();
         }
 
+        /**
+         * Resolves classes through the {@link ClassLoaderProvider} of the stream being unmarshalled
+         */
         private class LazyClassLoaderClassResolver extends AbstractClassResolver {
 
-            private final ClassLoaderProvider classLoaderProvider;
-
-            LazyClassLoaderClassResolver(final ClassLoaderProvider classLoaderProvider) {
-                this.classLoaderProvider = classLoaderProvider;
-            }
-
             @Override
             protected ClassLoader getClassLoader() {
-                return this.classLoaderProvider.provideClassLoader();
+                return JBossUnMarshaller.this.classLoaderProvider.provideClassLoader();
             }
         }
     }
@@ -182,14 +244,7 @@ class MarshallerFactory {
 
         @Override
         public void writeObject(Object object) throws IOException {
-            final OutputStream os = new OutputStream() {
-                @Override
-                public void write(int b) throws IOException {
-                    final int byteToWrite = b & 0xff;
-                    JavaSerialMarshaller.this.dataOutput.write(byteToWrite);
-                }
-            };
-            final ObjectOutputStream objectOutputStream = new ObjectOutputStream(os);
+            final ObjectOutputStream objectOutputStream = new ObjectOutputStream(asOutputStream(this.dataOutput));
             objectOutputStream.writeObject(object);
             objectOutputStream.flush();
         }
@@ -214,24 +269,14 @@ class MarshallerFactory {
 
         @Override
         public Object readObject() throws ClassNotFoundException, IOException {
-            final InputStream is = new InputStream() {
-                @Override
-                public int read() throws IOException {
-                    try {
-                        final int b = JavaSerialUnMarshaller.this.dataInput.readByte();
-                        return b & 0xff;
-                    } catch (EOFException eof) {
-                        return -1;
-                    }
-                }
-            };
-            final ObjectInputStream objectInputStream = new ObjectInputStream(is) {
+            final ClassLoaderProvider classLoaderProvider = this.classLoaderProvider;
+            final ObjectInputStream objectInputStream = new ObjectInputStream(asInputStream(this.dataInput)) {
                 @Override
                 protected Class resolveClass(final ObjectStreamClass desc) throws IOException, ClassNotFoundException {
                     String name = desc.getName();
                     try {
                         // Use Class.forName instead of ClassLoader.loadClass to avoid issues with loading arrays
-                        return Class.forName(name, false, JavaSerialUnMarshaller.this.classLoaderProvider.provideClassLoader());
+                        return Class.forName(name, false, classLoaderProvider.provideClassLoader());
                     } catch (ClassNotFoundException e) {
                         return super.resolveClass(desc);
                     }
@@ -243,6 +288,7 @@ class MarshallerFactory {
         @Override
         public void finish() throws IOException {
             this.dataInput = null;
+            this.classLoaderProvider = null;
         }
     }
 }
@@ -0,0 +1,75 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.remote.protocol.versionone;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The marshallers of a channel, which are reused from one message to the next rather than created for every message.
+ * <p/>
+ * The messages of a channel are received one after the other, so a single {@link UnMarshaller} serves all of them.
+ * Responses are written from the threads that process the invocations, so the {@link Marshaller}s are pooled, and
+ * the pool grows to the number of responses that are written at the same time.
+ */
+final class MarshallingContext {
+
+    private final String marshallingStrategy;
+    private final UnMarshaller unMarshaller;
+    private final Queue<Marshaller> marshallers = new ConcurrentLinkedQueue<Marshaller>();
+
+    MarshallingContext(final String marshallingStrategy) throws IOException {
+        this.marshallingStrategy = marshallingStrategy;
+        this.unMarshaller = MarshallerFactory.createUnMarshaller(marshallingStrategy);
+    }
+
+    String getMarshallingStrategy() {
+        return this.marshallingStrategy;
+    }
+
+    /**
+     * Returns the unmarshaller of the channel. It must only be used by the thread which is receiving a message.
+     *
+     * @return the unmarshaller
+     */
+    UnMarshaller getUnMarshaller() {
+        return this.unMarshaller;
+    }
+
+    /**
+     * Takes a marshaller from the pool, or creates one if they are all in use. A marshaller should be
+     * {@link #releaseMarshaller(Marshaller) released} once it has finished, and dropped if it failed.
+     *
+     * @return the marshaller
+     * @throws IOException if a marshaller cannot be created
+     */
+    Marshaller acquireMarshaller() throws IOException {
+        final Marshaller marshaller = this.marshallers.poll();
+        return marshaller == null ? MarshallerFactory.createMarshaller(this.marshallingStrategy) : marshaller;
+    }
+
+    void releaseMarshaller(final Marshaller marshaller) {
+        this.marshallers.offer(marshaller);
+    }
+}
@@ -24,11 +24,14 @@ package org.jboss.as.ejb3.remote.protocol.versionone;
 
 import org.jboss.as.ee.component.Component;
 import org.jboss.as.ee.component.ComponentView;
+import org.jboss.as.ee.component.LazyContextData;
 import org.jboss.as.ejb3.component.interceptors.AsyncInvocationTask;
 import org.jboss.as.ejb3.component.interceptors.CancellationFlag;
 import org.jboss.as.ejb3.component.session.SessionBeanComponent;
+import org.jboss.as.ejb3.deployment.DeploymentModuleIdentifier;
 import org.jboss.as.ejb3.deployment.DeploymentRepository;
 import org.jboss.as.ejb3.deployment.EjbDeploymentInformation;
+import org.jboss.as.ejb3.remote.RemoteInvocationExecutor;
 import org.jboss.ejb.client.Locator;
 import org.jboss.ejb.client.SessionID;
 import org.jboss.ejb.client.StatefulEJBLocator;
@@ -39,13 +42,12 @@ import org.jboss.remoting3.Channel;
 import org.jboss.remoting3.MessageInputStream;
 import org.xnio.IoUtils;
 
+import javax.ejb.EJBException;
 import java.io.DataInputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.lang.reflect.Method;
-import java.util.HashMap;
 import java.util.Set;
-import java.util.concurrent.ExecutorService;
 
 
 /**
@@ -60,11 +62,11 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
     private static final byte HEADER_METHOD_INVOCATION_RESPONSE = 0x05;
     private static final byte HEADER_ASYNC_METHOD_NOTIFICATION = 0x0E;
 
-    private final ExecutorService executorService;
+    private final RemoteInvocationExecutor invocationExecutor;
 
-    MethodInvocationMessageHandler(final DeploymentRepository deploymentRepository, final String marshallingStrategy, final ExecutorService executorService) {
-        super(deploymentRepository, marshallingStrategy);
-        this.executorService = executorService;
+    MethodInvocationMessageHandler(final DeploymentRepository deploymentRepository, final MarshallingContext marshallingContext, final RemoteInvocationExecutor invocationExecutor) {
+        super(deploymentRepository, marshallingContext);
+        this.invocationExecutor = invocationExecutor;
     }
 
     @Override
@@ -86,8 +88,8 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
         // read the attachments
         final RemotingAttachments attachments = this.readAttachments(input);
 
-        // read the Locator
-        final UnMarshaller unMarshaller = MarshallerFactory.createUnMarshaller(this.marshallingStrategy);
+        // read the Locator, with the unmarshaller of the channel, since its messages are processed one at a time
+        final UnMarshaller unMarshaller = this.marshallingContext.getUnMarshaller();
         // we use a mutable ClassLoaderProvider, so that we can switch to a different (and correct deployment CL)
         // midway through the unmarshalling of the stream
         final ClassLoaderSwitchingClassLoaderProvider classLoaderProvider = new ClassLoaderSwitchingClassLoaderProvider(Thread.currentThread().getContextClassLoader());
@@ -97,57 +99,65 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
         final String moduleName;
         final String distinctName;
         final String beanName;
-        try {
-            appName = (String) unMarshaller.readObject();
-            moduleName = (String) unMarshaller.readObject();
-            distinctName = (String) unMarshaller.readObject();
-            beanName = (String) unMarshaller.readObject();
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException(e);
-        }
-        final EjbDeploymentInformation ejbDeploymentInformation = this.findEJB(appName, moduleName, distinctName, beanName);
-        if (ejbDeploymentInformation == null) {
-            this.writeNoSuchEJBFailureMessage(channel, invocationId, appName, moduleName, distinctName, beanName, null);
-            return;
-        }
-        // now switch the CL to the EJB deployment's CL so that the unmarshaller can use the
-        // correct CL for the rest of the unmarshalling of the stream
-        classLoaderProvider.switchClassLoader(ejbDeploymentInformation.getDeploymentClassLoader());
-        // read the Locator
         final Locator locator;
+        final ComponentView componentView;
+        final Method invokedMethod;
+        final Object[] methodParams;
+        // the unmarshaller outlives this message, so finish it on every path, otherwise an idle channel
+        // keeps holding on to the deployment's classloader and the objects it cached for this stream
         try {
-            locator = (Locator) unMarshaller.readObject();
-        } catch (ClassNotFoundException e) {
-            throw new RuntimeException(e);
-        }
-        final String viewClassName = locator.getInterfaceType().getName();
-        if (!ejbDeploymentInformation.getViewNames().contains(viewClassName)) {
-            this.writeNoSuchEJBFailureMessage(channel, invocationId, appName, moduleName, distinctName, beanName, viewClassName);
-            return;
-        }
-        // TODO: Add a check for remote view
-        final ComponentView componentView = ejbDeploymentInformation.getView(viewClassName);
-        final Method invokedMethod = this.findMethod(componentView, methodName, methodParamTypes);
-        if (invokedMethod == null) {
-            this.writeNoSuchEJBMethodFailureMessage(channel, invocationId, appName, moduleName, distinctName, beanName, viewClassName, methodName, methodParamTypes);
-            return;
-        }
+            try {
+                appName = (String) unMarshaller.readObject();
+                moduleName = (String) unMarshaller.readObject();
+                distinctName = (String) unMarshaller.readObject();
+                beanName = (String) unMarshaller.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+            final EjbDeploymentInformation ejbDeploymentInformation = this.findEJB(appName, moduleName, distinctName, beanName);
+            if (ejbDeploymentInformation == null) {
+                this.writeNoSuchEJBFailureMessage(channel, invocationId, appName, moduleName, distinctName, beanName, null);
+                return;
+            }
+            // now switch the CL to the EJB deployment's CL so that the unmarshaller can use the
+            // correct CL for the rest of the unmarshalling of the stream
+            classLoaderProvider.switchClassLoader(ejbDeploymentInformation.getDeploymentClassLoader());
+            // read the Locator
+            try {
+                locator = (Locator) unMarshaller.readObject();
+            } catch (ClassNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+            final String viewClassName = locator.getInterfaceType().getName();
+            if (!ejbDeploymentInformation.getViewNames().contains(viewClassName)) {
+                this.writeNoSuchEJBFailureMessage(channel, invocationId, appName, moduleName, distinctName, beanName, viewClassName);
+                return;
+            }
+            // TODO: Add a check for remote view
+            componentView = ejbDeploymentInformation.getView(viewClassName);
+            invokedMethod = this.findMethod(componentView, methodName, methodParamTypes);
+            if (invokedMethod == null) {
+                this.writeNoSuchEJBMethodFailureMessage(channel, invocationId, appName, moduleName, distinctName, beanName, viewClassName, methodName, methodParamTypes);
+                return;
+            }
 
-        final Object[] methodParams = new Object[methodParamTypes.length];
-        // un-marshall the method arguments
-        if (methodParamTypes.length > 0) {
-            for (int i = 0; i < methodParamTypes.length; i++) {
-                try {
-                    methodParams[i] = unMarshaller.readObject();
-                } catch (ClassNotFoundException cnfe) {
-                    // TODO: Write out invocation failure to channel outstream
-                    throw new RuntimeException(cnfe);
+            methodParams = new Object[methodParamTypes.length];
+            // un-marshall the method arguments
+            if (methodParamTypes.length > 0) {
+                for (int i = 0; i < methodParamTypes.length; i++) {
+                    try {
+                        methodParams[i] = unMarshaller.readObject();
+                    } catch (ClassNotFoundException cnfe) {
+                        // TODO: Write out invocation failure to channel outstream
+                        throw new RuntimeException(cnfe);
+                    }
                 }
             }
+        } finally {
+            unMarshaller.finish();
         }
-        unMarshaller.finish();
         // invoke the method and write out the response on a separate thread
-        executorService.submit(new Runnable() {
+        final boolean accepted = this.invocationExecutor.execute(new DeploymentModuleIdentifier(appName, moduleName, distinctName), beanName, new Runnable() {
 
             @Override
             public void run() {
@@ -196,15 +206,19 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
                 }
             }
         });
-
-
+        if (!accepted) {
+            // let the client know straight away, rather than keep the invocation waiting behind the others
+            final String failureMessage = "Too many invocations of bean " + beanName + " in app: " + appName + " module: " + moduleName
+                    + " distinct name: " + distinctName + " are waiting to run, invocation of method " + invokedMethod + " rejected";
+            this.writeException(channel, invocationId, new EJBException(failureMessage), attachments);
+        }
     }
 
     private Object invokeMethod(final ComponentView componentView, final Method method, final Object[] args, final Locator ejbLocator, final RemotingAttachments attachments) throws Throwable {
         final InterceptorContext interceptorContext = new InterceptorContext();
         interceptorContext.setParameters(args);
         interceptorContext.setMethod(method);
-        interceptorContext.setContextData(new HashMap<String, Object>());
+        interceptorContext.setContextData(new LazyContextData());
         interceptorContext.putPrivateData(Component.class, componentView.getComponent());
         interceptorContext.putPrivateData(ComponentView.class, componentView);
         if (attachments != null) {
@@ -278,10 +292,12 @@ class MethodInvocationMessageHandler extends EJBIdentifierBasedMessageHandler {
             this.writeAttachments(outputStream, attachments);
 
             // write out the result
-            final Marshaller marshaller = MarshallerFactory.createMarshaller(this.marshallingStrategy);
+            final Marshaller marshaller = this.marshallingContext.acquireMarshaller();
             marshaller.start(outputStream);
             marshaller.writeObject(result);
             marshaller.finish();
+            // a marshaller that failed is not put back
+            this.marshallingContext.releaseMarshaller(marshaller);
         } finally {
             outputStream.close();
         }
@@ -52,8 +52,8 @@ class SessionOpenRequestHandler extends EJBIdentifierBasedMessageHandler {
 
     private final ExecutorService executorService;
 
-    SessionOpenRequestHandler(final DeploymentRepository deploymentRepository, final String marshallingStrategy, final ExecutorService executorService) {
-        super(deploymentRepository, marshallingStrategy);
+    SessionOpenRequestHandler(final DeploymentRepository deploymentRepository, final MarshallingContext marshallingContext, final ExecutorService executorService) {
+        super(deploymentRepository, marshallingContext);
         this.executorService = executorService;
     }
 
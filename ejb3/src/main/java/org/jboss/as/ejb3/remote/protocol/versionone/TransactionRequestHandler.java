@@ -52,8 +52,8 @@ class TransactionRequestHandler extends AbstractMessageHandler {
         ROLLBACK
     }
 
-    TransactionRequestHandler(final EJBRemoteTransactionsRepository transactionsRepository, final ExecutorService executorService, final TransactionRequestType txRequestType, final String marshallingStrategy) {
-        super(marshallingStrategy);
+    TransactionRequestHandler(final EJBRemoteTransactionsRepository transactionsRepository, final ExecutorService executorService, final TransactionRequestType txRequestType, final MarshallingContext marshallingContext) {
+        super(marshallingContext);
         this.executorService = executorService;
         this.transactionsRepository = transactionsRepository;
         this.txRequestType = txRequestType;
@@ -28,6 +28,7 @@ import org.jboss.as.ejb3.deployment.DeploymentRepository;
 import org.jboss.as.ejb3.deployment.DeploymentRepositoryListener;
 import org.jboss.as.ejb3.deployment.ModuleDeployment;
 import org.jboss.as.ejb3.remote.EJBRemoteTransactionsRepository;
+import org.jboss.as.ejb3.remote.RemoteInvocationExecutor;
 import org.jboss.logging.Logger;
 import org.jboss.remoting3.Channel;
 import org.jboss.remoting3.CloseHandler;
@@ -64,13 +65,28 @@ public class VersionOneProtocolChannelReceiver implements Channel.Receiver, Depl
 
     private final ExecutorService executorService;
 
+    /**
+     * The handlers keep no state of their own between messages, so they are created once for the channel, sharing
+     * its marshallers
+     */
+    private final MessageHandler methodInvocationMessageHandler;
+    private final MessageHandler sessionOpenRequestHandler;
+    private final MessageHandler txCommitRequestHandler;
+    private final MessageHandler txRollbackRequestHandler;
+
     public VersionOneProtocolChannelReceiver(final Channel channel, final DeploymentRepository deploymentRepository,
-                                             final EJBRemoteTransactionsRepository transactionsRepository, final String marshallingStrategy, final ExecutorService executorService) {
+                                             final EJBRemoteTransactionsRepository transactionsRepository, final String marshallingStrategy, final ExecutorService executorService,
+                                             final RemoteInvocationExecutor invocationExecutor) throws IOException {
         this.marshallingStrategy = marshallingStrategy;
         this.channel = channel;
         this.executorService = executorService;
         this.deploymentRepository = deploymentRepository;
         this.transactionsRepository = transactionsRepository;
+        final MarshallingContext marshallingContext = new MarshallingContext(marshallingStrategy);
+        this.methodInvocationMessageHandler = new MethodInvocationMessageHandler(deploymentRepository, marshallingContext, invocationExecutor);
+        this.sessionOpenRequestHandler = new SessionOpenRequestHandler(deploymentRepository, marshallingContext, executorService);
+        this.txCommitRequestHandler = new TransactionRequestHandler(transactionsRepository, executorService, TransactionRequestHandler.TransactionRequestType.COMMIT, marshallingContext);
+        this.txRollbackRequestHandler = new TransactionRequestHandler(transactionsRepository, executorService, TransactionRequestHandler.TransactionRequestType.ROLLBACK, marshallingContext);
     }
 
     public void startReceiving() {
@@ -115,16 +131,16 @@ public class VersionOneProtocolChannelReceiver implements Channel.Receiver, Depl
             MessageHandler messageHandler = null;
             switch (header) {
                 case HEADER_INVOCATION_REQUEST:
-                    messageHandler = new MethodInvocationMessageHandler(this.deploymentRepository, this.marshallingStrategy, this.executorService);
+                    messageHandler = this.methodInvocationMessageHandler;
                     break;
                 case HEADER_SESSION_OPEN_REQUEST:
-                    messageHandler = new SessionOpenRequestHandler(this.deploymentRepository, this.marshallingStrategy, this.executorService);
+                    messageHandler = this.sessionOpenRequestHandler;
                     break;
                 case HEADER_TX_COMMIT_REQUEST:
-                    messageHandler = new TransactionRequestHandler(this.transactionsRepository, this.executorService, TransactionRequestHandler.TransactionRequestType.COMMIT, this.marshallingStrategy);
+                    messageHandler = this.txCommitRequestHandler;
                     break;
                 case HEADER_TX_ROLLBACK_REQUEST:
-                    messageHandler = new TransactionRequestHandler(this.transactionsRepository, this.executorService, TransactionRequestHandler.TransactionRequestType.ROLLBACK, this.marshallingStrategy);
+                    messageHandler = this.txRollbackRequestHandler;
                     break;
                 default:
                     logger.warn("Received unsupported message header 0x" + Integer.toHexString(header) + " on channel " + channel);
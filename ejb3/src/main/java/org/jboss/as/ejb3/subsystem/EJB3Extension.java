@@ -95,6 +95,9 @@ public class EJB3Extension implements Extension {
         // subsystem=ejb3/strict-max-bean-instance-pool=*
         subsystemRegistration.registerSubModel(StrictMaxPoolResourceDefinition.INSTANCE);
 
+        // subsystem=ejb3/striped-bean-instance-pool=*
+        subsystemRegistration.registerSubModel(StripedPoolResourceDefinition.INSTANCE);
+
         // subsystem=ejb3/service=timerservice
         subsystemRegistration.registerSubModel(TimerServiceResourceDefinition.INSTANCE);
 
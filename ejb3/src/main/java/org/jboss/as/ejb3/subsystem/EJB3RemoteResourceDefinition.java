@@ -30,6 +30,7 @@ import org.jboss.as.controller.AttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.dmr.ModelType;
@@ -55,12 +56,45 @@ public class EJB3RemoteResourceDefinition extends SimpleResourceDefinition {
                     .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
                     .build();
 
+    public static final SimpleAttributeDefinition MAX_INVOCATIONS_PER_BEAN =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.MAX_INVOCATIONS_PER_BEAN, ModelType.INT, true)
+                    .setXmlName(EJB3SubsystemXMLAttribute.MAX_INVOCATIONS_PER_BEAN.getLocalName())
+                    .setAllowExpression(true)
+                    .setValidator(new IntRangeValidator(1, Integer.MAX_VALUE, true, true))
+                    .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+                    .build();
+
+    public static final SimpleAttributeDefinition MAX_QUEUED_INVOCATIONS_PER_BEAN =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.MAX_QUEUED_INVOCATIONS_PER_BEAN, ModelType.INT, true)
+                    .setXmlName(EJB3SubsystemXMLAttribute.MAX_QUEUED_INVOCATIONS_PER_BEAN.getLocalName())
+                    .setAllowExpression(true)
+                    .setValidator(new IntRangeValidator(0, Integer.MAX_VALUE, true, true))
+                    .setFlags(AttributeAccess.Flag.RESTART_RESOURCE_SERVICES)
+                    .build();
+
+    public static final SimpleAttributeDefinition ACTIVE_INVOCATION_COUNT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.ACTIVE_INVOCATION_COUNT, ModelType.INT, true)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    public static final SimpleAttributeDefinition QUEUED_INVOCATION_COUNT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.QUEUED_INVOCATION_COUNT, ModelType.INT, true)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    public static final SimpleAttributeDefinition REJECTED_INVOCATION_COUNT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.REJECTED_INVOCATION_COUNT, ModelType.LONG, true)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
     private static final Map<String, AttributeDefinition> ATTRIBUTES;
 
     static {
         Map<String, AttributeDefinition> map = new LinkedHashMap<String, AttributeDefinition>();
         map.put(CONNECTOR_REF.getName(), CONNECTOR_REF);
         map.put(THREAD_POOL_NAME.getName(), THREAD_POOL_NAME);
+        map.put(MAX_INVOCATIONS_PER_BEAN.getName(), MAX_INVOCATIONS_PER_BEAN);
+        map.put(MAX_QUEUED_INVOCATIONS_PER_BEAN.getName(), MAX_QUEUED_INVOCATIONS_PER_BEAN);
 
         ATTRIBUTES = Collections.unmodifiableMap(map);
     }
@@ -78,5 +112,8 @@ public class EJB3RemoteResourceDefinition extends SimpleResourceDefinition {
             // TODO: Make this read-write attribute
             resourceRegistration.registerReadOnlyAttribute(attr, null);
         }
+        resourceRegistration.registerMetric(ACTIVE_INVOCATION_COUNT, RemoteInvocationMetricsHandler.INSTANCE);
+        resourceRegistration.registerMetric(QUEUED_INVOCATION_COUNT, RemoteInvocationMetricsHandler.INSTANCE);
+        resourceRegistration.registerMetric(REJECTED_INVOCATION_COUNT, RemoteInvocationMetricsHandler.INSTANCE);
     }
 }
@@ -97,9 +97,13 @@ public class EJB3RemoteServiceAdd extends AbstractBoottimeAddStepHandler {
     ServiceController<EJBRemoteConnectorService> installRuntimeService(final OperationContext context, final ModelNode model, final ServiceVerificationHandler verificationHandler) {
         final String connectorName = model.require(CONNECTOR_REF).asString();
         final String threadPoolName = model.require(THREAD_POOL_NAME).asString();
+        // without limits, the invocations of a bean can take up the whole thread pool and wait in its queue
+        final int maxInvocationsPerBean = EJB3RemoteResourceDefinition.MAX_INVOCATIONS_PER_BEAN.validateResolvedOperation(model).asInt(Integer.MAX_VALUE);
+        final int maxQueuedInvocationsPerBean = EJB3RemoteResourceDefinition.MAX_QUEUED_INVOCATIONS_PER_BEAN.validateResolvedOperation(model).asInt(Integer.MAX_VALUE);
         final ServiceTarget serviceTarget = context.getServiceTarget();
         // TODO: Externalize (expose via management API if needed) the version and the marshalling strategy
-        final EJBRemoteConnectorService service = new EJBRemoteConnectorService((byte) 0x01, new String[]{"river", "java-serial"});
+        final EJBRemoteConnectorService service = new EJBRemoteConnectorService((byte) 0x01, new String[]{"river", "java-serial"},
+                maxInvocationsPerBean, maxQueuedInvocationsPerBean);
         final ServiceBuilder<EJBRemoteConnectorService> target = serviceTarget.addService(EJBRemoteConnectorService.SERVICE_NAME, service)
                 // TODO: inject the right connector
                 //TODO: we should not be piggy backing on management
@@ -118,5 +122,7 @@ public class EJB3RemoteServiceAdd extends AbstractBoottimeAddStepHandler {
     protected void populateModel(ModelNode operation, ModelNode model) throws OperationFailedException {
         model.get(CONNECTOR_REF).set(operation.require(CONNECTOR_REF).asString());
         model.get(THREAD_POOL_NAME).set(operation.require(THREAD_POOL_NAME).asString());
+        EJB3RemoteResourceDefinition.MAX_INVOCATIONS_PER_BEAN.validateAndSet(operation, model);
+        EJB3RemoteResourceDefinition.MAX_QUEUED_INVOCATIONS_PER_BEAN.validateAndSet(operation, model);
     }
 }
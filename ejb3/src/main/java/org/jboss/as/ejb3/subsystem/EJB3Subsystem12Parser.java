@@ -64,6 +64,7 @@ import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.RELATIVE_TO;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.REMOTE;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.SERVICE;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.STRICT_MAX_BEAN_INSTANCE_POOL;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.STRIPED_BEAN_INSTANCE_POOL;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.THREAD_POOL;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.THREAD_POOL_NAME;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.TIMER_SERVICE;
@@ -151,7 +152,7 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
             writer.writeEndElement();
         }
         // write the pools element
-        if (model.hasDefined(EJB3SubsystemModel.STRICT_MAX_BEAN_INSTANCE_POOL)) {
+        if (model.hasDefined(EJB3SubsystemModel.STRICT_MAX_BEAN_INSTANCE_POOL) || model.hasDefined(EJB3SubsystemModel.STRIPED_BEAN_INSTANCE_POOL)) {
             // <pools>
             writer.writeStartElement(EJB3SubsystemXMLElement.POOLS.getLocalName());
             // <bean-instance-pools>
@@ -287,6 +288,8 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
     private void writeRemote(final XMLExtendedStreamWriter writer, final ModelNode model) throws XMLStreamException {
         writer.writeAttribute(EJB3SubsystemXMLAttribute.CONNECTOR_REF.getLocalName(), model.require(EJB3SubsystemModel.CONNECTOR_REF).asString());
         writer.writeAttribute(EJB3SubsystemXMLAttribute.THREAD_POOL_NAME.getLocalName(), model.require(EJB3SubsystemModel.THREAD_POOL_NAME).asString());
+        EJB3RemoteResourceDefinition.MAX_INVOCATIONS_PER_BEAN.marshallAsAttribute(model, writer);
+        EJB3RemoteResourceDefinition.MAX_QUEUED_INVOCATIONS_PER_BEAN.marshallAsAttribute(model, writer);
     }
 
     private void writeAsync(final XMLExtendedStreamWriter writer, final ModelNode model) throws XMLStreamException {
@@ -350,6 +353,8 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
     private void writeStatefulBean(final XMLExtendedStreamWriter writer, final ModelNode statefulBeanModel) throws XMLStreamException {
         final String defaultAccessTimeout = statefulBeanModel.get(DEFAULT_STATEFUL_BEAN_ACCESS_TIMEOUT).asString();
         writer.writeAttribute(EJB3SubsystemXMLAttribute.DEFAULT_ACCESS_TIMEOUT.getLocalName(), defaultAccessTimeout);
+        EJB3SubsystemRootResourceDefinition.STATEFUL_CACHE_MAX_ENTRIES.marshallAsAttribute(statefulBeanModel, writer);
+        EJB3SubsystemRootResourceDefinition.STATEFUL_CACHE_MAX_BYTES.marshallAsAttribute(statefulBeanModel, writer);
     }
 
 
@@ -393,6 +398,18 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
                 writer.writeEndElement();
             }
         }
+        if (beanInstancePoolModelNode.hasDefined(EJB3SubsystemModel.STRIPED_BEAN_INSTANCE_POOL)) {
+            final List<Property> stripedPools = beanInstancePoolModelNode.get(EJB3SubsystemModel.STRIPED_BEAN_INSTANCE_POOL).asPropertyList();
+            for (Property property : stripedPools) {
+                // <striped-pool>
+                writer.writeStartElement(EJB3SubsystemXMLElement.STRIPED_POOL.getLocalName());
+                // contents of striped-pool
+                final ModelNode stripedPoolModelNode = property.getValue();
+                this.writeStripedPoolConfig(writer, stripedPoolModelNode);
+                // </striped-pool>
+                writer.writeEndElement();
+            }
+        }
     }
 
     private void writeStrictMaxPoolConfig(final XMLExtendedStreamWriter writer, final ModelNode strictMaxPoolModelNode) throws XMLStreamException {
@@ -405,6 +422,16 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
         StrictMaxPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.marshallAsAttribute(strictMaxPoolModelNode, writer);
     }
 
+    private void writeStripedPoolConfig(final XMLExtendedStreamWriter writer, final ModelNode stripedPoolModelNode) throws XMLStreamException {
+        // write the "name" attribute of the pool
+        final String poolName = stripedPoolModelNode.get(EJB3SubsystemModel.NAME).asString();
+        writer.writeAttribute(EJB3SubsystemXMLAttribute.NAME.getLocalName(), poolName);
+
+        StripedPoolResourceDefinition.MAX_POOL_SIZE.marshallAsAttribute(stripedPoolModelNode, writer);
+        StripedPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT.marshallAsAttribute(stripedPoolModelNode, writer);
+        StripedPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.marshallAsAttribute(stripedPoolModelNode, writer);
+    }
+
     private void writeTimerService(final XMLExtendedStreamWriter writer, final ModelNode timerServiceModel) throws XMLStreamException {
 
         TimerServiceResourceDefinition.THREAD_POOL_NAME.marshallAsAttribute(timerServiceModel, writer);
@@ -425,6 +452,8 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
         final int count = reader.getAttributeCount();
         String connectorName = null;
         String threadPoolName = null;
+        String maxInvocationsPerBean = null;
+        String maxQueuedInvocationsPerBean = null;
         final EnumSet<EJB3SubsystemXMLAttribute> required = EnumSet.of(EJB3SubsystemXMLAttribute.CONNECTOR_REF, EJB3SubsystemXMLAttribute.THREAD_POOL_NAME);
         for (int i = 0; i < count; i++) {
             requireNoNamespaceAttribute(reader, i);
@@ -438,6 +467,12 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
                 case THREAD_POOL_NAME:
                     threadPoolName = value;
                     break;
+                case MAX_INVOCATIONS_PER_BEAN:
+                    maxInvocationsPerBean = value;
+                    break;
+                case MAX_QUEUED_INVOCATIONS_PER_BEAN:
+                    maxQueuedInvocationsPerBean = value;
+                    break;
                 default:
                     throw unexpectedAttribute(reader, i);
             }
@@ -445,8 +480,15 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
         if (!required.isEmpty()) {
             throw missingRequired(reader, required);
         }
+        final ModelNode operation = EJB3RemoteServiceAdd.create(connectorName, threadPoolName);
+        if (maxInvocationsPerBean != null) {
+            EJB3RemoteResourceDefinition.MAX_INVOCATIONS_PER_BEAN.parseAndSetParameter(maxInvocationsPerBean, operation, reader.getLocation());
+        }
+        if (maxQueuedInvocationsPerBean != null) {
+            EJB3RemoteResourceDefinition.MAX_QUEUED_INVOCATIONS_PER_BEAN.parseAndSetParameter(maxQueuedInvocationsPerBean, operation, reader.getLocation());
+        }
         requireNoContent(reader);
-        operations.add(EJB3RemoteServiceAdd.create(connectorName, threadPoolName));
+        operations.add(operation);
     }
 
     private void parseAsync(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
@@ -556,6 +598,12 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
                     // found the mandatory attribute
                     missingRequiredAttributes.remove(EJB3SubsystemXMLAttribute.DEFAULT_ACCESS_TIMEOUT);
                     break;
+                case CACHE_MAX_ENTRIES:
+                    EJB3SubsystemRootResourceDefinition.STATEFUL_CACHE_MAX_ENTRIES.parseAndSetParameter(value, ejb3SubsystemAddOperation, reader.getLocation());
+                    break;
+                case CACHE_MAX_BYTES:
+                    EJB3SubsystemRootResourceDefinition.STATEFUL_CACHE_MAX_BYTES.parseAndSetParameter(value, ejb3SubsystemAddOperation, reader.getLocation());
+                    break;
                 default:
                     throw unexpectedAttribute(reader, i);
             }
@@ -618,6 +666,10 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
                     this.parseStrictMaxPool(reader, operations);
                     break;
                 }
+                case STRIPED_POOL: {
+                    this.parseStripedPool(reader, operations);
+                    break;
+                }
                 default: {
                     throw unexpectedElement(reader);
                 }
@@ -661,6 +713,42 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
         operations.add(this.createAddStrictMaxBeanInstancePoolOperation(poolName, maxPoolSize, timeout, unit));
     }
 
+    private void parseStripedPool(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
+        final int count = reader.getAttributeCount();
+        String poolName = null;
+        Integer maxPoolSize = null;
+        Long timeout = null;
+        String unit = null;
+        for (int i = 0; i < count; i++) {
+            requireNoNamespaceAttribute(reader, i);
+            final String value = reader.getAttributeValue(i);
+            final EJB3SubsystemXMLAttribute attribute = EJB3SubsystemXMLAttribute.forName(reader.getAttributeLocalName(i));
+            switch (attribute) {
+                case NAME:
+                    poolName = value;
+                    break;
+                case MAX_POOL_SIZE:
+                    maxPoolSize = StripedPoolResourceDefinition.MAX_POOL_SIZE.parse(value, reader.getLocation()).asInt();
+                    break;
+                case INSTANCE_AQUISITION_TIMEOUT:
+                    timeout = StripedPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT.parse(value, reader.getLocation()).asLong();
+                    break;
+                case INSTANCE_AQUISITION_TIMEOUT_UNIT:
+                    unit = StripedPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.parse(value, reader.getLocation()).asString();
+                    break;
+
+                default:
+                    throw unexpectedAttribute(reader, i);
+            }
+        }
+        requireNoContent(reader);
+        if (poolName == null) {
+            throw missingRequired(reader, Collections.singleton(EJB3SubsystemXMLAttribute.NAME.getLocalName()));
+        }
+        // create and add the operation
+        operations.add(this.createAddBeanInstancePoolOperation(STRIPED_BEAN_INSTANCE_POOL, poolName, maxPoolSize, timeout, unit));
+    }
+
     private void parseTimerService(final XMLExtendedStreamReader reader, List<ModelNode> operations) throws XMLStreamException {
 
         final ModelNode address = new ModelNode();
@@ -847,23 +935,27 @@ public class EJB3Subsystem12Parser implements XMLElementReader<List<ModelNode>>,
 
     private ModelNode createAddStrictMaxBeanInstancePoolOperation(final String name, final Integer maxPoolSize, final Long timeout, final String timeoutUnit) {
         // create /subsystem=ejb3/strict-max-bean-instance-pool=name:add(...)
-        final ModelNode addStrictMaxPoolOperation = new ModelNode();
-        addStrictMaxPoolOperation.get(OP).set(ADD);
+        return this.createAddBeanInstancePoolOperation(STRICT_MAX_BEAN_INSTANCE_POOL, name, maxPoolSize, timeout, timeoutUnit);
+    }
+
+    private ModelNode createAddBeanInstancePoolOperation(final String poolType, final String name, final Integer maxPoolSize, final Long timeout, final String timeoutUnit) {
+        final ModelNode addPoolOperation = new ModelNode();
+        addPoolOperation.get(OP).set(ADD);
         // set the address for this operation
-        final PathAddress address = this.getEJB3SubsystemAddress().append(PathElement.pathElement(STRICT_MAX_BEAN_INSTANCE_POOL, name));
-        addStrictMaxPoolOperation.get(OP_ADDR).set(address.toModelNode());
+        final PathAddress address = this.getEJB3SubsystemAddress().append(PathElement.pathElement(poolType, name));
+        addPoolOperation.get(OP_ADDR).set(address.toModelNode());
         // set the params for the operation
         if (maxPoolSize != null) {
-            addStrictMaxPoolOperation.get(MAX_POOL_SIZE).set(maxPoolSize);
+            addPoolOperation.get(MAX_POOL_SIZE).set(maxPoolSize);
         }
         if (timeout != null) {
-            addStrictMaxPoolOperation.get(INSTANCE_ACQUISITION_TIMEOUT).set(timeout);
+            addPoolOperation.get(INSTANCE_ACQUISITION_TIMEOUT).set(timeout);
         }
         if (timeoutUnit != null) {
-            addStrictMaxPoolOperation.get(INSTANCE_ACQUISITION_TIMEOUT_UNIT).set(timeoutUnit);
+            addPoolOperation.get(INSTANCE_ACQUISITION_TIMEOUT_UNIT).set(timeoutUnit);
         }
 
-        return addStrictMaxPoolOperation;
+        return addPoolOperation;
     }
 
     private PathAddress getEJB3SubsystemAddress() {
@@ -28,6 +28,8 @@ import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.DEFAULT_RESOURCE_AD
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.DEFAULT_SINGLETON_BEAN_ACCESS_TIMEOUT;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.DEFAULT_SLSB_INSTANCE_POOL;
 import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.DEFAULT_STATEFUL_BEAN_ACCESS_TIMEOUT;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.STATEFUL_CACHE_MAX_BYTES;
+import static org.jboss.as.ejb3.subsystem.EJB3SubsystemModel.STATEFUL_CACHE_MAX_ENTRIES;
 
 import java.util.List;
 
@@ -131,6 +133,8 @@ class EJB3SubsystemAdd extends AbstractBoottimeAddStepHandler {
         model.get(DEFAULT_RESOURCE_ADAPTER_NAME).set(operation.get(DEFAULT_RESOURCE_ADAPTER_NAME));
         model.get(DEFAULT_SINGLETON_BEAN_ACCESS_TIMEOUT).set(operation.get(DEFAULT_SINGLETON_BEAN_ACCESS_TIMEOUT));
         model.get(DEFAULT_STATEFUL_BEAN_ACCESS_TIMEOUT).set(operation.get(DEFAULT_STATEFUL_BEAN_ACCESS_TIMEOUT));
+        model.get(STATEFUL_CACHE_MAX_ENTRIES).set(operation.get(STATEFUL_CACHE_MAX_ENTRIES));
+        model.get(STATEFUL_CACHE_MAX_BYTES).set(operation.get(STATEFUL_CACHE_MAX_BYTES));
     }
 
     protected void performBoottime(final OperationContext context, ModelNode operation, final ModelNode model, ServiceVerificationHandler verificationHandler, List<ServiceController<?>> newControllers) throws OperationFailedException {
@@ -226,6 +230,9 @@ class EJB3SubsystemAdd extends AbstractBoottimeAddStepHandler {
             DefaultStatefulBeanAccessTimeoutWriteHandler.INSTANCE.updateOrCreateDefaultStatefulBeanAccessTimeoutService(context, model, newControllers);
         }
 
+        // the stateful cache is unbounded unless configured otherwise, but the components always depend on its config
+        StatefulCacheWriteHandler.INSTANCE.updateOrCreateStatefulCacheConfigService(context, model, newControllers);
+
         final ServiceTarget serviceTarget = context.getServiceTarget();
 
         newControllers.add(context.getServiceTarget().addService(DeploymentRepository.SERVICE_NAME, new DeploymentRepository()).install());
@@ -46,8 +46,14 @@ public interface EJB3SubsystemModel {
 
     String MAX_POOL_SIZE = "max-pool-size";
     String STRICT_MAX_BEAN_INSTANCE_POOL = "strict-max-bean-instance-pool";
+    String STRIPED_BEAN_INSTANCE_POOL = "striped-bean-instance-pool";
 
     String MAX_THREADS = "max-threads";
+    String MAX_INVOCATIONS_PER_BEAN = "max-invocations-per-bean";
+    String MAX_QUEUED_INVOCATIONS_PER_BEAN = "max-queued-invocations-per-bean";
+    String ACTIVE_INVOCATION_COUNT = "active-invocation-count";
+    String QUEUED_INVOCATION_COUNT = "queued-invocation-count";
+    String REJECTED_INVOCATION_COUNT = "rejected-invocation-count";
     String KEEPALIVE_TIME = "keepalive-time";
 
     String RELATIVE_TO = "relative-to";
@@ -55,12 +61,18 @@ public interface EJB3SubsystemModel {
 
     String DEFAULT_SINGLETON_BEAN_ACCESS_TIMEOUT = "default-singleton-bean-access-timeout";
     String DEFAULT_STATEFUL_BEAN_ACCESS_TIMEOUT = "default-stateful-bean-access-timeout";
+    String STATEFUL_CACHE_MAX_ENTRIES = "stateful-cache-max-entries";
+    String STATEFUL_CACHE_MAX_BYTES = "stateful-cache-max-bytes";
 
     String REMOTE = "remote";
     String SERVICE = "service";
     String TIMER_SERVICE = "timer-service";
     String THREAD_POOL = "thread-pool";
     String THREAD_POOL_NAME = "thread-pool-name";
+    String PENDING_TIMEOUT_COUNT = "pending-timeout-count";
+    String EXPIRED_TIMEOUT_COUNT = "expired-timeout-count";
+    String AVERAGE_TIMEOUT_LAG = "average-timeout-lag";
+    String MAX_TIMEOUT_LAG = "max-timeout-lag";
     String DEFAULT = "default";
 
     PathElement REMOTE_SERVICE_PATH = PathElement.pathElement(SERVICE, REMOTE);
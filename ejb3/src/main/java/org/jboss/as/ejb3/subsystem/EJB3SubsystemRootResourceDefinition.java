@@ -28,6 +28,7 @@ import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
 import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
+import org.jboss.as.controller.operations.validation.IntRangeValidator;
 import org.jboss.as.controller.operations.validation.LongRangeValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
 import org.jboss.as.controller.registry.ManagementResourceRegistration;
@@ -71,6 +72,22 @@ public class EJB3SubsystemRootResourceDefinition extends SimpleResourceDefinitio
                     .setFlags(AttributeAccess.Flag.RESTART_NONE)
                     .build();
 
+    public static final SimpleAttributeDefinition STATEFUL_CACHE_MAX_ENTRIES =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.STATEFUL_CACHE_MAX_ENTRIES, ModelType.INT, true)
+                    .setXmlName(EJB3SubsystemXMLAttribute.CACHE_MAX_ENTRIES.getLocalName())
+                    .setAllowExpression(true)
+                    .setValidator(new IntRangeValidator(0, Integer.MAX_VALUE, true, true))
+                    .setFlags(AttributeAccess.Flag.RESTART_NONE)
+                    .build();
+
+    public static final SimpleAttributeDefinition STATEFUL_CACHE_MAX_BYTES =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.STATEFUL_CACHE_MAX_BYTES, ModelType.LONG, true)
+                    .setXmlName(EJB3SubsystemXMLAttribute.CACHE_MAX_BYTES.getLocalName())
+                    .setDefaultValue(new ModelNode().set(64L * 1024 * 1024))
+                    .setAllowExpression(true)
+                    .setValidator(new LongRangeValidator(4096, Integer.MAX_VALUE, true, true))
+                    .setFlags(AttributeAccess.Flag.RESTART_NONE)
+                    .build();
 
     private EJB3SubsystemRootResourceDefinition() {
         super(PathElement.pathElement(ModelDescriptionConstants.SUBSYSTEM, EJB3Extension.SUBSYSTEM_NAME),
@@ -86,5 +103,7 @@ public class EJB3SubsystemRootResourceDefinition extends SimpleResourceDefinitio
         resourceRegistration.registerReadWriteAttribute(DEFAULT_RESOURCE_ADAPTER_NAME, null, DefaultResourceAdapterWriteHandler.INSTANCE);
         resourceRegistration.registerReadWriteAttribute(DEFAULT_SINGLETON_BEAN_ACCESS_TIMEOUT, null, DefaultSingletonBeanAccessTimeoutWriteHandler.INSTANCE);
         resourceRegistration.registerReadWriteAttribute(DEFAULT_STATEFUL_BEAN_ACCESS_TIMEOUT, null, DefaultStatefulBeanAccessTimeoutWriteHandler.INSTANCE);
+        resourceRegistration.registerReadWriteAttribute(STATEFUL_CACHE_MAX_ENTRIES, null, StatefulCacheWriteHandler.INSTANCE);
+        resourceRegistration.registerReadWriteAttribute(STATEFUL_CACHE_MAX_BYTES, null, StatefulCacheWriteHandler.INSTANCE);
     }
 }
@@ -30,6 +30,9 @@ import java.util.Map;
 public enum EJB3SubsystemXMLAttribute {
     UNKNOWN(null),
 
+    CACHE_MAX_BYTES("cache-max-bytes"),
+    CACHE_MAX_ENTRIES("cache-max-entries"),
+
     CONNECTOR_REF("connector-ref"),
     CORE_THREADS("core-threads"),
 
@@ -40,7 +43,9 @@ public enum EJB3SubsystemXMLAttribute {
 
     KEEPALIVE_TIME("keepalive-time"),
 
+    MAX_INVOCATIONS_PER_BEAN("max-invocations-per-bean"),
     MAX_POOL_SIZE("max-pool-size"),
+    MAX_QUEUED_INVOCATIONS_PER_BEAN("max-queued-invocations-per-bean"),
     MAX_THREADS("max-threads"),
 
     NAME("name"),
@@ -53,6 +53,7 @@ public enum EJB3SubsystemXMLElement {
     STATEFUL("stateful"),
     STATELESS("stateless"),
     STRICT_MAX_POOL("strict-max-pool"),
+    STRIPED_POOL("striped-pool"),
 
     THREAD_POOL("thread-pool"),
     THREAD_POOLS("thread-pools"),
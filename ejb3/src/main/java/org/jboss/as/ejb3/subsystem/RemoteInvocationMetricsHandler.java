@@ -0,0 +1,63 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.subsystem;
+
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
+import org.jboss.as.ejb3.remote.EJBRemoteConnectorService;
+import org.jboss.as.ejb3.remote.RemoteInvocationExecutor;
+import org.jboss.dmr.ModelNode;
+import org.jboss.msc.service.ServiceController;
+
+/**
+ * Reads the metrics of the executor that runs the invocations received by the EJB remote service.
+ */
+public class RemoteInvocationMetricsHandler extends AbstractRuntimeOnlyHandler {
+
+    public static final RemoteInvocationMetricsHandler INSTANCE = new RemoteInvocationMetricsHandler();
+
+    private RemoteInvocationMetricsHandler() {
+    }
+
+    @Override
+    protected void executeRuntimeStep(final OperationContext context, final ModelNode operation) throws OperationFailedException {
+        final String attributeName = operation.require(ModelDescriptionConstants.NAME).asString();
+        final ServiceController<?> controller = context.getServiceRegistry(false).getService(EJBRemoteConnectorService.SERVICE_NAME);
+        // there is nothing to measure until the remote service is up
+        final RemoteInvocationExecutor executor = controller != null && controller.getState() == ServiceController.State.UP
+                ? ((EJBRemoteConnectorService) controller.getValue()).getInvocationExecutor() : null;
+        final ModelNode result = context.getResult();
+        if (EJB3RemoteResourceDefinition.ACTIVE_INVOCATION_COUNT.getName().equals(attributeName)) {
+            result.set(executor == null ? 0 : executor.getActiveCount());
+        } else if (EJB3RemoteResourceDefinition.QUEUED_INVOCATION_COUNT.getName().equals(attributeName)) {
+            result.set(executor == null ? 0 : executor.getQueuedCount());
+        } else if (EJB3RemoteResourceDefinition.REJECTED_INVOCATION_COUNT.getName().equals(attributeName)) {
+            result.set(executor == null ? 0 : executor.getRejectedCount());
+        } else {
+            throw new OperationFailedException(new ModelNode().set("Unknown metric " + attributeName));
+        }
+        context.completeStep();
+    }
+}
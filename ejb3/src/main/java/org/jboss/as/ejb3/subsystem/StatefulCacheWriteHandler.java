@@ -0,0 +1,94 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.subsystem;
+
+import org.jboss.as.controller.AbstractWriteAttributeHandler;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.ejb3.component.stateful.StatefulCacheConfigService;
+import org.jboss.as.server.ServerEnvironment;
+import org.jboss.as.server.services.path.RelativePathService;
+import org.jboss.dmr.ModelNode;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceRegistry;
+
+import java.util.List;
+
+/**
+ * Handles writes to the stateful cache bounds of the subsystem. Stateful beans that are already deployed keep
+ * the bounds they were deployed with.
+ */
+class StatefulCacheWriteHandler extends AbstractWriteAttributeHandler<Void> {
+
+    static final StatefulCacheWriteHandler INSTANCE = new StatefulCacheWriteHandler();
+
+    /**
+     * The directory, relative to the server temp directory, that passivated stateful beans are written to
+     */
+    private static final String PASSIVATION_STORE_PATH = "ejb3-passivation";
+
+    private StatefulCacheWriteHandler() {
+        super(EJB3SubsystemRootResourceDefinition.STATEFUL_CACHE_MAX_ENTRIES, EJB3SubsystemRootResourceDefinition.STATEFUL_CACHE_MAX_BYTES);
+    }
+
+    @Override
+    protected boolean applyUpdateToRuntime(OperationContext context, ModelNode operation, String attributeName, ModelNode resolvedValue, ModelNode currentValue, HandbackHolder<Void> voidHandbackHolder) throws OperationFailedException {
+        final ModelNode model = context.readResource(PathAddress.EMPTY_ADDRESS).getModel();
+        updateOrCreateStatefulCacheConfigService(context, model, null);
+
+        return false;
+    }
+
+    @Override
+    protected void revertUpdateToRuntime(OperationContext context, ModelNode operation, String attributeName, ModelNode valueToRestore, ModelNode valueToRevert, Void handback) throws OperationFailedException {
+        final ModelNode restored = context.readResource(PathAddress.EMPTY_ADDRESS).getModel().clone();
+        restored.get(attributeName).set(valueToRestore);
+        updateOrCreateStatefulCacheConfigService(context, restored, null);
+    }
+
+    void updateOrCreateStatefulCacheConfigService(final OperationContext context, final ModelNode model, List<ServiceController<?>> newControllers) throws OperationFailedException {
+        final ModelNode maxEntriesNode = EJB3SubsystemRootResourceDefinition.STATEFUL_CACHE_MAX_ENTRIES.validateResolvedOperation(model);
+        final int maxEntries = maxEntriesNode.isDefined() ? maxEntriesNode.asInt() : StatefulCacheConfigService.UNBOUNDED;
+        final long maxBytes = EJB3SubsystemRootResourceDefinition.STATEFUL_CACHE_MAX_BYTES.validateResolvedOperation(model).asLong();
+        final ServiceRegistry registry = context.getServiceRegistry(true);
+        final ServiceController sc = registry.getService(StatefulCacheConfigService.SERVICE_NAME);
+        if (sc != null) {
+            final StatefulCacheConfigService config = StatefulCacheConfigService.class.cast(sc.getValue());
+            config.setMaxEntries(maxEntries);
+            config.setMaxBytes(maxBytes);
+        } else {
+            // create and install the service, along with the path that passivated beans are written to
+            final ServiceController<?> pathService = RelativePathService.addService(StatefulCacheConfigService.PATH_SERVICE_NAME,
+                    PASSIVATION_STORE_PATH, ServerEnvironment.SERVER_TEMP_DIR, context.getServiceTarget());
+            final StatefulCacheConfigService config = new StatefulCacheConfigService(maxEntries, maxBytes);
+            final ServiceController<?> newService = context.getServiceTarget().addService(StatefulCacheConfigService.SERVICE_NAME, config)
+                    .addDependency(StatefulCacheConfigService.PATH_SERVICE_NAME, String.class, config.getPathInjector())
+                    .install();
+            if (newControllers != null) {
+                newControllers.add(pathService);
+                newControllers.add(newService);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.subsystem;
+
+import org.jboss.as.controller.AbstractAddStepHandler;
+import org.jboss.as.controller.AttributeDefinition;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.ServiceVerificationHandler;
+import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
+import org.jboss.as.ejb3.component.pool.PoolConfig;
+import org.jboss.as.ejb3.component.pool.PoolConfigService;
+import org.jboss.as.ejb3.component.pool.StripedPoolConfig;
+import org.jboss.dmr.ModelNode;
+import org.jboss.msc.service.ServiceBuilder;
+import org.jboss.msc.service.ServiceController;
+import org.jboss.msc.service.ServiceName;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds a striped-pool to the EJB3 subsystem's bean-instance-pools. The {#performRuntime runtime action}
+ * will create and install a {@link PoolConfigService}
+ */
+public class StripedPoolAdd extends AbstractAddStepHandler {
+
+    public static final StripedPoolAdd INSTANCE = new StripedPoolAdd();
+
+    /**
+     * Populate the <code>stripedPoolModel</code> from the <code>operation</code>
+     *
+     * @param operation        the operation
+     * @param stripedPoolModel striped-pool ModelNode
+     * @throws OperationFailedException
+     */
+    @Override
+    protected void populateModel(ModelNode operation, ModelNode stripedPoolModel) throws OperationFailedException {
+
+        final String poolName = PathAddress.pathAddress(operation.get(ModelDescriptionConstants.ADDRESS)).getLastElement().getValue();
+        stripedPoolModel.get(EJB3SubsystemModel.NAME).set(poolName);
+
+        for (AttributeDefinition attr : StripedPoolResourceDefinition.ATTRIBUTES.values()) {
+            attr.validateAndSet(operation, stripedPoolModel);
+        }
+    }
+
+    @Override
+    protected void performRuntime(OperationContext context, ModelNode operation, ModelNode stripedPoolModel,
+                                  ServiceVerificationHandler verificationHandler,
+                                  List<ServiceController<?>> serviceControllers) throws OperationFailedException {
+
+        final ServiceController serviceController = installRuntimeService(context, stripedPoolModel, verificationHandler);
+        // add this to the service controllers
+        serviceControllers.add(serviceController);
+
+    }
+
+    ServiceController installRuntimeService(OperationContext context, ModelNode stripedPoolModel,
+                                  ServiceVerificationHandler verificationHandler) throws OperationFailedException {
+
+        final String poolName = stripedPoolModel.require(EJB3SubsystemModel.NAME).asString();
+        final int maxPoolSize = StripedPoolResourceDefinition.MAX_POOL_SIZE.validateResolvedOperation(stripedPoolModel).asInt();
+        final long timeout = StripedPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT.validateResolvedOperation(stripedPoolModel).asLong();
+        final String unit = StripedPoolResourceDefinition.INSTANCE_ACQUISITION_TIMEOUT_UNIT.validateResolvedOperation(stripedPoolModel).asString();
+        // create the pool config
+        final PoolConfig stripedPoolConfig = new StripedPoolConfig(poolName, maxPoolSize, timeout, TimeUnit.valueOf(unit));
+        // create and install the service
+        final PoolConfigService poolConfigService = new PoolConfigService(stripedPoolConfig);
+        final ServiceName serviceName = PoolConfigService.EJB_POOL_CONFIG_BASE_SERVICE_NAME.append(poolName);
+        ServiceBuilder<PoolConfig> svcBuilder = context.getServiceTarget().addService(serviceName, poolConfigService);
+        if (verificationHandler != null) {
+            svcBuilder.addListener(verificationHandler);
+        }
+        return svcBuilder.install();
+    }
+
+}
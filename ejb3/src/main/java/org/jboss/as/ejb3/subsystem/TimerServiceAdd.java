@@ -23,6 +23,7 @@
 package org.jboss.as.ejb3.subsystem;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import org.jboss.as.controller.AbstractBoottimeAddStepHandler;
 import org.jboss.as.controller.AttributeDefinition;
@@ -33,6 +34,7 @@ import org.jboss.as.ejb3.deployment.processors.AroundTimeoutAnnotationParsingPro
 import org.jboss.as.ejb3.deployment.processors.TimerServiceDeploymentProcessor;
 import org.jboss.as.ejb3.deployment.processors.annotation.TimerServiceAnnotationProcessor;
 import org.jboss.as.ejb3.deployment.processors.merging.TimerMethodMergingProcessor;
+import org.jboss.as.ejb3.timerservice.TimeoutSchedulerService;
 import org.jboss.as.ejb3.timerservice.TimerServiceFactoryService;
 import org.jboss.as.server.AbstractDeploymentChainStep;
 import org.jboss.as.server.DeploymentProcessorTarget;
@@ -97,11 +99,18 @@ public class TimerServiceAdd extends AbstractBoottimeAddStepHandler {
                                 context.getServiceTarget(), newControllers, verificationHandler);
                     }
 
+                    //the scheduler that runs the timeouts of all deployments on the timer service thread pool
+                    final TimeoutSchedulerService schedulerService = new TimeoutSchedulerService();
+                    newControllers.add(context.getServiceTarget().addService(TimeoutSchedulerService.SERVICE_NAME, schedulerService)
+                            .addDependency(threadPoolServiceName, ExecutorService.class, schedulerService.getExecutorService())
+                            .addListener(verificationHandler)
+                            .install());
+
                     //we only add the timer service DUP's when the timer service in enabled in XML
                     processorTarget.addDeploymentProcessor(Phase.PARSE, Phase.PARSE_TIMEOUT_ANNOTATION, new TimerServiceAnnotationProcessor());
                     processorTarget.addDeploymentProcessor(Phase.PARSE, Phase.PARSE_AROUNDTIMEOUT_ANNOTATION, new AroundTimeoutAnnotationParsingProcessor());
                     processorTarget.addDeploymentProcessor(Phase.POST_MODULE, Phase.POST_MODULE_EJB_TIMER_METADATA_MERGE, new TimerMethodMergingProcessor());
-                    processorTarget.addDeploymentProcessor(Phase.POST_MODULE, Phase.POST_MODULE_EJB_TIMER_SERVICE, new TimerServiceDeploymentProcessor(threadPoolServiceName));
+                    processorTarget.addDeploymentProcessor(Phase.POST_MODULE, Phase.POST_MODULE_EJB_TIMER_SERVICE, new TimerServiceDeploymentProcessor());
                 }
             }
         }, OperationContext.Stage.RUNTIME);
@@ -0,0 +1,64 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.subsystem;
+
+import org.jboss.as.controller.AbstractRuntimeOnlyHandler;
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.descriptions.ModelDescriptionConstants;
+import org.jboss.as.ejb3.timerservice.TimeoutSchedulerService;
+import org.jboss.as.ejb3.timerservice.spi.TimeoutScheduler;
+import org.jboss.dmr.ModelNode;
+import org.jboss.msc.service.ServiceController;
+
+/**
+ * Reads the metrics of the scheduler that runs the timeouts of the EJB timer service.
+ */
+public class TimerServiceMetricsHandler extends AbstractRuntimeOnlyHandler {
+
+    public static final TimerServiceMetricsHandler INSTANCE = new TimerServiceMetricsHandler();
+
+    private TimerServiceMetricsHandler() {
+    }
+
+    @Override
+    protected void executeRuntimeStep(final OperationContext context, final ModelNode operation) throws OperationFailedException {
+        final String attributeName = operation.require(ModelDescriptionConstants.NAME).asString();
+        final ServiceController<?> controller = context.getServiceRegistry(false).getService(TimeoutSchedulerService.SERVICE_NAME);
+        // the metrics are always registered, but the scheduler only exists once a data store path is configured and
+        // the service is up, report zeros until then
+        final TimeoutScheduler scheduler = controller != null && controller.getState() == ServiceController.State.UP ? (TimeoutScheduler) controller.getValue() : null;
+        final ModelNode result = context.getResult();
+        if (TimerServiceResourceDefinition.PENDING_TIMEOUT_COUNT.getName().equals(attributeName)) {
+            result.set(scheduler == null ? 0 : scheduler.getPendingCount());
+        } else if (TimerServiceResourceDefinition.EXPIRED_TIMEOUT_COUNT.getName().equals(attributeName)) {
+            result.set(scheduler == null ? 0 : scheduler.getExpiredCount());
+        } else if (TimerServiceResourceDefinition.AVERAGE_TIMEOUT_LAG.getName().equals(attributeName)) {
+            result.set(scheduler == null ? 0 : scheduler.getAverageLag());
+        } else if (TimerServiceResourceDefinition.MAX_TIMEOUT_LAG.getName().equals(attributeName)) {
+            result.set(scheduler == null ? 0 : scheduler.getMaxLag());
+        } else {
+            throw new OperationFailedException(new ModelNode().set("Unknown metric " + attributeName));
+        }
+        context.completeStep();
+    }
+}
@@ -32,6 +32,7 @@ import org.jboss.as.controller.ResourceDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinition;
 import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
 import org.jboss.as.controller.SimpleResourceDefinition;
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.operations.validation.ModelTypeValidator;
 import org.jboss.as.controller.operations.validation.StringLengthValidator;
 import org.jboss.as.controller.registry.AttributeAccess;
@@ -65,6 +66,27 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
                     .setFlags(AttributeAccess.Flag.RESTART_ALL_SERVICES)
                     .build();
 
+    public static final SimpleAttributeDefinition PENDING_TIMEOUT_COUNT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.PENDING_TIMEOUT_COUNT, ModelType.INT, true)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    public static final SimpleAttributeDefinition EXPIRED_TIMEOUT_COUNT =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.EXPIRED_TIMEOUT_COUNT, ModelType.LONG, true)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    public static final SimpleAttributeDefinition AVERAGE_TIMEOUT_LAG =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.AVERAGE_TIMEOUT_LAG, ModelType.LONG, true)
+                    .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
+
+    public static final SimpleAttributeDefinition MAX_TIMEOUT_LAG =
+            new SimpleAttributeDefinitionBuilder(EJB3SubsystemModel.MAX_TIMEOUT_LAG, ModelType.LONG, true)
+                    .setMeasurementUnit(MeasurementUnit.MILLISECONDS)
+                    .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME)
+                    .build();
 
     public static final Map<String, AttributeDefinition> ATTRIBUTES ;
 
@@ -89,5 +111,9 @@ public class TimerServiceResourceDefinition extends SimpleResourceDefinition {
         for (AttributeDefinition attr : ATTRIBUTES.values()) {
             resourceRegistration.registerReadWriteAttribute(attr, null, new ReloadRequiredWriteAttributeHandler(attr));
         }
+        resourceRegistration.registerMetric(PENDING_TIMEOUT_COUNT, TimerServiceMetricsHandler.INSTANCE);
+        resourceRegistration.registerMetric(EXPIRED_TIMEOUT_COUNT, TimerServiceMetricsHandler.INSTANCE);
+        resourceRegistration.registerMetric(AVERAGE_TIMEOUT_LAG, TimerServiceMetricsHandler.INSTANCE);
+        resourceRegistration.registerMetric(MAX_TIMEOUT_LAG, TimerServiceMetricsHandler.INSTANCE);
     }
 }
@@ -23,7 +23,12 @@
 package org.jboss.as.ejb3.subsystem.deployment;
 
 import org.jboss.as.controller.ResourceDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinition;
+import org.jboss.as.controller.SimpleAttributeDefinitionBuilder;
+import org.jboss.as.controller.registry.AttributeAccess;
+import org.jboss.as.controller.registry.ManagementResourceRegistration;
 import org.jboss.as.ejb3.component.stateful.StatefulSessionComponent;
+import org.jboss.dmr.ModelType;
 
 /**
  * {@link ResourceDefinition} for a {@link StatefulSessionComponent}.
@@ -32,9 +37,33 @@ import org.jboss.as.ejb3.component.stateful.StatefulSessionComponent;
  */
 public class StatefulSessionBeanDeploymentResourceDefinition extends AbstractEJBComponentResourceDefinition {
 
+    // Cache attributes
+
+    public static final SimpleAttributeDefinition CACHE_SIZE = new SimpleAttributeDefinitionBuilder("cache-size", ModelType.INT, false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME).build();
+    public static final SimpleAttributeDefinition PASSIVATED_COUNT = new SimpleAttributeDefinitionBuilder("passivated-count", ModelType.INT, false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME).build();
+    public static final SimpleAttributeDefinition CACHE_HIT_COUNT = new SimpleAttributeDefinitionBuilder("cache-hit-count", ModelType.LONG, false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME).build();
+    public static final SimpleAttributeDefinition CACHE_MISS_COUNT = new SimpleAttributeDefinitionBuilder("cache-miss-count", ModelType.LONG, false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME).build();
+    public static final SimpleAttributeDefinition PASSIVATION_COUNT = new SimpleAttributeDefinitionBuilder("passivation-count", ModelType.LONG, false)
+            .setFlags(AttributeAccess.Flag.STORAGE_RUNTIME).build();
+
     public static final StatefulSessionBeanDeploymentResourceDefinition INSTANCE = new StatefulSessionBeanDeploymentResourceDefinition();
 
     private StatefulSessionBeanDeploymentResourceDefinition() {
         super(EJBComponentType.STATEFUL);
     }
+
+    @Override
+    public void registerAttributes(ManagementResourceRegistration resourceRegistration) {
+        super.registerAttributes(resourceRegistration);
+        final StatefulSessionBeanRuntimeHandler handler = StatefulSessionBeanRuntimeHandler.INSTANCE;
+        resourceRegistration.registerReadOnlyAttribute(CACHE_SIZE, handler);
+        resourceRegistration.registerReadOnlyAttribute(PASSIVATED_COUNT, handler);
+        resourceRegistration.registerReadOnlyAttribute(CACHE_HIT_COUNT, handler);
+        resourceRegistration.registerReadOnlyAttribute(CACHE_MISS_COUNT, handler);
+        resourceRegistration.registerReadOnlyAttribute(PASSIVATION_COUNT, handler);
+    }
 }
@@ -22,9 +22,17 @@
 
 package org.jboss.as.ejb3.subsystem.deployment;
 
+import static org.jboss.as.ejb3.subsystem.deployment.StatefulSessionBeanDeploymentResourceDefinition.CACHE_HIT_COUNT;
+import static org.jboss.as.ejb3.subsystem.deployment.StatefulSessionBeanDeploymentResourceDefinition.CACHE_MISS_COUNT;
+import static org.jboss.as.ejb3.subsystem.deployment.StatefulSessionBeanDeploymentResourceDefinition.CACHE_SIZE;
+import static org.jboss.as.ejb3.subsystem.deployment.StatefulSessionBeanDeploymentResourceDefinition.PASSIVATED_COUNT;
+import static org.jboss.as.ejb3.subsystem.deployment.StatefulSessionBeanDeploymentResourceDefinition.PASSIVATION_COUNT;
+
 import org.jboss.as.controller.OperationContext;
 import org.jboss.as.controller.PathAddress;
 import org.jboss.as.ee.component.ComponentConfiguration;
+import org.jboss.as.ejb3.cache.Cache;
+import org.jboss.as.ejb3.cache.passivating.PassivatingCache;
 import org.jboss.as.ejb3.component.stateful.StatefulSessionComponent;
 
 /**
@@ -42,7 +50,21 @@ public class StatefulSessionBeanRuntimeHandler extends AbstractEJBComponentRunti
 
     @Override
     protected void executeReadAttribute(String attributeName, OperationContext context, StatefulSessionComponent component, ComponentConfiguration config, PathAddress address) {
-        super.executeReadAttribute(attributeName, context, component, config, address);
-        //TODO expose the cache
+        final Cache<?> cache = component.getCache();
+        // an unbounded cache never passivates, so there is nothing to count
+        final PassivatingCache<?> passivatingCache = cache instanceof PassivatingCache ? (PassivatingCache<?>) cache : null;
+        if (CACHE_SIZE.getName().equals(attributeName)) {
+            context.getResult().set(passivatingCache == null ? 0 : passivatingCache.getCacheSize());
+        } else if (PASSIVATED_COUNT.getName().equals(attributeName)) {
+            context.getResult().set(passivatingCache == null ? 0 : passivatingCache.getPassivatedCount());
+        } else if (CACHE_HIT_COUNT.getName().equals(attributeName)) {
+            context.getResult().set(passivatingCache == null ? 0 : passivatingCache.getHitCount());
+        } else if (CACHE_MISS_COUNT.getName().equals(attributeName)) {
+            context.getResult().set(passivatingCache == null ? 0 : passivatingCache.getMissCount());
+        } else if (PASSIVATION_COUNT.getName().equals(attributeName)) {
+            context.getResult().set(passivatingCache == null ? 0 : passivatingCache.getPassivationCount());
+        } else {
+            super.executeReadAttribute(attributeName, context, component, config, address);
+        }
     }
 }
@@ -22,13 +22,13 @@
 package org.jboss.as.ejb3.timerservice;
 
 import java.io.File;
-import java.util.concurrent.ExecutorService;
 
 import javax.transaction.TransactionManager;
 import javax.transaction.TransactionSynchronizationRegistry;
 
 import org.jboss.as.ejb3.timerservice.mk2.TimerServiceFactoryImpl;
-import org.jboss.as.ejb3.timerservice.mk2.persistence.filestore.FileTimerPersistence;
+import org.jboss.as.ejb3.timerservice.mk2.persistence.filestore.JournalTimerPersistence;
+import org.jboss.as.ejb3.timerservice.spi.TimeoutScheduler;
 import org.jboss.as.ejb3.timerservice.spi.TimerServiceFactory;
 import org.jboss.modules.Module;
 import org.jboss.msc.service.Service;
@@ -50,10 +50,10 @@ public class TimerServiceFactoryService implements Service<TimerServiceFactory>
 
     public static final ServiceName PATH_SERVICE_NAME = ServiceName.JBOSS.append("as", "ejb", "timerServiceFactory", "dataStorePath");
 
-    private final InjectedValue<ExecutorService> executorService = new InjectedValue<ExecutorService>();
+    private final InjectedValue<TimeoutScheduler> timeoutScheduler = new InjectedValue<TimeoutScheduler>();
 
     private volatile TimerServiceFactory timerServiceFactory;
-    private volatile FileTimerPersistence timerPersistence;
+    private volatile JournalTimerPersistence timerPersistence;
 
     private final InjectedValue<TransactionManager> transactionManagerInjectedValue = new InjectedValue<TransactionManager>();
     private final InjectedValue<TransactionSynchronizationRegistry> transactionSynchronizationRegistryInjectedValue = new InjectedValue<TransactionSynchronizationRegistry>();
@@ -73,15 +73,15 @@ public class TimerServiceFactoryService implements Service<TimerServiceFactory>
         //only start the persistence service if it has been configured
         final String path = this.path.getOptionalValue();
         if (path != null) {
-            timerPersistence = new FileTimerPersistence(transactionManagerInjectedValue.getValue(), transactionSynchronizationRegistryInjectedValue.getValue(), new File(path + File.separatorChar + name), true, module.getModuleLoader());
+            timerPersistence = new JournalTimerPersistence(transactionManagerInjectedValue.getValue(), transactionSynchronizationRegistryInjectedValue.getValue(), new File(path + File.separatorChar + name), true, module.getModuleLoader());
             timerPersistence.start();
         }
-        timerServiceFactory = new TimerServiceFactoryImpl(timerPersistence, transactionManagerInjectedValue.getValue(), executorService.getValue());
+        timerServiceFactory = new TimerServiceFactoryImpl(timerPersistence, transactionManagerInjectedValue.getValue(), timeoutScheduler.getValue());
     }
 
     @Override
     public void stop(final StopContext context) {
-        if (path == null) {
+        if (timerPersistence != null) {
             timerPersistence.stop();
             timerPersistence = null;
         }
@@ -109,7 +109,7 @@ public class TimerServiceFactoryService implements Service<TimerServiceFactory>
         return path;
     }
 
-    public InjectedValue<ExecutorService> getExecutorService() {
-        return executorService;
+    public InjectedValue<TimeoutScheduler> getTimeoutScheduler() {
+        return timeoutScheduler;
     }
 }
@@ -0,0 +1,228 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.mk2;
+
+import org.jboss.as.ejb3.timerservice.spi.TimeoutScheduler;
+import org.jboss.as.ejb3.util.TimingWheel;
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link TimeoutScheduler} backed by a {@link TimingWheel}.
+ * <p/>
+ * Scheduling and cancelling a timeout are constant time operations, however many timers are active, unlike
+ * {@link java.util.Timer} whose queue is a binary heap guarded by a single lock. The wheel thread only hands
+ * due tasks to the executor, so timeouts fire at most one tick late unless the executor itself is saturated,
+ * which shows up as lag.
+ */
+public class HashedWheelTimeoutScheduler implements TimeoutScheduler {
+
+    private static final Logger logger = Logger.getLogger(HashedWheelTimeoutScheduler.class);
+
+    /**
+     * With these settings the wheel covers a little over ten years before a timeout has to be parked
+     */
+    private static final long TICK_MILLIS = 5;
+    private static final int WHEEL_SIZE = 512;
+    private static final int LEVELS = 4;
+
+    private final TimingWheel wheel;
+    private final Executor executor;
+
+    private final AtomicLong expiredCount = new AtomicLong();
+    private final AtomicLong totalLag = new AtomicLong();
+    private final AtomicLong maxLag = new AtomicLong();
+
+    /**
+     * @param name     the name of the wheel thread
+     * @param executor the executor the tasks are run on
+     */
+    public HashedWheelTimeoutScheduler(final String name, final Executor executor) {
+        this(name, executor, TICK_MILLIS, WHEEL_SIZE, LEVELS);
+    }
+
+    HashedWheelTimeoutScheduler(final String name, final Executor executor, final long tickMillis, final int wheelSize, final int levels) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        this.executor = executor;
+        this.wheel = new TimingWheel(name, tickMillis, TimeUnit.MILLISECONDS, wheelSize, levels);
+    }
+
+    public void start() {
+        wheel.start();
+    }
+
+    /**
+     * Stops the scheduler, discarding all tasks that have not yet fallen due.
+     */
+    public void stop() {
+        wheel.stop();
+    }
+
+    @Override
+    public ScheduledTimeout schedule(final Runnable task, final long fireTime) {
+        final SingleTimeout timeout = new SingleTimeout(task, fireTime);
+        timeout.timeout = wheel.schedule(timeout, delay(fireTime), TimeUnit.MILLISECONDS);
+        return timeout;
+    }
+
+    @Override
+    public ScheduledTimeout scheduleAtFixedRate(final Runnable task, final long firstFireTime, final long interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive, was " + interval);
+        }
+        final FixedRateTimeout timeout = new FixedRateTimeout(task, firstFireTime, interval);
+        synchronized (timeout) {
+            timeout.timeout = wheel.schedule(timeout, delay(firstFireTime), TimeUnit.MILLISECONDS);
+        }
+        return timeout;
+    }
+
+    @Override
+    public int getPendingCount() {
+        return wheel.getPendingCount();
+    }
+
+    @Override
+    public long getExpiredCount() {
+        return expiredCount.get();
+    }
+
+    @Override
+    public long getAverageLag() {
+        final long count = expiredCount.get();
+        return count == 0 ? 0 : totalLag.get() / count;
+    }
+
+    @Override
+    public long getMaxLag() {
+        return maxLag.get();
+    }
+
+    private static long delay(final long fireTime) {
+        return Math.max(0, fireTime - System.currentTimeMillis());
+    }
+
+    /**
+     * Hands a task that has fallen due to the executor. Called on the wheel thread.
+     */
+    private void dispatch(final Runnable task, final long fireTime) {
+        try {
+            executor.execute(new Dispatch(task, fireTime));
+        } catch (RejectedExecutionException e) {
+            logger.error("Could not run timeout task " + task + " which fell due at " + fireTime, e);
+        }
+    }
+
+    private void recordLag(final long fireTime) {
+        final long lag = Math.max(0, System.currentTimeMillis() - fireTime);
+        expiredCount.incrementAndGet();
+        totalLag.addAndGet(lag);
+        long max = maxLag.get();
+        while (lag > max && !maxLag.compareAndSet(max, lag)) {
+            max = maxLag.get();
+        }
+    }
+
+    private final class Dispatch implements Runnable {
+        private final Runnable task;
+        private final long fireTime;
+
+        Dispatch(final Runnable task, final long fireTime) {
+            this.task = task;
+            this.fireTime = fireTime;
+        }
+
+        @Override
+        public void run() {
+            recordLag(fireTime);
+            task.run();
+        }
+    }
+
+    private final class SingleTimeout implements ScheduledTimeout, Runnable {
+        private final Runnable task;
+        private final long fireTime;
+        private volatile TimingWheel.Timeout timeout;
+
+        SingleTimeout(final Runnable task, final long fireTime) {
+            this.task = task;
+            this.fireTime = fireTime;
+        }
+
+        @Override
+        public void run() {
+            dispatch(task, fireTime);
+        }
+
+        @Override
+        public boolean cancel() {
+            return timeout.cancel();
+        }
+    }
+
+    /**
+     * Reschedules itself on the wheel every time it falls due, before handing the task to the executor.
+     */
+    private final class FixedRateTimeout implements ScheduledTimeout, Runnable {
+        private final Runnable task;
+        private final long interval;
+        // guarded by this
+        private long fireTime;
+        private TimingWheel.Timeout timeout;
+        private boolean cancelled;
+
+        FixedRateTimeout(final Runnable task, final long firstFireTime, final long interval) {
+            this.task = task;
+            this.fireTime = firstFireTime;
+            this.interval = interval;
+        }
+
+        @Override
+        public void run() {
+            final long due;
+            synchronized (this) {
+                if (cancelled) {
+                    return;
+                }
+                due = fireTime;
+                fireTime += interval;
+                timeout = wheel.schedule(this, delay(fireTime), TimeUnit.MILLISECONDS);
+            }
+            dispatch(task, due);
+        }
+
+        @Override
+        public synchronized boolean cancel() {
+            if (cancelled) {
+                return false;
+            }
+            cancelled = true;
+            return timeout.cancel();
+        }
+    }
+}
@@ -26,13 +26,12 @@ import org.jboss.as.ejb3.timerservice.mk2.persistence.TimerPersistence;
 import org.jboss.as.ejb3.timerservice.spi.ScheduleTimer;
 import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
 import org.jboss.as.ejb3.timerservice.spi.TimerServiceFactory;
+import org.jboss.as.ejb3.timerservice.spi.TimeoutScheduler;
 import org.jboss.logging.Logger;
 
 import javax.ejb.TimerService;
 import javax.transaction.TransactionManager;
 import java.util.List;
-import java.util.Timer;
-import java.util.concurrent.ExecutorService;
 
 /**
  * Implementation of {@link TimerServiceFactory}, responsible for
@@ -59,20 +58,14 @@ public class TimerServiceFactoryImpl implements TimerServiceFactory {
     private final TransactionManager transactionManager;
 
     /**
-     * Exceutor service for creating the scheduled timer tasks
+     * The scheduler that runs the timer tasks, shared by all timer services
      */
-    private final ExecutorService executor;
+    private final TimeoutScheduler scheduler;
 
-    /**
-     * The timer to use
-     */
-    private final Timer timer;
-
-    public TimerServiceFactoryImpl(final TimerPersistence timerPersistence, final TransactionManager transactionManager, final ExecutorService executor) {
+    public TimerServiceFactoryImpl(final TimerPersistence timerPersistence, final TransactionManager transactionManager, final TimeoutScheduler scheduler) {
         this.timerPersistence = timerPersistence;
         this.transactionManager = transactionManager;
-        this.executor = executor;
-        this.timer = new Timer("EJB Timer Thread", true);
+        this.scheduler = scheduler;
     }
 
     /**
@@ -84,7 +77,7 @@ public class TimerServiceFactoryImpl implements TimerServiceFactory {
      */
     public TimerService createTimerService(TimedObjectInvoker invoker, final EJBComponent component) {
         // create the timer service
-        TimerServiceImpl timerService = new TimerServiceImpl(timer, invoker, timerPersistence, transactionManager, executor, component);
+        TimerServiceImpl timerService = new TimerServiceImpl(scheduler, invoker, timerPersistence, transactionManager, component);
 
         String timedObjectId = invoker.getTimedObjectId();
         // EJBTHREE-2209 I'm not too happy with this "fix". Ideally,
@@ -33,6 +33,8 @@ import org.jboss.as.ejb3.timerservice.mk2.persistence.TimerPersistence;
 import org.jboss.as.ejb3.timerservice.mk2.task.TimerTask;
 import org.jboss.as.ejb3.timerservice.spi.ScheduleTimer;
 import org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker;
+import org.jboss.as.ejb3.timerservice.spi.TimeoutScheduler;
+import org.jboss.as.ejb3.timerservice.spi.TimeoutScheduler.ScheduledTimeout;
 import org.jboss.invocation.InterceptorContext;
 import org.jboss.logging.Logger;
 
@@ -65,7 +67,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
 
 
 /**
@@ -97,14 +98,9 @@ public class TimerServiceImpl implements TimerService {
     private final TransactionManager transactionManager;
 
     /**
-     * For running timeout tasks
+     * Schedules the timeout tasks and runs them once they fall due
      */
-    private final ExecutorService executorService;
-
-    /**
-     * The timer
-     */
-    private final java.util.Timer timer;
+    private final TimeoutScheduler scheduler;
 
     /**
      * All non-persistent timers which were created by this {@link TimerService}
@@ -114,9 +110,9 @@ public class TimerServiceImpl implements TimerService {
     private final Map<TimerHandle, TimerImpl> persistentWaitingOnTxCompletionTimers = new ConcurrentHashMap<TimerHandle, TimerImpl>();
 
     /**
-     * Holds the {@link java.util.concurrent.Future} of each of the timer tasks that have been scheduled
+     * Holds the {@link ScheduledTimeout} of each of the timer tasks that have been scheduled
      */
-    private final Map<TimerHandle, java.util.TimerTask> scheduledTimerFutures = new ConcurrentHashMap<TimerHandle, java.util.TimerTask>();
+    private final Map<TimerHandle, ScheduledTimeout> scheduledTimerFutures = new ConcurrentHashMap<TimerHandle, ScheduledTimeout>();
 
     private final EJBComponent component;
 
@@ -124,16 +120,15 @@ public class TimerServiceImpl implements TimerService {
     /**
      * Creates a {@link TimerServiceImpl}
      *
-     *
+     * @param scheduler          The {@link TimeoutScheduler} responsible for running the timeout tasks when they fall due
      * @param invoker            The {@link org.jboss.as.ejb3.timerservice.spi.TimedObjectInvoker} responsible for invoking the timeout method
      * @param timerPersistence   The persistent timer store
      * @param transactionManager Transaction manager responsible for managing the transactional timer service
-     * @param executor           Executor service responsible for creating scheduled timer tasks
      * @param component
      * @throws IllegalArgumentException If either of the passed param is null
      */
-    public TimerServiceImpl(final java.util.Timer timer, TimedObjectInvoker invoker, final TimerPersistence timerPersistence, TransactionManager transactionManager,
-                            ExecutorService executor, final EJBComponent component) {
+    public TimerServiceImpl(final TimeoutScheduler scheduler, TimedObjectInvoker invoker, final TimerPersistence timerPersistence, TransactionManager transactionManager,
+                            final EJBComponent component) {
         this.component = component;
         if (invoker == null) {
             throw new IllegalArgumentException("Invoker cannot be null");
@@ -141,15 +136,14 @@ public class TimerServiceImpl implements TimerService {
         if (transactionManager == null) {
             throw new IllegalArgumentException("Transaction manager cannot be null");
         }
-        if (executor == null) {
-            throw new IllegalArgumentException("Executor cannot be null");
+        if (scheduler == null) {
+            throw new IllegalArgumentException("Scheduler cannot be null");
         }
 
         this.invoker = invoker;
         this.timerPersistence = timerPersistence;
         this.transactionManager = transactionManager;
-        this.executorService = executor;
-        this.timer = timer;
+        this.scheduler = scheduler;
     }
 
     /**
@@ -735,41 +729,34 @@ public class TimerServiceImpl implements TimerService {
         }
         // create the timer task
         final Runnable timerTask = timer.getTimerTask();
-        // find out how long is it away from now
-        long delay = nextExpiration.getTime() - System.currentTimeMillis();
-        // if in past, then trigger immediately
-        if (delay < 0) {
-            delay = 0;
-        }
+        // if in past, then the scheduler triggers it immediately
+        final long fireTime = nextExpiration.getTime();
         long intervalDuration = timer.getInterval();
+        final ScheduledTimeout timeout;
         if (intervalDuration > 0) {
-            logger.debug("Scheduling timer " + timer + " at fixed rate, starting at " + delay
-                    + " milli seconds from now with repeated interval=" + intervalDuration);
+            logger.debug("Scheduling timer " + timer + " at fixed rate, starting at " + nextExpiration
+                    + " with repeated interval=" + intervalDuration);
             // schedule the task
-            final Task task = new Task(timerTask);
-            this.timer.scheduleAtFixedRate(task, delay, intervalDuration);
-            // maintain it in timerservice for future use (like cancellation)
-            this.scheduledTimerFutures.put(timer.getTimerHandle(), task);
+            timeout = this.scheduler.scheduleAtFixedRate(timerTask, fireTime, intervalDuration);
         } else {
-            logger.debug("Scheduling a single action timer " + timer + " starting at " + delay + " milli seconds from now");
+            logger.debug("Scheduling a single action timer " + timer + " starting at " + nextExpiration);
             // schedule the task
-            this.timer.schedule(new Task(timerTask), delay);
-            // maintain it in timerservice for future use (like cancellation)
-            final Task task = new Task(timerTask);
-            this.scheduledTimerFutures.put(timer.getTimerHandle(), task);
+            timeout = this.scheduler.schedule(timerTask, fireTime);
         }
+        // maintain it in timerservice for future use (like cancellation)
+        this.scheduledTimerFutures.put(timer.getTimerHandle(), timeout);
     }
 
     /**
-     * Cancels any scheduled {@link java.util.concurrent.Future} corresponding to the passed <code>timer</code>
+     * Cancels any {@link ScheduledTimeout} corresponding to the passed <code>timer</code>
      *
      * @param timer
      */
     protected void cancelTimeout(TimerImpl timer) {
         TimerHandle handle = timer.getTimerHandle();
-        java.util.TimerTask timerTask = this.scheduledTimerFutures.get(handle);
-        if (timerTask != null) {
-            timerTask.cancel();
+        ScheduledTimeout timeout = this.scheduledTimerFutures.remove(handle);
+        if (timeout != null) {
+            timeout.cancel();
         }
 
     }
@@ -1036,18 +1023,4 @@ public class TimerServiceImpl implements TimerService {
 
     }
 
-    private class Task extends java.util.TimerTask {
-
-        private final Runnable delegate;
-
-        public Task(final Runnable delegate) {
-            this.delegate = delegate;
-        }
-
-        @Override
-        public void run() {
-            executorService.submit(delegate);
-        }
-    }
-
 }
@@ -0,0 +1,435 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.mk2.persistence.filestore;
+
+import org.jboss.as.ejb3.timerservice.mk2.persistence.TimerEntity;
+import org.jboss.as.ejb3.timerservice.mk2.persistence.TimerPersistence;
+import org.jboss.logging.Logger;
+import org.jboss.marshalling.InputStreamByteInput;
+import org.jboss.marshalling.Marshaller;
+import org.jboss.marshalling.MarshallerFactory;
+import org.jboss.marshalling.MarshallingConfiguration;
+import org.jboss.marshalling.ModularClassResolver;
+import org.jboss.marshalling.OutputStreamByteOutput;
+import org.jboss.marshalling.Unmarshaller;
+import org.jboss.marshalling.river.RiverMarshallerFactory;
+import org.jboss.modules.ModuleLoader;
+
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.SystemException;
+import javax.transaction.TransactionManager;
+import javax.transaction.TransactionSynchronizationRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Persistent timer store backed by a {@link TimerJournal}.
+ * <p/>
+ * Every change to a timer is appended to the journal, so persisting a timer is a sequential write whose fsync is
+ * shared with all other timers changed at the same time, and restoring the timers is a single sequential read of
+ * the journal when the store is started. The journal is compacted to the live timers as it grows.
+ * <p/>
+ * Timers left behind by {@link FileTimerPersistence}, which wrote a file per timer, are moved into the journal the
+ * first time the store is started.
+ */
+public class JournalTimerPersistence implements TimerPersistence {
+
+    private static final Logger logger = Logger.getLogger(JournalTimerPersistence.class);
+
+    private static final long SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final byte PERSIST = 1;
+    private static final byte REMOVE = 2;
+
+    private final TransactionManager transactionManager;
+    private final TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+    private final File baseDir;
+    private final boolean createIfNotExists;
+    private final long segmentSize;
+    private final MarshallerFactory factory;
+    private final MarshallingConfiguration configuration;
+
+    /**
+     * map of timed object id : timer id : timer
+     */
+    private final ConcurrentMap<String, Map<String, TimerEntity>> timers = new ConcurrentHashMap<String, Map<String, TimerEntity>>();
+    private final ConcurrentMap<String, Lock> locks = new ConcurrentHashMap<String, Lock>();
+
+    private volatile TimerJournal journal;
+
+    public JournalTimerPersistence(final TransactionManager transactionManager, final TransactionSynchronizationRegistry transactionSynchronizationRegistry, final File baseDir, final boolean createIfNotExists, final ModuleLoader moduleLoader) {
+        this(transactionManager, transactionSynchronizationRegistry, baseDir, createIfNotExists, SEGMENT_SIZE, createConfiguration(moduleLoader));
+    }
+
+    JournalTimerPersistence(final TransactionManager transactionManager, final TransactionSynchronizationRegistry transactionSynchronizationRegistry, final File baseDir, final boolean createIfNotExists, final long segmentSize, final MarshallingConfiguration configuration) {
+        this.transactionManager = transactionManager;
+        this.transactionSynchronizationRegistry = transactionSynchronizationRegistry;
+        this.baseDir = baseDir;
+        this.createIfNotExists = createIfNotExists;
+        this.segmentSize = segmentSize;
+        this.factory = new RiverMarshallerFactory();
+        this.configuration = configuration;
+    }
+
+    private static MarshallingConfiguration createConfiguration(final ModuleLoader moduleLoader) {
+        final MarshallingConfiguration configuration = new MarshallingConfiguration();
+        configuration.setClassResolver(ModularClassResolver.getInstance(moduleLoader));
+        return configuration;
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!baseDir.exists()) {
+            if (createIfNotExists) {
+                if (!baseDir.mkdirs()) {
+                    throw new RuntimeException("Could not create timer file store directory " + baseDir);
+                }
+            } else {
+                throw new RuntimeException("Timer file store directory " + baseDir + " does not exist");
+            }
+        }
+        if (!baseDir.isDirectory()) {
+            throw new RuntimeException("Timer file store directory " + baseDir + " is not a directory");
+        }
+        final TimerJournal journal = new TimerJournal(baseDir, segmentSize, new TimerJournal.SnapshotSource() {
+            @Override
+            public void snapshot(final TimerJournal.RecordSink sink) throws IOException {
+                for (Map.Entry<String, Map<String, TimerEntity>> entry : timers.entrySet()) {
+                    // take a copy under the lock, writing the records must not hold up the timers
+                    final List<TimerEntity> entities;
+                    final Lock lock = getLock(entry.getKey());
+                    lock.lock();
+                    try {
+                        entities = new ArrayList<TimerEntity>(entry.getValue().values());
+                    } finally {
+                        lock.unlock();
+                    }
+                    for (TimerEntity entity : entities) {
+                        sink.write(persistRecord(entity));
+                    }
+                }
+            }
+        });
+        try {
+            journal.open(new TimerJournal.RecordHandler() {
+                @Override
+                public void handle(final byte[] record) {
+                    replay(record);
+                }
+            });
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open timer journal in " + baseDir, e);
+        }
+        this.journal = journal;
+        importTimerFiles();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+        timers.clear();
+    }
+
+    @Override
+    public void persistTimer(final TimerEntity timerEntity) {
+        final Lock lock = getLock(timerEntity.getTimedObjectId());
+        try {
+            final int status = transactionManager.getStatus();
+            if (status == Status.STATUS_NO_TRANSACTION ||
+                    status == Status.STATUS_UNKNOWN) {
+                final TimerJournal.Batch batch;
+                lock.lock();
+                try {
+                    batch = put(timerEntity);
+                } finally {
+                    lock.unlock();
+                }
+                await(batch);
+            } else {
+                transactionSynchronizationRegistry.registerInterposedSynchronization(new PersistTransactionSynchronization(timerEntity, lock));
+            }
+        } catch (SystemException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public TimerEntity loadTimer(final String id, final String timedObjectId) {
+        final Lock lock = getLock(timedObjectId);
+        lock.lock();
+        try {
+            return getTimers(timedObjectId).get(id);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void removeTimer(final TimerEntity timerEntity) {
+        final Lock lock = getLock(timerEntity.getTimedObjectId());
+        final TimerJournal.Batch batch;
+        lock.lock();
+        try {
+            //remove is not a transactional operation, as it only happens once the timer has expired
+            if (getTimers(timerEntity.getTimedObjectId()).remove(timerEntity.getId()) == null) {
+                return;
+            }
+            batch = journal().append(removeRecord(timerEntity.getTimedObjectId(), timerEntity.getId()));
+        } finally {
+            lock.unlock();
+        }
+        await(batch);
+    }
+
+    @Override
+    public List<TimerEntity> loadActiveTimers(final String timedObjectId) {
+        final Lock lock = getLock(timedObjectId);
+        lock.lock();
+        try {
+            return new ArrayList<TimerEntity>(getTimers(timedObjectId).values());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Lock getLock(final String timedObjectId) {
+        Lock lock = locks.get(timedObjectId);
+        if (lock == null) {
+            final Lock addedLock = new ReentrantLock();
+            lock = locks.putIfAbsent(timedObjectId, addedLock);
+            if (lock == null) {
+                lock = addedLock;
+            }
+        }
+        return lock;
+    }
+
+    private Map<String, TimerEntity> getTimers(final String timedObjectId) {
+        Map<String, TimerEntity> map = timers.get(timedObjectId);
+        if (map == null) {
+            map = new HashMap<String, TimerEntity>();
+            final Map<String, TimerEntity> existing = timers.putIfAbsent(timedObjectId, map);
+            if (existing != null) {
+                map = existing;
+            }
+        }
+        return map;
+    }
+
+    private TimerJournal journal() {
+        final TimerJournal journal = this.journal;
+        if (journal == null) {
+            throw new IllegalStateException("Timer store in " + baseDir + " is not started");
+        }
+        return journal;
+    }
+
+    /**
+     * Updates the timer and appends it to the journal. Must be called under the lock of the timed object, so the
+     * records of a timer are appended in the same order as the changes are made.
+     */
+    private TimerJournal.Batch put(final TimerEntity timerEntity) {
+        final byte[] record = persistRecord(timerEntity);
+        getTimers(timerEntity.getTimedObjectId()).put(timerEntity.getId(), timerEntity);
+        return journal().append(record);
+    }
+
+    private static void await(final TimerJournal.Batch batch) {
+        try {
+            batch.await();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private byte[] persistRecord(final TimerEntity entity) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            bytes.write(PERSIST);
+            final Marshaller marshaller = factory.createMarshaller(configuration);
+            marshaller.start(new OutputStreamByteOutput(bytes));
+            marshaller.writeObject(entity);
+            marshaller.finish();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static byte[] removeRecord(final String timedObjectId, final String id) {
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream out = new DataOutputStream(bytes);
+            out.writeByte(REMOVE);
+            out.writeUTF(timedObjectId);
+            out.writeUTF(id);
+            out.close();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void replay(final byte[] record) {
+        try {
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            final byte type = in.readByte();
+            if (type == PERSIST) {
+                final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+                unmarshaller.start(new InputStreamByteInput(in));
+                final TimerEntity entity = unmarshaller.readObject(TimerEntity.class);
+                unmarshaller.finish();
+                getTimers(entity.getTimedObjectId()).put(entity.getId(), entity);
+            } else if (type == REMOVE) {
+                final String timedObjectId = in.readUTF();
+                getTimers(timedObjectId).remove(in.readUTF());
+            } else {
+                logger.error("Unknown timer journal record type " + type + " in " + baseDir);
+            }
+        } catch (Exception e) {
+            logger.error("Could not restore timer from journal in " + baseDir, e);
+        }
+    }
+
+    /**
+     * Moves the timers written by {@link FileTimerPersistence}, a directory per timed object containing a file per
+     * timer, into the journal. Only the files whose timers made it into the journal are removed, a file that could
+     * not be imported is kept together with its directory so it is tried again on the next start.
+     */
+    private void importTimerFiles() {
+        final File[] directories = baseDir.listFiles();
+        if (directories == null) {
+            return;
+        }
+        for (File directory : directories) {
+            if (!directory.isDirectory()) {
+                continue;
+            }
+            final File[] files = directory.listFiles();
+            final List<TimerJournal.Batch> batches = new ArrayList<TimerJournal.Batch>();
+            final List<File> imported = new ArrayList<File>();
+            for (File file : files == null ? new File[0] : files) {
+                try {
+                    final TimerEntity entity = readTimerFile(file);
+                    final Lock lock = getLock(entity.getTimedObjectId());
+                    lock.lock();
+                    try {
+                        // if the journal already knows the timer, the file was left behind by an earlier import
+                        if (!getTimers(entity.getTimedObjectId()).containsKey(entity.getId())) {
+                            batches.add(put(entity));
+                        }
+                    } finally {
+                        lock.unlock();
+                    }
+                    imported.add(file);
+                } catch (Exception e) {
+                    logger.error("Could not restore timer from " + file, e);
+                }
+            }
+            try {
+                for (TimerJournal.Batch batch : batches) {
+                    batch.await();
+                }
+            } catch (IOException e) {
+                logger.error("Could not move the timers in " + directory + " into the timer journal", e);
+                continue;
+            }
+            // the imported timers are safely in the journal now
+            for (File file : imported) {
+                if (!file.delete()) {
+                    logger.error("Could not remove timer file " + file);
+                }
+            }
+            if (files != null && imported.size() < files.length) {
+                logger.error("Not all timers in " + directory + " could be moved into the timer journal, keeping the remaining files");
+            } else if (!directory.delete()) {
+                logger.error("Could not remove timer directory " + directory);
+            }
+        }
+    }
+
+    private TimerEntity readTimerFile(final File file) throws IOException, ClassNotFoundException {
+        final FileInputStream in = new FileInputStream(file);
+        try {
+            final Unmarshaller unmarshaller = factory.createUnmarshaller(configuration);
+            unmarshaller.start(new InputStreamByteInput(in));
+            final TimerEntity entity = unmarshaller.readObject(TimerEntity.class);
+            unmarshaller.finish();
+            return entity;
+        } finally {
+            try {
+                in.close();
+            } catch (IOException e) {
+                logger.error("error closing file ", e);
+            }
+        }
+    }
+
+    private final class PersistTransactionSynchronization implements Synchronization {
+
+        private final TimerEntity timer;
+        private final Lock lock;
+
+        public PersistTransactionSynchronization(final TimerEntity timer, final Lock lock) {
+            this.timer = timer;
+            this.lock = lock;
+        }
+
+        @Override
+        public void beforeCompletion() {
+
+        }
+
+        @Override
+        public void afterCompletion(final int status) {
+            if (status != Status.STATUS_COMMITTED) {
+                return;
+            }
+            final TimerJournal.Batch batch;
+            lock.lock();
+            try {
+                batch = put(timer);
+            } finally {
+                lock.unlock();
+            }
+            // the transactions completing at the same time share a single sync of the journal
+            await(batch);
+        }
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.mk2.persistence.filestore;
+
+import org.jboss.logging.Logger;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * A segmented, append only log of records.
+ * <p/>
+ * Records are handed to a single writer thread, which writes everything that has queued up since its last write
+ * in one go and then syncs the segment once for all of them, so concurrent appends share the cost of an fsync.
+ * Each record is framed by its length and a checksum, so a record torn by a crash is detected on replay and the
+ * rest of its segment is ignored.
+ * <p/>
+ * Once a segment is full the writer starts a new one. When the log has grown to more than twice the size it had
+ * after its last compaction, the writer asks the {@link SnapshotSource} for the live records, writes them to a
+ * fresh segment and deletes all older segments.
+ */
+final class TimerJournal {
+
+    private static final Logger logger = Logger.getLogger(TimerJournal.class);
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    /**
+     * Records larger than this are taken to be corrupt length fields
+     */
+    private static final int MAX_RECORD_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * Receives the records of the log when it is replayed.
+     */
+    interface RecordHandler {
+        void handle(byte[] record);
+    }
+
+    /**
+     * Writes the records that make up the current state, from which the log is compacted.
+     */
+    interface SnapshotSource {
+        void snapshot(RecordSink sink) throws IOException;
+    }
+
+    interface RecordSink {
+        void write(byte[] record) throws IOException;
+    }
+
+    /**
+     * The records that are written and synced together. Appenders wait on the batch their record is part of.
+     */
+    static final class Batch {
+        private final List<byte[]> records = new ArrayList<byte[]>();
+        private boolean done;
+        private IOException failure;
+
+        private synchronized void complete(final IOException failure) {
+            this.failure = failure;
+            this.done = true;
+            notifyAll();
+        }
+
+        /**
+         * Waits until the batch has been synced to disk.
+         *
+         * @throws IOException if the batch could not be written
+         */
+        synchronized void await() throws IOException {
+            boolean interrupted = false;
+            try {
+                while (!done) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            } finally {
+                if (interrupted) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    private final File directory;
+    private final long segmentSize;
+    private final SnapshotSource snapshotSource;
+
+    private final Object lock = new Object();
+    // guarded by lock
+    private Batch current = new Batch();
+    private boolean running;
+
+    // only touched by the writer thread once the journal is open
+    private final List<File> segments = new ArrayList<File>();
+    private long nextSegment;
+    private FileOutputStream out;
+    private FileChannel channel;
+    private long logSize;
+    private long compactedSize;
+    private final CRC32 crc = new CRC32();
+
+    private Thread writer;
+
+    /**
+     * @param directory      the directory the segments are kept in
+     * @param segmentSize    the size at which a segment is closed and a new one started
+     * @param snapshotSource the source of the records the log is compacted to
+     */
+    TimerJournal(final File directory, final long segmentSize, final SnapshotSource snapshotSource) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.snapshotSource = snapshotSource;
+    }
+
+    /**
+     * Replays the existing segments, in the order they were written, and opens a new segment for appending.
+     *
+     * @param handler the handler for the replayed records
+     * @throws IOException if the log cannot be read or the new segment cannot be created
+     */
+    void open(final RecordHandler handler) throws IOException {
+        final File[] files = directory.listFiles();
+        final List<Long> numbers = new ArrayList<Long>();
+        if (files != null) {
+            for (File file : files) {
+                final long number = segmentNumber(file);
+                if (number >= 0) {
+                    numbers.add(number);
+                }
+            }
+        }
+        final Long[] sorted = numbers.toArray(new Long[numbers.size()]);
+        Arrays.sort(sorted);
+        for (Long number : sorted) {
+            final File segment = segmentFile(number);
+            replay(segment, handler);
+            segments.add(segment);
+            logSize += segment.length();
+            nextSegment = number + 1;
+        }
+        compactedSize = logSize;
+        openSegment();
+        synchronized (lock) {
+            running = true;
+        }
+        writer = new Thread(new Writer(), "EJB timer journal " + directory.getName());
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Writes out all appended records and closes the log.
+     */
+    void close() {
+        synchronized (lock) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            lock.notifyAll();
+        }
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        writer = null;
+        closeSegment();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Appends a record. The record is durable once the returned batch has been {@link Batch#await() awaited}.
+     *
+     * @param record the record
+     * @return the batch the record is written in
+     */
+    Batch append(final byte[] record) {
+        synchronized (lock) {
+            if (!running) {
+                throw new IllegalStateException("Timer journal in " + directory + " is closed");
+            }
+            current.records.add(record);
+            lock.notifyAll();
+            return current;
+        }
+    }
+
+    private void replay(final File segment, final RecordHandler handler) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(segment)));
+        try {
+            while (true) {
+                final int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+                final byte[] record;
+                try {
+                    final long checksum = in.readInt() & 0xFFFFFFFFL;
+                    if (length < 0 || length > MAX_RECORD_SIZE) {
+                        throw new IOException("Invalid record length " + length);
+                    }
+                    record = new byte[length];
+                    in.readFully(record);
+                    crc.reset();
+                    crc.update(record, 0, length);
+                    if (crc.getValue() != checksum) {
+                        throw new IOException("Checksum mismatch");
+                    }
+                } catch (IOException e) {
+                    // most likely a record that was torn by a crash, nothing after it in this segment can be trusted
+                    logger.warn("Ignoring the rest of timer journal segment " + segment + ": " + e);
+                    return;
+                }
+                handler.handle(record);
+            }
+        } finally {
+            try {
+                in.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    private void write(final byte[] record) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(8 + record.length);
+        crc.reset();
+        crc.update(record, 0, record.length);
+        buffer.putInt(record.length);
+        buffer.putInt((int) crc.getValue());
+        buffer.put(record);
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        logSize += 8 + record.length;
+    }
+
+    private void openSegment() throws IOException {
+        final File segment = segmentFile(nextSegment++);
+        out = new FileOutputStream(segment);
+        channel = out.getChannel();
+        segments.add(segment);
+    }
+
+    private void closeSegment() {
+        if (out != null) {
+            try {
+                out.close();
+            } catch (IOException e) {
+                logger.error("Could not close timer journal segment in " + directory, e);
+            }
+            out = null;
+            channel = null;
+        }
+    }
+
+    /**
+     * Starts a new segment once the current one is full, and compacts the log once it has doubled in size.
+     */
+    private void maybeRoll() throws IOException {
+        if (channel == null || channel.position() < segmentSize) {
+            return;
+        }
+        channel.force(false);
+        closeSegment();
+        openSegment();
+        if (logSize > 2 * Math.max(compactedSize, segmentSize)) {
+            compact();
+        }
+    }
+
+    private void compact() throws IOException {
+        final long start = System.currentTimeMillis();
+        final File snapshot = segments.get(segments.size() - 1);
+        snapshotSource.snapshot(new RecordSink() {
+            @Override
+            public void write(final byte[] record) throws IOException {
+                TimerJournal.this.write(record);
+            }
+        });
+        channel.force(false);
+        // the snapshot segment was empty when the snapshot started
+        compactedSize = channel.position();
+        logSize = compactedSize;
+        // the snapshot is durable, so everything before it can go
+        while (segments.get(0) != snapshot) {
+            final File segment = segments.remove(0);
+            if (!segment.delete()) {
+                logger.error("Could not delete compacted timer journal segment " + segment);
+            }
+        }
+        logger.debugf("Compacted timer journal in %s to %d bytes in %d ms", directory, compactedSize, System.currentTimeMillis() - start);
+    }
+
+    private File segmentFile(final long number) {
+        return new File(directory, SEGMENT_PREFIX + number + SEGMENT_SUFFIX);
+    }
+
+    private static long segmentNumber(final File file) {
+        final String name = file.getName();
+        if (!file.isFile() || !name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private final class Writer implements Runnable {
+        @Override
+        public void run() {
+            while (true) {
+                final Batch batch;
+                synchronized (lock) {
+                    while (running && current.records.isEmpty()) {
+                        try {
+                            lock.wait();
+                        } catch (InterruptedException ignore) {
+                        }
+                    }
+                    if (current.records.isEmpty()) {
+                        // closed, and everything has been written
+                        return;
+                    }
+                    batch = current;
+                    current = new Batch();
+                }
+                IOException failure = null;
+                try {
+                    if (channel == null) {
+                        // a previous roll over failed to open the next segment
+                        openSegment();
+                    }
+                    for (byte[] record : batch.records) {
+                        write(record);
+                    }
+                    channel.force(false);
+                } catch (IOException e) {
+                    logger.error("Could not write to timer journal in " + directory, e);
+                    failure = e;
+                }
+                batch.complete(failure);
+                try {
+                    maybeRoll();
+                } catch (IOException e) {
+                    logger.error("Could not roll over timer journal in " + directory, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.spi;
+
+/**
+ * Schedules the timeouts of EJB timers.
+ * <p/>
+ * Tasks are not run on the thread that keeps track of time, but are handed to an executor once they fall due,
+ * so a slow timeout method can not delay the expiry of other timers.
+ */
+public interface TimeoutScheduler {
+
+    /**
+     * A handle to a scheduled task.
+     */
+    interface ScheduledTimeout {
+
+        /**
+         * Cancels the task. A task that has already been handed to the executor is not interrupted.
+         *
+         * @return true if the task was cancelled before it was due
+         */
+        boolean cancel();
+    }
+
+    /**
+     * Schedules a task to run once.
+     *
+     * @param task     the task
+     * @param fireTime the time, in milliseconds since the epoch, the task falls due. A time in the past means the
+     *                 task is due immediately
+     * @return a handle which can be used to cancel the task
+     */
+    ScheduledTimeout schedule(Runnable task, long fireTime);
+
+    /**
+     * Schedules a task to run repeatedly at a fixed rate, in the manner of
+     * {@link java.util.Timer#scheduleAtFixedRate(java.util.TimerTask, java.util.Date, long)}: every run falls due
+     * <code>interval</code> milliseconds after the previous one was due, regardless of when it actually ran.
+     *
+     * @param task          the task
+     * @param firstFireTime the time, in milliseconds since the epoch, the first run falls due
+     * @param interval      the interval in milliseconds, which must be positive
+     * @return a handle which can be used to cancel all further runs of the task
+     */
+    ScheduledTimeout scheduleAtFixedRate(Runnable task, long firstFireTime, long interval);
+
+    /**
+     * @return the number of scheduled tasks that have not yet fallen due
+     */
+    int getPendingCount();
+
+    /**
+     * @return the number of tasks that have been run
+     */
+    long getExpiredCount();
+
+    /**
+     * @return the average time, in milliseconds, between the time a task fell due and the time it started to run
+     */
+    long getAverageLag();
+
+    /**
+     * @return the longest time, in milliseconds, between the time a task fell due and the time it started to run
+     */
+    long getMaxLag();
+}
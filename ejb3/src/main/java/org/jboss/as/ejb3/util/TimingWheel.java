@@ -0,0 +1,381 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.util;
+
+import org.jboss.logging.Logger;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A hierarchical timing wheel driven by a single thread.
+ * <p/>
+ * Each level of the wheel has the same number of buckets, a bucket on level <code>n</code> covering
+ * <code>wheelSize^n</code> ticks. Timeouts are placed on the lowest level that can hold them and are cascaded
+ * down a level as the wheel turns, so scheduling, cancelling and expiring a timeout are all constant time
+ * operations regardless of how many timeouts are pending. Timeouts further away than the top level can hold
+ * are parked in its furthest bucket and re-placed when they are cascaded.
+ * <p/>
+ * Only the wheel thread touches the buckets. Other threads hand new and cancelled timeouts over through
+ * lock-free queues which are drained at the start of every tick, so callers never block on the wheel.
+ * Tasks are run on the wheel thread and must therefore be short; anything that may block should be handed
+ * off to an executor by the task itself.
+ */
+public class TimingWheel {
+
+    private static final Logger logger = Logger.getLogger(TimingWheel.class);
+
+    /**
+     * A handle to a scheduled task.
+     */
+    public interface Timeout {
+
+        /**
+         * Cancels the timeout.
+         *
+         * @return true if the timeout was cancelled, false if it has already expired or been cancelled
+         */
+        boolean cancel();
+
+        /**
+         * @return true if the task has been run (or is being run)
+         */
+        boolean isExpired();
+    }
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final String name;
+    private final long tickNanos;
+    private final int bits;
+    private final int mask;
+    private final int levels;
+    private final Bucket[][] wheel;
+    private final ConcurrentLinkedQueue<TimeoutImpl> added = new ConcurrentLinkedQueue<TimeoutImpl>();
+    private final ConcurrentLinkedQueue<TimeoutImpl> cancelled = new ConcurrentLinkedQueue<TimeoutImpl>();
+    private final AtomicInteger pending = new AtomicInteger();
+
+    private volatile long startTime;
+    /**
+     * The last tick that was processed. Only written by the wheel thread.
+     */
+    private volatile long currentTick;
+    private Thread worker;
+    private volatile boolean running;
+
+    /**
+     * @param name      the name of the wheel thread
+     * @param tick      the duration of a tick, which is also the resolution of the wheel
+     * @param tickUnit  the unit of <code>tick</code>
+     * @param wheelSize the number of buckets on each level, rounded up to a power of two
+     * @param levels    the number of levels
+     */
+    public TimingWheel(final String name, final long tick, final TimeUnit tickUnit, final int wheelSize, final int levels) {
+        if (tick <= 0) {
+            throw new IllegalArgumentException("Tick must be positive, was " + tick);
+        }
+        if (wheelSize < 2) {
+            throw new IllegalArgumentException("Wheel size must be at least 2, was " + wheelSize);
+        }
+        if (levels < 1) {
+            throw new IllegalArgumentException("A timing wheel needs at least one level, was " + levels);
+        }
+        int bits = 1;
+        while ((1 << bits) < wheelSize) {
+            bits++;
+        }
+        if (bits * levels > 62) {
+            throw new IllegalArgumentException("A wheel of " + levels + " levels of " + wheelSize + " buckets is too large");
+        }
+        this.name = name;
+        this.tickNanos = tickUnit.toNanos(tick);
+        this.bits = bits;
+        this.mask = (1 << bits) - 1;
+        this.levels = levels;
+        this.wheel = new Bucket[levels][1 << bits];
+        for (Bucket[] level : wheel) {
+            for (int i = 0; i < level.length; i++) {
+                level[i] = new Bucket();
+            }
+        }
+    }
+
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        startTime = System.nanoTime();
+        currentTick = 0;
+        running = true;
+        worker = new Thread(new Worker(), name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the wheel thread. Any timeouts that have not yet expired are discarded.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        worker.interrupt();
+        boolean interrupted = false;
+        while (worker.isAlive()) {
+            try {
+                worker.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        worker = null;
+        added.clear();
+        cancelled.clear();
+        for (Bucket[] level : wheel) {
+            for (Bucket bucket : level) {
+                bucket.clear();
+            }
+        }
+        pending.set(0);
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Schedules a task to be run on the wheel thread once the delay has elapsed. The task may run up to
+     * one tick late.
+     *
+     * @param task  the task
+     * @param delay the delay
+     * @param unit  the unit of <code>delay</code>
+     * @return a handle which can be used to cancel the task
+     */
+    public Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+        if (!running) {
+            throw new IllegalStateException("Timing wheel " + name + " is not running");
+        }
+        final long elapsed = System.nanoTime() - startTime;
+        // clamp so that very long delays cannot overflow, they are parked at the top of the wheel anyway
+        final long delayNanos = Math.min(Math.max(0, unit.toNanos(delay)), Long.MAX_VALUE >> 2);
+        // round up, a task must never run early
+        final long deadline = (elapsed + delayNanos + tickNanos - 1) / tickNanos;
+        final TimeoutImpl timeout = new TimeoutImpl(task, deadline);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * @return the number of timeouts which have neither expired nor been cancelled
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * @return the duration of a tick in milliseconds
+     */
+    public long getTickMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+    }
+
+    private void place(final TimeoutImpl timeout, final long tick) {
+        long delta = timeout.deadline - tick;
+        if (delta < 0) {
+            // overdue, run it on this tick
+            timeout.deadline = tick;
+            delta = 0;
+        }
+        int level = 0;
+        while (level < levels - 1 && delta >= (1L << (bits * (level + 1)))) {
+            level++;
+        }
+        long slotTick = timeout.deadline;
+        if (delta >= (1L << (bits * levels))) {
+            // beyond the range of the wheel, park it in the furthest bucket of the top level
+            slotTick = tick + (1L << (bits * levels)) - 1;
+        }
+        wheel[level][(int) ((slotTick >>> (bits * level)) & mask)].add(timeout);
+    }
+
+    private void tick(final long tick) {
+        TimeoutImpl timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket != null) {
+                timeout.bucket.remove(timeout);
+            }
+        }
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() == PENDING) {
+                place(timeout, tick);
+            }
+        }
+        // cascade the higher levels first, so timeouts that fall due on this tick reach level 0 in time
+        for (int level = levels - 1; level > 0; level--) {
+            if ((tick & ((1L << (bits * level)) - 1)) == 0) {
+                final Bucket bucket = wheel[level][(int) ((tick >>> (bits * level)) & mask)];
+                TimeoutImpl next = bucket.clear();
+                while (next != null) {
+                    final TimeoutImpl current = next;
+                    next = current.next;
+                    current.next = null;
+                    current.prev = null;
+                    if (current.state.get() == PENDING) {
+                        place(current, tick);
+                    }
+                }
+            }
+        }
+        final Bucket bucket = wheel[0][(int) (tick & mask)];
+        TimeoutImpl next = bucket.clear();
+        while (next != null) {
+            final TimeoutImpl current = next;
+            next = current.next;
+            current.next = null;
+            current.prev = null;
+            if (current.deadline > tick) {
+                // parked beyond the range of the wheel
+                place(current, tick);
+            } else {
+                current.expire();
+            }
+        }
+    }
+
+    private final class Worker implements Runnable {
+        @Override
+        public void run() {
+            long tick = currentTick;
+            while (running) {
+                final long deadline = startTime + (tick + 1) * tickNanos;
+                long sleep = deadline - System.nanoTime();
+                while (sleep > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(sleep);
+                    } catch (InterruptedException e) {
+                        if (!running) {
+                            return;
+                        }
+                    }
+                    sleep = deadline - System.nanoTime();
+                }
+                tick++;
+                try {
+                    tick(tick);
+                } catch (Throwable t) {
+                    logger.error("Error processing tick " + tick + " of timing wheel " + name, t);
+                }
+                currentTick = tick;
+            }
+        }
+    }
+
+    /**
+     * A doubly linked list of timeouts. Only accessed by the wheel thread.
+     */
+    private static final class Bucket {
+        private TimeoutImpl head;
+
+        void add(final TimeoutImpl timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        void remove(final TimeoutImpl timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            } else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+        }
+
+        /**
+         * Empties the bucket, returning the previous head of the list.
+         */
+        TimeoutImpl clear() {
+            final TimeoutImpl result = head;
+            for (TimeoutImpl t = head; t != null; t = t.next) {
+                t.bucket = null;
+            }
+            head = null;
+            return result;
+        }
+    }
+
+    private final class TimeoutImpl implements Timeout {
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        // the following fields are only accessed by the wheel thread
+        private long deadline;
+        private Bucket bucket;
+        private TimeoutImpl prev;
+        private TimeoutImpl next;
+
+        TimeoutImpl(final Runnable task, final long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public boolean cancel() {
+            if (state.compareAndSet(PENDING, CANCELLED)) {
+                pending.decrementAndGet();
+                cancelled.add(this);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        void expire() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+            pending.decrementAndGet();
+            try {
+                task.run();
+            } catch (Throwable t) {
+                logger.error("Task " + task + " scheduled on timing wheel " + name + " failed", t);
+            }
+        }
+    }
+}
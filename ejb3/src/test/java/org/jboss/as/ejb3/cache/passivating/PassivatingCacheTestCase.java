@@ -0,0 +1,265 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.cache.passivating;
+
+import org.jboss.as.ejb3.cache.ExpiringCache;
+import org.jboss.as.ejb3.cache.Identifiable;
+import org.jboss.as.ejb3.cache.StatefulObjectFactory;
+import org.jboss.ejb.client.SessionID;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ejb.NoSuchEJBException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link PassivatingCache}.
+ */
+public class PassivatingCacheTestCase {
+
+    private static final AtomicInteger ids = new AtomicInteger();
+
+    private File spillDirectory;
+    private PassivatingCache<TestInstance> cache;
+    private final List<Object> destroyedStates = new ArrayList<Object>();
+    private int passivateCalls;
+
+    static class TestInstance implements Identifiable {
+        private final SessionID id = SessionID.createSessionID(ByteBuffer.allocate(4).putInt(ids.incrementAndGet()).array());
+        private Object state;
+
+        TestInstance(final Object state) {
+            this.state = state;
+        }
+
+        @Override
+        public SessionID getId() {
+            return id;
+        }
+    }
+
+    /**
+     * State that can be passivated, but not read back in.
+     */
+    static class UnreadableState implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private void readObject(final ObjectInputStream in) throws IOException {
+            throw new InvalidObjectException("Cannot be read");
+        }
+    }
+
+    private Object nextState;
+
+    @Before
+    public void setUp() throws IOException {
+        spillDirectory = File.createTempFile("passivation", "test");
+        spillDirectory.delete();
+        nextState = null;
+    }
+
+    @After
+    public void tearDown() {
+        if (cache != null) {
+            cache.stop();
+        }
+        spillDirectory.delete();
+    }
+
+    private void createCache(final int maxEntries, final long maxBytes) {
+        cache = new PassivatingCache<TestInstance>(new ExpiringCache<TestInstance>(-1, TimeUnit.MILLISECONDS, "TestBean"),
+                "TestBean", maxEntries, maxBytes, spillDirectory, getClass().getClassLoader());
+        cache.setStatefulObjectFactory(new StatefulObjectFactory<TestInstance>() {
+            @Override
+            public TestInstance createInstance() {
+                return new TestInstance(nextState);
+            }
+
+            @Override
+            public void destroyInstance(final TestInstance instance) {
+                destroyedStates.add(instance.state);
+            }
+
+            @Override
+            public Object passivateInstance(final TestInstance instance) {
+                passivateCalls++;
+                final Object state = instance.state;
+                instance.state = null;
+                return state;
+            }
+
+            @Override
+            public void activateInstance(final TestInstance instance, final Object state) {
+                instance.state = state;
+            }
+        });
+        cache.start();
+    }
+
+    private TestInstance create(final Object state) {
+        nextState = state;
+        return cache.create();
+    }
+
+    @Test
+    public void testPassivatesLeastRecentlyUsed() {
+        createCache(2, 1024 * 1024);
+        final TestInstance a = create("a");
+        final TestInstance b = create("b");
+        Assert.assertEquals(0, cache.getPassivatedCount());
+        final TestInstance c = create("c");
+        Assert.assertNull("Least recently used instance was not passivated", a.state);
+        Assert.assertEquals("b", b.state);
+        Assert.assertEquals("c", c.state);
+        Assert.assertEquals(2, cache.getCacheSize());
+        Assert.assertEquals(1, cache.getPassivatedCount());
+
+        Assert.assertSame(a, cache.get(a.getId()));
+        Assert.assertEquals("a", a.state);
+        Assert.assertEquals(1, cache.getMissCount());
+        cache.release(a);
+        // b is now the least recently used
+        Assert.assertNull(b.state);
+        Assert.assertEquals("a", a.state);
+
+        cache.get(c.getId());
+        cache.release(c);
+        Assert.assertEquals(1, cache.getHitCount());
+        Assert.assertEquals(1, cache.getMissCount());
+        Assert.assertEquals(2, cache.getPassivationCount());
+    }
+
+    @Test
+    public void testInstancesInUseAreNotPassivated() {
+        createCache(0, 1024 * 1024);
+        final TestInstance a = create("a");
+        Assert.assertNull(a.state);
+        cache.get(a.getId());
+        Assert.assertEquals("a", a.state);
+        final TestInstance b = create("b");
+        Assert.assertEquals("a", a.state);
+        Assert.assertNull(b.state);
+        cache.release(a);
+        Assert.assertNull(a.state);
+        Assert.assertEquals(0, cache.getCacheSize());
+        Assert.assertEquals(2, cache.getPassivatedCount());
+    }
+
+    @Test
+    public void testUnserializableStateStaysInMemory() {
+        createCache(0, 1024 * 1024);
+        final Object state = new Object();
+        final TestInstance a = create(state);
+        Assert.assertSame(state, a.state);
+        Assert.assertEquals(1, cache.getCacheSize());
+        Assert.assertEquals(0, cache.getPassivationCount());
+    }
+
+    @Test
+    public void testStateThatDoesNotFitStaysInMemory() {
+        createCache(0, 4096);
+        final byte[] state = new byte[10000];
+        final TestInstance a = create(state);
+        Assert.assertSame(state, a.state);
+        final TestInstance b = create("b");
+        Assert.assertSame(state, a.state);
+        Assert.assertNull(b.state);
+    }
+
+    @Test
+    public void testEvictionStopsAtFirstFailedWrite() {
+        createCache(0, 8192);
+        create("a");
+        final TestInstance b = create(new byte[6000]);
+        Assert.assertNotNull(b.state);
+        passivateCalls = 0;
+        final TestInstance c = create(new byte[6000]);
+        Assert.assertNotNull(c.state);
+        // b is tried and does not fit, c is not even marshalled
+        Assert.assertEquals(1, passivateCalls);
+    }
+
+    @Test
+    public void testFullSpillFileIsNotWrittenTo() {
+        createCache(0, 4096);
+        final TestInstance a = create("a");
+        Assert.assertNull(a.state);
+        passivateCalls = 0;
+        create("b");
+        create("c");
+        Assert.assertEquals(0, passivateCalls);
+        Assert.assertEquals(2, cache.getCacheSize());
+    }
+
+    @Test
+    public void testPassivatedInstanceIsActivatedBeforeRemoval() {
+        createCache(0, 1024 * 1024);
+        final TestInstance a = create("a");
+        Assert.assertNull(a.state);
+        cache.remove(a.getId());
+        Assert.assertEquals(1, destroyedStates.size());
+        Assert.assertEquals("a", destroyedStates.get(0));
+        Assert.assertEquals(0, cache.getPassivatedCount());
+    }
+
+    @Test
+    public void testInstanceThatCannotBeActivatedIsDiscarded() {
+        createCache(0, 1024 * 1024);
+        final TestInstance a = create(new UnreadableState());
+        Assert.assertNull(a.state);
+        try {
+            cache.get(a.getId());
+            Assert.fail("Activated an instance whose state cannot be read");
+        } catch (NoSuchEJBException expected) {
+        }
+        Assert.assertEquals(0, cache.getPassivatedCount());
+        Assert.assertEquals(0, cache.getCacheSize());
+        // it is gone from the delegate too, rather than left in use
+        try {
+            cache.get(a.getId());
+            Assert.fail("Instance was not discarded");
+        } catch (NoSuchEJBException expected) {
+        }
+    }
+
+    @Test
+    public void testInstanceThatCannotBeActivatedIsRemoved() {
+        createCache(0, 1024 * 1024);
+        final TestInstance a = create(new UnreadableState());
+        Assert.assertNull(a.state);
+        cache.remove(a.getId());
+        Assert.assertEquals(1, destroyedStates.size());
+        Assert.assertNull(destroyedStates.get(0));
+        Assert.assertEquals(0, cache.getPassivatedCount());
+    }
+}
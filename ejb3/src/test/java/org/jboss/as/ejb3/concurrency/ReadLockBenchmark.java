@@ -0,0 +1,115 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.concurrency;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+
+/**
+ * Compares the read lock throughput of {@link EJBReadWriteLock} and {@link StripedEJBReadWriteLock} for 1 thread up
+ * to twice the number of processors, with the lock taken and released the way the container managed concurrency
+ * interceptor does for a {@link javax.ejb.LockType#READ} method. This is not run as part of the test suite, run it
+ * with:
+ * <pre>
+ * java -cp ... org.jboss.as.ejb3.concurrency.ReadLockBenchmark [seconds-per-run]
+ * </pre>
+ */
+public class ReadLockBenchmark {
+
+    private interface LockFactory {
+        ReadWriteLock createLock();
+    }
+
+    private static final LockFactory DEFAULT = new LockFactory() {
+        public ReadWriteLock createLock() {
+            return new EJBReadWriteLock();
+        }
+
+        public String toString() {
+            return "default";
+        }
+    };
+
+    private static final LockFactory STRIPED = new LockFactory() {
+        public ReadWriteLock createLock() {
+            return new StripedEJBReadWriteLock();
+        }
+
+        public String toString() {
+            return "striped";
+        }
+    };
+
+    public static void main(String[] args) throws Exception {
+        final long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+        final int maxThreads = Runtime.getRuntime().availableProcessors() * 2;
+
+        // warm up both implementations before measuring anything
+        run(DEFAULT, 8, 1);
+        run(STRIPED, 8, 1);
+
+        System.out.printf("%8s %16s %16s%n", "threads", DEFAULT + " ops/s", STRIPED + " ops/s");
+        for (int threads = 1; threads <= maxThreads; threads <<= 1) {
+            final long standard = run(DEFAULT, threads, seconds);
+            final long striped = run(STRIPED, threads, seconds);
+            System.out.printf("%8d %16d %16d%n", threads, standard / seconds, striped / seconds);
+        }
+    }
+
+    private static long run(final LockFactory lockFactory, final int threadCount, final long seconds) throws InterruptedException {
+        final Lock lock = lockFactory.createLock().readLock();
+        final AtomicLong operations = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        long count = 0;
+                        while ((count & 0xFF) != 0 || System.nanoTime() < end) {
+                            if (!lock.tryLock(5000, TimeUnit.MILLISECONDS)) {
+                                throw new IllegalStateException("Could not obtain the read lock");
+                            }
+                            lock.unlock();
+                            count++;
+                        }
+                        operations.addAndGet(count);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        return operations.get();
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.concurrency;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ejb.IllegalLoopbackException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Tests the {@link StripedEJBReadWriteLock}
+ */
+public class StripedEJBReadWriteLockTest {
+
+    private StripedEJBReadWriteLock lock;
+
+    @Before
+    public void beforeTest() {
+        this.lock = new StripedEJBReadWriteLock(4);
+    }
+
+    /**
+     * Test that a {@link javax.ejb.IllegalLoopbackException} is thrown when the thread owning a read lock
+     * tries to obtain a write lock
+     */
+    @Test
+    public void testIllegalLoopBack() throws Exception {
+        final Lock readLock = lock.readLock();
+        readLock.lock();
+        try {
+            lock.writeLock().lock();
+            Assert.fail("Unexpected acquired write lock");
+        } catch (IllegalLoopbackException expected) {
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    @Test
+    public void testReadersShareTheLock() throws Exception {
+        lock.readLock().lock();
+        try {
+            Assert.assertTrue("Could not obtain read lock held by another thread", lockInOtherThread(lock.readLock(), 2, TimeUnit.SECONDS));
+            Assert.assertFalse("Unexpected obtained the write lock while a read lock is held", lockInOtherThread(lock.writeLock(), 100, TimeUnit.MILLISECONDS));
+        } finally {
+            lock.readLock().unlock();
+        }
+        Assert.assertTrue("Could not obtain the write lock once the readers left", lockInOtherThread(lock.writeLock(), 2, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        lock.writeLock().lock();
+        try {
+            Assert.assertFalse("Unexpected obtained a read lock", lockInOtherThread(lock.readLock(), 200, TimeUnit.MILLISECONDS));
+            Assert.assertFalse("Unexpected obtained the write lock", lockInOtherThread(lock.writeLock(), 200, TimeUnit.MILLISECONDS));
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Assert.assertTrue("Could not obtain a read lock once the writer left", lockInOtherThread(lock.readLock(), 2, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that a thread can first get a write lock and at a later point in time, get
+     * a read lock, and that the write lock is reentrant
+     */
+    @Test
+    public void testSameThreadCanGetWriteThenReadLock() throws Exception {
+        lock.writeLock().lock();
+        try {
+            Assert.assertTrue(lock.writeLock().tryLock(2, TimeUnit.SECONDS));
+            lock.writeLock().unlock();
+            Assert.assertTrue("Could not obtain read lock when write lock was held by the same thread!", lock.readLock().tryLock(2, TimeUnit.SECONDS));
+            lock.readLock().unlock();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        Assert.assertTrue(lockInOtherThread(lock.writeLock(), 2, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Tests that new readers wait for a waiting writer, except for threads that already hold a read lock
+     */
+    @Test
+    public void testWaitingWriterHasPreference() throws Exception {
+        lock.readLock().lock();
+        final CountDownLatch writerLocked = new CountDownLatch(1);
+        final CountDownLatch writerDone = new CountDownLatch(1);
+        final Thread writer = new Thread(new Runnable() {
+            public void run() {
+                lock.writeLock().lock();
+                writerLocked.countDown();
+                lock.writeLock().unlock();
+                writerDone.countDown();
+            }
+        });
+        writer.start();
+        try {
+            // wait for the writer to announce itself
+            while (writer.getState() != Thread.State.WAITING) {
+                Thread.sleep(10);
+            }
+            Assert.assertFalse("A new reader overtook the waiting writer", lockInOtherThread(lock.readLock(), 200, TimeUnit.MILLISECONDS));
+            Assert.assertTrue("A nested read lock waited for the writer", lock.readLock().tryLock(2, TimeUnit.SECONDS));
+            lock.readLock().unlock();
+            Assert.assertEquals(1, writerLocked.getCount());
+        } finally {
+            lock.readLock().unlock();
+        }
+        Assert.assertTrue(writerDone.await(2, TimeUnit.SECONDS));
+    }
+
+    @Test(expected = IllegalMonitorStateException.class)
+    public void testUnlockNotHeld() {
+        lock.readLock().unlock();
+    }
+
+    private static boolean lockInOtherThread(final Lock lock, final long time, final TimeUnit unit) throws InterruptedException {
+        final AtomicBoolean locked = new AtomicBoolean();
+        final Thread thread = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    if (lock.tryLock(time, unit)) {
+                        locked.set(true);
+                        lock.unlock();
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        thread.start();
+        thread.join();
+        return locked.get();
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.pool;
+
+import org.jboss.as.ejb3.pool.strictmax.StrictMaxPool;
+import org.jboss.as.ejb3.pool.striped.StripedPool;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compares the get/release throughput of {@link StrictMaxPool} and {@link StripedPool} for 1 to 128
+ * threads. This is not run as part of the test suite, run it with:
+ * <pre>
+ * java -cp ... org.jboss.as.ejb3.pool.PoolBenchmark [max-pool-size] [seconds-per-run]
+ * </pre>
+ */
+public class PoolBenchmark {
+
+    private static final StatelessObjectFactory<Object> FACTORY = new StatelessObjectFactory<Object>() {
+        public Object create() {
+            return new Object();
+        }
+
+        public void destroy(Object obj) {
+        }
+    };
+
+    private interface PoolFactory {
+        Pool<Object> createPool(int maxSize);
+    }
+
+    private static final PoolFactory STRICT_MAX = new PoolFactory() {
+        public Pool<Object> createPool(int maxSize) {
+            return new StrictMaxPool<Object>(FACTORY, maxSize, 5, TimeUnit.MINUTES);
+        }
+
+        public String toString() {
+            return "strict-max";
+        }
+    };
+
+    private static final PoolFactory STRIPED = new PoolFactory() {
+        public Pool<Object> createPool(int maxSize) {
+            return new StripedPool<Object>(FACTORY, maxSize, 5, TimeUnit.MINUTES);
+        }
+
+        public String toString() {
+            return "striped";
+        }
+    };
+
+    public static void main(String[] args) throws Exception {
+        final int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 5;
+
+        // warm up both implementations before measuring anything
+        run(STRICT_MAX, maxSize, 8, 1);
+        run(STRIPED, maxSize, 8, 1);
+
+        System.out.printf("%8s %16s %16s%n", "threads", STRICT_MAX + " ops/s", STRIPED + " ops/s");
+        for (int threads = 1; threads <= 128; threads <<= 1) {
+            final long strictMax = run(STRICT_MAX, maxSize, threads, seconds);
+            final long striped = run(STRIPED, maxSize, threads, seconds);
+            System.out.printf("%8d %16d %16d%n", threads, strictMax / seconds, striped / seconds);
+        }
+    }
+
+    private static long run(final PoolFactory poolFactory, final int maxSize, final int threadCount, final long seconds) throws InterruptedException {
+        final Pool<Object> pool = poolFactory.createPool(maxSize);
+        pool.start();
+        final AtomicLong operations = new AtomicLong();
+        final CountDownLatch start = new CountDownLatch(1);
+        final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    long count = 0;
+                    while ((count & 0xFF) != 0 || System.nanoTime() < end) {
+                        pool.release(pool.get());
+                        count++;
+                    }
+                    operations.addAndGet(count);
+                }
+            });
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        pool.stop();
+        return operations.get();
+    }
+}
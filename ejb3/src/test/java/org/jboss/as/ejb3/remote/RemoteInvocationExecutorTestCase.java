@@ -0,0 +1,186 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.remote;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.as.ejb3.deployment.DeploymentModuleIdentifier;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the per bean limits of {@link RemoteInvocationExecutor}.
+ */
+public class RemoteInvocationExecutorTestCase {
+
+    private static final DeploymentModuleIdentifier MODULE = new DeploymentModuleIdentifier("app", "module", "");
+
+    private ExecutorService pool;
+
+    @Before
+    public void before() {
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void after() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void testSlowBeanDoesNotStarveOthers() throws Exception {
+        final RemoteInvocationExecutor executor = new RemoteInvocationExecutor(pool, 1, 10);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch slowStarted = new CountDownLatch(1);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(executor.execute(MODULE, "Slow", new Runnable() {
+                public void run() {
+                    slowStarted.countDown();
+                    await(release);
+                }
+            }));
+        }
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+        // only one invocation of the slow bean takes a thread, the others wait in its partition
+        assertEquals(1, executor.getActiveCount());
+        assertEquals(2, executor.getQueuedCount());
+
+        final CountDownLatch fastDone = new CountDownLatch(1);
+        assertTrue(executor.execute(MODULE, "Fast", new Runnable() {
+            public void run() {
+                fastDone.countDown();
+            }
+        }));
+        assertTrue(fastDone.await(5, TimeUnit.SECONDS));
+
+        release.countDown();
+        waitForIdle(executor);
+        assertEquals(0, executor.getQueuedCount());
+        assertEquals(0, executor.getRejectedCount());
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        final RemoteInvocationExecutor executor = new RemoteInvocationExecutor(pool, 1, 1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final Runnable blocking = new Runnable() {
+            public void run() {
+                started.countDown();
+                await(release);
+            }
+        };
+        assertTrue(executor.execute(MODULE, "Bean", blocking));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertTrue(executor.execute(MODULE, "Bean", blocking));
+        assertFalse(executor.execute(MODULE, "Bean", blocking));
+        assertEquals(1, executor.getRejectedCount());
+
+        // the limits are per bean
+        assertTrue(executor.execute(MODULE, "Other", blocking));
+
+        release.countDown();
+        waitForIdle(executor);
+        assertEquals(1, executor.getRejectedCount());
+    }
+
+    @Test
+    public void testQueuedInvocationsRunWhenPoolShutsDown() throws Exception {
+        final RemoteInvocationExecutor executor = new RemoteInvocationExecutor(pool, 1, 10);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        assertTrue(executor.execute(MODULE, "Bean", new Runnable() {
+            public void run() {
+                started.countDown();
+                await(release);
+            }
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final CountDownLatch queuedDone = new CountDownLatch(2);
+        for (int i = 0; i < 2; i++) {
+            assertTrue(executor.execute(MODULE, "Bean", new Runnable() {
+                public void run() {
+                    queuedDone.countDown();
+                }
+            }));
+        }
+        assertEquals(2, executor.getQueuedCount());
+
+        // the pool no longer takes tasks, so the queued invocations run on the thread that completes
+        pool.shutdown();
+        release.countDown();
+        assertTrue(queuedDone.await(5, TimeUnit.SECONDS));
+        waitForIdle(executor);
+        assertEquals(0, executor.getQueuedCount());
+    }
+
+    @Test
+    public void testFailedInvocationDoesNotStallBean() throws Exception {
+        final RemoteInvocationExecutor executor = new RemoteInvocationExecutor(pool, 1, 10);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        assertTrue(executor.execute(MODULE, "Bean", new Runnable() {
+            public void run() {
+                started.countDown();
+                await(release);
+                throw new IllegalStateException("failed to write the response");
+            }
+        }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        final CountDownLatch queuedDone = new CountDownLatch(1);
+        assertTrue(executor.execute(MODULE, "Bean", new Runnable() {
+            public void run() {
+                queuedDone.countDown();
+            }
+        }));
+
+        release.countDown();
+        assertTrue(queuedDone.await(5, TimeUnit.SECONDS));
+        waitForIdle(executor);
+        assertEquals(0, executor.getQueuedCount());
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitForIdle(final RemoteInvocationExecutor executor) throws InterruptedException {
+        final long end = System.currentTimeMillis() + 5000;
+        while ((executor.getActiveCount() > 0 || executor.getQueuedCount() > 0) && System.currentTimeMillis() < end) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, executor.getActiveCount());
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.ejb3.remote.protocol.versionone;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Compares the throughput of marshalling and unmarshalling the objects of an invocation message with marshallers
+ * created for every message, as the handlers used to, and with the reused marshallers of a {@link MarshallingContext}.
+ * The messages go through memory rather than a channel, so the figures are for the marshalling alone. This is not
+ * run as part of the test suite, run it with:
+ * <pre>
+ * java -cp ... org.jboss.as.ejb3.remote.protocol.versionone.MarshallingContextBenchmark [river|java-serial] [messages]
+ * </pre>
+ */
+public class MarshallingContextBenchmark {
+
+    private static final Object[] PAYLOAD = {"my-app", "my-module", "", "CalculatorBean", "add", Integer.valueOf(1), Integer.valueOf(2)};
+
+    private static final UnMarshaller.ClassLoaderProvider CLASS_LOADER_PROVIDER = new UnMarshaller.ClassLoaderProvider() {
+        public ClassLoader provideClassLoader() {
+            return MarshallingContextBenchmark.class.getClassLoader();
+        }
+    };
+
+    public static void main(String[] args) throws Exception {
+        final String strategy = args.length > 0 ? args[0] : "river";
+        final int messages = args.length > 1 ? Integer.parseInt(args[1]) : 200000;
+
+        // warm up both ways before measuring anything
+        run(strategy, messages / 4, false);
+        run(strategy, messages / 4, true);
+
+        final long fresh = run(strategy, messages, false);
+        final long reused = run(strategy, messages, true);
+        System.out.printf("%10s %16s %16s%n", "strategy", "fresh msgs/s", "reused msgs/s");
+        System.out.printf("%10s %16d %16d%n", strategy, fresh, reused);
+    }
+
+    private static long run(final String strategy, final int messages, final boolean reuse) throws IOException, ClassNotFoundException {
+        final MarshallingContext context = new MarshallingContext(strategy);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        final long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            bytes.reset();
+            final DataOutputStream output = new DataOutputStream(bytes);
+            final Marshaller marshaller = reuse ? context.acquireMarshaller() : MarshallerFactory.createMarshaller(strategy);
+            marshaller.start(output);
+            for (Object object : PAYLOAD) {
+                marshaller.writeObject(object);
+            }
+            marshaller.finish();
+            if (reuse) {
+                context.releaseMarshaller(marshaller);
+            }
+            output.flush();
+
+            final DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+            final UnMarshaller unMarshaller = reuse ? context.getUnMarshaller() : MarshallerFactory.createUnMarshaller(strategy);
+            unMarshaller.start(input, CLASS_LOADER_PROVIDER);
+            for (Object object : PAYLOAD) {
+                if (!object.equals(unMarshaller.readObject())) {
+                    throw new IllegalStateException("Unmarshalled " + object + " incorrectly");
+                }
+            }
+            unMarshaller.finish();
+        }
+        final long elapsed = System.nanoTime() - start;
+        return messages * 1000000000L / elapsed;
+    }
+}
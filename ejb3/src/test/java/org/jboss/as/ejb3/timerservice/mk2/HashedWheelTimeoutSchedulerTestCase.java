@@ -0,0 +1,167 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.mk2;
+
+import org.jboss.as.ejb3.timerservice.spi.TimeoutScheduler.ScheduledTimeout;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Tests for {@link HashedWheelTimeoutScheduler}.
+ */
+public class HashedWheelTimeoutSchedulerTestCase {
+
+    private ExecutorService executor;
+    private HashedWheelTimeoutScheduler scheduler;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new Thread(r, "timeout-executor");
+            }
+        });
+        scheduler = new HashedWheelTimeoutScheduler("test-scheduler", executor, 5, 16, 3);
+        scheduler.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        scheduler.stop();
+        executor.shutdownNow();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testTimeoutRunsOnExecutor() throws Exception {
+        final long fireTime = System.currentTimeMillis() + 50;
+        final AtomicReference<String> thread = new AtomicReference<String>();
+        final AtomicReference<Long> ranAt = new AtomicReference<Long>();
+        final CountDownLatch latch = new CountDownLatch(1);
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                ranAt.set(System.currentTimeMillis());
+                thread.set(Thread.currentThread().getName());
+                latch.countDown();
+            }
+        }, fireTime);
+        Assert.assertTrue("Timeout did not run", latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals("timeout-executor", thread.get());
+        Assert.assertTrue("Timeout ran early", ranAt.get() >= fireTime);
+        Assert.assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void testTimeoutInThePastRunsImmediately() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(1);
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, System.currentTimeMillis() - 60000);
+        Assert.assertTrue("Timeout did not run", latch.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancelledTimeoutDoesNotRun() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        final ScheduledTimeout timeout = scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+            }
+        }, System.currentTimeMillis() + 100);
+        Assert.assertTrue(timeout.cancel());
+        Assert.assertFalse(timeout.cancel());
+        Thread.sleep(200);
+        Assert.assertEquals(0, runs.get());
+        Assert.assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void testFixedRateRepeatsUntilCancelled() throws Exception {
+        final AtomicInteger runs = new AtomicInteger();
+        final CountDownLatch latch = new CountDownLatch(5);
+        final ScheduledTimeout timeout = scheduler.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+                latch.countDown();
+            }
+        }, System.currentTimeMillis() + 20, 20);
+        Assert.assertTrue("Timeout did not repeat", latch.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(timeout.cancel());
+        // let a run that was already handed to the executor finish
+        Thread.sleep(50);
+        final int count = runs.get();
+        Thread.sleep(200);
+        Assert.assertEquals(count, runs.get());
+        Assert.assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void testLagIsMeasured() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(2);
+        final long now = System.currentTimeMillis();
+        // the first timeout holds the only executor thread, so the second one has to wait for it
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    blocked.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.countDown();
+            }
+        }, now);
+        Assert.assertTrue("Timeout did not run", started.await(5, TimeUnit.SECONDS));
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                done.countDown();
+            }
+        }, now);
+        Thread.sleep(200);
+        blocked.countDown();
+        Assert.assertTrue("Timeouts did not run", done.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(2, scheduler.getExpiredCount());
+        Assert.assertTrue("Max lag was " + scheduler.getMaxLag(), scheduler.getMaxLag() >= 150);
+        Assert.assertTrue("Average lag was " + scheduler.getAverageLag(), scheduler.getAverageLag() <= scheduler.getMaxLag());
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.timerservice.mk2.persistence.filestore;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link TimerJournal}. The records are <code>key=value</code> strings, a value of <code>-</code>
+ * removing the key.
+ */
+public class TimerJournalTestCase {
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("timer-journal", "");
+        Assert.assertTrue(directory.delete());
+        Assert.assertTrue(directory.mkdir());
+    }
+
+    @After
+    public void tearDown() {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void testRecordsAreReplayed() throws Exception {
+        final Store store = new Store(1024 * 1024);
+        store.open();
+        store.put("a", "1");
+        store.put("b", "2");
+        store.put("a", "3");
+        store.put("b", "-");
+        store.close();
+
+        final Store reopened = new Store(1024 * 1024);
+        reopened.open();
+        Assert.assertEquals(1, reopened.state.size());
+        Assert.assertEquals("3", reopened.state.get("a"));
+        reopened.close();
+    }
+
+    @Test
+    public void testTornRecordIsIgnored() throws Exception {
+        final Store store = new Store(1024 * 1024);
+        store.open();
+        store.put("a", "1");
+        store.put("b", "2");
+        store.close();
+
+        // chop off the end of the last record, as if the server had crashed while writing it
+        final File segment = directory.listFiles()[0];
+        final RandomAccessFile file = new RandomAccessFile(segment, "rw");
+        try {
+            file.setLength(file.length() - 2);
+        } finally {
+            file.close();
+        }
+
+        final Store reopened = new Store(1024 * 1024);
+        reopened.open();
+        Assert.assertEquals("1", reopened.state.get("a"));
+        Assert.assertNull(reopened.state.get("b"));
+        // the journal carries on in a new segment
+        reopened.put("b", "3");
+        reopened.close();
+
+        final Store again = new Store(1024 * 1024);
+        again.open();
+        Assert.assertEquals("1", again.state.get("a"));
+        Assert.assertEquals("3", again.state.get("b"));
+        again.close();
+    }
+
+    @Test
+    public void testJournalIsCompacted() throws Exception {
+        final Store store = new Store(256);
+        store.open();
+        for (int i = 0; i < 2000; i++) {
+            store.put("key" + (i % 10), "value" + i);
+        }
+        store.close();
+
+        long size = 0;
+        for (File file : directory.listFiles()) {
+            size += file.length();
+        }
+        Assert.assertTrue("Journal was not compacted, it is " + size + " bytes", size < 4096);
+
+        final Store reopened = new Store(256);
+        reopened.open();
+        Assert.assertEquals(10, reopened.state.size());
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals("value" + (1990 + i), reopened.state.get("key" + i));
+        }
+        reopened.close();
+    }
+
+    @Test
+    public void testConcurrentAppendsAreDurable() throws Exception {
+        final Store store = new Store(64 * 1024);
+        store.open();
+        final int threads = 8;
+        final CountDownLatch done = new CountDownLatch(threads);
+        final List<Throwable> failures = new ArrayList<Throwable>();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int i = 0; i < 100; i++) {
+                            store.put("thread" + thread + "-" + i, "" + i);
+                        }
+                    } catch (Throwable e) {
+                        synchronized (failures) {
+                            failures.add(e);
+                        }
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        Assert.assertTrue(done.await(30, TimeUnit.SECONDS));
+        Assert.assertEquals(new ArrayList<Throwable>(), failures);
+        store.close();
+
+        final Store reopened = new Store(64 * 1024);
+        reopened.open();
+        Assert.assertEquals(threads * 100, reopened.state.size());
+        reopened.close();
+    }
+
+    private final class Store implements TimerJournal.SnapshotSource, TimerJournal.RecordHandler {
+        final Map<String, String> state = new ConcurrentHashMap<String, String>();
+        final TimerJournal journal;
+
+        Store(final long segmentSize) {
+            journal = new TimerJournal(directory, segmentSize, this);
+        }
+
+        void open() throws IOException {
+            journal.open(this);
+        }
+
+        void close() {
+            journal.close();
+        }
+
+        void put(final String key, final String value) throws IOException {
+            final TimerJournal.Batch batch;
+            synchronized (this) {
+                if ("-".equals(value)) {
+                    state.remove(key);
+                } else {
+                    state.put(key, value);
+                }
+                batch = journal.append((key + "=" + value).getBytes("UTF-8"));
+            }
+            batch.await();
+        }
+
+        @Override
+        public void handle(final byte[] record) {
+            try {
+                final String[] parts = new String(record, "UTF-8").split("=");
+                if ("-".equals(parts[1])) {
+                    state.remove(parts[0]);
+                } else {
+                    state.put(parts[0], parts[1]);
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public void snapshot(final TimerJournal.RecordSink sink) throws IOException {
+            for (Map.Entry<String, String> entry : state.entrySet()) {
+                sink.write((entry.getKey() + "=" + entry.getValue()).getBytes("UTF-8"));
+            }
+        }
+    }
+}
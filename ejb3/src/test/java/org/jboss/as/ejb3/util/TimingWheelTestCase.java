@@ -0,0 +1,128 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.ejb3.util;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for {@link TimingWheel}. The wheels used here are deliberately tiny, so that most timeouts
+ * have to be cascaded between levels or parked beyond the range of the wheel.
+ */
+public class TimingWheelTestCase {
+
+    private TimingWheel wheel;
+
+    @Before
+    public void setUp() {
+        // 4 buckets of 10ms on 2 levels, i.e. a range of 160ms
+        wheel = new TimingWheel("test-wheel", 10, TimeUnit.MILLISECONDS, 4, 2);
+        wheel.start();
+    }
+
+    @After
+    public void tearDown() {
+        wheel.stop();
+    }
+
+    @Test
+    public void testTimeoutsNeverRunEarly() throws Exception {
+        final long start = System.nanoTime();
+        final List<String> early = Collections.synchronizedList(new ArrayList<String>());
+        final CountDownLatch latch = new CountDownLatch(100);
+        final Random random = new Random(42);
+        for (int i = 0; i < 100; i++) {
+            final long delay = random.nextInt(500);
+            wheel.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                    if (elapsed < delay) {
+                        early.add(delay + "ms timeout ran after " + elapsed + "ms");
+                    }
+                    latch.countDown();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        }
+        Assert.assertTrue("Not all timeouts expired", latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(Collections.<String>emptyList(), early);
+        Assert.assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        final AtomicInteger ran = new AtomicInteger();
+        final Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                ran.incrementAndGet();
+            }
+        };
+        final List<TimingWheel.Timeout> timeouts = new ArrayList<TimingWheel.Timeout>();
+        for (int i = 0; i < 50; i++) {
+            timeouts.add(wheel.schedule(task, 20 + i * 5, TimeUnit.MILLISECONDS));
+        }
+        Assert.assertEquals(50, wheel.getPendingCount());
+        for (TimingWheel.Timeout timeout : timeouts) {
+            Assert.assertTrue(timeout.cancel());
+            Assert.assertFalse(timeout.cancel());
+        }
+        Assert.assertEquals(0, wheel.getPendingCount());
+
+        final CountDownLatch latch = new CountDownLatch(1);
+        final TimingWheel.Timeout last = wheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        }, 400, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        Assert.assertEquals(0, ran.get());
+        Assert.assertTrue(last.isExpired());
+        Assert.assertFalse(last.cancel());
+    }
+
+    @Test
+    public void testScheduleFromTask() throws Exception {
+        final CountDownLatch latch = new CountDownLatch(5);
+        wheel.schedule(new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+                if (latch.getCount() > 0) {
+                    wheel.schedule(this, 30, TimeUnit.MILLISECONDS);
+                }
+            }
+        }, 30, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+    }
+}
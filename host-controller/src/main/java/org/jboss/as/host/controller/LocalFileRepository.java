@@ -23,10 +23,12 @@
 package org.jboss.as.host.controller;
 
 import java.io.File;
+import java.io.IOException;
 import java.lang.annotation.Target;
 
 import org.jboss.as.controller.HashUtil;
 import org.jboss.as.domain.controller.FileRepository;
+import org.jboss.as.server.deployment.repository.impl.ContentRepositoryImpl;
 import org.jboss.msc.service.Service;
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
@@ -48,9 +50,13 @@ public class LocalFileRepository implements FileRepository, Service<FileReposito
     private final File configurationRoot;
 
     public LocalFileRepository(final HostControllerEnvironment environment) {
-        this.repositoryRoot = environment.getDomainBaseDir();
-        this.deploymentRoot = environment.getDomainDeploymentDir();
-        this.configurationRoot = environment.getDomainConfigurationDir();
+        this(environment.getDomainBaseDir(), environment.getDomainDeploymentDir(), environment.getDomainConfigurationDir());
+    }
+
+    LocalFileRepository(final File repositoryRoot, final File deploymentRoot, final File configurationRoot) {
+        this.repositoryRoot = repositoryRoot;
+        this.deploymentRoot = deploymentRoot;
+        this.configurationRoot = configurationRoot;
     }
 
     /** {@inheritDoc} */
@@ -79,7 +85,15 @@ public class LocalFileRepository implements FileRepository, Service<FileReposito
         }
         String hex = HashUtil.bytesToHexString(hash);
         File first = new File(deploymentRoot, hex.substring(0,2));
-        return new File(first, hex.substring(2));
+        File root = new File(first, hex.substring(2));
+        // content stored while the repository was chunked only has a manifest here, which is of no use to the
+        // hosts and servers the directory is copied to
+        try {
+            ContentRepositoryImpl.assembleChunkedContent(deploymentRoot, root);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot assemble deployment content in " + root.getAbsolutePath(), e);
+        }
+        return root;
     }
 
     @Override
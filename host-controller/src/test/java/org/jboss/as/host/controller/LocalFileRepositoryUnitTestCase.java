@@ -0,0 +1,107 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.host.controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.jboss.as.server.deployment.repository.impl.ContentRepositoryImpl;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests reading deployment content through {@link LocalFileRepository}.
+ */
+public class LocalFileRepositoryUnitTestCase {
+
+    private File root;
+
+    @Before
+    public void setUp() throws IOException {
+        root = File.createTempFile("local-file-repository", "");
+        Assert.assertTrue(root.delete());
+        Assert.assertTrue(root.mkdir());
+    }
+
+    @After
+    public void tearDown() {
+        delete(root);
+    }
+
+    @Test
+    public void testChunkedDeploymentIsReadAsWholeFile() throws Exception {
+        final byte[] bytes = new byte[1024 * 1024];
+        new Random(1).nextBytes(bytes);
+        // a deployment stored while the domain repository was chunked
+        final byte[] hash = new ContentRepositoryImpl(root, true) {}.addContent(new ByteArrayInputStream(bytes));
+
+        final LocalFileRepository repository = new LocalFileRepository(root, root, root);
+        final File[] files = repository.getDeploymentFiles(hash);
+        Assert.assertNotNull(files);
+        Assert.assertEquals(1, files.length);
+        Assert.assertEquals("content", files[0].getName());
+        Assert.assertTrue(Arrays.equals(bytes, read(files[0])));
+
+        // and it stays readable afterwards
+        Assert.assertTrue(Arrays.equals(bytes, read(repository.getDeploymentFiles(hash)[0])));
+    }
+
+    @Test
+    public void testWholeFileDeploymentIsUnchanged() throws Exception {
+        final byte[] bytes = new byte[64 * 1024];
+        new Random(1).nextBytes(bytes);
+        final byte[] hash = new ContentRepositoryImpl(root, false) {}.addContent(new ByteArrayInputStream(bytes));
+
+        final File[] files = new LocalFileRepository(root, root, root).getDeploymentFiles(hash);
+        Assert.assertEquals(1, files.length);
+        Assert.assertTrue(Arrays.equals(bytes, read(files[0])));
+    }
+
+    private static byte[] read(final File file) throws IOException {
+        final byte[] bytes = new byte[(int) file.length()];
+        final DataInputStream in = new DataInputStream(new FileInputStream(file));
+        try {
+            in.readFully(bytes);
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
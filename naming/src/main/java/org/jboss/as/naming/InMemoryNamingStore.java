@@ -22,7 +22,6 @@
 
 package org.jboss.as.naming;
 
-import java.util.concurrent.locks.ReentrantLock;
 import javax.naming.Binding;
 import javax.naming.CannotProceedException;
 import javax.naming.CompositeName;
@@ -42,6 +41,8 @@ import java.util.Hashtable;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import static org.jboss.as.naming.util.NamingUtils.cannotProceedException;
 import static org.jboss.as.naming.util.NamingUtils.emptyNameException;
 import static org.jboss.as.naming.util.NamingUtils.getLastComponent;
@@ -56,6 +57,9 @@ import static org.jboss.as.naming.util.NamingUtils.notAContextException;
  * In-memory implementation of the NamingStore.  The backing for the entries is a basic tree structure with either context
  * nodes or binding nodes.  The context nodes are allowed to have children and can be represented by a NamingContext.  A
  * binding node is only allowed to have a normal object binding.
+ * <p/>
+ * Lookups do not lock, they read the copy-on-write children of the context nodes. Updates lock only the context node
+ * that is modified, so updates of different contexts do not contend.
  *
  * @author John E. Bailey
  */
@@ -67,8 +71,6 @@ public class InMemoryNamingStore implements WritableNamingStore {
     /* Naming Event Coordinator */
     private final NamingEventCoordinator eventCoordinator;
 
-    private final ReentrantLock writeLock = new ReentrantLock();
-
     /**
      * Construct instance with no event support.
      */
@@ -97,11 +99,8 @@ public class InMemoryNamingStore implements WritableNamingStore {
         }
         checkPermissions(name, JndiPermission.Action.BIND);
 
-        writeLock.lock();
-        try {
-            root.accept(new BindVisitor(true, name, object, bindType.getName()));
-        } finally {
-            writeLock.unlock();
+        while (!root.accept(new BindVisitor(true, name, object, bindType.getName()))) {
+            // the context was removed concurrently, bind again to recreate it
         }
     }
 
@@ -117,11 +116,8 @@ public class InMemoryNamingStore implements WritableNamingStore {
         }
         checkPermissions(name, JndiPermission.Action.REBIND);
 
-        writeLock.lock();
-        try {
-            root.accept(new RebindVisitor(name, object, bindType.getName()));
-        } finally {
-            writeLock.unlock();
+        while (!root.accept(new RebindVisitor(name, object, bindType.getName()))) {
+            // the context was removed concurrently, look it up again
         }
     }
 
@@ -137,11 +133,8 @@ public class InMemoryNamingStore implements WritableNamingStore {
         }
         checkPermissions(name, JndiPermission.Action.UNBIND);
 
-        writeLock.lock();
-        try {
-            root.accept(new UnbindVisitor(name));
-        } finally {
-            writeLock.unlock();
+        while (!root.accept(new UnbindVisitor(name))) {
+            // the context was removed concurrently, look it up again
         }
     }
 
@@ -159,7 +152,29 @@ public class InMemoryNamingStore implements WritableNamingStore {
             return new NamingContext(emptyName, this, new Hashtable<String, Object>());
         }
         checkPermissions(name, JndiPermission.Action.LOOKUP);
-        return root.accept(new LookupVisitor(name));
+
+        // walk the tree directly rather than with a visitor, so that a successful lookup does not allocate
+        final int size = name.size();
+        TreeNode node = root;
+        for (int i = 0; i < size; i++) {
+            final String childName = name.get(i);
+            if (i == size - 1 && childName.length() == 0) {
+                // a trailing empty component names the node itself
+                break;
+            }
+            if (node instanceof BindingNode) {
+                final Name remainingName = name.getSuffix(i);
+                final Object boundObject = node.binding.getObject();
+                checkReferenceForContinuation(remainingName, boundObject);
+                return new ResolveResult(boundObject, remainingName);
+            }
+            final ContextNode contextNode = (ContextNode) node;
+            node = contextNode.children.get(childName);
+            if (node == null) {
+                throw nameNotFoundException(childName, contextNode.fullName);
+            }
+        }
+        return node.binding.getObject();
     }
 
     /**
@@ -194,11 +209,51 @@ public class InMemoryNamingStore implements WritableNamingStore {
      * @throws NamingException
      */
     public void close() throws NamingException {
-        writeLock.lock();
+        // mark every context as removed before it is detached, so an update that has already reached one starts
+        // over from the root instead of binding into a context that is no longer part of the tree
+        for (;;) {
+            for (TreeNode child : root.children.values()) {
+                if (child instanceof ContextNode) {
+                    markRemoved((ContextNode) child);
+                }
+            }
+            root.lock.lock();
+            try {
+                // no context can be added to the root while it is locked, check nothing was added since
+                boolean removed = true;
+                for (TreeNode child : root.children.values()) {
+                    if (child instanceof ContextNode && !((ContextNode) child).removed) {
+                        removed = false;
+                        break;
+                    }
+                }
+                if (removed) {
+                    root.clear();
+                    return;
+                }
+            } finally {
+                root.lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Marks a context and all contexts below it as removed. Each context is locked on its own, and once it is marked
+     * no children can be added to it, so its children can be visited after unlocking it.
+     */
+    private void markRemoved(final ContextNode contextNode) {
+        final Map<String, TreeNode> children;
+        contextNode.lock.lock();
         try {
-            root.clear();
+            contextNode.removed = true;
+            children = contextNode.children;
         } finally {
-            writeLock.unlock();
+            contextNode.lock.unlock();
+        }
+        for (TreeNode child : children.values()) {
+            if (child instanceof ContextNode) {
+                markRemoved((ContextNode) child);
+            }
         }
     }
 
@@ -271,6 +326,10 @@ public class InMemoryNamingStore implements WritableNamingStore {
         volatile Map<String, TreeNode> children = Collections.emptyMap();
         protected final String name;
         protected final ContextNode parentNode;
+        /* Guards updates of the children; when locking a parent as well, the child must be locked first */
+        private final Lock lock = new ReentrantLock();
+        /* Whether the node has been removed from its parent, only set with the lock held */
+        private volatile boolean removed;
 
         private ContextNode(final ContextNode parentNode, final String name, final Name fullName, final NamingContext context) {
             super(fullName, new Binding(getLastComponent(fullName), Context.class.getName(), context));
@@ -294,7 +353,15 @@ public class InMemoryNamingStore implements WritableNamingStore {
                 throw nameNotFoundException(childName, fullName);
             }
             if(parentNode != null && children.isEmpty()) {
-                childrenUpdater.remove(parentNode, name);
+                parentNode.lock.lock();
+                try {
+                    if (parentNode.children.get(name) == this) {
+                        removed = true;
+                        childrenUpdater.remove(parentNode, name);
+                    }
+                } finally {
+                    parentNode.lock.unlock();
+                }
             }
             return old;
         }
@@ -307,9 +374,22 @@ public class InMemoryNamingStore implements WritableNamingStore {
             return visitor.visit(this);
         }
 
+        /**
+         * Add a child unless a child of that name exists.
+         *
+         * @return the child of that name, or {@code null} if this node has been removed from the tree
+         */
         public TreeNode addOrGetChild(final String childName, final TreeNode childNode) {
-            TreeNode appearing = childrenUpdater.putIfAbsent(this, childName, childNode);
-            return appearing == null ? childNode : appearing;
+            lock.lock();
+            try {
+                if (removed) {
+                    return null;
+                }
+                TreeNode appearing = childrenUpdater.putIfAbsent(this, childName, childNode);
+                return appearing == null ? childNode : appearing;
+            } finally {
+                lock.unlock();
+            }
         }
     }
 
@@ -363,7 +443,11 @@ public class InMemoryNamingStore implements WritableNamingStore {
             if (node == null) {
                 if (createIfMissing) {
                     final NamingContext subContext = new NamingContext((Name)traversedName.clone(), InMemoryNamingStore.this, new Hashtable<String, Object>());
-                    return contextNode.addOrGetChild(childName, new ContextNode(contextNode, childName, (Name)traversedName.clone(), subContext)).accept(this);
+                    final TreeNode child = contextNode.addOrGetChild(childName, new ContextNode(contextNode, childName, (Name)traversedName.clone(), subContext));
+                    if (child == null) {
+                        return foundRemovedContext(contextNode);
+                    }
+                    return child.accept(this);
                 } else {
                     throw nameNotFoundException(childName, contextNode.fullName);
                 }
@@ -375,6 +459,10 @@ public class InMemoryNamingStore implements WritableNamingStore {
 
         protected abstract T found(BindingNode bindingNode) throws NamingException;
 
+        protected T foundRemovedContext(ContextNode contextNode) throws NamingException {
+            throw nameNotFoundException(contextNode.name, contextNode.parentNode.fullName);
+        }
+
         protected T foundReferenceInsteadOfContext(BindingNode bindingNode) throws NamingException {
             final Object object = bindingNode.binding.getObject();
             checkReferenceForContinuation(currentName, object);
@@ -382,7 +470,11 @@ public class InMemoryNamingStore implements WritableNamingStore {
         }
     }
 
-    private abstract class BindingContextVisitor<T> extends NodeTraversingVisitor<T> {
+    /**
+     * Visitor that updates the context a name is bound in, with the context locked. Returns {@code false} if the
+     * context was removed before it could be locked, in which case the update has to be retried with a new visitor.
+     */
+    private abstract class BindingContextVisitor extends NodeTraversingVisitor<Boolean> {
         protected final Name targetName;
 
         protected BindingContextVisitor(final boolean createIfMissing, final Name targetName) {
@@ -394,19 +486,32 @@ public class InMemoryNamingStore implements WritableNamingStore {
             this(false, targetName);
         }
 
-        protected final T found(final ContextNode contextNode) throws NamingException {
-            return foundBindContext(contextNode);
+        protected final Boolean found(final ContextNode contextNode) throws NamingException {
+            contextNode.lock.lock();
+            try {
+                if (contextNode.removed) {
+                    return Boolean.FALSE;
+                }
+                foundBindContext(contextNode);
+                return Boolean.TRUE;
+            } finally {
+                contextNode.lock.unlock();
+            }
+        }
+
+        protected final Boolean foundRemovedContext(final ContextNode contextNode) throws NamingException {
+            return Boolean.FALSE;
         }
 
-        protected final T found(final BindingNode bindingNode) throws NamingException {
+        protected final Boolean found(final BindingNode bindingNode) throws NamingException {
             checkReferenceForContinuation(targetName.getSuffix(bindingNode.fullName.size()), bindingNode.binding.getObject());
             throw notAContextException(targetName);
         }
 
-        protected abstract T foundBindContext(final ContextNode contextNode) throws NamingException;
+        protected abstract void foundBindContext(final ContextNode contextNode) throws NamingException;
     }
 
-    private final class BindVisitor extends BindingContextVisitor<Void> {
+    private final class BindVisitor extends BindingContextVisitor {
         private final Object object;
         private final String className;
 
@@ -416,17 +521,16 @@ public class InMemoryNamingStore implements WritableNamingStore {
             this.className = className;
         }
 
-        protected Void foundBindContext(final ContextNode contextNode) throws NamingException {
+        protected void foundBindContext(final ContextNode contextNode) throws NamingException {
             final String childName = getLastComponent(targetName);
             final Binding binding = new Binding(childName, className, object, true);
             final BindingNode bindingNode = new BindingNode(targetName, binding);
             contextNode.addChild(childName, bindingNode);
             fireEvent(contextNode, targetName, null, binding, NamingEvent.OBJECT_ADDED, "bind");
-            return null;
         }
     }
 
-    private final class RebindVisitor extends BindingContextVisitor<Void> {
+    private final class RebindVisitor extends BindingContextVisitor {
         private final Object object;
         private final String className;
 
@@ -436,7 +540,7 @@ public class InMemoryNamingStore implements WritableNamingStore {
             this.className = className;
         }
 
-        protected Void foundBindContext(final ContextNode contextNode) throws NamingException {
+        protected void foundBindContext(final ContextNode contextNode) throws NamingException {
             final String childName = getLastComponent(targetName);
             final Binding binding = new Binding(childName, className, object, true);
             final BindingNode bindingNode = new BindingNode(targetName, binding);
@@ -444,41 +548,18 @@ public class InMemoryNamingStore implements WritableNamingStore {
 
             final Binding previousBinding = previous != null ? previous.binding : null;
             fireEvent(contextNode, targetName, previousBinding, binding, previousBinding != null ? NamingEvent.OBJECT_CHANGED : NamingEvent.OBJECT_ADDED, "rebind");
-            return null;
         }
     }
 
-    private final class UnbindVisitor extends BindingContextVisitor<Void> {
+    private final class UnbindVisitor extends BindingContextVisitor {
 
         private UnbindVisitor(final Name targetName) throws NamingException {
             super(targetName);
         }
 
-        protected Void foundBindContext(final ContextNode contextNode) throws NamingException {
+        protected void foundBindContext(final ContextNode contextNode) throws NamingException {
             final TreeNode previous = contextNode.removeChild(getLastComponent(targetName));
             fireEvent(contextNode, targetName, previous.binding, null, NamingEvent.OBJECT_REMOVED, "unbind");
-            return null;
-        }
-    }
-
-    private final class LookupVisitor extends NodeTraversingVisitor<Object> {
-        private LookupVisitor(final Name targetName) {
-            super(targetName);
-        }
-
-        protected Object found(final ContextNode contextNode) throws NamingException {
-            return contextNode.binding.getObject();
-        }
-
-        protected Object found(final BindingNode bindingNode) throws NamingException {
-            return bindingNode.binding.getObject();
-        }
-
-        protected Object foundReferenceInsteadOfContext(final BindingNode bindingNode) throws NamingException {
-            final Name remainingName = targetName.getSuffix(bindingNode.fullName.size());
-            final Object boundObject = bindingNode.binding.getObject();
-            checkReferenceForContinuation(remainingName, boundObject);
-            return new ResolveResult(boundObject, remainingName);
         }
     }
 
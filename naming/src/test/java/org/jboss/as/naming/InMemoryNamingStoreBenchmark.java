@@ -0,0 +1,120 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+package org.jboss.as.naming;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.naming.CompositeName;
+import javax.naming.Name;
+
+/**
+ * Measures the throughput of {@link InMemoryNamingStore#lookup(Name)} of {@code java:comp/env} entries for 1 to 16
+ * concurrent threads, while another thread keeps binding and unbinding entries in a different context. This is not
+ * run as part of the test suite, run it with:
+ * <pre>
+ * java -cp ... org.jboss.as.naming.InMemoryNamingStoreBenchmark [seconds-per-run] [max-threads]
+ * </pre>
+ */
+public class InMemoryNamingStoreBenchmark {
+
+    private static final int ENTRIES = 64;
+
+    public static void main(String[] args) throws Exception {
+        final int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        final int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+
+        final InMemoryNamingStore store = new InMemoryNamingStore();
+        final Name[] names = new Name[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            names[i] = new CompositeName("java:comp/env/entry" + i);
+            store.bind(names[i], "value" + i);
+        }
+        // warm up
+        run(store, names, 1, 1);
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            final long lookups = run(store, names, threads, seconds);
+            System.out.printf("%2d threads: %,14d lookups/s%n", threads, lookups / seconds);
+        }
+        store.close();
+    }
+
+    private static long run(final InMemoryNamingStore store, final Name[] names, final int threads, final int seconds) throws Exception {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final long[] counts = new long[threads];
+        for (int i = 0; i < threads; i++) {
+            final int thread = i;
+            new Thread(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                        long count = 0;
+                        int next = thread;
+                        while (running.get()) {
+                            if (store.lookup(names[next]) == null) {
+                                throw new IllegalStateException("No binding for " + names[next]);
+                            }
+                            next = (next + 1) % names.length;
+                            count++;
+                        }
+                        counts[thread] = count;
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        final Thread writer = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    final Name name = new CompositeName("java:global/app/module/bean");
+                    start.await();
+                    while (running.get()) {
+                        store.bind(name, "bean");
+                        store.unbind(name);
+                    }
+                } catch (Throwable t) {
+                    failure.compareAndSet(null, t);
+                }
+            }
+        });
+        writer.start();
+        start.countDown();
+        Thread.sleep(seconds * 1000L);
+        running.set(false);
+        done.await();
+        writer.join();
+        if (failure.get() != null) {
+            throw new IllegalStateException("Lookup failed", failure.get());
+        }
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
@@ -39,6 +39,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -265,4 +266,67 @@ public class InMemoryNamingStoreTestCase {
             fail("Should have throw name not found exception");
         } catch (NameNotFoundException expected){}
     }
+
+    @Test
+    public void testConcurrentAutoRemove() throws Exception {
+        // one thread keeps emptying a context, which removes it, while another binds into it
+        final int iterations = 10000;
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final Thread remover = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    final Name name = new CompositeName("test/removed");
+                    for (int i = 0; i < iterations; i++) {
+                        nameStore.bind(name, new Object());
+                        nameStore.unbind(name);
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        });
+        remover.start();
+        for (int i = 0; i < iterations; i++) {
+            final Name name = new CompositeName("test/nested/item" + i);
+            final Object object = new Object();
+            nameStore.bind(name, object);
+            assertEquals(object, nameStore.lookup(name));
+            nameStore.unbind(name);
+        }
+        remover.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+    }
+
+    @Test
+    public void testConcurrentClose() throws Exception {
+        // one thread keeps closing the store while another binds into nested contexts
+        final int iterations = 10000;
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final Thread closer = new Thread(new Runnable() {
+            public void run() {
+                try {
+                    for (int i = 0; i < iterations; i++) {
+                        nameStore.close();
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        });
+        closer.start();
+        for (int i = 0; i < iterations; i++) {
+            nameStore.bind(new CompositeName("test/nested/item" + i), new Object());
+        }
+        closer.join();
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        nameStore.close();
+        final Name name = new CompositeName("test/nested/item");
+        final Object object = new Object();
+        nameStore.bind(name, object);
+        assertEquals(object, nameStore.lookup(name));
+    }
 }
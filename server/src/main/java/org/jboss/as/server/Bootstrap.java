@@ -29,6 +29,7 @@ import javax.xml.namespace.QName;
 import org.jboss.as.controller.parsing.Namespace;
 import org.jboss.as.controller.parsing.StandaloneXml;
 import org.jboss.as.controller.persistence.BackupXmlConfigurationPersister;
+import org.jboss.as.controller.persistence.CoalescingXmlConfigurationPersister;
 import org.jboss.as.controller.persistence.ExtensibleConfigurationPersister;
 import org.jboss.as.controller.persistence.NullConfigurationPersister;
 import org.jboss.modules.Module;
@@ -137,7 +138,10 @@ public interface Bootstrap {
                 else {
                     QName rootElement = new QName(Namespace.CURRENT.getUriString(), "server");
                     StandaloneXml parser = new StandaloneXml(Module.getBootModuleLoader());
-                    BackupXmlConfigurationPersister persister = new BackupXmlConfigurationPersister(serverEnvironment.getServerConfigurationFile(), rootElement, parser, parser);
+                    final long window = ServerEnvironment.getConfigurationPersistWindow();
+                    BackupXmlConfigurationPersister persister = window < 0
+                            ? new BackupXmlConfigurationPersister(serverEnvironment.getServerConfigurationFile(), rootElement, parser, parser)
+                            : new CoalescingXmlConfigurationPersister(serverEnvironment.getServerConfigurationFile(), rootElement, parser, parser, window);
                     persister.registerAdditionalRootElement(new QName(Namespace.DOMAIN_1_0.getUriString(), "server"), parser);
                     configurationPersister = persister;
                 }
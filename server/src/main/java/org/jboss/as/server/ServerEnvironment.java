@@ -169,6 +169,13 @@ public class ServerEnvironment implements Serializable {
      */
     public static final String BOOTSTRAP_MAX_THREADS = "org.jboss.server.bootstrap.maxThreads";
 
+    /**
+     * Constant that holds the name of the system property for specifying the time in milliseconds that configuration
+     * changes are collected for before the configuration file is written. If not set, the file is written as part of
+     * every operation that changes the configuration.
+     */
+    public static final String CONFIG_PERSIST_WINDOW = "org.jboss.server.config.persistWindow";
+
     /**
      * The default system property used to store bind address information from the command-line (-b).
      */
@@ -449,6 +456,23 @@ public class ServerEnvironment implements Serializable {
         return defaultThreads;
     }
 
+    /**
+     * Determine the time that configuration changes are collected for before the configuration file is written. This
+     * reads the #CONFIG_PERSIST_WINDOW system property.
+     * @return the time in milliseconds, or -1 if the file should be written as part of every operation
+     */
+    public static long getConfigurationPersistWindow() {
+        String window = SecurityActions.getSystemProperty(CONFIG_PERSIST_WINDOW);
+        if (window != null && window.length() > 0) {
+            try {
+                return Math.max(Long.decode(window), 0);
+            } catch(NumberFormatException ex) {
+                log.warnf(ex, "Failed to parse property(%s), value(%s) as a long", CONFIG_PERSIST_WINDOW, window);
+            }
+        }
+        return -1;
+    }
+
     /**
      * Get a File from configuration.
      *
@@ -23,9 +23,14 @@
 package org.jboss.as.server;
 
 import java.io.File;
+import java.security.AccessController;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.jboss.as.controller.AbstractControllerService;
 import org.jboss.as.controller.BootContext;
@@ -48,6 +53,7 @@ import org.jboss.as.server.deployment.DeploymentUnitProcessor;
 import org.jboss.as.server.deployment.Phase;
 import org.jboss.as.server.deployment.ServiceLoaderProcessor;
 import org.jboss.as.server.deployment.SubDeploymentProcessor;
+import org.jboss.as.server.deployment.annotation.AnnotationIndexCache;
 import org.jboss.as.server.deployment.annotation.AnnotationIndexProcessor;
 import org.jboss.as.server.deployment.annotation.CompositeIndexProcessor;
 import org.jboss.as.server.deployment.integration.Seam2Processor;
@@ -88,12 +94,16 @@ import org.jboss.msc.service.StartContext;
 import org.jboss.msc.service.StartException;
 import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
+import org.jboss.threads.JBossThreadFactory;
 
 /**
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 public final class ServerService extends AbstractControllerService {
 
+    /** Shared by the index pools of successive boots, so that a reload does not leave an empty group behind */
+    private static final ThreadGroup INDEX_THREAD_GROUP = new ThreadGroup("AnnotationIndex-threads");
+
     private final InjectedValue<ServerDeploymentRepository> injectedDeploymentRepository = new InjectedValue<ServerDeploymentRepository>();
     private final InjectedValue<ContentRepository> injectedContentRepository = new InjectedValue<ContentRepository>();
     private final InjectedValue<ServiceModuleLoader> injectedModuleLoader = new InjectedValue<ServiceModuleLoader>();
@@ -102,6 +112,8 @@ public final class ServerService extends AbstractControllerService {
     private final Bootstrap.Configuration configuration;
     private final BootstrapListener bootstrapListener;
     private final ControlledProcessState processState;
+    /** Indexes the resource roots of deployments, created on boot and shut down on stop */
+    private volatile ThreadPoolExecutor indexExecutor;
 
     /**
      * Construct a new instance.
@@ -168,7 +180,14 @@ public final class ServerService extends AbstractControllerService {
         DeployerChainAddHandler.addDeploymentProcessor(Phase.STRUCTURE, Phase.STRUCTURE_ADDITIONAL_MANIFEST, new ManifestAttachmentProcessor());
         DeployerChainAddHandler.addDeploymentProcessor(Phase.STRUCTURE, Phase.STRUCTURE_SUB_DEPLOYMENT, new SubDeploymentProcessor());
         DeployerChainAddHandler.addDeploymentProcessor(Phase.STRUCTURE, Phase.STRUCTURE_MODULE_IDENTIFIERS, new ModuleIdentifierProcessor());
-        DeployerChainAddHandler.addDeploymentProcessor(Phase.STRUCTURE, Phase.STRUCTURE_ANNOTATION_INDEX, new AnnotationIndexProcessor());
+        final AnnotationIndexCache indexCache = new AnnotationIndexCache(new File(serverEnvironment.getServerDataDir(), "annotation-index"), AnnotationIndexCache.DEFAULT_MAX_CONTENTS);
+        // resource roots are indexed in parallel, by at most as many threads as there are processors
+        final int indexThreads = Runtime.getRuntime().availableProcessors();
+        final ThreadFactory indexThreadFactory = new JBossThreadFactory(INDEX_THREAD_GROUP, Boolean.TRUE, null, "%G - %t", null, null, AccessController.getContext());
+        final ThreadPoolExecutor indexExecutor = new ThreadPoolExecutor(indexThreads, indexThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), indexThreadFactory);
+        indexExecutor.allowCoreThreadTimeOut(true);
+        this.indexExecutor = indexExecutor;
+        DeployerChainAddHandler.addDeploymentProcessor(Phase.STRUCTURE, Phase.STRUCTURE_ANNOTATION_INDEX, new AnnotationIndexProcessor(indexCache, indexExecutor));
         DeployerChainAddHandler.addDeploymentProcessor(Phase.PARSE, Phase.PARSE_STRUCTURE_DESCRIPTOR, new DeploymentStructureDescriptorParser());
         DeployerChainAddHandler.addDeploymentProcessor(Phase.PARSE, Phase.PARSE_DEPENDENCIES_MANIFEST, new ManifestDependencyProcessor());
         DeployerChainAddHandler.addDeploymentProcessor(Phase.PARSE, Phase.PARSE_COMPOSITE_ANNOTATION_INDEX, new CompositeIndexProcessor());
@@ -212,6 +231,12 @@ public final class ServerService extends AbstractControllerService {
 
     public void stop(final StopContext context) {
         super.stop(context);
+        // the deployments are stopped by now, and a reload boots with a new pool
+        final ThreadPoolExecutor indexExecutor = this.indexExecutor;
+        this.indexExecutor = null;
+        if (indexExecutor != null) {
+            indexExecutor.shutdown();
+        }
     }
 
     @Override
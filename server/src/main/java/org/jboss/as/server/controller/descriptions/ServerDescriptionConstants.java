@@ -35,4 +35,8 @@ public final class ServerDescriptionConstants {
     public static final String PROCESS_TYPE = "process-type";
 
     public static final String LAUNCH_TYPE = "launch-type";
+
+    public static final String CONFIG_PERSIST_LATENCY = "config-persist-latency";
+
+    public static final String CONFIG_PERSIST_QUEUE_DEPTH = "config-persist-queue-depth";
 }
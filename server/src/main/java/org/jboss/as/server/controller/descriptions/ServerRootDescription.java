@@ -51,6 +51,9 @@ import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SUB
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.SYSTEM_PROPERTY;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.TAIL_COMMENT_ALLOWED;
 import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.TYPE;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.UNIT;
+import static org.jboss.as.server.controller.descriptions.ServerDescriptionConstants.CONFIG_PERSIST_LATENCY;
+import static org.jboss.as.server.controller.descriptions.ServerDescriptionConstants.CONFIG_PERSIST_QUEUE_DEPTH;
 import static org.jboss.as.server.controller.descriptions.ServerDescriptionConstants.LAUNCH_TYPE;
 import static org.jboss.as.server.controller.descriptions.ServerDescriptionConstants.PROCESS_TYPE;
 import static org.jboss.as.server.controller.descriptions.ServerDescriptionConstants.PROFILE_NAME;
@@ -59,6 +62,7 @@ import static org.jboss.as.server.controller.descriptions.ServerDescriptionConst
 import java.util.Locale;
 import java.util.ResourceBundle;
 
+import org.jboss.as.controller.client.helpers.MeasurementUnit;
 import org.jboss.as.controller.descriptions.common.CommonDescriptions;
 import org.jboss.as.server.ServerEnvironment;
 import org.jboss.dmr.ModelNode;
@@ -119,6 +123,17 @@ public class ServerRootDescription {
         root.get(ATTRIBUTES, LAUNCH_TYPE, ALLOWED).add(ServerEnvironment.LaunchType.STANDALONE.toString());
         root.get(ATTRIBUTES, LAUNCH_TYPE, ALLOWED).add(ServerEnvironment.LaunchType.EMBEDDED.toString());
 
+        root.get(ATTRIBUTES, CONFIG_PERSIST_LATENCY, DESCRIPTION).set(bundle.getString("server.config-persist-latency"));
+        root.get(ATTRIBUTES, CONFIG_PERSIST_LATENCY, TYPE).set(ModelType.LONG);
+        root.get(ATTRIBUTES, CONFIG_PERSIST_LATENCY, REQUIRED).set(false);
+        root.get(ATTRIBUTES, CONFIG_PERSIST_LATENCY, NILLABLE).set(true);
+        root.get(ATTRIBUTES, CONFIG_PERSIST_LATENCY, UNIT).set(MeasurementUnit.MILLISECONDS.getName());
+
+        root.get(ATTRIBUTES, CONFIG_PERSIST_QUEUE_DEPTH, DESCRIPTION).set(bundle.getString("server.config-persist-queue-depth"));
+        root.get(ATTRIBUTES, CONFIG_PERSIST_QUEUE_DEPTH, TYPE).set(ModelType.INT);
+        root.get(ATTRIBUTES, CONFIG_PERSIST_QUEUE_DEPTH, REQUIRED).set(true);
+        root.get(ATTRIBUTES, CONFIG_PERSIST_QUEUE_DEPTH, NILLABLE).set(false);
+
         root.get(OPERATIONS);
 
         root.get(CHILDREN, EXTENSION, DESCRIPTION).set(bundle.getString("server.extension"));
@@ -26,6 +26,7 @@ import java.util.Set;
 import java.util.jar.Manifest;
 
 import org.jboss.as.controller.ServiceVerificationHandler;
+import org.jboss.as.server.deployment.annotation.AnnotationIndexCache;
 import org.jboss.as.server.deployment.annotation.AnnotationIndexProcessor;
 import org.jboss.as.server.deployment.annotation.CompositeIndex;
 import org.jboss.as.server.deployment.module.AdditionalModuleSpecification;
@@ -82,9 +83,9 @@ public final class Attachments {
     public static final AttachmentKey<VirtualFile> DEPLOYMENT_CONTENTS = AttachmentKey.create(VirtualFile.class);
 
     /**
-     * The deployment hash
+     * The hash of the deployment contents, if they are in the content repository
      */
-    //public static final AttachmentKey<byte[]> DEPLOYMENT_HASH = AttachmentKey.create(byte[].class);
+    public static final AttachmentKey<byte[]> DEPLOYMENT_HASH = AttachmentKey.create(byte[].class);
 
     /**
      * The special status listener attachment.
@@ -155,6 +156,11 @@ public final class Attachments {
      */
     public static final AttachmentKey<CompositeIndex> COMPOSITE_ANNOTATION_INDEX = AttachmentKey.create(CompositeIndex.class);
 
+    /**
+     * How many of the annotation indexes of this deployment and its sub deployments were found in the cache.
+     */
+    public static final AttachmentKey<AnnotationIndexCache.Statistics> ANNOTATION_INDEX_CACHE_STATISTICS = AttachmentKey.create(AnnotationIndexCache.Statistics.class);
+
     /**
      * Flag to indicate whether to compute the composite annotation index for this deployment.  Absence of this flag will
      * be cause the composite index to be attached.
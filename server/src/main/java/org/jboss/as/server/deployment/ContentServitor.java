@@ -27,6 +27,9 @@ import org.jboss.msc.service.AbstractService;
 import org.jboss.msc.service.ServiceController;
 import org.jboss.msc.service.ServiceName;
 import org.jboss.msc.service.ServiceTarget;
+import org.jboss.msc.service.StartContext;
+import org.jboss.msc.service.StartException;
+import org.jboss.msc.service.StopContext;
 import org.jboss.msc.value.InjectedValue;
 import org.jboss.vfs.VirtualFile;
 
@@ -36,6 +39,7 @@ import org.jboss.vfs.VirtualFile;
 class ContentServitor extends AbstractService<VirtualFile> {
     private final InjectedValue<ContentRepository> contentRepositoryInjectedValue = new InjectedValue<ContentRepository>();
     private final byte[] hash;
+    private volatile VirtualFile content;
 
     ContentServitor(final byte[] hash) {
         assert hash != null : "hash is null";
@@ -50,8 +54,24 @@ class ContentServitor extends AbstractService<VirtualFile> {
             .install();
     }
 
+    @Override
+    public void start(final StartContext context) throws StartException {
+        content = contentRepositoryInjectedValue.getValue().getContent(hash);
+    }
+
+    @Override
+    public void stop(final StopContext context) {
+        content = null;
+        // lets the repository clean up the copy of the content it may have made for the deployment
+        contentRepositoryInjectedValue.getValue().releaseContent(hash);
+    }
+
     @Override
     public VirtualFile getValue() throws IllegalStateException, IllegalArgumentException {
-        return contentRepositoryInjectedValue.getValue().getContent(hash);
+        final VirtualFile content = this.content;
+        if (content == null) {
+            throw new IllegalStateException("Content service is not started");
+        }
+        return content;
     }
 }
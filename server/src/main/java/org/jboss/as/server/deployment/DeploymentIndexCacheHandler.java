@@ -0,0 +1,68 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.INDEX_CACHE_HITS;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.INDEX_CACHE_MISSES;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.OP_ADDR;
+
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.OperationStepHandler;
+import org.jboss.as.controller.PathAddress;
+import org.jboss.as.controller.PathElement;
+import org.jboss.as.server.deployment.annotation.AnnotationIndexCache;
+import org.jboss.dmr.ModelNode;
+import org.jboss.msc.service.ServiceController;
+
+/**
+ * Reads how many of the annotation indexes of a deployment were found in the index cache.
+ */
+public class DeploymentIndexCacheHandler implements OperationStepHandler {
+    public static final String[] ATTRIBUTE_NAMES = {INDEX_CACHE_HITS, INDEX_CACHE_MISSES};
+    public static final OperationStepHandler INSTANCE = new DeploymentIndexCacheHandler();
+
+    @Override
+    public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+        final PathAddress address = PathAddress.pathAddress(operation.get(OP_ADDR));
+        final PathElement element = address.getLastElement();
+        final String attributeName = operation.require(NAME).asString();
+
+        context.addStep(new OperationStepHandler() {
+                    @Override
+                    public void execute(final OperationContext context, final ModelNode operation) throws OperationFailedException {
+                        final ServiceController<?> controller = context.getServiceRegistry(false).getService(Services.deploymentUnitName(element.getValue()));
+                        if (controller != null && controller.getState() == ServiceController.State.UP) {
+                            final DeploymentUnit deploymentUnit = (DeploymentUnit) controller.getValue();
+                            final AnnotationIndexCache.Statistics statistics = deploymentUnit.getAttachment(Attachments.ANNOTATION_INDEX_CACHE_STATISTICS);
+                            if (statistics != null) {
+                                context.getResult().set(INDEX_CACHE_HITS.equals(attributeName) ? statistics.getHits() : statistics.getMisses());
+                            }
+                        }
+                        context.completeStep();
+                    }
+                }, OperationContext.Stage.RUNTIME);
+        context.completeStep();
+    }
+}
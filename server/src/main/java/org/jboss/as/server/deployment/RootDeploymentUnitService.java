@@ -25,6 +25,7 @@ package org.jboss.as.server.deployment;
 import org.jboss.as.controller.ServiceVerificationHandler;
 import org.jboss.as.controller.registry.ImmutableManagementResourceRegistration;
 import org.jboss.as.controller.registry.Resource;
+import org.jboss.as.server.deployment.annotation.AnnotationIndexCache;
 import org.jboss.as.server.deployment.repository.api.ServerDeploymentRepository;
 import org.jboss.msc.inject.Injector;
 import org.jboss.msc.service.ServiceRegistry;
@@ -40,6 +41,7 @@ final class RootDeploymentUnitService extends AbstractDeploymentUnitService {
     private final InjectedValue<ServerDeploymentRepository> serverDeploymentRepositoryInjector = new InjectedValue<ServerDeploymentRepository>();
     private final String name;
     private final String managementName;
+    private final byte[] hash;
     final InjectedValue<VirtualFile> contentsInjector = new InjectedValue<VirtualFile>();
     private final DeploymentUnit parent;
     private final ImmutableManagementResourceRegistration registration;
@@ -51,16 +53,18 @@ final class RootDeploymentUnitService extends AbstractDeploymentUnitService {
      *
      * @param name the deployment unit simple name
      * @param managementName the deployment's domain-wide unique name
+     * @param hash the hash of the deployment contents, or {@code null} if they are not in the content repository
      * @param parent the parent deployment unit
      * @param registration the registration
      * @param resource the model
      * @param serviceVerificationHandler
      */
-    public RootDeploymentUnitService(final String name, final String managementName, final DeploymentUnit parent, final ImmutableManagementResourceRegistration registration, Resource resource, final ServiceVerificationHandler serviceVerificationHandler) {
+    public RootDeploymentUnitService(final String name, final String managementName, final byte[] hash, final DeploymentUnit parent, final ImmutableManagementResourceRegistration registration, Resource resource, final ServiceVerificationHandler serviceVerificationHandler) {
         this.serviceVerificationHandler = serviceVerificationHandler;
         assert name != null : "name is null";
         this.name = name;
         this.managementName = managementName;
+        this.hash = hash;
         this.parent = parent;
         this.registration = registration;
         this.resource = resource;
@@ -71,6 +75,10 @@ final class RootDeploymentUnitService extends AbstractDeploymentUnitService {
         deploymentUnit.putAttachment(Attachments.RUNTIME_NAME, name);
         deploymentUnit.putAttachment(Attachments.MANAGEMENT_NAME, managementName);
         deploymentUnit.putAttachment(Attachments.DEPLOYMENT_CONTENTS, contentsInjector.getValue());
+        if (hash != null) {
+            deploymentUnit.putAttachment(Attachments.DEPLOYMENT_HASH, hash);
+        }
+        deploymentUnit.putAttachment(Attachments.ANNOTATION_INDEX_CACHE_STATISTICS, new AnnotationIndexCache.Statistics());
         deploymentUnit.putAttachment(DeploymentModelUtils.REGISTRATION_ATTACHMENT, registration);
         deploymentUnit.putAttachment(DeploymentModelUtils.DEPLOYMENT_RESOURCE, resource);
         deploymentUnit.putAttachment(Attachments.SERVICE_VERIFICATION_HANDLER, serviceVerificationHandler);
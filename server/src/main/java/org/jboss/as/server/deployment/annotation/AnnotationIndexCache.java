@@ -0,0 +1,232 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.annotation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.as.controller.HashUtil;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.IndexReader;
+import org.jboss.jandex.IndexWriter;
+import org.jboss.logging.Logger;
+import org.jboss.vfs.VFSUtils;
+
+/**
+ * A cache of generated annotation indexes, kept on disk so that it survives restarts.
+ * <p/>
+ * An index is keyed by the hash the content repository computed for the deployment content, together with the path
+ * of the indexed resource root within the deployment and the paths that were ignored when indexing it. Content with
+ * a given hash never changes, so a cached index never has to be invalidated; the indexes of the least recently used
+ * contents are removed once more than a maximum number of contents have indexes in the cache.
+ *
+ * @see AnnotationIndexProcessor
+ */
+public final class AnnotationIndexCache {
+
+    private static final Logger logger = Logger.getLogger(AnnotationIndexCache.class);
+
+    /**
+     * The default maximum number of deployment contents to keep indexes for.
+     */
+    public static final int DEFAULT_MAX_CONTENTS = 100;
+
+    private static final String SUFFIX = ".idx";
+
+    private final File root;
+    private final int maxContents;
+
+    /**
+     * Construct a new instance.
+     *
+     * @param root the directory to keep the indexes in
+     * @param maxContents the maximum number of deployment contents to keep indexes for
+     */
+    public AnnotationIndexCache(final File root, final int maxContents) {
+        if (root == null) {
+            throw new IllegalArgumentException("root is null");
+        }
+        if (maxContents < 1) {
+            throw new IllegalArgumentException("maxContents must be positive");
+        }
+        this.root = root;
+        this.maxContents = maxContents;
+    }
+
+    /**
+     * Read a cached index.
+     *
+     * @param contentHash the hash of the deployment content
+     * @param path the path of the resource root within the deployment content
+     * @param ignorePaths the paths ignored when indexing the resource root, or {@code null}
+     * @return the index, or {@code null} if it is not cached
+     */
+    Index read(final byte[] contentHash, final String path, final Collection<String> ignorePaths) {
+        final File contentDir = getContentDir(contentHash);
+        final File file = new File(contentDir, getFileName(path, ignorePaths));
+        if (!file.exists()) {
+            return null;
+        }
+        InputStream stream = null;
+        try {
+            stream = new BufferedInputStream(new FileInputStream(file));
+            final Index index = new IndexReader(stream).read();
+            // keep track of which contents are in use
+            contentDir.setLastModified(System.currentTimeMillis());
+            return index;
+        } catch (Exception e) {
+            logger.debugf(e, "Could not read cached index %s", file);
+            file.delete();
+            return null;
+        } finally {
+            VFSUtils.safeClose(stream);
+        }
+    }
+
+    /**
+     * Store an index in the cache.
+     *
+     * @param contentHash the hash of the deployment content
+     * @param path the path of the resource root within the deployment content
+     * @param ignorePaths the paths ignored when indexing the resource root, or {@code null}
+     * @param index the index
+     */
+    void write(final byte[] contentHash, final String path, final Collection<String> ignorePaths, final Index index) {
+        final File contentDir = getContentDir(contentHash);
+        final boolean newContent = !contentDir.exists();
+        if (newContent && !contentDir.mkdirs() && !contentDir.isDirectory()) {
+            logger.debugf("Could not create index cache directory %s", contentDir);
+            return;
+        }
+        final File file = new File(contentDir, getFileName(path, ignorePaths));
+        File temp = null;
+        OutputStream stream = null;
+        try {
+            temp = File.createTempFile("index", ".tmp", contentDir);
+            stream = new BufferedOutputStream(new FileOutputStream(temp));
+            new IndexWriter(stream).write(index);
+            stream.close();
+            // another deployment of the same content may have got here first, in which case either index will do
+            if (!temp.renameTo(file) && !file.exists()) {
+                throw new IOException("Could not rename " + temp + " to " + file);
+            }
+        } catch (IOException e) {
+            logger.debugf(e, "Could not cache index %s", file);
+        } finally {
+            VFSUtils.safeClose(stream);
+            if (temp != null) {
+                temp.delete();
+            }
+        }
+        if (newContent) {
+            prune();
+        }
+    }
+
+    private File getContentDir(final byte[] contentHash) {
+        return new File(root, HashUtil.bytesToHexString(contentHash));
+    }
+
+    /**
+     * Remove the indexes of the least recently used contents, leaving those of at most {@code maxContents} contents.
+     */
+    private synchronized void prune() {
+        final File[] contentDirs = root.listFiles();
+        if (contentDirs == null || contentDirs.length <= maxContents) {
+            return;
+        }
+        Arrays.sort(contentDirs, new Comparator<File>() {
+            public int compare(final File o1, final File o2) {
+                final long m1 = o1.lastModified();
+                final long m2 = o2.lastModified();
+                return m1 < m2 ? -1 : m1 == m2 ? 0 : 1;
+            }
+        });
+        for (int i = 0; i < contentDirs.length - maxContents; i++) {
+            final File[] files = contentDirs[i].listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    file.delete();
+                }
+            }
+            contentDirs[i].delete();
+        }
+    }
+
+    private static String getFileName(final String path, final Collection<String> ignorePaths) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(path.getBytes("UTF-8"));
+            if (ignorePaths != null) {
+                for (String ignorePath : new TreeSet<String>(ignorePaths)) {
+                    digest.update((byte) 0);
+                    digest.update(ignorePath.getBytes("UTF-8"));
+                }
+            }
+            return HashUtil.bytesToHexString(digest.digest()) + SUFFIX;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The number of resource roots of a deployment whose index was found in the cache, and of those that had to be
+     * indexed.
+     */
+    public static final class Statistics {
+        private final AtomicInteger hits = new AtomicInteger();
+        private final AtomicInteger misses = new AtomicInteger();
+
+        void hit() {
+            hits.incrementAndGet();
+        }
+
+        void miss() {
+            misses.incrementAndGet();
+        }
+
+        public int getHits() {
+            return hits.get();
+        }
+
+        public int getMisses() {
+            return misses.get();
+        }
+    }
+}
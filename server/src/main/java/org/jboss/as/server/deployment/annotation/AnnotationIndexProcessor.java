@@ -45,9 +45,17 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * Deployment unit processor responsible for creating and attaching an annotation index for a resource root
+ * Deployment unit processor responsible for creating and attaching an annotation index for a resource root. Indexes
+ * generated for deployments whose content is in the content repository are kept in an {@link AnnotationIndexCache},
+ * if one is given, and read from there the next time the same content is deployed. The resource roots that do have
+ * to be indexed are indexed in parallel, if an executor is given.
  *
  * @author John E. Bailey
  * @author Stuart Douglas
@@ -56,6 +64,25 @@ public class AnnotationIndexProcessor implements DeploymentUnitProcessor {
 
     private static final Logger logger = Logger.getLogger(AnnotationIndexProcessor.class);
 
+    private final AnnotationIndexCache cache;
+    private final Executor executor;
+
+    public AnnotationIndexProcessor() {
+        this(null, null);
+    }
+
+    /**
+     * Construct a new instance.
+     *
+     * @param cache the cache of generated indexes, or {@code null} to index every time
+     * @param executor the executor to index resource roots in parallel with, or {@code null} to index them one at a
+     *                 time. The calling thread indexes resource roots as well, so the executor can be bounded.
+     */
+    public AnnotationIndexProcessor(final AnnotationIndexCache cache, final Executor executor) {
+        this.cache = cache;
+        this.executor = executor;
+    }
+
     /**
      * Process this deployment for annotations.  This will use an annotation indexer to create an index of all annotations
      * found in this deployment and attach it to the deployment unit context.
@@ -65,14 +92,21 @@ public class AnnotationIndexProcessor implements DeploymentUnitProcessor {
      *
      */
     public void deploy(DeploymentPhaseContext phaseContext) throws DeploymentUnitProcessingException {
+        final DeploymentUnit deploymentUnit = phaseContext.getDeploymentUnit();
+        final DeploymentUnit topLevelDeployment = deploymentUnit.getParent() == null ? deploymentUnit : deploymentUnit.getParent();
+        final byte[] contentHash = cache == null ? null : topLevelDeployment.getAttachment(Attachments.DEPLOYMENT_HASH);
+        final AnnotationIndexCache.Statistics statistics = topLevelDeployment.getAttachment(Attachments.ANNOTATION_INDEX_CACHE_STATISTICS);
         final List<ResourceRoot> allResourceRoots = new ArrayList<ResourceRoot>();
-        final List<ResourceRoot> resourceRoots = phaseContext.getDeploymentUnit().getAttachment(Attachments.RESOURCE_ROOTS);
+        final List<ResourceRoot> resourceRoots = deploymentUnit.getAttachment(Attachments.RESOURCE_ROOTS);
         if (resourceRoots != null) {
             allResourceRoots.addAll(resourceRoots);
         }
-        allResourceRoots.add(phaseContext.getDeploymentUnit().getAttachment(Attachments.DEPLOYMENT_ROOT));
+        allResourceRoots.add(deploymentUnit.getAttachment(Attachments.DEPLOYMENT_ROOT));
+        final List<ResourceRoot> toIndex = new ArrayList<ResourceRoot>();
+        final List<String> cachePaths = new ArrayList<String>();
+        final List<IndexingTask> tasks = new ArrayList<IndexingTask>();
         for (ResourceRoot resourceRoot : allResourceRoots) {
-            if (resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX) != null) {
+            if (resourceRoot.getAttachment(Attachments.ANNOTATION_INDEX) != null || toIndex.contains(resourceRoot)) {
                 continue;
             }
 
@@ -103,37 +137,146 @@ public class AnnotationIndexProcessor implements DeploymentUnitProcessor {
             }
 
             final VirtualFile virtualFile = resourceRoot.getRoot();
-            final Indexer indexer = new Indexer();
-            try {
-                final VisitorAttributes visitorAttributes = new VisitorAttributes();
-                visitorAttributes.setLeavesOnly(true);
-                visitorAttributes.setRecurseFilter(new VirtualFileFilter() {
-                    public boolean accepts(VirtualFile file) {
-                        return indexIgnorePaths == null || !indexIgnorePaths.contains(file.getPathNameRelativeTo(virtualFile));
-                    }
-                });
-
-                final List<VirtualFile> classChildren = virtualFile.getChildren(new SuffixMatchFilter(".class", visitorAttributes));
-                for (VirtualFile classFile : classChildren) {
-                    InputStream inputStream = null;
-                    try {
-                        inputStream = classFile.openStream();
-                        indexer.index(inputStream);
-                    } catch (Exception e) {
-                        logger.warn("Could not index class " + classFile.getPathNameRelativeTo(virtualFile) + " in archive '" + virtualFile + "'", e);
-                    } finally {
-                        VFSUtils.safeClose(inputStream);
+            final String cachePath = contentHash == null ? null : getPathInDeployment(topLevelDeployment, virtualFile);
+            if (cachePath != null) {
+                final Index index = cache.read(contentHash, cachePath, indexIgnorePaths);
+                if (index != null) {
+                    if (statistics != null) {
+                        statistics.hit();
                     }
+                    resourceRoot.putAttachment(Attachments.ANNOTATION_INDEX, index);
+                    logger.tracef("Found cached index for archive %s", virtualFile);
+                    continue;
+                }
+                if (statistics != null) {
+                    statistics.miss();
                 }
-                final Index index = indexer.complete();
-                resourceRoot.putAttachment(Attachments.ANNOTATION_INDEX, index);
-                logger.tracef("Generated index for archive %s", virtualFile);
-            } catch (Throwable t) {
-                throw new DeploymentUnitProcessingException("Failed to index deployment root for annotations", t);
+            }
+
+            toIndex.add(resourceRoot);
+            cachePaths.add(cachePath);
+            tasks.add(new IndexingTask(virtualFile, indexIgnorePaths));
+        }
+
+        final List<Index> indexes = index(tasks);
+        for (int i = 0; i < indexes.size(); i++) {
+            final Index index = indexes.get(i);
+            final ResourceRoot resourceRoot = toIndex.get(i);
+            resourceRoot.putAttachment(Attachments.ANNOTATION_INDEX, index);
+            logger.tracef("Generated index for archive %s", resourceRoot.getRoot());
+            final String cachePath = cachePaths.get(i);
+            if (cachePath != null) {
+                cache.write(contentHash, cachePath, tasks.get(i).indexIgnorePaths, index);
             }
         }
     }
 
+    /**
+     * Index resource roots. If there is more than one and there is an executor, they are indexed in parallel, with
+     * the calling thread taking on those the executor has not got round to yet.
+     *
+     * @param tasks the resource roots to index
+     * @return the indexes, in the same order as the tasks
+     * @throws DeploymentUnitProcessingException if a resource root could not be indexed
+     */
+    List<Index> index(final List<IndexingTask> tasks) throws DeploymentUnitProcessingException {
+        final List<FutureTask<Index>> futures = new ArrayList<FutureTask<Index>>(tasks.size());
+        for (IndexingTask task : tasks) {
+            futures.add(new FutureTask<Index>(task));
+        }
+        if (executor != null) {
+            // the first one is left to the calling thread
+            for (int i = 1; i < futures.size(); i++) {
+                try {
+                    executor.execute(futures.get(i));
+                } catch (RejectedExecutionException e) {
+                    break;
+                }
+            }
+        }
+        final List<Index> indexes = new ArrayList<Index>(futures.size());
+        for (FutureTask<Index> future : futures) {
+            // does nothing if the executor has already started the task
+            future.run();
+            try {
+                indexes.add(future.get());
+            } catch (ExecutionException e) {
+                cancel(futures);
+                throw new DeploymentUnitProcessingException("Failed to index deployment root for annotations", e.getCause());
+            } catch (InterruptedException e) {
+                cancel(futures);
+                Thread.currentThread().interrupt();
+                throw new DeploymentUnitProcessingException("Interrupted while indexing deployment root for annotations", e);
+            }
+        }
+        return indexes;
+    }
+
+    private static void cancel(final List<FutureTask<Index>> futures) {
+        for (FutureTask<Index> future : futures) {
+            future.cancel(false);
+        }
+    }
+
     public void undeploy(final DeploymentUnit context) {
     }
+
+    /**
+     * Get the path of a resource root within the content of a deployment.
+     *
+     * @return the path, or {@code null} if the resource root is not part of the content
+     */
+    private static String getPathInDeployment(final DeploymentUnit topLevelDeployment, final VirtualFile file) {
+        final VirtualFile deploymentRoot = topLevelDeployment.getAttachment(Attachments.DEPLOYMENT_ROOT).getRoot();
+        if (file.equals(deploymentRoot)) {
+            return "";
+        }
+        try {
+            return file.getPathNameRelativeTo(deploymentRoot);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Indexes the class files of a resource root.
+     */
+    static final class IndexingTask implements Callable<Index> {
+        private final VirtualFile virtualFile;
+        private final Set<String> indexIgnorePaths;
+
+        /**
+         * @param virtualFile the root of the resource root
+         * @param indexIgnorePaths the paths not to index, or {@code null}
+         */
+        IndexingTask(final VirtualFile virtualFile, final Set<String> indexIgnorePaths) {
+            this.virtualFile = virtualFile;
+            this.indexIgnorePaths = indexIgnorePaths;
+        }
+
+        public Index call() throws IOException {
+            final Indexer indexer = new Indexer();
+            final VisitorAttributes visitorAttributes = new VisitorAttributes();
+            visitorAttributes.setLeavesOnly(true);
+            visitorAttributes.setRecurseFilter(new VirtualFileFilter() {
+                public boolean accepts(VirtualFile file) {
+                    return indexIgnorePaths == null || !indexIgnorePaths.contains(file.getPathNameRelativeTo(virtualFile));
+                }
+            });
+
+            final List<VirtualFile> classChildren = virtualFile.getChildren(new SuffixMatchFilter(".class", visitorAttributes));
+            for (VirtualFile classFile : classChildren) {
+                InputStream inputStream = null;
+                try {
+                    inputStream = classFile.openStream();
+                    indexer.index(inputStream);
+                } catch (Exception e) {
+                    logger.warn("Could not index class " + classFile.getPathNameRelativeTo(virtualFile) + " in archive '" + virtualFile + "'", e);
+                } finally {
+                    VFSUtils.safeClose(inputStream);
+                }
+            }
+            return indexer.complete();
+        }
+    }
 }
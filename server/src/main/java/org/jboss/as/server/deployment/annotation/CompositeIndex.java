@@ -31,21 +31,37 @@ import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Composite annotation index.  Represents an annotation index for an entire deployment.
+ * <p/>
+ * The indexes are merged per name the first time it is looked up, and the result is kept for later lookups, which
+ * the processors of a deployment make many times over for the same names. The results are immutable, and the indexes
+ * must not change once the composite index has been created.
  *
  * @author John Bailey
  */
 public class CompositeIndex {
     final Collection<Index> indexes;
 
+    private final ConcurrentMap<DotName, List<AnnotationInstance>> annotations = new ConcurrentHashMap<DotName, List<AnnotationInstance>>();
+    private final ConcurrentMap<DotName, Set<ClassInfo>> directSubclasses = new ConcurrentHashMap<DotName, Set<ClassInfo>>();
+    private final ConcurrentMap<DotName, Set<ClassInfo>> allSubclasses = new ConcurrentHashMap<DotName, Set<ClassInfo>>();
+    private final ConcurrentMap<DotName, Set<ClassInfo>> directImplementors = new ConcurrentHashMap<DotName, Set<ClassInfo>>();
+    private final ConcurrentMap<DotName, Set<ClassInfo>> allImplementors = new ConcurrentHashMap<DotName, Set<ClassInfo>>();
+    private volatile Collection<ClassInfo> knownClasses;
+    private volatile Map<DotName, ClassInfo> classesByName;
+
     public CompositeIndex(final Collection<Index> indexes) {
-        this.indexes = indexes;
+        this.indexes = new ArrayList<Index>(indexes);
     }
 
     public CompositeIndex(final CompositeIndex... indexes) {
@@ -59,28 +75,36 @@ public class CompositeIndex {
      * @see {@link Index#getAnnotations(org.jboss.jandex.DotName)}
      */
     public List<AnnotationInstance> getAnnotations(final DotName annotationName) {
-        final List<AnnotationInstance> allInstances = new ArrayList<AnnotationInstance>();
-        for (Index index : indexes) {
-            final List<AnnotationInstance> list = index.getAnnotations(annotationName);
-            if (list != null) {
-                allInstances.addAll(list);
+        List<AnnotationInstance> allInstances = annotations.get(annotationName);
+        if (allInstances == null) {
+            final List<AnnotationInstance> merged = new ArrayList<AnnotationInstance>();
+            for (Index index : indexes) {
+                final List<AnnotationInstance> list = index.getAnnotations(annotationName);
+                if (list != null) {
+                    merged.addAll(list);
+                }
             }
+            allInstances = cache(annotations, annotationName, Collections.unmodifiableList(merged));
         }
-        return Collections.unmodifiableList(allInstances);
+        return allInstances;
     }
 
     /**
      * @see {@link Index#getKnownDirectSubclasses(org.jboss.jandex.DotName)}
      */
     public Set<ClassInfo> getKnownDirectSubclasses(final DotName className) {
-        final Set<ClassInfo> allKnown = new HashSet<ClassInfo>();
-        for (Index index : indexes) {
-            final List<ClassInfo> list = index.getKnownDirectSubclasses(className);
-            if (list != null) {
-                allKnown.addAll(list);
+        Set<ClassInfo> allKnown = directSubclasses.get(className);
+        if (allKnown == null) {
+            final Set<ClassInfo> merged = new HashSet<ClassInfo>();
+            for (Index index : indexes) {
+                final List<ClassInfo> list = index.getKnownDirectSubclasses(className);
+                if (list != null) {
+                    merged.addAll(list);
+                }
             }
+            allKnown = cache(directSubclasses, className, Collections.unmodifiableSet(merged));
         }
-        return Collections.unmodifiableSet(allKnown);
+        return allKnown;
     }
 
     /**
@@ -91,9 +115,13 @@ public class CompositeIndex {
      * @return All known subclasses
      */
     public Set<ClassInfo> getAllKnownSubclasses(final DotName className) {
-        final Set<ClassInfo> allKnown = new HashSet<ClassInfo>();
-        final Set<DotName> processedClasses = new HashSet<DotName>();
-        getAllKnownSubClasses(className, allKnown, processedClasses);
+        Set<ClassInfo> allKnown = allSubclasses.get(className);
+        if (allKnown == null) {
+            final Set<ClassInfo> found = new HashSet<ClassInfo>();
+            final Set<DotName> processedClasses = new HashSet<DotName>();
+            getAllKnownSubClasses(className, found, processedClasses);
+            allKnown = cache(allSubclasses, className, Collections.unmodifiableSet(found));
+        }
         return allKnown;
     }
 
@@ -111,16 +139,11 @@ public class CompositeIndex {
 
     private void getAllKnownSubClasses(DotName name, Set<ClassInfo> allKnown, Set<DotName> subClassesToProcess,
             Set<DotName> processedClasses) {
-        for (Index index : indexes) {
-            final List<ClassInfo> list = index.getKnownDirectSubclasses(name);
-            if (list != null) {
-                for (final ClassInfo clazz : list) {
-                    final DotName className = clazz.name();
-                    if (!processedClasses.contains(className)) {
-                        allKnown.add(clazz);
-                        subClassesToProcess.add(className);
-                    }
-                }
+        for (final ClassInfo clazz : getKnownDirectSubclasses(name)) {
+            final DotName className = clazz.name();
+            if (!processedClasses.contains(className)) {
+                allKnown.add(clazz);
+                subClassesToProcess.add(className);
             }
         }
     }
@@ -129,14 +152,18 @@ public class CompositeIndex {
      * @see {@link Index#getKnownDirectImplementors(DotName)}
      */
     public Set<ClassInfo> getKnownDirectImplementors(final DotName className) {
-        final Set<ClassInfo> allKnown = new HashSet<ClassInfo>();
-        for (Index index : indexes) {
-            final List<ClassInfo> list = index.getKnownDirectImplementors(className);
-            if (list != null) {
-                allKnown.addAll(list);
+        Set<ClassInfo> allKnown = directImplementors.get(className);
+        if (allKnown == null) {
+            final Set<ClassInfo> merged = new HashSet<ClassInfo>();
+            for (Index index : indexes) {
+                final List<ClassInfo> list = index.getKnownDirectImplementors(className);
+                if (list != null) {
+                    merged.addAll(list);
+                }
             }
+            allKnown = cache(directImplementors, className, Collections.unmodifiableSet(merged));
         }
-        return Collections.unmodifiableSet(allKnown);
+        return allKnown;
     }
 
     /**
@@ -150,7 +177,11 @@ public class CompositeIndex {
      * @return All known implementors of the interface
      */
     public Set<ClassInfo> getAllKnownImplementors(final DotName interfaceName) {
-        final Set<ClassInfo> allKnown = new HashSet<ClassInfo>();
+        Set<ClassInfo> allKnown = allImplementors.get(interfaceName);
+        if (allKnown != null) {
+            return allKnown;
+        }
+        final Set<ClassInfo> found = new HashSet<ClassInfo>();
         final Set<DotName> subInterfacesToProcess = new HashSet<DotName>();
         final Set<DotName> processedClasses = new HashSet<DotName>();
         subInterfacesToProcess.add(interfaceName);
@@ -159,28 +190,23 @@ public class CompositeIndex {
             DotName name = toProcess.next();
             toProcess.remove();
             processedClasses.add(name);
-            getKnownImplementors(name, allKnown, subInterfacesToProcess, processedClasses);
+            getKnownImplementors(name, found, subInterfacesToProcess, processedClasses);
         }
-        return allKnown;
+        return cache(allImplementors, interfaceName, Collections.unmodifiableSet(found));
     }
 
     private void getKnownImplementors(DotName name, Set<ClassInfo> allKnown, Set<DotName> subInterfacesToProcess,
             Set<DotName> processedClasses) {
-        for (Index index : indexes) {
-            final List<ClassInfo> list = index.getKnownDirectImplementors(name);
-            if (list != null) {
-                for (final ClassInfo clazz : list) {
-                    final DotName className = clazz.name();
-                    if (!processedClasses.contains(className)) {
-                        if (Modifier.isInterface(clazz.flags())) {
-                            subInterfacesToProcess.add(className);
-                        } else {
-                            if (!allKnown.contains(clazz)) {
-                                allKnown.add(clazz);
-                                processedClasses.add(className);
-                                getAllKnownSubClasses(className, allKnown, processedClasses);
-                            }
-                        }
+        for (final ClassInfo clazz : getKnownDirectImplementors(name)) {
+            final DotName className = clazz.name();
+            if (!processedClasses.contains(className)) {
+                if (Modifier.isInterface(clazz.flags())) {
+                    subInterfacesToProcess.add(className);
+                } else {
+                    if (!allKnown.contains(clazz)) {
+                        allKnown.add(clazz);
+                        processedClasses.add(className);
+                        getAllKnownSubClasses(className, allKnown, processedClasses);
                     }
                 }
             }
@@ -191,26 +217,40 @@ public class CompositeIndex {
      * @see {@link Index#getClassByName(org.jboss.jandex.DotName)}
      */
     public ClassInfo getClassByName(final DotName className) {
-        for (Index index : indexes) {
-            final ClassInfo info = index.getClassByName(className);
-            if (info != null) {
-                return info;
+        Map<DotName, ClassInfo> byName = classesByName;
+        if (byName == null) {
+            byName = new HashMap<DotName, ClassInfo>();
+            for (ClassInfo info : getKnownClasses()) {
+                // the first index that knows the class wins
+                if (!byName.containsKey(info.name())) {
+                    byName.put(info.name(), info);
+                }
             }
+            classesByName = byName;
         }
-        return null;
+        return byName.get(className);
     }
 
     /**
      * @see {@link org.jboss.jandex.Index#getKnownClasses()}
      */
     public Collection<ClassInfo> getKnownClasses() {
-        final List<ClassInfo> allKnown = new ArrayList<ClassInfo>();
-        for (Index index : indexes) {
-            final Collection<ClassInfo> list = index.getKnownClasses();
-            if (list != null) {
-                allKnown.addAll(list);
+        Collection<ClassInfo> known = knownClasses;
+        if (known == null) {
+            final List<ClassInfo> allKnown = new ArrayList<ClassInfo>();
+            for (Index index : indexes) {
+                final Collection<ClassInfo> list = index.getKnownClasses();
+                if (list != null) {
+                    allKnown.addAll(list);
+                }
             }
+            knownClasses = known = Collections.unmodifiableCollection(allKnown);
         }
-        return Collections.unmodifiableCollection(allKnown);
+        return known;
+    }
+
+    private static <T> T cache(final ConcurrentMap<DotName, T> cache, final DotName name, final T value) {
+        final T existing = cache.putIfAbsent(name, value);
+        return existing == null ? value : existing;
     }
 }
@@ -23,16 +23,29 @@
 package org.jboss.as.server.deployment.reflect;
 
 import java.security.Permission;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jboss.as.server.moduleservice.ExternalModuleService;
+import org.jboss.modules.Module;
+import org.jboss.modules.ModuleClassLoader;
 
 /**
  * A reflection index for a deployment.
+ * <p/>
+ * The indexes of classes that are the same for every deployment, those of the JDK and of the modules of the server
+ * and external modules, are kept in a server wide tier shared by all deployment reflection indexes. Only the modules
+ * of the boot module loader, which are never unloaded, and external modules, whose indexes are dropped when the module
+ * is {@link #moduleUnloaded(Module) unloaded}, are shared; the classes of modules of any other module loader are
+ * indexed per deployment, so the shared tier never keeps their class loaders reachable.
  *
  * @author <a href="mailto:david.lloyd@redhat.com">David M. Lloyd</a>
  */
 public final class DeploymentReflectionIndex {
-    private final Map<Class<?>, ClassReflectionIndex<?>> classes = new HashMap<Class<?>, ClassReflectionIndex<?>>();
+    private static final ConcurrentMap<Class<?>, ClassReflectionIndex<?>> bootstrapClasses = new ConcurrentHashMap<Class<?>, ClassReflectionIndex<?>>();
+    private static final ConcurrentMap<ClassLoader, ConcurrentMap<Class<?>, ClassReflectionIndex<?>>> sharedClasses = new ConcurrentHashMap<ClassLoader, ConcurrentMap<Class<?>, ClassReflectionIndex<?>>>();
+
+    private final ConcurrentMap<Class<?>, ClassReflectionIndex<?>> classes = new ConcurrentHashMap<Class<?>, ClassReflectionIndex<?>>();
 
     DeploymentReflectionIndex() {
     }
@@ -59,15 +72,61 @@ public final class DeploymentReflectionIndex {
      * @return the index
      */
     @SuppressWarnings({"unchecked"})
-    public synchronized <T> ClassReflectionIndex<T> getClassIndex(Class<T> clazz) {
+    public <T> ClassReflectionIndex<T> getClassIndex(Class<T> clazz) {
         try {
+            final ConcurrentMap<Class<?>, ClassReflectionIndex<?>> classes = getClasses(clazz);
             ClassReflectionIndex<T> index = (ClassReflectionIndex<T>) classes.get(clazz);
             if (index == null) {
-                classes.put(clazz, index = new ClassReflectionIndex<T>(clazz, this));
+                // two threads may both build the index of a class, only the first one is kept
+                final ClassReflectionIndex<T> created = new ClassReflectionIndex<T>(clazz, this);
+                index = (ClassReflectionIndex<T>) classes.putIfAbsent(clazz, created);
+                if (index == null) {
+                    index = created;
+                }
             }
             return index;
         } catch (Throwable e) {
             throw new RuntimeException("Error getting reflective information for " + clazz + " with ClassLoader " + clazz.getClassLoader(), e);
         }
     }
+
+    /**
+     * Drop the shared indexes of the classes of a module that has been unloaded.
+     *
+     * @param module the module
+     */
+    public static void moduleUnloaded(final Module module) {
+        sharedClasses.remove(module.getClassLoader());
+    }
+
+    private ConcurrentMap<Class<?>, ClassReflectionIndex<?>> getClasses(final Class<?> clazz) {
+        final ClassLoader classLoader = clazz.getClassLoader();
+        if (classLoader == null) {
+            return bootstrapClasses;
+        }
+        if (!isShared(classLoader)) {
+            return classes;
+        }
+        ConcurrentMap<Class<?>, ClassReflectionIndex<?>> shared = sharedClasses.get(classLoader);
+        if (shared == null) {
+            final ConcurrentMap<Class<?>, ClassReflectionIndex<?>> created = new ConcurrentHashMap<Class<?>, ClassReflectionIndex<?>>();
+            shared = sharedClasses.putIfAbsent(classLoader, created);
+            if (shared == null) {
+                shared = created;
+            }
+        }
+        return shared;
+    }
+
+    private static boolean isShared(final ClassLoader classLoader) {
+        if (!(classLoader instanceof ModuleClassLoader)) {
+            return false;
+        }
+        final Module module = ((ModuleClassLoader) classLoader).getModule();
+        if (module.getModuleLoader() == Module.getBootModuleLoader()) {
+            return true;
+        }
+        // external modules are loaded by the service module loader, which reports when they are unloaded
+        return module.getIdentifier().getName().startsWith(ExternalModuleService.EXTERNAL_MODULE_PREFIX);
+    }
 }
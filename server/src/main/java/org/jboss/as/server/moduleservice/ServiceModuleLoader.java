@@ -26,6 +26,7 @@ import java.util.concurrent.TimeUnit;
 
 import org.jboss.as.server.Bootstrap;
 import org.jboss.as.server.Services;
+import org.jboss.as.server.deployment.reflect.DeploymentReflectionIndex;
 import org.jboss.logging.Logger;
 import org.jboss.modules.Module;
 import org.jboss.modules.ModuleIdentifier;
@@ -102,6 +103,7 @@ public class ServiceModuleLoader extends ModuleLoader implements Service<Service
                     try {
                         Module module = loadModule(moduleSpec.getModuleIdentifier());
                         unloadModuleLocal(module);
+                        DeploymentReflectionIndex.moduleUnloaded(module);
                     } catch (ModuleLoadException e) {
                         // ignore, the module should always be already loaded by this point,
                         // and if not we will only mask the true problem
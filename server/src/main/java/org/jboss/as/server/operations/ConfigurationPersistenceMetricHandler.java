@@ -0,0 +1,65 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.operations;
+
+import static org.jboss.as.controller.descriptions.ModelDescriptionConstants.NAME;
+import static org.jboss.as.server.controller.descriptions.ServerDescriptionConstants.CONFIG_PERSIST_LATENCY;
+
+import org.jboss.as.controller.OperationContext;
+import org.jboss.as.controller.OperationFailedException;
+import org.jboss.as.controller.OperationStepHandler;
+import org.jboss.as.controller.persistence.CoalescingXmlConfigurationPersister;
+import org.jboss.as.controller.persistence.ConfigurationPersister;
+import org.jboss.dmr.ModelNode;
+
+/**
+ * Reports how far writing the configuration file lags behind the changes made to the configuration. Unless the
+ * file is written in the background, it is written as part of every change, so nothing is ever queued.
+ */
+public class ConfigurationPersistenceMetricHandler implements OperationStepHandler {
+
+    private final ConfigurationPersister persister;
+
+    public ConfigurationPersistenceMetricHandler(final ConfigurationPersister persister) {
+        this.persister = persister;
+    }
+
+    @Override
+    public void execute(OperationContext context, ModelNode operation) throws OperationFailedException {
+        final String attributeName = operation.require(NAME).asString();
+        if (persister instanceof CoalescingXmlConfigurationPersister) {
+            final CoalescingXmlConfigurationPersister coalescing = (CoalescingXmlConfigurationPersister) persister;
+            if (CONFIG_PERSIST_LATENCY.equals(attributeName)) {
+                final long latency = coalescing.getLastPersistLatency();
+                if (latency >= 0) {
+                    context.getResult().set(latency);
+                }
+            } else {
+                context.getResult().set(coalescing.getQueueDepth());
+            }
+        } else if (!CONFIG_PERSIST_LATENCY.equals(attributeName)) {
+            context.getResult().set(0);
+        }
+        context.completeStep();
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.annotation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.jar.JarOutputStream;
+import java.util.zip.ZipEntry;
+
+import org.jboss.vfs.TempFileProvider;
+import org.jboss.vfs.VFS;
+import org.jboss.vfs.VFSUtils;
+import org.jboss.vfs.VirtualFile;
+
+/**
+ * Measures the time it takes to index the resource roots of a synthetic deployment of many library jars, one at a
+ * time and in parallel. This is not run as part of the test suite, run it with:
+ * <pre>
+ * java -cp ... org.jboss.as.server.deployment.annotation.AnnotationIndexBenchmark [jars] [classes per jar] [iterations]
+ * </pre>
+ */
+public class AnnotationIndexBenchmark {
+
+    /** Classes whose bytes make up the content of the jars */
+    private static final Class<?>[] SAMPLES = {String.class, java.util.HashMap.class, java.util.ArrayList.class,
+            java.util.concurrent.ConcurrentHashMap.class, java.io.File.class, Thread.class, java.net.URI.class,
+            Deprecated.class, AnnotationIndexBenchmark.class};
+
+    public static void main(String[] args) throws Exception {
+        final int jars = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        final int classes = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        final int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        final int threads = Runtime.getRuntime().availableProcessors();
+
+        final File dir = File.createTempFile("index-benchmark", null);
+        dir.delete();
+        dir.mkdirs();
+        final ScheduledExecutorService tempExecutor = Executors.newSingleThreadScheduledExecutor();
+        final ExecutorService indexExecutor = Executors.newFixedThreadPool(threads);
+        final TempFileProvider provider = TempFileProvider.create("index-benchmark", tempExecutor);
+        final List<Closeable> mounts = new ArrayList<Closeable>();
+        try {
+            final byte[][] samples = readSamples();
+            final List<AnnotationIndexProcessor.IndexingTask> tasks = new ArrayList<AnnotationIndexProcessor.IndexingTask>();
+            final VirtualFile deploymentRoot = VFS.getChild("index-benchmark.ear");
+            for (int i = 0; i < jars; i++) {
+                final File jar = new File(dir, "lib" + i + ".jar");
+                writeJar(jar, i, classes, samples);
+                final VirtualFile root = deploymentRoot.getChild("lib/lib" + i + ".jar");
+                mounts.add(VFS.mountZip(jar, root, provider));
+                tasks.add(new AnnotationIndexProcessor.IndexingTask(root, null));
+            }
+
+            System.out.printf("%d jars of %d classes, %d threads%n", jars, classes, threads);
+            measure("one at a time", new AnnotationIndexProcessor(null, null), tasks, iterations);
+            measure("in parallel", new AnnotationIndexProcessor(null, indexExecutor), tasks, iterations);
+        } finally {
+            for (Closeable mount : mounts) {
+                VFSUtils.safeClose(mount);
+            }
+            VFSUtils.safeClose(provider);
+            indexExecutor.shutdown();
+            tempExecutor.shutdown();
+            delete(dir);
+        }
+    }
+
+    private static void measure(final String description, final AnnotationIndexProcessor processor,
+                                final List<AnnotationIndexProcessor.IndexingTask> tasks, final int iterations) throws Exception {
+        // warm up
+        processor.index(tasks);
+        final long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            processor.index(tasks);
+        }
+        final long nanos = System.nanoTime() - start;
+        System.out.printf("  %-20s %10.1f ms/deployment%n", description, nanos / 1000000.0 / iterations);
+    }
+
+    private static byte[][] readSamples() throws IOException {
+        final byte[][] samples = new byte[SAMPLES.length][];
+        for (int i = 0; i < SAMPLES.length; i++) {
+            final String name = SAMPLES[i].getName().replace('.', '/') + ".class";
+            final InputStream stream = ClassLoader.getSystemResourceAsStream(name);
+            if (stream == null) {
+                throw new IllegalStateException("Class file not found: " + name);
+            }
+            try {
+                final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = stream.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, read);
+                }
+                samples[i] = bytes.toByteArray();
+            } finally {
+                stream.close();
+            }
+        }
+        return samples;
+    }
+
+    private static void writeJar(final File jar, final int number, final int classes, final byte[][] samples) throws IOException {
+        final JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (int i = 0; i < classes; i++) {
+                out.putNextEntry(new ZipEntry("org/example/lib" + number + "/Class" + i + ".class"));
+                out.write(samples[i % samples.length]);
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.annotation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.util.Collections;
+
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of {@link AnnotationIndexCache}.
+ */
+public class AnnotationIndexCacheUnitTestCase {
+
+    private static final byte[] HASH1 = {1, 2, 3};
+    private static final byte[] HASH2 = {4, 5, 6};
+    private static final byte[] HASH3 = {7, 8, 9};
+
+    private File root;
+
+    @Before
+    public void setUp() throws Exception {
+        root = File.createTempFile("index-cache", null);
+        root.delete();
+        root.mkdirs();
+    }
+
+    @After
+    public void tearDown() {
+        delete(root);
+    }
+
+    @Test
+    public void testReadWrittenIndex() throws Exception {
+        final AnnotationIndexCache cache = new AnnotationIndexCache(root, 10);
+        assertNull(cache.read(HASH1, "lib/foo.jar", null));
+
+        cache.write(HASH1, "lib/foo.jar", null, createIndex());
+        final Index index = cache.read(HASH1, "lib/foo.jar", null);
+        assertNotNull(index);
+        assertNotNull(index.getClassByName(DotName.createSimple(AnnotationIndexCacheUnitTestCase.class.getName())));
+
+        // the index is kept across instances, e.g. after a restart
+        assertNotNull(new AnnotationIndexCache(root, 10).read(HASH1, "lib/foo.jar", null));
+    }
+
+    @Test
+    public void testKeyedByContentPathAndIgnoredPaths() throws Exception {
+        final AnnotationIndexCache cache = new AnnotationIndexCache(root, 10);
+        cache.write(HASH1, "", Collections.singleton("META-INF"), createIndex());
+        assertNotNull(cache.read(HASH1, "", Collections.singleton("META-INF")));
+        assertNull(cache.read(HASH2, "", Collections.singleton("META-INF")));
+        assertNull(cache.read(HASH1, "lib/foo.jar", Collections.singleton("META-INF")));
+        assertNull(cache.read(HASH1, "", null));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedContentIsRemoved() throws Exception {
+        final AnnotationIndexCache cache = new AnnotationIndexCache(root, 2);
+        cache.write(HASH1, "", null, createIndex());
+        cache.write(HASH2, "", null, createIndex());
+        final File[] contentDirs = root.listFiles();
+        assertEquals(2, contentDirs.length);
+        // make the first content the most recently used one
+        for (File contentDir : contentDirs) {
+            contentDir.setLastModified(System.currentTimeMillis() - 60000);
+        }
+        assertNotNull(cache.read(HASH1, "", null));
+
+        cache.write(HASH3, "", null, createIndex());
+        assertEquals(2, root.listFiles().length);
+        assertNotNull(cache.read(HASH1, "", null));
+        assertNull(cache.read(HASH2, "", null));
+        assertNotNull(cache.read(HASH3, "", null));
+    }
+
+    @Test
+    public void testCorruptIndexIsAMiss() throws Exception {
+        final AnnotationIndexCache cache = new AnnotationIndexCache(root, 10);
+        cache.write(HASH1, "", null, createIndex());
+        final File[] files = root.listFiles()[0].listFiles();
+        assertEquals(1, files.length);
+        final FileOutputStream fos = new FileOutputStream(files[0]);
+        fos.write(new byte[] {1, 2, 3});
+        fos.close();
+
+        assertNull(cache.read(HASH1, "", null));
+        assertFalse(files[0].exists());
+    }
+
+    @Test
+    public void testStatistics() {
+        final AnnotationIndexCache.Statistics statistics = new AnnotationIndexCache.Statistics();
+        statistics.hit();
+        statistics.miss();
+        statistics.miss();
+        assertEquals(1, statistics.getHits());
+        assertEquals(2, statistics.getMisses());
+    }
+
+    private static Index createIndex() throws Exception {
+        final Indexer indexer = new Indexer();
+        final InputStream stream = AnnotationIndexCacheUnitTestCase.class.getResourceAsStream(AnnotationIndexCacheUnitTestCase.class.getSimpleName() + ".class");
+        try {
+            indexer.index(stream);
+        } finally {
+            stream.close();
+        }
+        return indexer.complete();
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
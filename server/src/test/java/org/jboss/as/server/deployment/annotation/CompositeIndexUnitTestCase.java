@@ -0,0 +1,127 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.annotation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jboss.jandex.ClassInfo;
+import org.jboss.jandex.DotName;
+import org.jboss.jandex.Index;
+import org.jboss.jandex.Indexer;
+import org.junit.Test;
+
+/**
+ * Tests of {@link CompositeIndex}.
+ */
+public class CompositeIndexUnitTestCase {
+
+    @Test
+    public void testMergesIndexes() throws Exception {
+        final CompositeIndex index = new CompositeIndex(Arrays.asList(createIndex(Base.class, Service.class), createIndex(Sub.class, SubSub.class, Impl.class)));
+
+        assertEquals(names(Sub.class), names(index.getKnownDirectSubclasses(name(Base.class))));
+        assertEquals(names(Sub.class, SubSub.class), names(index.getAllKnownSubclasses(name(Base.class))));
+        assertEquals(names(Impl.class), names(index.getKnownDirectImplementors(name(Service.class))));
+        assertEquals(names(Impl.class, Sub.class, SubSub.class), names(index.getAllKnownImplementors(name(Service.class))));
+        assertEquals(1, index.getAnnotations(DotName.createSimple(Marker.class.getName())).size());
+        assertEquals(5, index.getKnownClasses().size());
+        assertNotNull(index.getClassByName(name(SubSub.class)));
+    }
+
+    @Test
+    public void testResultsAreCached() throws Exception {
+        final CompositeIndex index = new CompositeIndex(Arrays.asList(createIndex(Base.class, Sub.class, SubSub.class)));
+
+        assertSame(index.getAnnotations(name(Marker.class)), index.getAnnotations(name(Marker.class)));
+        assertSame(index.getKnownDirectSubclasses(name(Base.class)), index.getKnownDirectSubclasses(name(Base.class)));
+        assertSame(index.getAllKnownSubclasses(name(Base.class)), index.getAllKnownSubclasses(name(Base.class)));
+        assertSame(index.getAllKnownImplementors(name(Service.class)), index.getAllKnownImplementors(name(Service.class)));
+        assertTrue(index.getAllKnownSubclasses(name(Object.class)).isEmpty());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testResultsAreImmutable() throws Exception {
+        final CompositeIndex index = new CompositeIndex(Arrays.asList(createIndex(Base.class, Sub.class)));
+        index.getAllKnownSubclasses(name(Base.class)).clear();
+    }
+
+    private static Index createIndex(final Class<?>... classes) throws Exception {
+        final Indexer indexer = new Indexer();
+        for (Class<?> clazz : classes) {
+            final InputStream stream = clazz.getResourceAsStream(clazz.getName().substring(clazz.getPackage().getName().length() + 1) + ".class");
+            try {
+                indexer.index(stream);
+            } finally {
+                stream.close();
+            }
+        }
+        return indexer.complete();
+    }
+
+    private static DotName name(final Class<?> clazz) {
+        return DotName.createSimple(clazz.getName());
+    }
+
+    private static Set<String> names(final Class<?>... classes) {
+        final Set<String> names = new HashSet<String>();
+        for (Class<?> clazz : classes) {
+            names.add(clazz.getName());
+        }
+        return names;
+    }
+
+    private static Set<String> names(final Set<ClassInfo> classes) {
+        final Set<String> names = new HashSet<String>();
+        for (ClassInfo clazz : classes) {
+            names.add(clazz.name().toString());
+        }
+        return names;
+    }
+
+    @interface Marker {
+    }
+
+    interface Service {
+    }
+
+    static class Base {
+    }
+
+    @Marker
+    static class Sub extends Base implements Service {
+    }
+
+    static class SubSub extends Sub {
+    }
+
+    static class Impl implements Service {
+    }
+}
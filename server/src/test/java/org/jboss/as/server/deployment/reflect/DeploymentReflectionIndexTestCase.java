@@ -0,0 +1,79 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.server.deployment.reflect;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+/**
+ * Tests of {@link DeploymentReflectionIndex}.
+ */
+public class DeploymentReflectionIndexTestCase {
+
+    @Test
+    public void testJdkClassesAreShared() {
+        final ClassReflectionIndex<?> index = DeploymentReflectionIndex.create().getClassIndex(Object.class);
+        assertSame(index, DeploymentReflectionIndex.create().getClassIndex(Object.class));
+    }
+
+    @Test
+    public void testDeploymentClassesAreNotShared() {
+        final DeploymentReflectionIndex deploymentIndex = DeploymentReflectionIndex.create();
+        final ClassReflectionIndex<?> index = deploymentIndex.getClassIndex(DeploymentReflectionIndexTestCase.class);
+        assertSame(index, deploymentIndex.getClassIndex(DeploymentReflectionIndexTestCase.class));
+        assertNotSame(index, DeploymentReflectionIndex.create().getClassIndex(DeploymentReflectionIndexTestCase.class));
+    }
+
+    @Test
+    public void testConcurrentLookupsGetSameIndex() throws Exception {
+        final DeploymentReflectionIndex deploymentIndex = DeploymentReflectionIndex.create();
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<ClassReflectionIndex<?>>> futures = new ArrayList<Future<ClassReflectionIndex<?>>>();
+            for (int i = 0; i < 32; i++) {
+                futures.add(executor.submit(new Callable<ClassReflectionIndex<?>>() {
+                    public ClassReflectionIndex<?> call() {
+                        return deploymentIndex.getClassIndex(DeploymentReflectionIndexTestCase.class);
+                    }
+                }));
+            }
+            final ClassReflectionIndex<?> index = deploymentIndex.getClassIndex(DeploymentReflectionIndexTestCase.class);
+            for (Future<ClassReflectionIndex<?>> future : futures) {
+                assertSame(index, future.get());
+            }
+            assertEquals(DeploymentReflectionIndexTestCase.class, index.getIndexedClass());
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -695,6 +695,10 @@ public class ParseAndMarshalModelsTestCase {
             throw new RuntimeException("NYI: org.jboss.as.test.surefire.xml.ParseAndMarshalModelsTestCase.MockContentRepository.getContent");
         }
 
+        @Override
+        public void releaseContent(byte[] hash) {
+        }
+
         @Override
         public boolean hasContent(byte[] hash) {
             return true;
@@ -856,6 +856,16 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
 
     @Override
     public boolean storeSession(Session s) {
+        return storeSession(s, true);
+    }
+
+    /**
+     * @param s the session
+     * @param rollbackOnFailure true to roll the batch back if the session cannot be replicated, false to throw the
+     *                          failure instead and leave the batch to the caller
+     * @return true if the session was replicated
+     */
+    private boolean storeSession(Session s, boolean rollbackOnFailure) {
         boolean stored = false;
         if (s != null) {
             ClusteredSession<O> session = cast(s);
@@ -874,7 +884,7 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
 
                     // Do the actual replication
                     begin = System.currentTimeMillis();
-                    processSessionRepl(session);
+                    processSessionRepl(session, rollbackOnFailure);
                     elapsed = System.currentTimeMillis() - begin;
                     stored = true;
                     stats.updateReplicationStats(realId, elapsed);
@@ -887,6 +897,43 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
         return stored;
     }
 
+    @Override
+    public int storeSessions(Collection<? extends Session> sessions) {
+        int stored = 0;
+        boolean endBatch = false;
+        BatchingManager batchingManager = this.distributedCacheManager.getBatchingManager();
+        try {
+            // Replicate the sessions in one batch, which processSessionRepl() joins. A session that fails is left
+            // out rather than rolling back the batch for all of them, and is queued again as it is still dirty.
+            if (!batchingManager.isBatchInProgress()) {
+                batchingManager.startBatch();
+                endBatch = true;
+            }
+            for (Session session : sessions) {
+                try {
+                    if (storeSession(session, false)) {
+                        stored += 1;
+                    }
+                } catch (Exception e) {
+                    log.warnf(e, "Failed to replicate session %s, queueing it again", session.getIdInternal());
+                    SnapshotManager snapshotManager = this.snapshotManager;
+                    if (snapshotManager != null) {
+                        snapshotManager.snapshot(cast(session));
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to start batch for session replication", e);
+        } finally {
+            if (endBatch) {
+                batchingManager.endBatch();
+            }
+        }
+        return stored;
+    }
+
     @Override
     public String getInfo() {
         return info;
@@ -972,6 +1019,18 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
         return (interval != null) ? interval.intValue() : -1;
     }
 
+    @Override
+    public int getQueuedSessionCount() {
+        SnapshotManager manager = this.snapshotManager;
+        return (manager instanceof IntervalSnapshotManager) ? ((IntervalSnapshotManager) manager).getQueuedSessionCount() : 0;
+    }
+
+    @Override
+    public long getReplicatedSessionCount() {
+        SnapshotManager manager = this.snapshotManager;
+        return (manager instanceof IntervalSnapshotManager) ? ((IntervalSnapshotManager) manager).getReplicatedSessionCount() : 0;
+    }
+
     @Override
     public void setMaxUnreplicatedInterval(int maxUnreplicatedInterval) {
         this.maxUnreplicatedInterval = maxUnreplicatedInterval;
@@ -1513,8 +1572,9 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
      * Places the current session contents in the distributed cache and replicates them to the cluster
      *
      * @param session the session. Cannot be <code>null</code>.
+     * @param rollbackOnFailure whether a failure rolls back a batch started by the caller, rather than being thrown
      */
-    private void processSessionRepl(ClusteredSession<O> session) {
+    private void processSessionRepl(ClusteredSession<O> session, boolean rollbackOnFailure) {
         boolean endBatch = false;
         BatchingManager batchingManager = this.distributedCacheManager.getBatchingManager();
         try {
@@ -1528,7 +1588,11 @@ public class DistributableSessionManager<O extends OutgoingDistributableSessionD
 
             session.processSessionReplication();
         } catch (Exception ex) {
-            log.debug("processSessionRepl(): failed with exception", ex);
+            if (!rollbackOnFailure && !endBatch) {
+                // the batch belongs to the caller, which leaves this session out of it
+                throw (ex instanceof RuntimeException) ? (RuntimeException) ex : new RuntimeException("Failed to replicate session " + session.getIdInternal(), ex);
+            }
+            log.warn("processSessionRepl(): failed with exception, rolling back the batch", ex);
 
             RuntimeException exception = null;
             try {
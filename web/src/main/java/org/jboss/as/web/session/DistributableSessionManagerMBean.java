@@ -100,6 +100,16 @@ public interface DistributableSessionManagerMBean extends SessionManagerMBean {
      */
     int getSnapshotInterval();
 
+    /**
+     * Gets the number of modified sessions waiting to be replicated if "interval" mode is used.
+     */
+    int getQueuedSessionCount();
+
+    /**
+     * Gets the number of sessions replicated since the manager was started if "interval" mode is used.
+     */
+    long getReplicatedSessionCount();
+
     /**
      * Get the maximum interval between requests, in seconds, after which a request will trigger replication of the session's
      * metadata regardless of whether the request has otherwise made the session dirty. Such replication ensures that other
@@ -21,56 +21,77 @@
  */
 package org.jboss.as.web.session;
 
-import java.util.HashSet;
-import java.util.LinkedHashSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.jboss.as.clustering.web.OutgoingDistributableSessionData;
 import org.jboss.logging.Logger;
 
 /**
  * A snapshot manager that collects all modified sessions over a given period of time and distributes them en bloc.
+ * <p/>
+ * The sessions are distributed by the {@link SessionReplicationScheduler} shared by all web applications, which is
+ * only woken once there are modified sessions to distribute.
  *
  * @author Thomas Peuss <jboss@peuss.de>
  * @author Brian Stansberry
  * @version $Revision: 89149 $
  */
-public class IntervalSnapshotManager extends SnapshotManager implements Runnable {
+public class IntervalSnapshotManager extends SnapshotManager {
     static Logger log = Logger.getLogger(IntervalSnapshotManager.class);
 
     // the interval in ms
     private int interval = 1000;
 
     // the modified sessions
-    private Set<ClusteredSession<? extends OutgoingDistributableSessionData>> sessions = new LinkedHashSet<ClusteredSession<? extends OutgoingDistributableSessionData>>();
+    private final Set<ClusteredSession<? extends OutgoingDistributableSessionData>> sessions = Collections.newSetFromMap(new ConcurrentHashMap<ClusteredSession<? extends OutgoingDistributableSessionData>, Boolean>());
 
-    // the distribute thread
-    private Thread thread = null;
+    // are the modified sessions scheduled for distribution?
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // the number of sessions distributed
+    private final AtomicLong replicatedCount = new AtomicLong();
+
+    private final SessionReplicationScheduler scheduler;
+
+    // held while sessions are distributed
+    private final Object processingLock = new Object();
 
     // Is session processing allowed?
-    private boolean processingAllowed = false;
+    private volatile boolean processingAllowed = false;
 
-    // has the thread finished?
-    private boolean threadDone = false;
+    private volatile ClassLoader classLoader;
 
     public IntervalSnapshotManager(SessionManager manager, String path) {
-        super(manager, path);
+        this(manager, path, 1000);
     }
 
     public IntervalSnapshotManager(SessionManager manager, String path, int interval) {
+        this(manager, path, interval, SessionReplicationScheduler.getInstance());
+    }
+
+    IntervalSnapshotManager(SessionManager manager, String path, int interval, SessionReplicationScheduler scheduler) {
         super(manager, path);
         this.interval = interval;
+        this.scheduler = scheduler;
     }
 
     /**
-     * Store the modified session in a hashmap for the distributor thread
+     * Queue the modified session for the distributor
      */
     @Override
     public void snapshot(ClusteredSession<? extends OutgoingDistributableSessionData> session) {
         try {
             // Don't hold a ref to the session for a long time
-            synchronized (sessions) {
-                sessions.add(session);
+            sessions.add(session);
+            if (scheduled.compareAndSet(false, true)) {
+                scheduler.schedule(this, interval);
             }
         } catch (Exception e) {
             log.error("Failed to queue session " + session + " for replication", e);
@@ -78,110 +99,79 @@ public class IntervalSnapshotManager extends SnapshotManager implements Runnable
     }
 
     /**
-     * Distribute all modified sessions
+     * Distribute modified sessions in a single batch. Called by the {@link SessionReplicationScheduler}.
+     *
+     * @param maxBatchSize the maximum number of sessions to distribute
      */
-    protected void processSessions() {
-        Set<ClusteredSession<? extends OutgoingDistributableSessionData>> toProcess = null;
-        synchronized (sessions) {
-            toProcess = new HashSet<ClusteredSession<? extends OutgoingDistributableSessionData>>(sessions);
-            sessions.clear();
+    void replicate(int maxBatchSize) {
+        // Sessions queued from here on schedule us again
+        scheduled.set(false);
+
+        List<ClusteredSession<? extends OutgoingDistributableSessionData>> toProcess = new ArrayList<ClusteredSession<? extends OutgoingDistributableSessionData>>();
+        Iterator<ClusteredSession<? extends OutgoingDistributableSessionData>> queued = sessions.iterator();
+        while (queued.hasNext() && toProcess.size() < maxBatchSize) {
+            toProcess.add(queued.next());
+            queued.remove();
         }
 
-        SessionManager mgr = getManager();
-        for (ClusteredSession<? extends OutgoingDistributableSessionData> session : toProcess) {
+        synchronized (processingLock) {
             // Confirm we haven't been stopped
             if (!processingAllowed)
-                break;
+                return;
 
+            Thread thread = Thread.currentThread();
+            ClassLoader original = thread.getContextClassLoader();
+            thread.setContextClassLoader(classLoader);
             try {
-                mgr.storeSession(session);
+                replicatedCount.addAndGet(getManager().storeSessions(toProcess));
             } catch (Exception e) {
-                getLog().error("Caught exception processing session " + session.getRealId(), e);
+                getLog().error("Caught exception processing sessions", e);
+            } finally {
+                thread.setContextClassLoader(original);
             }
         }
-    }
 
-    /**
-     * Start the snapshot manager
-     */
-    @Override
-    public void start() {
-        processingAllowed = true;
-        startThread();
+        if (!sessions.isEmpty() && scheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this, 0);
+        }
     }
 
     /**
-     * Stop the snapshot manager
+     * Gets the number of modified sessions waiting to be distributed
      */
-    @Override
-    public void stop() {
-        processingAllowed = false;
-        stopThread();
-        synchronized (sessions) {
-            sessions.clear();
-        }
+    public int getQueuedSessionCount() {
+        return sessions.size();
     }
 
     /**
-     * Start the distributor thread
+     * Gets the number of sessions distributed since the snapshot manager was started
      */
-    protected void startThread() {
-        if (thread != null) {
-            return;
-        }
-
-        thread = new Thread(this, "ClusteredSessionDistributor[" + getContextPath() + "]");
-        thread.setDaemon(true);
-        thread.setContextClassLoader(getManager().getContainer().getLoader().getClassLoader());
-        threadDone = false;
-        thread.start();
+    public long getReplicatedSessionCount() {
+        return replicatedCount.get();
     }
 
     /**
-     * Stop the distributor thread
+     * Start the snapshot manager
      */
-    protected void stopThread() {
-        boolean intr = false;
-        try {
-            if (thread == null) {
-                return;
-            }
-            threadDone = true;
-            thread.interrupt();
-            try {
-                thread.join();
-            } catch (InterruptedException e) {
-                intr = true;
-            }
-            thread = null;
-        } finally {
-            if (intr)
-                Thread.currentThread().interrupt();
-        }
+    @Override
+    public void start() {
+        classLoader = getManager().getContainer().getLoader().getClassLoader();
+        processingAllowed = true;
+        scheduler.register(this);
     }
 
     /**
-     * Thread-loop
+     * Stop the snapshot manager
      */
     @Override
-    public void run() {
-        boolean intr = false;
-        try {
-            while (!threadDone) {
-                try {
-                    Thread.sleep(interval);
-                    processSessions();
-                } catch (InterruptedException ie) {
-                    Thread.currentThread().interrupt();
-                    if (!threadDone)
-                        getLog().error("Caught exception processing sessions", ie);
-                } catch (Exception e) {
-                    getLog().error("Caught exception processing sessions", e);
-                }
-            }
-        } finally {
-            if (intr)
-                Thread.currentThread().interrupt();
+    public void stop() {
+        synchronized (processingLock) {
+            // Wait for any distribution in progress
+            processingAllowed = false;
         }
+        scheduler.unregister(this);
+        scheduled.set(false);
+        sessions.clear();
+        classLoader = null;
     }
 }
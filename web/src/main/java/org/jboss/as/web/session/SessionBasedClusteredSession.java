@@ -22,7 +22,9 @@
 package org.jboss.as.web.session;
 
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 import org.jboss.as.clustering.web.DistributableSessionMetadata;
 import org.jboss.as.clustering.web.OutgoingSessionGranularitySessionData;
@@ -31,6 +33,11 @@ import org.jboss.as.clustering.web.OutgoingSessionGranularitySessionData;
  * Implementation of a ClusteredSession where the replication granularity level is session based; that is, we replicate the
  * entire attribute map whenever a request makes any attribute dirty.
  * <p/>
+ * If the <code>jboss.web.clustered.session.full-replication-interval</code> system property is set to a positive number,
+ * only the attributes that were modified or removed are replicated instead, and the entire attribute map only every that
+ * many replications, or when it has to be for other reasons such as failover. This trades the sharing of object
+ * references between attributes, which SESSION granularity otherwise preserves across replications, for less traffic.
+ * <p/>
  * Note that the isolation level of the cache dictates the concurrency behavior.
  * </p>
  *
@@ -47,6 +54,19 @@ class SessionBasedClusteredSession extends ClusteredSession<OutgoingSessionGranu
      */
     protected static final String info = "SessionBasedClusteredSession/1.0";
 
+    /**
+     * The number of replications of the modified attributes after which the entire attribute map is replicated again, or
+     * zero or less to always replicate the entire attribute map.
+     */
+    static final int FULL_REPLICATION_INTERVAL = Integer.getInteger("jboss.web.clustered.session.full-replication-interval", 0).intValue();
+
+    // Transient set to store names of attr changes for replication.
+    private transient Set<String> attrModifiedSet_ = new HashSet<String>();
+    // Transient set to store attr removals for replication
+    private transient Set<String> attrRemovedSet_ = new HashSet<String>();
+    // Number of replications since the entire attribute map was replicated
+    private transient int deltaReplications;
+
     // ----------------------------------------------------------- Constructors
 
     public SessionBasedClusteredSession(ClusteredSessionManager<OutgoingSessionGranularitySessionData> manager) {
@@ -60,24 +80,84 @@ class SessionBasedClusteredSession extends ClusteredSession<OutgoingSessionGranu
         return (info);
     }
 
+    /**
+     * Override the superclass to additionally reset this class' fields.
+     */
+    @Override
+    public void recycle() {
+        super.recycle();
+
+        clearAttrChangedSets();
+    }
+
     @Override
     protected OutgoingSessionGranularitySessionData getOutgoingSessionData() {
-        Map<String, Object> attrs = isSessionAttributeMapDirty() ? getSessionAttributeMap() : null;
+        Map<String, Object> attrs = null;
+        Map<String, Object> modAttrs = null;
+        Set<String> removeAttrs = null;
+        if (isSessionAttributeMapDirty()) {
+            if (FULL_REPLICATION_INTERVAL > 0 && !isFullReplicationNeeded() && deltaReplications < FULL_REPLICATION_INTERVAL) {
+                deltaReplications += 1;
+                synchronized (this) {
+                    Map<String, Object> attributes = getAttributesInternal();
+                    for (String name : attrModifiedSet_) {
+                        // An attribute that was read while not set has nothing to replicate
+                        Object value = attributes.get(name);
+                        if (value != null) {
+                            if (modAttrs == null) {
+                                modAttrs = new HashMap<String, Object>();
+                            }
+                            modAttrs.put(name, value);
+                        }
+                    }
+                    if (attrRemovedSet_.size() > 0) {
+                        removeAttrs = new HashSet<String>(attrRemovedSet_);
+                    }
+                }
+            } else {
+                deltaReplications = 0;
+                attrs = getSessionAttributeMap();
+            }
+            clearAttrChangedSets();
+        }
         DistributableSessionMetadata metadata = isSessionMetadataDirty() ? getSessionMetadata() : null;
-        Long timestamp = attrs != null || metadata != null || getMustReplicateTimestamp() ? Long.valueOf(getSessionTimestamp())
+        Long timestamp = attrs != null || modAttrs != null || removeAttrs != null || metadata != null || getMustReplicateTimestamp() ? Long.valueOf(getSessionTimestamp())
                 : null;
-        return new OutgoingData(getRealId(), getVersion(), timestamp, metadata, attrs);
+        return new OutgoingData(getRealId(), getVersion(), timestamp, metadata, attrs, modAttrs, removeAttrs);
+    }
+
+    @Override
+    protected Object getAttributeInternal(String name) {
+        Object result = getAttributesInternal().get(name);
+
+        // Do dirty check even if result is null, as w/ SET_AND_GET null
+        // still makes us dirty (ensures timely replication w/o using ACCESS)
+        if (isGetDirty(result)) {
+            if (FULL_REPLICATION_INTERVAL > 0 && !replicationExcludes.contains(name)) {
+                attributeChanged(name, false);
+            }
+            sessionAttributesDirty();
+        }
+
+        return result;
     }
 
     @Override
     protected Object removeAttributeInternal(String name, boolean localCall, boolean localOnly) {
-        if (localCall)
+        if (localCall) {
+            if (FULL_REPLICATION_INTERVAL > 0 && !replicationExcludes.contains(name)) {
+                attributeChanged(name, true);
+            }
             sessionAttributesDirty();
+        }
         return getAttributesInternal().remove(name);
     }
 
     @Override
     protected Object setAttributeInternal(String name, Object value) {
+        if (FULL_REPLICATION_INTERVAL > 0 && !replicationExcludes.contains(name)) {
+            attributeChanged(name, false);
+        }
         sessionAttributesDirty();
         return getAttributesInternal().put(name, value);
     }
@@ -90,21 +170,50 @@ class SessionBasedClusteredSession extends ClusteredSession<OutgoingSessionGranu
         return attrs;
     }
 
+    private synchronized void attributeChanged(String name, boolean removal) {
+        if (removal) {
+            attrModifiedSet_.remove(name);
+            attrRemovedSet_.add(name);
+        } else {
+            attrRemovedSet_.remove(name);
+            attrModifiedSet_.add(name);
+        }
+    }
+
+    private synchronized void clearAttrChangedSets() {
+        attrRemovedSet_.clear();
+        attrModifiedSet_.clear();
+    }
+
     // ----------------------------------------------------------------- Classes
 
     private static class OutgoingData extends OutgoingDistributableSessionDataImpl implements
             OutgoingSessionGranularitySessionData {
         private final Map<String, Object> attributes;
+        private final Map<String, Object> modifiedAttributes;
+        private final Set<String> removedAttributes;
 
         public OutgoingData(String realId, int version, Long timestamp, DistributableSessionMetadata metadata,
-                Map<String, Object> attributes) {
+                Map<String, Object> attributes, Map<String, Object> modifiedAttributes, Set<String> removedAttributes) {
             super(realId, version, timestamp, metadata);
             this.attributes = attributes;
+            this.modifiedAttributes = modifiedAttributes;
+            this.removedAttributes = removedAttributes;
         }
 
         @Override
         public Map<String, Object> getSessionAttributes() {
             return attributes;
         }
+
+        @Override
+        public Map<String, Object> getModifiedSessionAttributes() {
+            return modifiedAttributes;
+        }
+
+        @Override
+        public Set<String> getRemovedSessionAttributes() {
+            return removedAttributes;
+        }
     }
 }
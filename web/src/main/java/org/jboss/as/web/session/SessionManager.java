@@ -21,6 +21,7 @@
  */
 package org.jboss.as.web.session;
 
+import java.util.Collection;
 import java.util.Map;
 
 import javax.servlet.http.HttpServletResponse;
@@ -72,6 +73,14 @@ public interface SessionManager extends Manager {
      */
     boolean storeSession(Session session);
 
+    /**
+     * Store a number of modified sessions together, in a single batch if the manager supports batching.
+     *
+     * @param sessions
+     * @return the number of sessions that were stored
+     */
+    int storeSessions(Collection<? extends Session> sessions);
+
     Map.Entry<String, String> parse(String sessionId);
 
     String createSessionId(String realId, String jvmRoute);
@@ -0,0 +1,131 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web.session;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.jboss.logging.Logger;
+
+/**
+ * Replicates the sessions queued by the {@link IntervalSnapshotManager}s of all web applications, from a single thread.
+ * <p/>
+ * A snapshot manager is scheduled when a session is queued while none is, and is due after its snapshot interval. On
+ * each tick, every snapshot manager that is due stores its queued sessions, at most {@link #MAX_BATCH_SIZE_PROPERTY a
+ * maximum number} of them in a single batch. A snapshot manager with sessions left over is due again right away.
+ */
+final class SessionReplicationScheduler {
+    /** The system property that sets the maximum number of sessions stored in a single batch */
+    static final String MAX_BATCH_SIZE_PROPERTY = "jboss.web.clustered.session.replication.max-batch-size";
+
+    private static final Logger log = Logger.getLogger(SessionReplicationScheduler.class);
+
+    private static final SessionReplicationScheduler instance = new SessionReplicationScheduler(Integer.getInteger(MAX_BATCH_SIZE_PROPERTY, 1000));
+
+    private final int maxBatchSize;
+    /** The time each scheduled snapshot manager is due */
+    private final ConcurrentMap<IntervalSnapshotManager, Long> due = new ConcurrentHashMap<IntervalSnapshotManager, Long>();
+    private final Runnable tick = new Runnable() {
+        @Override
+        public void run() {
+            tick();
+        }
+    };
+
+    // guarded by this
+    private ScheduledExecutorService executor;
+    private int registered;
+
+    static SessionReplicationScheduler getInstance() {
+        return instance;
+    }
+
+    /**
+     * @param maxBatchSize the maximum number of sessions a snapshot manager stores in a single batch, or zero or less
+     *        for no limit
+     */
+    SessionReplicationScheduler(int maxBatchSize) {
+        this.maxBatchSize = (maxBatchSize > 0) ? maxBatchSize : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Register a started snapshot manager. The replication thread runs while any snapshot manager is registered.
+     */
+    synchronized void register(IntervalSnapshotManager manager) {
+        if (this.registered++ == 0) {
+            this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "ClusteredSessionDistributor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
+    /**
+     * Unregister a stopped snapshot manager, which is no longer scheduled.
+     */
+    synchronized void unregister(IntervalSnapshotManager manager) {
+        this.due.remove(manager);
+        if (--this.registered == 0) {
+            this.executor.shutdown();
+            this.executor = null;
+        }
+    }
+
+    /**
+     * Schedule a snapshot manager to store its queued sessions.
+     *
+     * @param manager the snapshot manager
+     * @param delay the time in milliseconds after which the manager is due
+     */
+    synchronized void schedule(IntervalSnapshotManager manager, long delay) {
+        if (this.executor == null) {
+            return;
+        }
+        this.due.put(manager, Long.valueOf(System.currentTimeMillis() + delay));
+        this.executor.schedule(this.tick, delay, TimeUnit.MILLISECONDS);
+    }
+
+    void tick() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<IntervalSnapshotManager, Long> entry : this.due.entrySet()) {
+            IntervalSnapshotManager manager = entry.getKey();
+            // A manager that was rescheduled meanwhile is left for its own tick
+            if (entry.getValue().longValue() <= now && this.due.remove(manager, entry.getValue())) {
+                try {
+                    manager.replicate(this.maxBatchSize);
+                } catch (Exception e) {
+                    log.error("Caught exception processing sessions", e);
+                }
+            }
+        }
+    }
+}
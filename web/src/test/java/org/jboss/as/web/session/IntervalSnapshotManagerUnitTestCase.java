@@ -0,0 +1,152 @@
+/*
+ * JBoss, Home of Professional Open Source.
+ * Copyright 2011, Red Hat, Inc., and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org.
+ */
+
+package org.jboss.as.web.session;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.catalina.Container;
+import org.apache.catalina.Session;
+import org.jboss.as.web.session.mocks.MockClusteredSessionManager;
+import org.jboss.as.web.session.mocks.MockContainer;
+import org.jboss.as.web.session.mocks.MockSession;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests of the IntervalSnapshotManager and the SessionReplicationScheduler.
+ */
+public class IntervalSnapshotManagerUnitTestCase {
+
+    private final SessionReplicationScheduler scheduler = new SessionReplicationScheduler(2);
+    private RecordingSessionManager manager;
+    private IntervalSnapshotManager snapshotManager;
+
+    @Before
+    public void setUp() {
+        manager = new RecordingSessionManager();
+        snapshotManager = new IntervalSnapshotManager(manager, "/test", 50, scheduler);
+        snapshotManager.start();
+    }
+
+    @After
+    public void tearDown() {
+        snapshotManager.stop();
+    }
+
+    @Test
+    public void testSessionsReplicatedInBatches() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            snapshotManager.snapshot((MockSession) manager.createSession("session" + i));
+        }
+        assertEquals(5, snapshotManager.getQueuedSessionCount());
+
+        waitForReplicated(5);
+        assertEquals(0, snapshotManager.getQueuedSessionCount());
+        assertEquals(Arrays.asList(2, 2, 1), manager.getBatchSizes());
+    }
+
+    @Test
+    public void testSessionQueuedOnce() throws Exception {
+        MockSession session = (MockSession) manager.createSession("session");
+        for (int i = 0; i < 3; i++) {
+            snapshotManager.snapshot(session);
+        }
+        assertEquals(1, snapshotManager.getQueuedSessionCount());
+
+        waitForReplicated(1);
+        assertEquals(Arrays.asList(1), manager.getBatchSizes());
+    }
+
+    @Test
+    public void testManagersShareScheduler() throws Exception {
+        RecordingSessionManager otherManager = new RecordingSessionManager();
+        IntervalSnapshotManager otherSnapshotManager = new IntervalSnapshotManager(otherManager, "/other", 50, scheduler);
+        otherSnapshotManager.start();
+        try {
+            snapshotManager.snapshot((MockSession) manager.createSession("session"));
+            otherSnapshotManager.snapshot((MockSession) otherManager.createSession("session"));
+
+            waitForReplicated(1);
+            long deadline = System.currentTimeMillis() + 5000;
+            while (otherSnapshotManager.getReplicatedSessionCount() < 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, otherSnapshotManager.getReplicatedSessionCount());
+        } finally {
+            otherSnapshotManager.stop();
+        }
+    }
+
+    @Test
+    public void testStoppedManagerDropsQueuedSessions() throws Exception {
+        snapshotManager.snapshot((MockSession) manager.createSession("session"));
+        snapshotManager.stop();
+        assertEquals(0, snapshotManager.getQueuedSessionCount());
+
+        Thread.sleep(200);
+        assertEquals(0, snapshotManager.getReplicatedSessionCount());
+        assertEquals(Collections.emptyList(), manager.getBatchSizes());
+
+        // restart, so that tearDown() can stop it again
+        snapshotManager.start();
+    }
+
+    private void waitForReplicated(long count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (snapshotManager.getReplicatedSessionCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, snapshotManager.getReplicatedSessionCount());
+    }
+
+    static class RecordingSessionManager extends MockClusteredSessionManager {
+        private final Container container = new MockContainer();
+        private final List<Integer> batchSizes = new ArrayList<Integer>();
+
+        @Override
+        public Container getContainer() {
+            return container;
+        }
+
+        @Override
+        public int storeSessions(Collection<? extends Session> sessions) {
+            synchronized (batchSizes) {
+                batchSizes.add(sessions.size());
+            }
+            return sessions.size();
+        }
+
+        List<Integer> getBatchSizes() {
+            synchronized (batchSizes) {
+                return new ArrayList<Integer>(batchSizes);
+            }
+        }
+    }
+}
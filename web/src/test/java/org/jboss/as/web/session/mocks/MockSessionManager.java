@@ -23,6 +23,7 @@
 package org.jboss.as.web.session.mocks;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Random;
 
 import org.apache.catalina.Session;
@@ -62,6 +63,10 @@ public class MockSessionManager extends AbstractSessionManager {
         return false;
     }
 
+    public int storeSessions(Collection<? extends Session> sessions) {
+        return 0;
+    }
+
     public void add(Session session) {
         // no-op
     }